@@ -0,0 +1,166 @@
+package Pet.Society.benchmarks;
+
+import Pet.Society.models.dto.appointment.AppointmentResponseDTO;
+import Pet.Society.models.dto.appointment.AppointmentStatsDTO;
+import Pet.Society.models.dto.appointment.AvailabilityUploadResultDTO;
+import Pet.Society.models.dto.appointment.AvailableAppointmentDTO;
+import Pet.Society.models.dto.doctor.DoctorAvailabilityDTO;
+import Pet.Society.models.entities.AppointmentEntity;
+import Pet.Society.models.entities.DoctorEntity;
+import Pet.Society.models.enums.Reason;
+import Pet.Society.models.enums.Status;
+import Pet.Society.repositories.AppointmentRepository;
+import Pet.Society.services.AppointmentIntervalIndex;
+import Pet.Society.services.AppointmentService;
+import Pet.Society.services.DoctorService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caminos calientes de AppointmentService contra la aplicación cargada por SeededApplication.
+ * La carga de disponibilidad corre dentro de una transacción que se descarta, así cada invocación ve la misma tabla.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class AppointmentServiceBenchmark {
+
+    @Param("100")
+    public int doctors;
+
+    @Param("1000000")
+    public int appointments;
+
+    private SeededApplication application;
+    private AppointmentService appointmentService;
+    private AppointmentRepository appointmentRepository;
+    private AppointmentIntervalIndex intervalIndex;
+    private TransactionTemplate transactionTemplate;
+
+    // Un día completo de turnos por doctor, ya ocupado en la tabla: el peor caso del chequeo en lote
+    private List<List<AppointmentEntity>> proposedDayByDoctor;
+    private DoctorAvailabilityDTO uploadWeek;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        application = SeededApplication.start(doctors, appointments);
+        appointmentService = application.getBean(AppointmentService.class);
+        appointmentRepository = application.getBean(AppointmentRepository.class);
+        intervalIndex = application.getBean(AppointmentIntervalIndex.class);
+        transactionTemplate = new TransactionTemplate(application.getBean(PlatformTransactionManager.class));
+
+        DoctorService doctorService = application.getBean(DoctorService.class);
+        LocalDate busyDay = application.getFirstDay().plusDays(
+                (application.getLastDay().toEpochDay() - application.getFirstDay().toEpochDay()) / 2);
+        proposedDayByDoctor = new ArrayList<>();
+        for (int d = 0; d < doctors; d++) {
+            DoctorEntity doctor = doctorService.findById1(application.doctorId(d));
+            List<AppointmentEntity> proposed = new ArrayList<>();
+            for (int s = 0; s < SeededApplication.SLOTS_PER_DAY; s++) {
+                LocalDateTime start = busyDay.atTime(SeededApplication.DAY_START)
+                        .plusMinutes((long) s * SeededApplication.SLOT_MINUTES);
+                proposed.add(AppointmentEntity.builder()
+                        .startDate(start)
+                        .endDate(start.plusMinutes(SeededApplication.SLOT_MINUTES))
+                        .reason(Reason.CONTROL)
+                        .doctor(doctor)
+                        .status(Status.AVAILABLE)
+                        .build());
+            }
+            proposedDayByDoctor.add(proposed);
+        }
+
+        // Una semana libre después del último día cargado, de 08:00 a 20:00
+        LocalDate uploadFrom = application.getLastDay().plusDays(30);
+        uploadWeek = DoctorAvailabilityDTO.builder()
+                .start(uploadFrom.atStartOfDay())
+                .end(uploadFrom.plusDays(7).atStartOfDay())
+                .reason(Reason.CONTROL)
+                .minHour("08:00")
+                .maxHour("20:00")
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        application.close();
+    }
+
+    private int randomDoctor() {
+        return ThreadLocalRandom.current().nextInt(doctors);
+    }
+
+    @Benchmark
+    public AvailabilityUploadResultDTO uploadAvailabilityWeek() {
+        long doctorId = application.doctorId(randomDoctor());
+        return transactionTemplate.execute(status -> {
+            AvailabilityUploadResultDTO result = appointmentService.uploadAvailibility(doctorId, uploadWeek);
+            status.setRollbackOnly();
+            return result;
+        });
+    }
+
+    @Benchmark
+    public List<AppointmentEntity> overlapCheckDayIndexed() {
+        List<AppointmentEntity> proposed = proposedDayByDoctor.get(randomDoctor());
+        return appointmentService.findOverlappingSlots(proposed.get(0).getDoctor(), proposed);
+    }
+
+    @Benchmark
+    public boolean overlapCheckSingleIndexed() {
+        AppointmentEntity slot = randomProposedSlot();
+        return !intervalIndex.findOverlappingIds(slot.getDoctor().getId(), slot.getStartDate(), slot.getEndDate(), null).isEmpty();
+    }
+
+    @Benchmark
+    public boolean overlapCheckSingleDatabase() {
+        AppointmentEntity slot = randomProposedSlot();
+        return appointmentRepository.existsOverlapping(slot.getDoctor().getId(), slot.getStartDate(), slot.getEndDate());
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<AppointmentResponseDTO> getAllAppointments() {
+        return appointmentService.getAllAppointmets();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public AppointmentStatsDTO getAdminStats() {
+        return appointmentService.getAdminStats();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<AvailableAppointmentDTO> getAvailableAppointmentsByReason() {
+        return appointmentService.getAvailableAppointmentsByReason(Reason.CONTROL);
+    }
+
+    private AppointmentEntity randomProposedSlot() {
+        List<AppointmentEntity> proposed = proposedDayByDoctor.get(randomDoctor());
+        return proposed.get(ThreadLocalRandom.current().nextInt(proposed.size()));
+    }
+}
@@ -0,0 +1,140 @@
+package Pet.Society.benchmarks;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Prueba de carga de /appointment/available/reason/{reason}/date contra una instancia ya levantada,
+ * para comparar el modo de hilos de plataforma con el de hilos virtuales (spring.threads.virtual.enabled).
+ * Se corre una vez por modo, con la app apuntando a la misma base MySQL:
+ *   mvn -B -f benchmarks/pom.xml package exec:exec@load-test -Dload.args="http://localhost:8080 platform 400 60"
+ *   mvn -B -f benchmarks/pom.xml package exec:exec@load-test -Dload.args="http://localhost:8080 virtual 400 60"
+ * Argumentos: URL base, etiqueta, clientes concurrentes, segundos de medición (más 10 de calentamiento).
+ * Cada corrida deja su resumen en target/load-{etiqueta}.json.
+ */
+public class AvailableSlotsLoadTest {
+
+    private static final String[] REASONS = {"CONTROL", "EMERGENCY", "VACCINATION", "NUTRITION"};
+    private static final int WARMUP_SECONDS = 10;
+    // Días hacia adelante que se consultan al azar
+    private static final int DAYS_AHEAD = 30;
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = args.length > 0 ? args[0] : "http://localhost:8080";
+        String label = args.length > 1 ? args[1] : "run";
+        int clients = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+        int seconds = args.length > 3 ? Integer.parseInt(args[3]) : 60;
+
+        HttpClient http = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+
+        System.out.printf("Calentando %ds con %d clientes contra %s%n", WARMUP_SECONDS, clients, baseUrl);
+        run(http, baseUrl, clients, WARMUP_SECONDS);
+
+        System.out.printf("Midiendo %ds (%s)%n", seconds, label);
+        Result result = run(http, baseUrl, clients, seconds);
+
+        String json = result.toJson(label, clients, seconds);
+        Path output = Path.of("target", "load-" + label + ".json");
+        Files.createDirectories(output.getParent());
+        Files.writeString(output, json);
+        System.out.println(json);
+    }
+
+    private static Result run(HttpClient http, String baseUrl, int clients, int seconds) throws Exception {
+        long deadline = System.nanoTime() + Duration.ofSeconds(seconds).toNanos();
+        List<Future<Worker>> futures = new ArrayList<>();
+        // Un hilo virtual por cliente: el generador no debe ser el cuello de botella
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < clients; i++) {
+                futures.add(executor.submit(() -> new Worker().loop(http, baseUrl, deadline)));
+            }
+        }
+        Result result = new Result();
+        for (Future<Worker> future : futures) {
+            result.add(future.get());
+        }
+        return result;
+    }
+
+    private static final class Worker {
+        private long[] latencies = new long[1024];
+        private int count;
+        private int errors;
+
+        Worker loop(HttpClient http, String baseUrl, long deadline) {
+            while (System.nanoTime() < deadline) {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                LocalDate date = LocalDate.now().plusDays(random.nextInt(DAYS_AHEAD));
+                URI uri = URI.create(baseUrl + "/appointment/available/reason/"
+                        + REASONS[random.nextInt(REASONS.length)] + "/date?date=" + date);
+                HttpRequest request = HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(30)).GET().build();
+                long start = System.nanoTime();
+                try {
+                    HttpResponse<Void> response = http.send(request, HttpResponse.BodyHandlers.discarding());
+                    if (response.statusCode() != 200) {
+                        errors++;
+                        continue;
+                    }
+                } catch (IOException e) {
+                    errors++;
+                    continue;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+                if (count == latencies.length) {
+                    latencies = Arrays.copyOf(latencies, count * 2);
+                }
+                latencies[count++] = System.nanoTime() - start;
+            }
+            return this;
+        }
+    }
+
+    private static final class Result {
+        private long[] latencies = new long[0];
+        private int errors;
+
+        void add(Worker worker) {
+            int offset = latencies.length;
+            latencies = Arrays.copyOf(latencies, offset + worker.count);
+            System.arraycopy(worker.latencies, 0, latencies, offset, worker.count);
+            errors += worker.errors;
+        }
+
+        String toJson(String label, int clients, int seconds) {
+            Arrays.sort(latencies);
+            return String.format(Locale.ROOT,
+                    "{\"label\":\"%s\",\"clients\":%d,\"seconds\":%d,\"requests\":%d,\"errors\":%d," +
+                            "\"throughputPerSecond\":%.1f,\"latencyMs\":{\"p50\":%.2f,\"p90\":%.2f,\"p99\":%.2f,\"max\":%.2f}}",
+                    label, clients, seconds, latencies.length, errors, (double) latencies.length / seconds,
+                    percentile(0.50), percentile(0.90), percentile(0.99), percentile(1.0));
+        }
+
+        private double percentile(double p) {
+            if (latencies.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(p * latencies.length) - 1;
+            return latencies[Math.max(0, index)] / 1_000_000.0;
+        }
+    }
+}
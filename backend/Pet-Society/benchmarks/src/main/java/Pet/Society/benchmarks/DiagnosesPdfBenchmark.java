@@ -0,0 +1,67 @@
+package Pet.Society.benchmarks;
+
+import Pet.Society.models.dto.diagnoses.DiagnosesDTOResponse;
+import Pet.Society.models.enums.PetType;
+import Pet.Society.models.enums.Reason;
+import Pet.Society.services.DiagnosesPdfGeneratorService;
+import com.github.javafaker.Faker;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Armado del PDF de un diagnóstico con textos de largo parecido a los reales.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DiagnosesPdfBenchmark {
+
+    // Oraciones del diagnóstico y del tratamiento
+    @Param({"5", "50"})
+    public int sentences;
+
+    private DiagnosesPdfGeneratorService pdfGenerator;
+    private DiagnosesDTOResponse diagnosis;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        pdfGenerator = new DiagnosesPdfGeneratorService();
+        Faker faker = new Faker(new Locale("es"), new Random(42));
+        diagnosis = DiagnosesDTOResponse.builder()
+                .id(1L)
+                .diagnose(faker.lorem().paragraph(sentences))
+                .treatment(faker.lorem().paragraph(sentences))
+                .doctorName(faker.name().fullName())
+                .petName(faker.dog().name())
+                .petType(PetType.DOG)
+                .appointmentReason(Reason.CONTROL)
+                .date(LocalDateTime.of(2025, 3, 14, 10, 30))
+                .build();
+    }
+
+    @Benchmark
+    public byte[] generatePdf() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        pdfGenerator.generate(diagnosis, out);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,80 @@
+package Pet.Society.benchmarks;
+
+import Pet.Society.services.EmailTemplates;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Armado del email de verificación (el camino que usan también los envíos masivos).
+ * - formattedTextBlock: como antes de EmailTemplates, String.formatted sobre el html completo.
+ * - render: subject + html + texto plano con las plantillas compiladas.
+ * - renderHtmlReusingBuffer: solo el html, reusando el StringBuilder entre envíos.
+ * Resultados en emails por milisegundo.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EmailTemplateBenchmark {
+
+    private static final String FRONTEND_URL = "http://localhost:4200";
+    private static final Locale SPANISH = Locale.forLanguageTag("es-AR");
+
+    private EmailTemplates templates;
+    private String textBlock;
+    private Map<String, String> variables;
+    private String userName;
+    private String token;
+    private final StringBuilder buffer = new StringBuilder();
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        templates = new EmailTemplates(
+                new PathMatchingResourcePatternResolver().getResources("classpath*:templates/email/*.*"),
+                Map.of("frontendUrl", FRONTEND_URL));
+        textBlock = new ClassPathResource("templates/email/email-verification.html")
+                .getContentAsString(StandardCharsets.UTF_8)
+                .replace("{{frontendUrl}}", FRONTEND_URL)
+                .replace("{{userName}}", "%s")
+                .replace("{{token}}", "%s");
+        userName = "Ana";
+        token = UUID.randomUUID().toString();
+        variables = Map.of("userName", userName, "token", token);
+    }
+
+    @Benchmark
+    public String formattedTextBlock() {
+        return textBlock.formatted(userName, token, token);
+    }
+
+    @Benchmark
+    public EmailTemplates.RenderedEmail render() {
+        return templates.render("email-verification", SPANISH, variables);
+    }
+
+    @Benchmark
+    public int renderHtmlReusingBuffer() {
+        buffer.setLength(0);
+        templates.renderTo("email-verification", EmailTemplates.Part.HTML, SPANISH, variables, buffer);
+        return buffer.length();
+    }
+}
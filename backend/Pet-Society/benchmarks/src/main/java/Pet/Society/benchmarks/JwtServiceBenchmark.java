@@ -0,0 +1,99 @@
+package Pet.Society.benchmarks;
+
+import Pet.Society.models.dto.auth.JwtClaims;
+import Pet.Society.models.entities.ClientEntity;
+import Pet.Society.models.entities.CredentialEntity;
+import Pet.Society.models.enums.Role;
+import Pet.Society.models.enums.TokenPurpose;
+import Pet.Society.services.JwtService;
+import com.github.javafaker.Faker;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Emisión y verificación de tokens en JwtService (lo que hace JwtAuthFilter en cada request).
+ * Solo levanta el bean de JwtService, sin base de datos.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtServiceBenchmark {
+
+    private AnnotationConfigApplicationContext context;
+    private JwtService jwtService;
+    private CredentialEntity user;
+    private String accessToken;
+    private String tamperedToken;
+    private String verificationToken;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new AnnotationConfigApplicationContext();
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("benchmark",
+                Map.of("jwt.secret", "clave-de-benchmark-con-al-menos-32-bytes-de-largo")));
+        context.register(JwtService.class);
+        context.refresh();
+        jwtService = context.getBean(JwtService.class);
+
+        Faker faker = new Faker(new Locale("es"), new Random(42));
+        // Cliente, para que el token lleve también los claims userId y clientId
+        user = CredentialEntity.builder()
+                .username(faker.internet().emailAddress())
+                .password("x")
+                .role(Role.CLIENT)
+                .user(ClientEntity.builder().id(faker.number().numberBetween(1L, 100_000L)).build())
+                .build();
+        accessToken = jwtService.generateToken(user);
+        verificationToken = jwtService.generateEmailVerificationToken(user.getUsername());
+
+        // Misma cabecera y payload, firma alterada en el último carácter
+        char last = accessToken.charAt(accessToken.length() - 1);
+        tamperedToken = accessToken.substring(0, accessToken.length() - 1) + (last == 'A' ? 'B' : 'A');
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public String generateAccessToken() {
+        return jwtService.generateToken(user);
+    }
+
+    @Benchmark
+    public Optional<JwtClaims> parseValidAccessToken() {
+        return jwtService.parse(accessToken, TokenPurpose.ACCESS);
+    }
+
+    @Benchmark
+    public Optional<JwtClaims> parseTamperedToken() {
+        return jwtService.parse(tamperedToken, TokenPurpose.ACCESS);
+    }
+
+    @Benchmark
+    public Optional<JwtClaims> parseTokenWithWrongPurpose() {
+        return jwtService.parse(verificationToken, TokenPurpose.ACCESS);
+    }
+}
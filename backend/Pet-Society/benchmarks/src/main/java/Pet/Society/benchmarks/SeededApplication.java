@@ -0,0 +1,190 @@
+package Pet.Society.benchmarks;
+
+import Pet.Society.PetSocietyApplication;
+import Pet.Society.models.enums.PetType;
+import Pet.Society.models.enums.Reason;
+import Pet.Society.models.enums.Speciality;
+import Pet.Society.models.enums.Status;
+import Pet.Society.services.AppointmentIntervalIndex;
+import Pet.Society.services.AvailabilityCalendarService;
+import com.github.javafaker.Faker;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Levanta la aplicación completa sobre H2 (modo MySQL, con las migraciones de Flyway) y la carga con datos de Faker.
+ * Los turnos van de 08:00 a 20:00 cada 15 minutos, repartidos entre los doctores:
+ * la mitad ya pasó (atendidos o cancelados) y la otra mitad está libre o reservada.
+ * Los jobs en segundo plano quedan apagados para que no compitan con la medición.
+ */
+public final class SeededApplication {
+
+    public static final ZoneId ARGENTINA_ZONE = ZoneId.of("America/Argentina/Buenos_Aires");
+    public static final LocalTime DAY_START = LocalTime.of(8, 0);
+    public static final LocalTime DAY_END = LocalTime.of(20, 0);
+    public static final int SLOT_MINUTES = 15;
+    public static final int SLOTS_PER_DAY = 48;
+
+    private static final int CLIENTS_PER_DOCTOR = 100;
+    private static final int BATCH_SIZE = 5000;
+    private static final long SEED = 42;
+
+    private final ConfigurableApplicationContext context;
+    private final int doctors;
+    private final LocalDate firstDay;
+    private final LocalDate lastDay;
+
+    private SeededApplication(ConfigurableApplicationContext context, int doctors, LocalDate firstDay, LocalDate lastDay) {
+        this.context = context;
+        this.doctors = doctors;
+        this.firstDay = firstDay;
+        this.lastDay = lastDay;
+    }
+
+    public static SeededApplication start(int doctors, int appointments) {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("spring.datasource.url",
+                "jdbc:h2:mem:petsociety;MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=USER,VALUE;DB_CLOSE_DELAY=-1");
+        properties.put("spring.datasource.driver-class-name", "org.h2.Driver");
+        properties.put("spring.datasource.username", "sa");
+        properties.put("spring.datasource.password", "");
+        properties.put("spring.jpa.hibernate.ddl-auto", "none");
+        properties.put("spring.jpa.show-sql", "false");
+        properties.put("spring.main.allow-circular-references", "true");
+        properties.put("spring.main.banner-mode", "off");
+        properties.put("server.port", "0");
+        properties.put("logging.level.root", "WARN");
+        properties.put("jwt.secret", "clave-de-benchmark-con-al-menos-32-bytes-de-largo");
+        properties.put("spring.mail.host", "localhost");
+        properties.put("spring.mail.username", "benchmarks@petsociety.local");
+        properties.put("appointments.expiry.enabled", "false");
+        properties.put("appointments.index.consistency-check-ms", String.valueOf(Long.MAX_VALUE / 2));
+        properties.put("email.outbox.enabled", "false");
+
+        SpringApplication application = new SpringApplication(PetSocietyApplication.class);
+        application.setDefaultProperties(properties);
+        ConfigurableApplicationContext context = application.run();
+
+        int slotsPerDoctor = Math.max(1, appointments / doctors);
+        int days = (slotsPerDoctor + SLOTS_PER_DAY - 1) / SLOTS_PER_DAY;
+        LocalDate today = ZonedDateTime.now(ARGENTINA_ZONE).toLocalDate();
+        LocalDate firstDay = today.minusDays(days / 2);
+
+        SeededApplication seeded = new SeededApplication(context, doctors, firstDay, firstDay.plusDays(days - 1));
+        seeded.seed(slotsPerDoctor);
+        return seeded;
+    }
+
+    public <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    public int getDoctors() {
+        return doctors;
+    }
+
+    // Los ids de doctores van de 1 a doctors
+    public long doctorId(int index) {
+        return index + 1L;
+    }
+
+    public LocalDate getFirstDay() {
+        return firstDay;
+    }
+
+    public LocalDate getLastDay() {
+        return lastDay;
+    }
+
+    public void close() {
+        context.close();
+    }
+
+    private void seed(int slotsPerDoctor) {
+        JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+        Faker faker = new Faker(new Locale("es"), new Random(SEED));
+        Random random = new Random(SEED);
+        int clients = doctors * CLIENTS_PER_DOCTOR;
+
+        List<Object[]> users = new ArrayList<>();
+        for (int i = 1; i <= doctors + clients; i++) {
+            users.add(new Object[]{(long) i, lettersOnly(faker.name().firstName()), lettersOnly(faker.name().lastName()),
+                    String.valueOf(10_000_000 + i), String.valueOf(2_230_000_000L + i), "user" + i + "@petsociety.local"});
+        }
+        jdbc.batchUpdate("INSERT INTO user_entity (id, name, surname, dni, phone, email, subscribed, email_verified) " +
+                "VALUES (?, ?, ?, ?, ?, ?, true, true)", users);
+
+        List<Object[]> doctorRows = new ArrayList<>();
+        for (int i = 0; i < doctors; i++) {
+            doctorRows.add(new Object[]{doctorId(i), Speciality.values()[i % Speciality.values().length].ordinal()});
+        }
+        jdbc.batchUpdate("INSERT INTO doctors (id, speciality) VALUES (?, ?)", doctorRows);
+
+        List<Object[]> clientRows = new ArrayList<>();
+        List<Object[]> petRows = new ArrayList<>();
+        for (int i = 0; i < clients; i++) {
+            long clientId = doctors + 1L + i;
+            clientRows.add(new Object[]{clientId, false});
+            petRows.add(new Object[]{(long) i + 1, lettersOnly(faker.dog().name()), 1 + random.nextInt(15),
+                    PetType.values()[random.nextInt(PetType.values().length)].name(), clientId});
+        }
+        jdbc.batchUpdate("INSERT INTO client_entity (id, foundation) VALUES (?, ?)", clientRows);
+        jdbc.batchUpdate("INSERT INTO pet_entity (pet_id, name, age, pet_type, id_cliente, active) VALUES (?, ?, ?, ?, ?, true)",
+                petRows);
+
+        LocalDateTime now = ZonedDateTime.now(ARGENTINA_ZONE).toLocalDateTime();
+        List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+        for (int d = 0; d < doctors; d++) {
+            for (int s = 0; s < slotsPerDoctor; s++) {
+                LocalDateTime start = firstDay.plusDays(s / SLOTS_PER_DAY).atTime(DAY_START)
+                        .plusMinutes((long) (s % SLOTS_PER_DAY) * SLOT_MINUTES);
+                boolean past = start.isBefore(now);
+                boolean booked = random.nextInt(10) < (past ? 8 : 4);
+                Status status = past
+                        ? (booked ? Status.SUCCESSFULLY : Status.CANCELED)
+                        : (booked ? Status.TO_BEGIN : Status.AVAILABLE);
+                Long petId = booked ? 1L + random.nextInt(clients) : null;
+                batch.add(new Object[]{Timestamp.valueOf(start), Timestamp.valueOf(start.plusMinutes(SLOT_MINUTES)),
+                        Reason.values()[random.nextInt(Reason.values().length)].ordinal(), status.ordinal(),
+                        doctorId(d), petId, booked});
+                if (batch.size() == BATCH_SIZE) {
+                    insertAppointments(jdbc, batch);
+                    batch.clear();
+                }
+            }
+        }
+        insertAppointments(jdbc, batch);
+
+        // Los datos entraron por JDBC después del arranque: se reconstruyen el índice en memoria y el calendario
+        context.getBean(AppointmentIntervalIndex.class).rebuild();
+        context.getBean(AvailabilityCalendarService.class).recount(firstDay, lastDay);
+    }
+
+    private static void insertAppointments(JdbcTemplate jdbc, List<Object[]> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        jdbc.batchUpdate("INSERT INTO appointments (start_date, end_date, reason, status, doctor_id, pet_pet_id, approved) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?)", rows);
+    }
+
+    // Las validaciones de nombre solo aceptan letras y espacios
+    private static String lettersOnly(String value) {
+        String cleaned = value.replaceAll("[^a-zA-ZáéíóúÁÉÍÓÚñÑüÜ\\s-]", "");
+        return cleaned.length() < 2 ? "Nombre" : cleaned;
+    }
+}
@@ -0,0 +1,374 @@
+package Pet.Society.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ProblemDetail;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Límite de pedidos para los endpoints públicos caros (BCrypt, envío de emails, alta de usuarios), por IP y por
+ * cuenta (username o email del pedido). Corre antes de Spring Security y responde 429 con Retry-After.
+ * - Cada límite es un token bucket "N/duración" (ej. 5/1m: ráfaga de 5, se recupera uno cada 12 segundos).
+ *   Se implementa como GCRA: el estado del bucket es un solo long que se actualiza con CAS, sin locks.
+ * - Los buckets viven en una caché Caffeine acotada (auth.rate-limit.max-buckets), que ya está particionada
+ *   internamente; un bucket sin uso desaparece cuando ya se habría vuelto a llenar.
+ * - La IP es getRemoteAddr(): detrás de un proxy hay que activar server.forward-headers-strategy.
+ * - Por instancia: con N instancias el límite efectivo es hasta N veces mayor.
+ * Métrica: auth.rate-limit.throttled{endpoint, key=ip|account}.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 3)
+public class AuthRateLimitFilter extends OncePerRequestFilter {
+
+    // Más que esto no se lee del body para buscar la cuenta (el resto se le pasa igual al controller)
+    private static final int MAX_BODY_BYTES = 16 * 1024;
+
+    private enum AccountSource { JSON_BODY, QUERY_PARAM }
+
+    private record Rule(String endpoint, HttpMethod method, String path, AccountSource source, String field,
+                        Limit perIp, Limit perAccount) {
+    }
+
+    /**
+     * Token bucket de capacity tokens que se recarga a razón de uno cada interval.
+     */
+    record Limit(int capacity, long intervalNanos) {
+
+        static Limit parse(String spec) {
+            int slash = spec.indexOf('/');
+            if (slash <= 0) {
+                throw new IllegalArgumentException("Límite inválido (se espera N/duración, ej. 5/1m): " + spec);
+            }
+            int capacity = Integer.parseInt(spec.substring(0, slash).strip());
+            Duration period = DurationStyle.detectAndParse(spec.substring(slash + 1).strip());
+            if (capacity <= 0 || period.isZero() || period.isNegative()) {
+                throw new IllegalArgumentException("Límite inválido: " + spec);
+            }
+            return new Limit(capacity, period.toNanos() / capacity);
+        }
+
+        long periodNanos() {
+            return intervalNanos * capacity;
+        }
+    }
+
+    /**
+     * GCRA: tat es el momento teórico en que el bucket vuelve a estar lleno. Un pedido entra si, sumándole un
+     * intervalo, tat no queda más de capacity intervalos en el futuro.
+     */
+    static final class Bucket {
+        private final AtomicLong tat = new AtomicLong(Long.MIN_VALUE);
+
+        /**
+         * 0 si el pedido entra; si no, cuántos nanos faltan para que haya un token.
+         */
+        long tryAcquire(Limit limit, long now) {
+            while (true) {
+                long current = tat.get();
+                long next = Math.max(current, now) + limit.intervalNanos();
+                long wait = next - now - limit.periodNanos();
+                if (wait > 0) {
+                    return wait;
+                }
+                if (tat.compareAndSet(current, next)) {
+                    return 0;
+                }
+            }
+        }
+    }
+
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final List<Rule> rules;
+    private final Cache<String, Bucket> buckets;
+    private final Map<String, Counter> throttled = new HashMap<>();
+
+    @Autowired
+    public AuthRateLimitFilter(ObjectMapper objectMapper,
+                               MeterRegistry meterRegistry,
+                               Environment environment,
+                               @Value("${auth.rate-limit.enabled:true}") boolean enabled,
+                               @Value("${auth.rate-limit.max-buckets:100000}") long maxBuckets) {
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.rules = List.of(
+                rule(environment, "login", "/auth/login", AccountSource.JSON_BODY, "username", "20/1m", "5/1m"),
+                rule(environment, "forgot-password", "/auth/forgot-password", AccountSource.JSON_BODY, "email", "5/1m", "3/15m"),
+                rule(environment, "resend-verification", "/auth/resend-verification-email", AccountSource.QUERY_PARAM, "username", "5/1m", "3/15m"),
+                rule(environment, "register", "/register/new/client", AccountSource.JSON_BODY, "email", "10/1h", "3/1h"));
+
+        long longestPeriod = rules.stream()
+                .flatMap(rule -> Stream.of(rule.perIp(), rule.perAccount()))
+                .mapToLong(Limit::periodNanos)
+                .max().orElse(TimeUnit.HOURS.toNanos(1));
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxBuckets)
+                .expireAfterAccess(Duration.ofNanos(longestPeriod))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, buckets, "auth.rate-limit.buckets");
+
+        for (Rule rule : rules) {
+            for (String key : List.of("ip", "account")) {
+                throttled.put(rule.endpoint() + ":" + key, Counter.builder("auth.rate-limit.throttled")
+                        .description("Pedidos rechazados con 429 por el límite de endpoints públicos")
+                        .tag("endpoint", rule.endpoint())
+                        .tag("key", key)
+                        .register(meterRegistry));
+            }
+        }
+    }
+
+    private static Rule rule(Environment environment, String endpoint, String path, AccountSource source, String field,
+                             String defaultPerIp, String defaultPerAccount) {
+        String prefix = "auth.rate-limit." + endpoint;
+        return new Rule(endpoint, HttpMethod.POST, path, source, field,
+                Limit.parse(environment.getProperty(prefix + ".per-ip", defaultPerIp)),
+                Limit.parse(environment.getProperty(prefix + ".per-account", defaultPerAccount)));
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || findRule(request) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        Rule rule = findRule(request);
+        long now = System.nanoTime();
+
+        long wait = acquire(rule.endpoint() + ":ip:" + request.getRemoteAddr(), rule.perIp(), now);
+        if (wait > 0) {
+            reject(rule, "ip", wait, request, response);
+            return;
+        }
+
+        HttpServletRequest forwarded = request;
+        String account;
+        if (rule.source() == AccountSource.QUERY_PARAM) {
+            account = request.getParameter(rule.field());
+        } else {
+            CachedBodyRequest cached = new CachedBodyRequest(request);
+            forwarded = cached;
+            account = cached.isComplete() ? readField(cached.prefix(), rule.field()) : null;
+        }
+        if (account != null && !account.isBlank()) {
+            String key = account.strip().toLowerCase(Locale.ROOT);
+            wait = acquire(rule.endpoint() + ":account:" + key, rule.perAccount(), now);
+            if (wait > 0) {
+                reject(rule, "account", wait, request, response);
+                return;
+            }
+        }
+        filterChain.doFilter(forwarded, response);
+    }
+
+    private Rule findRule(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        for (Rule rule : rules) {
+            if (rule.path().equals(path) && rule.method().matches(request.getMethod())) {
+                return rule;
+            }
+        }
+        return null;
+    }
+
+    private long acquire(String key, Limit limit, long now) {
+        return buckets.get(key, k -> new Bucket()).tryAcquire(limit, now);
+    }
+
+    private String readField(byte[] body, String field) {
+        try {
+            JsonNode value = objectMapper.readTree(body).get(field);
+            return value != null && value.isTextual() ? value.asText() : null;
+        } catch (IOException e) {
+            // JSON inválido: el controller responde 400; igual ya se contó contra la IP
+            return null;
+        }
+    }
+
+    private void reject(Rule rule, String key, long waitNanos, HttpServletRequest request,
+                        HttpServletResponse response) throws IOException {
+        throttled.get(rule.endpoint() + ":" + key).increment();
+        long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+
+        ProblemDetail problem = ProblemDetail.forStatusAndDetail(HttpStatus.TOO_MANY_REQUESTS,
+                "Demasiados intentos. Probá de nuevo en " + retryAfterSeconds + " segundos.");
+        problem.setTitle("Too Many Requests");
+        problem.setInstance(URI.create(request.getRequestURL().toString()));
+        problem.setProperty("timestamp", OffsetDateTime.now());
+
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_PROBLEM_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), problem);
+    }
+
+    /**
+     * Lee hasta MAX_BODY_BYTES del body para buscar la cuenta y se lo devuelve intacto al resto de la cadena
+     * (lo leído primero y después lo que quede en el stream original).
+     */
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+        private final byte[] prefix;
+        private final boolean complete;
+        private ServletInputStream body;
+        private BufferedReader reader;
+
+        CachedBodyRequest(HttpServletRequest request) throws IOException {
+            super(request);
+            byte[] read = request.getInputStream().readNBytes(MAX_BODY_BYTES + 1);
+            this.complete = read.length <= MAX_BODY_BYTES;
+            this.prefix = read;
+        }
+
+        boolean isComplete() {
+            return complete;
+        }
+
+        byte[] prefix() {
+            return prefix;
+        }
+
+        // Un solo stream por pedido, como el del contenedor: leerlo dos veces no repite lo ya leído
+        @Override
+        public ServletInputStream getInputStream() throws IOException {
+            if (body == null) {
+                body = new PrefixedInputStream(prefix, complete ? null : super.getInputStream());
+            }
+            return body;
+        }
+
+        @Override
+        public BufferedReader getReader() throws IOException {
+            if (reader == null) {
+                String encoding = getCharacterEncoding();
+                Charset charset = encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8;
+                reader = new BufferedReader(new InputStreamReader(getInputStream(), charset));
+            }
+            return reader;
+        }
+    }
+
+    /**
+     * Devuelve primero los bytes ya leídos y después, si el body no entraba entero, lo que quede en el stream
+     * original. El fin del body se registra al leer -1: available() no sirve para saberlo.
+     */
+    static final class PrefixedInputStream extends ServletInputStream {
+        private final byte[] prefix;
+        private final ServletInputStream remainder;
+        private int position;
+        private boolean finished;
+
+        PrefixedInputStream(byte[] prefix, ServletInputStream remainder) {
+            this.prefix = prefix;
+            this.remainder = remainder;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (position < prefix.length) {
+                return prefix[position++] & 0xFF;
+            }
+            return track(remainder == null ? -1 : remainder.read());
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            Objects.checkFromIndexSize(off, len, b.length);
+            if (len == 0) {
+                return 0;
+            }
+            if (position < prefix.length) {
+                int count = Math.min(len, prefix.length - position);
+                System.arraycopy(prefix, position, b, off, count);
+                position += count;
+                return count;
+            }
+            return track(remainder == null ? -1 : remainder.read(b, off, len));
+        }
+
+        private int track(int read) {
+            if (read == -1) {
+                finished = true;
+            }
+            return read;
+        }
+
+        @Override
+        public boolean isFinished() {
+            if (finished) {
+                return true;
+            }
+            if (position < prefix.length) {
+                return false;
+            }
+            return remainder == null ? prefix.length == 0 : remainder.isFinished();
+        }
+
+        @Override
+        public boolean isReady() {
+            return position < prefix.length || remainder == null || remainder.isReady();
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener) {
+            Objects.requireNonNull(readListener, "readListener");
+            if (remainder != null) {
+                // El contenedor avisa cuando llega el resto; mientras tanto isReady() ya es true por lo leído
+                remainder.setReadListener(readListener);
+                return;
+            }
+            // Todo el body está en memoria: se puede leer entero ya mismo
+            try {
+                readListener.onDataAvailable();
+                if (isFinished()) {
+                    readListener.onAllDataRead();
+                }
+            } catch (IOException | RuntimeException e) {
+                readListener.onError(e);
+            }
+        }
+    }
+}
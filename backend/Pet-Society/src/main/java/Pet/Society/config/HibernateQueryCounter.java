@@ -0,0 +1,28 @@
+package Pet.Society.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Cuenta las sentencias SQL que prepara Hibernate en el hilo actual.
+ * QueryCountFilter lo reinicia al empezar cada request y publica el total al terminar,
+ * así un endpoint con N+1 se ve como un pico de consultas por request.
+ * Las sentencias que van directo por JdbcTemplate (inserts en lote) no pasan por acá.
+ */
+public class HibernateQueryCounter implements StatementInspector {
+
+    private static final ThreadLocal<int[]> COUNT = ThreadLocal.withInitial(() -> new int[1]);
+
+    @Override
+    public String inspect(String sql) {
+        COUNT.get()[0]++;
+        return sql;
+    }
+
+    public static void reset() {
+        COUNT.get()[0] = 0;
+    }
+
+    public static int current() {
+        return COUNT.get()[0];
+    }
+}
@@ -1,15 +1,17 @@
 package Pet.Society.config;
 
 
+import Pet.Society.models.dto.auth.JwtClaims;
+import Pet.Society.models.enums.TokenPurpose;
 import Pet.Society.services.CredentialService;
 import Pet.Society.services.JwtService;
-import io.jsonwebtoken.ExpiredJwtException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 
@@ -18,6 +20,8 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class JwtAuthFilter extends OncePerRequestFilter {
@@ -26,10 +30,22 @@ public class JwtAuthFilter extends OncePerRequestFilter {
 
     private final CredentialService credentialService;
 
+    // Parseo del token + carga del usuario, separado por resultado
+    private final Timer authenticatedTimer;
+    private final Timer rejectedTimer;
+
     @Autowired
-    public JwtAuthFilter(JwtService jwtService, CredentialService credentialService) {
+    public JwtAuthFilter(JwtService jwtService, CredentialService credentialService, MeterRegistry meterRegistry) {
         this.jwtService = jwtService;
         this.credentialService = credentialService;
+        this.authenticatedTimer = Timer.builder("auth.jwt.filter")
+                .description("Autenticación por Bearer token en JwtAuthFilter")
+                .tag("outcome", "authenticated")
+                .register(meterRegistry);
+        this.rejectedTimer = Timer.builder("auth.jwt.filter")
+                .description("Autenticación por Bearer token en JwtAuthFilter")
+                .tag("outcome", "rejected")
+                .register(meterRegistry);
     }
 
     /**
@@ -41,6 +57,7 @@ public class JwtAuthFilter extends OncePerRequestFilter {
         String path = request.getRequestURI();
         return path != null && (
             path.startsWith("/auth/verify-email") ||
+            path.startsWith("/auth/refresh") ||
             path.startsWith("/auth/forgot-password") ||
             path.startsWith("/auth/reset-password") ||
             path.startsWith("/auth/resend-verification-email") ||
@@ -62,29 +79,25 @@ public class JwtAuthFilter extends OncePerRequestFilter {
         }
 
         String token = authHeader.substring(7);
+        long start = System.nanoTime();
 
-        try {
-            String username = jwtService.extractUsername(token);
-
-            if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+        // Un solo parseo verifica firma y expiración; un token vencido, inválido o de otro propósito
+        // (reset de contraseña, verificación de email) no autentica y se sigue la cadena
+        // (el controller devolverá 401/403 si requiere auth)
+        Optional<JwtClaims> claims = jwtService.parse(token, TokenPurpose.ACCESS);
 
-                UserDetails userDetails = credentialService.loadUserByUsername(username);
+        if (claims.isPresent() && claims.get().getSubject() != null
+                && SecurityContextHolder.getContext().getAuthentication() == null) {
 
-                if (jwtService.isTokenValid(token, userDetails)) {
+            UserDetails userDetails = credentialService.loadCachedPrincipal(claims.get().getSubject());
 
-                    UsernamePasswordAuthenticationToken authToken =
-                            new UsernamePasswordAuthenticationToken(userDetails,
-                                    null,
-                                    userDetails.getAuthorities()
-                            );
+            JwtAuthenticationToken authToken = new JwtAuthenticationToken(userDetails, claims.get());
 
-                    authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                    SecurityContextHolder.getContext().setAuthentication(authToken);
-                }
-            }
-        } catch (ExpiredJwtException e) {
-            // Token expirado: no autenticar, seguir la cadena (el controller devolverá 401/403 si requiere auth)
-            // Así evitamos 500 cuando el usuario tiene un Bearer vencido en el header
+            authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+            SecurityContextHolder.getContext().setAuthentication(authToken);
+            authenticatedTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        } else if (claims.isEmpty()) {
+            rejectedTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
         }
         filterChain.doFilter(request, response);
 
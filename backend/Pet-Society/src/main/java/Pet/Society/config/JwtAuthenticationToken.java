@@ -0,0 +1,23 @@
+package Pet.Society.config;
+
+import Pet.Society.models.dto.auth.JwtClaims;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.userdetails.UserDetails;
+
+/**
+ * Autenticación armada por JwtAuthFilter: además del principal guarda los claims ya verificados del token,
+ * así OwnershipValidator lee el id de usuario/cliente sin consultar la base.
+ */
+public class JwtAuthenticationToken extends UsernamePasswordAuthenticationToken {
+
+    private final transient JwtClaims claims;
+
+    public JwtAuthenticationToken(UserDetails principal, JwtClaims claims) {
+        super(principal, null, principal.getAuthorities());
+        this.claims = claims;
+    }
+
+    public JwtClaims getClaims() {
+        return claims;
+    }
+}
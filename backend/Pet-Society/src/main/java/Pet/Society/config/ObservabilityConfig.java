@@ -0,0 +1,20 @@
+package Pet.Society.config;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Piezas de observabilidad que no vienen armadas por el actuator.
+ * Timers y spans de los servicios: @Observed (management.observations.annotations.enabled=true).
+ * Pool de Hikari, estadísticas de Hibernate y requests HTTP: auto-configurados por Spring Boot.
+ */
+@Configuration
+public class ObservabilityConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer queryCounterCustomizer() {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, new HibernateQueryCounter());
+    }
+}
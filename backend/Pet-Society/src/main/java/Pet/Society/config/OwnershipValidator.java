@@ -1,130 +1,95 @@
 package Pet.Society.config;
 
-import Pet.Society.models.dto.client.ClientDTO;
-import Pet.Society.models.dto.pet.PetDTO;
-import Pet.Society.models.entities.*;
-import Pet.Society.models.exceptions.UserNotFoundException;
-import Pet.Society.services.*;
-import ch.qos.logback.core.net.server.Client;
+import Pet.Society.models.entities.ClientEntity;
+import Pet.Society.models.entities.CredentialEntity;
+import Pet.Society.repositories.AppointmentRepository;
+import Pet.Society.repositories.ClientRepository;
+import Pet.Society.repositories.DiagnosesRepository;
+import Pet.Society.repositories.PetRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 
+/**
+ * Chequeos de pertenencia para @PreAuthorize. El id del cliente sale de los claims firmados del JWT
+ * (JwtAuthenticationToken), sin cargar la credencial; cada chequeo es a lo sumo un EXISTS por clave primaria.
+ * Si el recurso no existe o no es del cliente, se niega el acceso (403).
+ */
 @Component
 public class OwnershipValidator {
-    private final ClientService clientService;
-    private final PetService petService;
-    private final CredentialService credentialService;
-    private final AppointmentService appointmentService;
-    private final DiagnosesService diagnosesService;
+    private final ClientRepository clientRepository;
+    private final PetRepository petRepository;
+    private final AppointmentRepository appointmentRepository;
+    private final DiagnosesRepository diagnosesRepository;
 
     @Autowired
-    public OwnershipValidator(ClientService clientService, PetService petService, CredentialService credentialService,AppointmentService appointmentService, DiagnosesService diagnosesService) {
-        this.clientService = clientService;
-        this.petService = petService;
-        this.credentialService = credentialService;
-        this.appointmentService = appointmentService;
-        this.diagnosesService = diagnosesService;
+    public OwnershipValidator(ClientRepository clientRepository, PetRepository petRepository,
+                              AppointmentRepository appointmentRepository, DiagnosesRepository diagnosesRepository) {
+        this.clientRepository = clientRepository;
+        this.petRepository = petRepository;
+        this.appointmentRepository = appointmentRepository;
+        this.diagnosesRepository = diagnosesRepository;
     }
 
 
     public boolean canAccessClient(Long clientId){
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        String username = auth.getName();
+        if (hasRole(auth, "ROLE_ADMIN")) return true;
 
-        boolean isAdmin = auth.getAuthorities().stream()
-                .anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"));
-
-        if (isAdmin) return true;
-
-        CredentialEntity credential = credentialService.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-
-        ClientEntity client = (ClientEntity) credential.getUser();
-
-        return client.getId()==(clientId);
+        Long client = currentClientId(auth);
+        return client != null && client.equals(clientId);
     }
 
     public boolean canAccessClient(String dni){
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        String username = auth.getName();
-
-        boolean isAdmin = auth.getAuthorities().stream()
-                .anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"));
-
-        if (isAdmin) return true;
-
-        CredentialEntity credential = credentialService.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        if (hasRole(auth, "ROLE_ADMIN")) return true;
 
-        ClientEntity client = (ClientEntity) credential.getUser();
-
-        return client.getDni().equals(dni);
+        Long client = currentClientId(auth);
+        return client != null && dni != null && clientRepository.existsByIdAndDni(client, dni);
     }
 
     public boolean canAccessPet(Long petId){
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        String username = auth.getName();
-
-        boolean isAdmin = auth.getAuthorities().stream()
-                .anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"));
-
-        if (isAdmin) return true;
+        if (hasRole(auth, "ROLE_ADMIN")) return true;
 
-        PetEntity pet = petService.findById(petId); // lanza excepción si no existe
-        Long ownerId = pet.getClient().getId();
-
-        ClientEntity client = (ClientEntity) credentialService.findByUsername(username)
-                .orElseThrow().getUser();
-
-        return ownerId.equals(client.getId());
+        Long client = currentClientId(auth);
+        return client != null && petId != null && petRepository.existsByIdAndClientId(petId, client);
     }
 
     public boolean canAccessAppointment(Long appointmentId) {
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        String username = auth.getName();
-
-        boolean isAdmin = auth.getAuthorities().stream()
-                .anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"));
+        if (hasRole(auth, "ROLE_ADMIN")) return true;
 
-        if (isAdmin) return true;
-
-        AppointmentEntity appointment = appointmentService.getEntity(appointmentId);
-        Long ownerId = appointment.getPet().getClient().getId();
-
-        CredentialEntity credential = credentialService.findByUsername(username).get();
-        ClientEntity client = (ClientEntity) credential.getUser();
-
-        return ownerId.equals(client.getId());
+        Long client = currentClientId(auth);
+        return client != null && appointmentId != null
+                && appointmentRepository.existsByIdAndPetClientId(appointmentId, client);
     }
 
     public boolean canAccessDiagnosis(Long diagnosisId){
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        String username = auth.getName();
-
-        boolean isAdmin = auth.getAuthorities()
-                .stream()
-                .anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"));
-
-        boolean isDoctor = auth.getAuthorities()
-                .stream()
-                .anyMatch(a-> a.getAuthority().equals("ROLE_DOCTOR"));
-
-        if (isAdmin || isDoctor) return true;
+        if (hasRole(auth, "ROLE_ADMIN") || hasRole(auth, "ROLE_DOCTOR")) return true;
 
-        DiagnosesEntity diagnosis = diagnosesService.getEntity(diagnosisId);
-
-        Long ownerId = diagnosis.getPet().getClient().getId();
+        Long client = currentClientId(auth);
+        return client != null && diagnosisId != null
+                && diagnosesRepository.existsByIdAndPetClientId(diagnosisId, client);
+    }
 
-        CredentialEntity credential = credentialService.findByUsername(username)
-                .orElseThrow(()-> new UserNotFoundException("Usuario no encontrado"));
+    private static boolean hasRole(Authentication auth, String role) {
+        return auth != null && auth.getAuthorities().stream()
+                .anyMatch(a -> a.getAuthority().equals(role));
+    }
 
-        if(!(credential.getUser() instanceof  ClientEntity client)) {
-            return false;
+    // null si quien llama no es un cliente
+    private static Long currentClientId(Authentication auth) {
+        if (auth instanceof JwtAuthenticationToken jwt && jwt.getClaims().getUserId() != null) {
+            return jwt.getClaims().getClientId();
         }
-
-        return ownerId.equals(client.getId());
-
+        // Tokens emitidos antes de los claims de identidad: el principal ya está en la caché de JwtAuthFilter
+        if (auth != null && auth.getPrincipal() instanceof CredentialEntity credential
+                && credential.getUser() instanceof ClientEntity client) {
+            return client.getId();
+        }
+        return null;
     }
 }
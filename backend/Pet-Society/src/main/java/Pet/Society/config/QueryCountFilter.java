@@ -0,0 +1,71 @@
+package Pet.Society.config;
+
+import io.micrometer.common.KeyValue;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.filter.ServerHttpObservationFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Publica cuántas consultas hizo Hibernate en cada request (http.server.requests.queries, por método y URI)
+ * y agrega el total al span del request. Corre dentro del filtro de observación HTTP y antes de Spring Security,
+ * así también cuenta la carga del usuario autenticado.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 2)
+public class QueryCountFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(QueryCountFilter.class);
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${metrics.queries.warn-threshold:50}")
+    private int warnThreshold;
+
+    @Autowired
+    public QueryCountFilter(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        HibernateQueryCounter.reset();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            int queries = HibernateQueryCounter.current();
+            // El patrón (/appointment/{id}) y no la URI real, para no abrir una serie por id
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+
+            DistributionSummary.builder("http.server.requests.queries")
+                    .description("Consultas SQL de Hibernate por request")
+                    .tag("method", request.getMethod())
+                    .tag("uri", uri)
+                    .register(meterRegistry)
+                    .record(queries);
+            ServerHttpObservationFilter.findObservationContext(request).ifPresent(context ->
+                    context.addHighCardinalityKeyValue(KeyValue.of("db.queries", String.valueOf(queries))));
+
+            if (queries > warnThreshold) {
+                log.warn("{} {} hizo {} consultas (posible N+1)", request.getMethod(), uri, queries);
+            }
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package Pet.Society.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.spi.CachingProvider;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caché de segundo nivel de Hibernate (JCache + Caffeine) para los datos de referencia que casi todas las
+ * operaciones de turnos vuelven a leer: usuarios (doctores y clientes, que con herencia JOINED son un join
+ * de dos tablas) y mascotas. También habilita la caché de consultas para las marcadas con HINT_CACHEABLE.
+ * - Las regiones se crean acá, acotadas por tamaño y con TTL; una región no declarada hace fallar el arranque.
+ * - Es por instancia: el TTL acota lo que tarda en verse un cambio hecho en otra instancia.
+ * - Hit ratio por región: hibernate.second.level.cache.hit.ratio (requiere hibernate.generate_statistics=true).
+ */
+@Configuration
+public class SecondLevelCacheConfig {
+
+    // Raíz de la jerarquía UserEntity: DoctorEntity y ClientEntity se guardan en la misma región
+    public static final String USERS_REGION = "users";
+    public static final String PETS_REGION = "pets";
+    // Regiones que usa Hibernate para la caché de consultas
+    private static final String QUERY_RESULTS_REGION = "default-query-results-region";
+    private static final String UPDATE_TIMESTAMPS_REGION = "default-update-timestamps-region";
+
+    private final CacheManager cacheManager;
+
+    public SecondLevelCacheConfig(@Value("${cache.second-level.users.max-size:10000}") long usersMaxSize,
+                                  @Value("${cache.second-level.pets.max-size:20000}") long petsMaxSize,
+                                  @Value("${cache.second-level.query.max-size:2000}") long queryMaxSize,
+                                  @Value("${cache.second-level.ttl-seconds:300}") long ttlSeconds) {
+        CachingProvider provider = Caching.getCachingProvider(CaffeineCachingProvider.class.getName());
+        this.cacheManager = provider.getCacheManager(provider.getDefaultURI(), getClass().getClassLoader());
+        createRegion(USERS_REGION, usersMaxSize, ttlSeconds);
+        createRegion(PETS_REGION, petsMaxSize, ttlSeconds);
+        createRegion(QUERY_RESULTS_REGION, queryMaxSize, ttlSeconds);
+        // Las marcas de última modificación por tabla no pueden vencer antes que los resultados que validan
+        createRegion(UPDATE_TIMESTAMPS_REGION, 10_000, 0);
+    }
+
+    private void createRegion(String region, long maxSize, long ttlSeconds) {
+        if (cacheManager.getCache(region) != null) {
+            cacheManager.destroyCache(region);
+        }
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setMaximumSize(OptionalLong.of(maxSize));
+        if (ttlSeconds > 0) {
+            configuration.setExpireAfterWrite(OptionalLong.of(TimeUnit.SECONDS.toNanos(ttlSeconds)));
+        }
+        cacheManager.createCache(region, configuration);
+    }
+
+    // Hibernate no cierra un CacheManager que recibe ya creado
+    @PreDestroy
+    public void close() {
+        if (!cacheManager.isClosed()) {
+            cacheManager.close();
+        }
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer() {
+        return properties -> {
+            properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+            properties.put(AvailableSettings.USE_QUERY_CACHE, true);
+            properties.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+            properties.put(ConfigSettings.CACHE_MANAGER, cacheManager);
+            properties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+        };
+    }
+
+    @Bean
+    public MeterBinder secondLevelCacheHitRatio(EntityManagerFactory entityManagerFactory) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        return registry -> {
+            for (String region : List.of(USERS_REGION, PETS_REGION, QUERY_RESULTS_REGION)) {
+                Gauge.builder("hibernate.second.level.cache.hit.ratio", statistics, stats -> hitRatio(stats, region))
+                        .description("Aciertos / consultas a la caché de segundo nivel desde el arranque")
+                        .tags("region", region)
+                        .register(registry);
+            }
+        };
+    }
+
+    private static double hitRatio(Statistics statistics, String region) {
+        CacheRegionStatistics regionStatistics = statistics.getCacheRegionStatistics(region);
+        if (regionStatistics == null) {
+            return Double.NaN;
+        }
+        long hits = regionStatistics.getHitCount();
+        long requests = hits + regionStatistics.getMissCount();
+        return requests == 0 ? Double.NaN : (double) hits / requests;
+    }
+}
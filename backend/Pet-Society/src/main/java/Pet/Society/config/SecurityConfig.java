@@ -2,7 +2,9 @@ package Pet.Society.config;
 
 import Pet.Society.models.exceptions.security.CustomAccessDeniedHandler;
 import Pet.Society.models.exceptions.security.CustomAuthenticationEntryPoint;
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.kafka.KafkaProperties.Admin;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -18,6 +20,9 @@ import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.util.matcher.AndRequestMatcher;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
@@ -34,14 +39,18 @@ public class SecurityConfig {
     private JwtAuthFilter jwtAuthFilter;
     private CustomAccessDeniedHandler customAccessDeniedHandler;
     private CustomAuthenticationEntryPoint customAuthenticationEntryPoint;
+    // Puerto interno del actuator (management.server.port); -1 si el actuator comparte el puerto público
+    private int managementPort;
 
     @Autowired
     public SecurityConfig(JwtAuthFilter jwtAuthFilter,
                           CustomAccessDeniedHandler customAccessDeniedHandler,
-                          CustomAuthenticationEntryPoint customAuthenticationEntryPoint) {
+                          CustomAuthenticationEntryPoint customAuthenticationEntryPoint,
+                          @Value("${management.server.port:-1}") int managementPort) {
         this.jwtAuthFilter = jwtAuthFilter;
         this.customAccessDeniedHandler = customAccessDeniedHandler;
         this.customAuthenticationEntryPoint = customAuthenticationEntryPoint;
+        this.managementPort = managementPort;
     }
 
     @Bean
@@ -50,13 +59,20 @@ public class SecurityConfig {
                 .csrf(csrf -> csrf.disable())
 
                 .authorizeHttpRequests(auth -> auth
+                        // Re-dispatch de respuestas asíncronas (exportaciones en PDF): el request original ya se autorizó
+                        // y JwtAuthFilter no corre en este dispatch
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         //REGISTRARSE Y LOGUEARSE
                         .requestMatchers(HttpMethod.POST,"/register/new/client").permitAll()
                         .requestMatchers(HttpMethod.POST,"/auth/login").permitAll()
+                        // El refresh token del body es la credencial: el token de acceso puede estar vencido
+                        .requestMatchers(HttpMethod.POST,"/auth/refresh").permitAll()
+                        .requestMatchers(HttpMethod.POST,"/auth/logout").permitAll()
                         .requestMatchers(HttpMethod.GET,"/auth/check-username").permitAll()
                         .requestMatchers(HttpMethod.GET,"/auth/check-dni").permitAll()
                         .requestMatchers(HttpMethod.GET,"/auth/check-email").permitAll()
                         .requestMatchers(HttpMethod.GET,"/auth/check-phone").permitAll()
+                        .requestMatchers(HttpMethod.GET,"/auth/check-availability").permitAll()
                         .requestMatchers(HttpMethod.POST,"/auth/forgot-password").permitAll()
                         .requestMatchers(HttpMethod.POST,"/auth/reset-password").permitAll()
                         .requestMatchers(HttpMethod.GET,"/auth/verify-email").permitAll()
@@ -74,6 +90,8 @@ public class SecurityConfig {
                         .requestMatchers(HttpMethod.PATCH,"/appointment/assign/**").hasAnyRole("CLIENT", "ADMIN")
                         .requestMatchers(HttpMethod.DELETE,"/appointment/delete/**").hasRole("CLIENT")
                         .requestMatchers(HttpMethod.PATCH,"/appointment/**").hasRole("ADMIN")
+                        .requestMatchers(HttpMethod.GET,"/appointment/getAll/page").hasRole("ADMIN")
+                        .requestMatchers(HttpMethod.GET,"/appointment/stats").hasRole("ADMIN")
                         //ACCESS TO DOCTOR
                         .requestMatchers("/doctor/find/**").hasAnyRole("ADMIN", "DOCTOR")
                         .requestMatchers("/doctor/**").hasRole("ADMIN")
@@ -86,12 +104,20 @@ public class SecurityConfig {
                         .requestMatchers("/diagnoses/create").hasRole("DOCTOR")
                         .requestMatchers("/diagnoses/getByPetId/**").hasAnyRole("CLIENT","ADMIN","DOCTOR")
                         .requestMatchers("/diagnoses/*/pdf").hasAnyRole("ADMIN", "DOCTOR", "CLIENT")
+                        .requestMatchers("/diagnoses/export/pet/**",
+                                    "/diagnoses/export/client/**").hasAnyRole("ADMIN", "DOCTOR", "CLIENT")
+                        .requestMatchers("/diagnoses/export/doctor/**").hasAnyRole("ADMIN", "DOCTOR")
                         .requestMatchers("/diagnoses/lastDiagnoses/**").hasAnyRole("CLIENT","ADMIN","DOCTOR")
                         .requestMatchers("/diagnoses/findById/**").hasAnyRole("CLIENT","ADMIN","DOCTOR")
                         .requestMatchers("/diagnoses/getLastDiagnoses/**",
                                     "/diagnoses/getAll",
                                     "/diagnoses/getByDoctorId/**").hasAnyRole("ADMIN","DOCTOR")
                         .requestMatchers("/swagger-ui/**", "/v3/api-docs/**").permitAll() //For use correctly the OPENAPI
+                        //ACTUATOR: health abierto; el scrape de Prometheus sin token solo por el puerto interno, el resto solo admin
+                        .requestMatchers(HttpMethod.GET, "/actuator/health").permitAll()
+                        .requestMatchers(new AndRequestMatcher(internalManagementPort(),
+                                AntPathRequestMatcher.antMatcher(HttpMethod.GET, "/actuator/prometheus"))).permitAll()
+                        .requestMatchers("/actuator/**").hasRole("ADMIN")
                         .anyRequest().permitAll()
 
                 )
@@ -111,6 +137,11 @@ public class SecurityConfig {
         return http.build();
     }
 
+    // Pedidos que entraron por el conector del actuator, que no se publica afuera
+    private RequestMatcher internalManagementPort() {
+        return request -> managementPort > 0 && request.getLocalPort() == managementPort;
+    }
+
     @Bean
     public AuthenticationManager authenticationManager(AuthenticationConfiguration config) throws Exception {
         return config.getAuthenticationManager();
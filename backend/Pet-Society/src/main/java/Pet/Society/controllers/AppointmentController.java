@@ -6,25 +6,34 @@ import Pet.Society.models.dto.appointment.AppointmentHistoryDTO;
 import Pet.Society.models.dto.appointment.AppointmentResponseDTO;
 import Pet.Society.models.dto.appointment.AppointmentScheduleDTO;
 import Pet.Society.models.dto.appointment.AvailableAppointmentDTO;
+import Pet.Society.models.dto.appointment.AppointmentStatsDTO;
+import Pet.Society.models.dto.appointment.KeysetPageDTO;
+import Pet.Society.models.dto.appointment.AvailabilityUploadResultDTO;
 import Pet.Society.models.dto.doctor.DoctorAvailabilityDTO;
 import Pet.Society.models.enums.Reason;
+import Pet.Society.models.enums.Status;
 import Pet.Society.models.dto.pet.AssingmentPetDTO;
 import Pet.Society.models.entities.AppointmentEntity;
 import Pet.Society.services.AppointmentService;
+import Pet.Society.services.SlotAvailabilityBroadcaster;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
+import jakarta.servlet.http.HttpServletRequest;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.List;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
@@ -41,10 +50,13 @@ public class AppointmentController {
 
 
     private final AppointmentService appointmentService;
+    private final SlotAvailabilityBroadcaster slotAvailabilityBroadcaster;
 
     @Autowired
-    public AppointmentController(AppointmentService appointmentService) {
+    public AppointmentController(AppointmentService appointmentService,
+                                 SlotAvailabilityBroadcaster slotAvailabilityBroadcaster) {
         this.appointmentService = appointmentService;
+        this.slotAvailabilityBroadcaster = slotAvailabilityBroadcaster;
 
     }
 
@@ -180,7 +192,9 @@ public class AppointmentController {
 
     @Operation(
             summary = "Get all appointments history from a specific client",
-            description = "Endpoint to retrieve all appointments (SUCCESSFULLY, CANCELED, TO_BEGIN) from a specific client by their ID, ordered by date descending",
+            description = "Endpoint to retrieve the appointments (SUCCESSFULLY, CANCELED, TO_BEGIN) from a specific client by their ID, ordered by date descending. " +
+                    "Deprecated: returns only the 500 most recent; use /client/{clientId}/history/page",
+            deprecated = true,
             responses = {
                     @ApiResponse(
                             responseCode = "200",
@@ -202,20 +216,54 @@ public class AppointmentController {
     )
     @PreAuthorize("@ownershipValidator.canAccessClient(#clientId)")
     @GetMapping("/client/{clientId}/history")
+    @Deprecated
     public ResponseEntity<List<AppointmentHistoryDTO>> getAppointmentsHistoryByClientId(@PathVariable Long clientId) {
         return ResponseEntity.ok(this.appointmentService.getAllAppointmentsHistoryByClientId(clientId));
     }
 
+    @Operation(
+            summary = "Get appointments history from a specific client by cursor",
+            description = "Keyset-paginated version of /client/{clientId}/history, newest first. Optional status, petId and reason filters. Send the returned nextCursor as 'after' to get the next page",
+            responses = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Appointments history page retrieved successfully",
+                            content = @Content(
+                                    mediaType = "application/json",
+                                    schema = @Schema(implementation = KeysetPageDTO.class)
+                            )
+                    ),
+                    @ApiResponse(
+                            responseCode = "404",
+                            description = "Client not found",
+                            content = @Content(
+                                    mediaType = "application/json",
+                                    schema = @Schema(implementation = String.class)
+                            )
+                    )
+            }
+    )
+    @PreAuthorize("@ownershipValidator.canAccessClient(#clientId)")
+    @GetMapping("/client/{clientId}/history/page")
+    public ResponseEntity<KeysetPageDTO<AppointmentHistoryDTO>> getAppointmentsHistoryPageByClientId(
+            @PathVariable Long clientId,
+            @RequestParam(required = false) Status status,
+            @RequestParam(required = false) Long petId,
+            @RequestParam(required = false) Reason reason,
+            @RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(this.appointmentService.getAppointmentsHistoryPageByClientId(clientId, status, petId, reason, after, size));
+    }
+
     @PostMapping("uploadAvailability/{doctorId}")
     public ResponseEntity<String> uploadAvailabilityDoctor(@PathVariable long doctorId, @RequestBody DoctorAvailabilityDTO availabilityDTO){
-            this.appointmentService.uploadAvailibility(doctorId,availabilityDTO);
-            return ResponseEntity.ok("The hours was uploaded successfully");
+            AvailabilityUploadResultDTO result = this.appointmentService.uploadAvailibility(doctorId,availabilityDTO);
+            return ResponseEntity.ok("The hours was uploaded successfully (" + result.getCreated() + " appointments created)");
     }
 
     @PostMapping("/create-multiple")
-    public ResponseEntity<String> createMultipleAppointments(@RequestBody Pet.Society.models.dto.appointment.MultipleAppointmentsRequest request) {
-        appointmentService.createMultipleAppointments(request.getDoctorId(), request.getStartDate(), request.getEndDate(), request.getReason());
-        return ResponseEntity.ok("Multiple appointments created successfully.");
+    public ResponseEntity<AvailabilityUploadResultDTO> createMultipleAppointments(@RequestBody Pet.Society.models.dto.appointment.MultipleAppointmentsRequest request) {
+        return ResponseEntity.ok(appointmentService.createMultipleAppointments(request.getDoctorId(), request.getStartDate(), request.getEndDate(), request.getReason()));
     }
 
 
@@ -290,11 +338,58 @@ public class AppointmentController {
         return ResponseEntity.ok(appointmentId);
     }
 
+    @Operation(
+            summary = "Get all appointments",
+            description = "Deprecated: returns only the 500 most recent appointments; use /getAll/page for the list and /stats for the admin dashboard numbers",
+            deprecated = true
+    )
     @GetMapping("/getAll")
+    @Deprecated
     public ResponseEntity<List<AppointmentResponseDTO>> getAllAppointments() {
         return ResponseEntity.ok(this.appointmentService.getAllAppointmets());
     }
 
+    @Operation(
+            summary = "Get admin dashboard numbers",
+            description = "Canceled and successful appointments this month, appointments to begin today, approved appointments to begin " +
+                    "and the next non-canceled appointments (all starting at the same time). Counted in the database, Argentina time",
+            responses = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Dashboard numbers retrieved successfully",
+                            content = @Content(
+                                    mediaType = "application/json",
+                                    schema = @Schema(implementation = AppointmentStatsDTO.class)
+                            )
+                    )
+            }
+    )
+    @GetMapping("/stats")
+    public ResponseEntity<AppointmentStatsDTO> getAdminStats() {
+        return ResponseEntity.ok(this.appointmentService.getAdminStats());
+    }
+
+    @Operation(
+            summary = "Get all appointments by cursor",
+            description = "Keyset-paginated version of /getAll, newest first. Send the returned nextCursor as 'after' to get the next page",
+            responses = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Appointments page retrieved successfully",
+                            content = @Content(
+                                    mediaType = "application/json",
+                                    schema = @Schema(implementation = KeysetPageDTO.class)
+                            )
+                    )
+            }
+    )
+    @GetMapping("/getAll/page")
+    public ResponseEntity<KeysetPageDTO<AppointmentResponseDTO>> getAllAppointmentsPage(
+            @RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(this.appointmentService.getAllAppointmentsPage(after, size));
+    }
+
     @Operation(
             summary = "Get appointments from a specific doctor",
             description = "Endpoint to retrieve an appointments from a specific doctor by their ID",
@@ -368,9 +463,37 @@ public ResponseEntity<List<AvailableAppointmentDTO>> getAvailableAppointmentsByR
         return ResponseEntity.ok(this.appointmentService.getAvailableAppointmentsByReasonAndDate(reason, localDate));
     }
 
+    @Operation(
+            summary = "Stream available appointments by reason and date",
+            description = "Server-Sent Events stream: first a 'snapshot' event with the available appointments of the day, then " +
+                    "'booked', 'removed', 'released' and 'expired' events as the availability changes. " +
+                    "'released' may repeat appointments already listed: clients should dedupe by appointmentId. " +
+                    "Connections are capped per client IP and per server; a client that falls behind is disconnected",
+            responses = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Stream opened",
+                            content = @Content(mediaType = MediaType.TEXT_EVENT_STREAM_VALUE)
+                    ),
+                    @ApiResponse(
+                            responseCode = "429",
+                            description = "Too many open streams from this client or on this server"
+                    )
+            }
+    )
+    @GetMapping(value = "/available/reason/{reason}/date/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamAvailableAppointmentsByReasonAndDate(
+            @PathVariable Reason reason,
+            @RequestParam String date,
+            HttpServletRequest request) {
+        LocalDate localDate = LocalDate.parse(date);
+        return this.slotAvailabilityBroadcaster.subscribe(reason, localDate, request.getRemoteAddr(),
+                () -> this.appointmentService.getAvailableAppointmentsByReasonAndDate(reason, localDate));
+    }
+
 @Operation(
         summary = "Get available days by reason",
-        description = "Endpoint to retrieve unique days that have available appointments for a specific reason (for calendar highlighting)",
+        description = "Endpoint to retrieve unique days that have available appointments for a specific reason (for calendar highlighting). Optional from/to months (yyyy-MM) limit the range",
         responses = {
                 @ApiResponse(
                         responseCode = "200",
@@ -382,13 +505,49 @@ public ResponseEntity<List<AvailableAppointmentDTO>> getAvailableAppointmentsByR
         }
 )
 @GetMapping("/available/reason/{reason}/days")
-public ResponseEntity<List<LocalDate>> getAvailableDaysByReason(@PathVariable Reason reason) {
-    return ResponseEntity.ok(this.appointmentService.getAvailableDaysByReason(reason));
+public ResponseEntity<List<LocalDate>> getAvailableDaysByReason(@PathVariable Reason reason,
+                                                                @RequestParam(required = false) String from,
+                                                                @RequestParam(required = false) String to) {
+    YearMonth fromMonth = from == null ? null : YearMonth.parse(from);
+    YearMonth toMonth = to == null ? null : YearMonth.parse(to);
+    return ResponseEntity.ok(this.appointmentService.getAvailableDaysByReason(reason, fromMonth, toMonth));
 }
 
+    @Operation(
+            summary = "Get past appointments from a specific doctor",
+            description = "Past appointments with a pet assigned, newest first. " +
+                    "Deprecated: returns only the 500 most recent; use /pastByDoctor/{doctorId}/page",
+            deprecated = true
+    )
     @GetMapping("/pastByDoctor/{doctorId}")
+    @Deprecated
     public ResponseEntity<List<AppointmentHistoryDTO>> getAllPastAppointmentByDoctorId(@PathVariable Long doctorId){
         return ResponseEntity.ok(this.appointmentService.getAllPastAppointmentsByDoctorId(doctorId));
     }
 
+    @Operation(
+            summary = "Get past appointments from a specific doctor by cursor",
+            description = "Keyset-paginated version of /pastByDoctor/{doctorId}, newest first. Optional status, petId and reason filters. Send the returned nextCursor as 'after' to get the next page",
+            responses = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Past appointments page retrieved successfully",
+                            content = @Content(
+                                    mediaType = "application/json",
+                                    schema = @Schema(implementation = KeysetPageDTO.class)
+                            )
+                    )
+            }
+    )
+    @GetMapping("/pastByDoctor/{doctorId}/page")
+    public ResponseEntity<KeysetPageDTO<AppointmentHistoryDTO>> getPastAppointmentsPageByDoctorId(
+            @PathVariable Long doctorId,
+            @RequestParam(required = false) Status status,
+            @RequestParam(required = false) Long petId,
+            @RequestParam(required = false) Reason reason,
+            @RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(this.appointmentService.getPastAppointmentsPageByDoctorId(doctorId, status, petId, reason, after, size));
+    }
+
 }
@@ -3,12 +3,12 @@ package Pet.Society.controllers;
 import Pet.Society.models.dto.auth.ChangeEmailUnverifiedDTO;
 import Pet.Society.models.dto.auth.ForgotPasswordDTO;
 import Pet.Society.models.dto.auth.ForgotPasswordResponseDTO;
+import Pet.Society.models.dto.auth.RefreshTokenDTO;
 import Pet.Society.models.dto.auth.ResetPasswordDTO;
 import Pet.Society.models.dto.login.LoginDTO;
 import Pet.Society.models.dto.login.LoginResponseDTO;
 import Pet.Society.services.AuthService;
-import Pet.Society.services.CredentialService;
-import Pet.Society.services.UserService;
+import Pet.Society.services.RegistrationUniquenessIndex;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -33,13 +33,11 @@ public class AuthController {
     // Currently, it serves as a placeholder for future authentication-related functionality.
 
     private final AuthService authService;
-    private final CredentialService credentialService;
-    private final UserService userService;
+    private final RegistrationUniquenessIndex uniquenessIndex;
 
-    public AuthController(AuthService authService, CredentialService credentialService, UserService userService) {
+    public AuthController(AuthService authService, RegistrationUniquenessIndex uniquenessIndex) {
         this.authService = authService;
-        this.credentialService = credentialService;
-        this.userService = userService;
+        this.uniquenessIndex = uniquenessIndex;
     }
 
 
@@ -64,6 +62,44 @@ public class AuthController {
         return ResponseEntity.ok(authService.login(request));
     }
 
+    @Operation(
+            summary = "Refresh session",
+            description = "Exchanges a refresh token for a new access token and a new refresh token, without asking for the password. "
+                    + "Each refresh token can be used only once; reusing one closes the whole session.",
+            responses = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Session refreshed",
+                            content = @Content(mediaType = "application/json", schema = @Schema(implementation = LoginResponseDTO.class))
+                    ),
+                    @ApiResponse(
+                            responseCode = "401",
+                            description = "Invalid, expired, reused or revoked refresh token",
+                            content = @Content(mediaType = "application/json")
+                    )
+            }
+    )
+    @PostMapping("/refresh")
+    public ResponseEntity<LoginResponseDTO> refresh(@Valid @RequestBody RefreshTokenDTO request){
+        return ResponseEntity.ok(authService.refresh(request));
+    }
+
+    @Operation(
+            summary = "Logout",
+            description = "Revokes the session the refresh token belongs to.",
+            responses = {
+                    @ApiResponse(
+                            responseCode = "204",
+                            description = "Session closed"
+                    )
+            }
+    )
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(@Valid @RequestBody RefreshTokenDTO request){
+        authService.logout(request);
+        return ResponseEntity.noContent().build();
+    }
+
     @Operation(
             summary = "Check if username exists",
             description = "Verifies if a username is already taken.",
@@ -77,7 +113,7 @@ public class AuthController {
     )
     @GetMapping("/check-username")
     public ResponseEntity<Map<String, Boolean>> checkUsername(@RequestParam String username) {
-        boolean exists = credentialService.findByUsername(username).isPresent();
+        boolean exists = uniquenessIndex.usernameTaken(username);
         Map<String, Boolean> response = new HashMap<>();
         response.put("exists", exists);
         return ResponseEntity.ok(response);
@@ -96,7 +132,7 @@ public class AuthController {
     )
     @GetMapping("/check-dni")
     public ResponseEntity<Map<String, Boolean>> checkDni(@RequestParam String dni) {
-        boolean exists = userService.existsByDni(dni);
+        boolean exists = uniquenessIndex.dniTaken(dni);
         Map<String, Boolean> response = new HashMap<>();
         response.put("exists", exists);
         return ResponseEntity.ok(response);
@@ -115,7 +151,7 @@ public class AuthController {
     )
     @GetMapping("/check-email")
     public ResponseEntity<Map<String, Boolean>> checkEmail(@RequestParam String email) {
-        boolean exists = userService.existsByEmail(email);
+        boolean exists = uniquenessIndex.emailTaken(email);
         Map<String, Boolean> response = new HashMap<>();
         response.put("exists", exists);
         return ResponseEntity.ok(response);
@@ -134,12 +170,32 @@ public class AuthController {
     )
     @GetMapping("/check-phone")
     public ResponseEntity<Map<String, Boolean>> checkPhone(@RequestParam String phone) {
-        boolean exists = userService.existsByPhone(phone);
+        boolean exists = uniquenessIndex.phoneTaken(phone);
         Map<String, Boolean> response = new HashMap<>();
         response.put("exists", exists);
         return ResponseEntity.ok(response);
     }
 
+    @Operation(
+            summary = "Check several registration fields at once",
+            description = "Verifies in a single call which of the given username, DNI, email and phone are already taken. "
+                    + "Only the parameters sent are checked; the response maps each one to true if it already exists.",
+            responses = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Availability checked",
+                            content = @Content(mediaType = "application/json")
+                    )
+            }
+    )
+    @GetMapping("/check-availability")
+    public ResponseEntity<Map<String, Boolean>> checkAvailability(@RequestParam(required = false) String username,
+                                                                  @RequestParam(required = false) String dni,
+                                                                  @RequestParam(required = false) String email,
+                                                                  @RequestParam(required = false) String phone) {
+        return ResponseEntity.ok(uniquenessIndex.check(username, dni, email, phone));
+    }
+
     @Operation(
             summary = "Solicitar reset de contraseña",
             description = "Genera un token de recuperación para el email proporcionado. El token se muestra en pantalla.",
@@ -3,6 +3,7 @@ package Pet.Society.controllers;
 import Pet.Society.models.dto.diagnoses.DiagnosesDTO;
 import Pet.Society.models.dto.diagnoses.DiagnosesDTOResponse;
 import Pet.Society.models.entities.DiagnosesEntity;
+import Pet.Society.services.DiagnosesPdfCache;
 import Pet.Society.services.DiagnosesService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -13,12 +14,17 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDate;
 
 @Tag(
         name = "Diagnoses",
@@ -91,17 +97,109 @@ public class DiagnosesController {
         return ResponseEntity.ok(diagnosis);
     }
 
+    @Operation(
+            summary = "Download a diagnosis as PDF",
+            description = "Rendered PDFs are cached (memory and disk). The response carries an ETag: " +
+                    "send it back in If-None-Match to get a 304 without downloading the file again.",
+            responses = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "PDF",
+                            content = @Content(mediaType = "application/pdf")
+                    ),
+                    @ApiResponse(
+                            responseCode = "304",
+                            description = "The client's copy is up to date"
+                    )
+            }
+    )
     @PreAuthorize("@ownershipValidator.canAccessDiagnosis(#id)")
     @GetMapping("/{id}/pdf")
-    public ResponseEntity<byte[]> downloadDiagnosisPdf(@PathVariable Long id){
-        byte[] pdf = diagnosesService.generateDiagnosisPdf(id);
+    public ResponseEntity<StreamingResponseBody> downloadDiagnosisPdf(@PathVariable Long id, WebRequest request){
+        DiagnosesDTOResponse diagnosis = diagnosesService.findById(id);
+        // checkNotModified ya deja el ETag en la respuesta (también cuando hay que enviar el PDF)
+        if (request.checkNotModified(diagnosesService.getDiagnosisPdfEtag(diagnosis))) {
+            return null;
+        }
+        DiagnosesPdfCache.CachedPdf pdf = diagnosesService.getDiagnosisPdf(diagnosis);
 
         return ResponseEntity.ok()
                 .header(HttpHeaders.CONTENT_DISPOSITION,
                         "attachment; filename=diagnosis_" + id + ".pdf")
                 .contentType(MediaType.APPLICATION_PDF)
-                .contentLength(pdf.length)
-                .body(pdf);
+                .contentLength(pdf.length())
+                // El navegador guarda la copia pero la revalida siempre (el nombre de la mascota o del doctor puede cambiar)
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .body(pdf::writeTo);
+    }
+
+    @Operation(
+            summary = "Export a pet's diagnoses as a single PDF",
+            description = "Streams every diagnosis of the pet (optionally limited to from/to days, yyyy-MM-dd, inclusive) " +
+                    "as one PDF, one diagnosis per page. The response is written while the diagnoses are read, " +
+                    "so it has no Content-Length.",
+            responses = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "PDF stream",
+                            content = @Content(mediaType = "application/pdf")
+                    )
+            }
+    )
+    @PreAuthorize("hasAnyRole('ADMIN','DOCTOR') or @ownershipValidator.canAccessPet(#id)")
+    @GetMapping("/export/pet/{id}/pdf")
+    public ResponseEntity<StreamingResponseBody> exportPetDiagnosesPdf(@PathVariable Long id,
+                                                                       @RequestParam(required = false) LocalDate from,
+                                                                       @RequestParam(required = false) LocalDate to) {
+        return pdfStream("diagnoses_pet_" + id,
+                out -> diagnosesService.exportPetDiagnosesPdf(id, from, to, out));
+    }
+
+    @Operation(
+            summary = "Export a client's diagnoses as a single PDF",
+            description = "Same as the pet export, for every pet of the client.",
+            responses = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "PDF stream",
+                            content = @Content(mediaType = "application/pdf")
+                    )
+            }
+    )
+    @PreAuthorize("hasAnyRole('ADMIN','DOCTOR') or @ownershipValidator.canAccessClient(#id)")
+    @GetMapping("/export/client/{id}/pdf")
+    public ResponseEntity<StreamingResponseBody> exportClientDiagnosesPdf(@PathVariable Long id,
+                                                                          @RequestParam(required = false) LocalDate from,
+                                                                          @RequestParam(required = false) LocalDate to) {
+        return pdfStream("diagnoses_client_" + id,
+                out -> diagnosesService.exportClientDiagnosesPdf(id, from, to, out));
+    }
+
+    @Operation(
+            summary = "Export a doctor's diagnoses as a single PDF",
+            description = "Same as the pet export, for every diagnosis written by the doctor.",
+            responses = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "PDF stream",
+                            content = @Content(mediaType = "application/pdf")
+                    )
+            }
+    )
+    @GetMapping("/export/doctor/{id}/pdf")
+    public ResponseEntity<StreamingResponseBody> exportDoctorDiagnosesPdf(@PathVariable Long id,
+                                                                          @RequestParam(required = false) LocalDate from,
+                                                                          @RequestParam(required = false) LocalDate to) {
+        return pdfStream("diagnoses_doctor_" + id,
+                out -> diagnosesService.exportDoctorDiagnosesPdf(id, from, to, out));
+    }
+
+    private ResponseEntity<StreamingResponseBody> pdfStream(String filename, StreamingResponseBody body) {
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=" + filename + ".pdf")
+                .contentType(MediaType.APPLICATION_PDF)
+                .body(body);
     }
 
     @Operation(
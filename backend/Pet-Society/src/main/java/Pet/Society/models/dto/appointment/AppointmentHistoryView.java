@@ -0,0 +1,31 @@
+package Pet.Society.models.dto.appointment;
+
+import Pet.Society.models.enums.PetType;
+import Pet.Society.models.enums.Reason;
+import Pet.Society.models.enums.Speciality;
+import Pet.Society.models.enums.Status;
+
+import java.time.LocalDateTime;
+
+/**
+ * Proyección para los historiales de citas (cliente y doctor): cita, doctor, mascota, dueño y diagnóstico en una sola consulta.
+ * El dueño y el diagnóstico pueden venir en null.
+ */
+public interface AppointmentHistoryView {
+    Long getAppointmentId();
+    LocalDateTime getStartTime();
+    LocalDateTime getEndTime();
+    Long getDoctorId();
+    String getDoctorName();
+    String getDoctorSurname();
+    Speciality getDoctorSpeciality();
+    String getClientName();
+    String getClientSurname();
+    Long getPetId();
+    String getPetName();
+    PetType getPetType();
+    String getOtherType();
+    Reason getReason();
+    Status getStatus();
+    Long getDiagnosisId();
+}
@@ -0,0 +1,12 @@
+package Pet.Society.models.dto.appointment;
+
+/**
+ * Resumen por doctor de la tabla de citas; se compara contra el índice en memoria para detectar diferencias.
+ */
+public interface AppointmentIndexFingerprintView {
+    Long getDoctorId();
+    Number getTotal();
+    Number getIdSum();
+    Number getFreeUpcoming();
+    Number getCanceled();
+}
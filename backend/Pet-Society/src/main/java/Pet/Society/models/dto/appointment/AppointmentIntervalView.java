@@ -0,0 +1,13 @@
+package Pet.Society.models.dto.appointment;
+
+import java.time.LocalDateTime;
+
+/**
+ * Proyección liviana de una cita: solo el intervalo, sin cargar doctor ni mascota.
+ * Se usa para los chequeos de solapamiento.
+ */
+public interface AppointmentIntervalView {
+    Long getId();
+    LocalDateTime getStartDate();
+    LocalDateTime getEndDate();
+}
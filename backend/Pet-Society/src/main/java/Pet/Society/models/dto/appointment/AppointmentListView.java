@@ -0,0 +1,24 @@
+package Pet.Society.models.dto.appointment;
+
+import Pet.Society.models.enums.Reason;
+import Pet.Society.models.enums.Status;
+
+import java.time.LocalDateTime;
+
+/**
+ * Proyección para el listado de citas del admin: trae cita, doctor, mascota y dueño en una sola consulta.
+ * Mascota y dueño pueden venir en null (turnos libres).
+ */
+public interface AppointmentListView {
+    Long getId();
+    LocalDateTime getStartTime();
+    LocalDateTime getEndTime();
+    Reason getReason();
+    boolean isApproved();
+    Status getStatus();
+    String getDoctorName();
+    String getDoctorSurname();
+    String getPetName();
+    String getClientName();
+    String getClientSurname();
+}
@@ -0,0 +1,15 @@
+package Pet.Society.models.dto.appointment;
+
+import Pet.Society.models.enums.Reason;
+import Pet.Society.models.enums.Status;
+
+/**
+ * Intervalo de una cita con lo mínimo que necesita el índice en memoria (doctor, estado y si tiene mascota)
+ * y el motivo, para avisar al stream de disponibilidad cuando se cancela un turno libre.
+ */
+public interface AppointmentSlotView extends AppointmentIntervalView {
+    Long getDoctorId();
+    Status getStatus();
+    Reason getReason();
+    Long getPetId();
+}
@@ -0,0 +1,24 @@
+package Pet.Society.models.dto.appointment;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.SuperBuilder;
+
+import java.util.List;
+
+/**
+ * Números del panel del admin, contados en la base (hora de Argentina).
+ * nextAppointments: las citas no canceladas que empiezan en el próximo horario ocupado.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+@SuperBuilder
+public class AppointmentStatsDTO {
+    private long canceledThisMonth;
+    private long successfulThisMonth;
+    private long toBeginToday;
+    private long approvedToBegin;
+    private List<AppointmentResponseDTO> nextAppointments;
+}
@@ -0,0 +1,11 @@
+package Pet.Society.models.dto.appointment;
+
+import Pet.Society.models.enums.Status;
+
+/**
+ * Cantidad de citas de un estado (resultado de un GROUP BY status).
+ */
+public interface AppointmentStatusCountView {
+    Status getStatus();
+    Number getTotal();
+}
@@ -0,0 +1,15 @@
+package Pet.Society.models.dto.appointment;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.SuperBuilder;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+@SuperBuilder
+public class AvailabilityUploadResultDTO {
+    private int created;
+    private int skipped;
+}
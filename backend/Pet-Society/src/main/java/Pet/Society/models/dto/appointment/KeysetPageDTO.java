@@ -0,0 +1,21 @@
+package Pet.Society.models.dto.appointment;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.SuperBuilder;
+
+import java.util.List;
+
+/**
+ * Página por cursor (keyset): nextCursor se manda como "after" para pedir la siguiente; null cuando no hay más.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+@SuperBuilder
+public class KeysetPageDTO<T> {
+    private List<T> content;
+    private Long nextCursor;
+    private boolean hasNext;
+}
@@ -0,0 +1,30 @@
+package Pet.Society.models.dto.appointment;
+
+import Pet.Society.models.enums.Reason;
+import Pet.Society.models.enums.SlotChange;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.SuperBuilder;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Mensaje del stream de turnos libres de un motivo y un día.
+ * SNAPSHOT trae la lista completa; BOOKED y REMOVED, los turnos a quitar (por appointmentId);
+ * RELEASED, los turnos a agregar (puede repetir alguno que ya estaba: se deduplica por appointmentId);
+ * EXPIRED, el corte en before: se quitan los turnos que empiezan antes.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+@SuperBuilder
+public class SlotAvailabilityMessage {
+    private SlotChange change;
+    private Reason reason;
+    private LocalDate date;
+    private List<AvailableAppointmentDTO> slots;
+    private LocalDateTime before;
+}
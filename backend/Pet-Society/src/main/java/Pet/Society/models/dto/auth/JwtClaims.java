@@ -0,0 +1,25 @@
+package Pet.Society.models.dto.auth;
+
+import Pet.Society.models.enums.TokenPurpose;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Claims de un JWT ya verificado (firma y expiración), leídos en un solo parseo.
+ * userId y clientId solo vienen en tokens de acceso (clientId, solo si el usuario es cliente); en tokens
+ * emitidos antes de que existieran esos claims son null.
+ */
+@Data
+@AllArgsConstructor
+public class JwtClaims {
+    private String subject;
+    private List<String> roles;
+    private Date issuedAt;
+    private Date expiresAt;
+    private TokenPurpose purpose;
+    private Long userId;
+    private Long clientId;
+}
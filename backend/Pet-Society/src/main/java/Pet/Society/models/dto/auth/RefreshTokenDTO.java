@@ -0,0 +1,14 @@
+package Pet.Society.models.dto.auth;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class RefreshTokenDTO {
+    @NotBlank(message = "El refresh token es obligatorio")
+    private String refreshToken;
+}
@@ -11,5 +11,7 @@ import lombok.experimental.SuperBuilder;
 public class LoginResponseDTO {
     private final String token;
     private final Long id;
+    // Opaco y de larga duración: se cambia por un token nuevo en /auth/refresh, sin volver a pedir la contraseña
+    private final String refreshToken;
 
 }
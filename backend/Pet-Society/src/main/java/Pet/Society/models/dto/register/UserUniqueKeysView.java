@@ -0,0 +1,10 @@
+package Pet.Society.models.dto.register;
+
+/**
+ * Campos únicos de un usuario, lo único que lee RegistrationUniquenessIndex al construirse.
+ */
+public interface UserUniqueKeysView {
+    String getDni();
+    String getEmail();
+    String getPhone();
+}
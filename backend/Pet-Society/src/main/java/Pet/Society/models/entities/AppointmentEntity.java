@@ -8,7 +8,9 @@ import lombok.experimental.SuperBuilder;
 
 import java.time.LocalDateTime;
 @Entity
-@Table(name = "appointments")
+@Table(name = "appointments", indexes = {
+        @Index(name = "idx_appointments_doctor_range", columnList = "doctor_id, start_date, end_date")
+})
 @AllArgsConstructor
 @Getter
 @Setter
@@ -0,0 +1,31 @@
+package Pet.Society.models.entities;
+
+import Pet.Society.models.enums.Reason;
+import jakarta.persistence.*;
+import lombok.*;
+import lombok.experimental.SuperBuilder;
+
+import java.time.LocalDate;
+
+/**
+ * Cantidad de turnos libres (AVAILABLE y sin mascota) por motivo y día.
+ * La mantiene AvailabilityCalendarService en la misma transacción que modifica las citas.
+ */
+@Entity
+@Table(name = "availability_calendar", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_availability_calendar_reason_date", columnNames = {"reason", "calendar_date"})
+})
+@AllArgsConstructor
+@Getter
+@Setter
+@NoArgsConstructor
+@SuperBuilder
+public class AvailabilityCalendarEntity {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private long id;
+    private Reason reason;
+    @Column(name = "calendar_date")
+    private LocalDate date;
+    private int freeSlots;
+}
@@ -0,0 +1,44 @@
+package Pet.Society.models.entities;
+
+import Pet.Society.models.enums.EmailStatus;
+import jakarta.persistence.*;
+import lombok.*;
+import lombok.experimental.SuperBuilder;
+
+import java.time.LocalDateTime;
+
+/**
+ * Email pendiente de envío. Se inserta en la misma transacción que lo origina (registro, reset de contraseña, etc.)
+ * y EmailOutboxDispatcher lo envía en segundo plano, con reintentos.
+ */
+@Entity
+@Table(name = "email_outbox", indexes = {
+        @Index(name = "idx_email_outbox_status_next_attempt", columnList = "status, next_attempt_at"),
+        @Index(name = "idx_email_outbox_claim_token", columnList = "claim_token")
+})
+@AllArgsConstructor
+@Getter
+@Setter
+@NoArgsConstructor
+@SuperBuilder
+public class EmailOutboxEntity {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private long id;
+    private String recipient;
+    private String subject;
+    @Lob
+    private String htmlBody;
+    // Alternativa en texto plano (multipart/alternative); null en emails encolados antes de tenerla
+    @Lob
+    private String textBody;
+    private EmailStatus status;
+    private int attempts;
+    private LocalDateTime nextAttemptAt;
+    private String claimToken;
+    private LocalDateTime claimedAt;
+    @Column(length = 1000)
+    private String lastError;
+    private LocalDateTime createdAt;
+    private LocalDateTime sentAt;
+}
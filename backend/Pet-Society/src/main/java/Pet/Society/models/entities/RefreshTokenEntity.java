@@ -0,0 +1,47 @@
+package Pet.Society.models.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+import lombok.experimental.SuperBuilder;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+import java.time.LocalDateTime;
+
+/**
+ * Refresh token de una sesión. Del token solo se guarda su SHA-256: con la tabla sola no se puede
+ * reconstruir ninguna sesión.
+ * Cada uso rota el token dentro de la misma familia (familyId); si se presenta uno ya usado o revocado,
+ * se asume que fue robado y se revoca la familia entera (RefreshTokenService).
+ */
+@Entity
+@Table(name = "refresh_tokens", indexes = {
+        @Index(name = "idx_refresh_tokens_token_hash", columnList = "token_hash", unique = true),
+        @Index(name = "idx_refresh_tokens_family_id", columnList = "family_id"),
+        @Index(name = "idx_refresh_tokens_expires_at", columnList = "expires_at")
+})
+@AllArgsConstructor
+@Getter
+@Setter
+@NoArgsConstructor
+@SuperBuilder
+public class RefreshTokenEntity {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private long id;
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "credential_id", nullable = false)
+    // Las sesiones se borran junto con la credencial
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private CredentialEntity credential;
+    @Column(name = "token_hash", nullable = false, length = 64)
+    private String tokenHash;
+    @Column(name = "family_id", nullable = false, length = 36)
+    private String familyId;
+    private LocalDateTime createdAt;
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+    // Momento en que se rotó; un token con usedAt no vuelve a aceptarse
+    private LocalDateTime usedAt;
+    private LocalDateTime revokedAt;
+}
@@ -6,6 +6,8 @@ import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import lombok.*;
 import lombok.experimental.SuperBuilder;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.ColumnDefault;
 
 import java.util.List;
@@ -13,6 +15,9 @@ import java.util.List;
 @Entity
 @SuperBuilder
 @Inheritance(strategy = InheritanceType.JOINED)
+// Con JOINED la región se declara en la raíz y la comparten DoctorEntity y ClientEntity (SecondLevelCacheConfig)
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "users")
 @AllArgsConstructor
 @Getter
 @Setter
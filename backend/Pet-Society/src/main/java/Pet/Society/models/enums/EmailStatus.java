@@ -0,0 +1,8 @@
+package Pet.Society.models.enums;
+
+public enum EmailStatus {
+    PENDING /*Esperando su (re)intento de envío*/,
+    SENDING /*Tomado por un dispatcher, en envío*/,
+    SENT /*Entregado al servidor SMTP*/,
+    FAILED /*Se agotaron los reintentos*/
+}
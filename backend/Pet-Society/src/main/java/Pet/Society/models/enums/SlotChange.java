@@ -0,0 +1,17 @@
+package Pet.Society.models.enums;
+
+/**
+ * Cambios de disponibilidad que se publican por el stream de turnos libres.
+ */
+public enum SlotChange {
+    // Primer mensaje de cada suscripción: la lista completa del día
+    SNAPSHOT,
+    // Un cliente reservó el turno
+    BOOKED,
+    // Turnos nuevos o re-publicados tras una cancelación
+    RELEASED,
+    // Turnos libres que se cancelaron o cambiaron de motivo/horario
+    REMOVED,
+    // Turnos que empezaban antes de un momento dado y ya no se pueden reservar
+    EXPIRED
+}
@@ -0,0 +1,7 @@
+package Pet.Society.models.enums;
+
+public enum TokenPurpose {
+    ACCESS /*Token de sesión que manda el front en el header Authorization*/,
+    RESET_PASSWORD /*Token del mail de recuperación de contraseña (claim resetPassword)*/,
+    VERIFY_EMAIL /*Token del mail de verificación de cuenta (claim verifyEmail)*/
+}
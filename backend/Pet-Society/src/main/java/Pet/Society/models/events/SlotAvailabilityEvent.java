@@ -0,0 +1,48 @@
+package Pet.Society.models.events;
+
+import Pet.Society.models.dto.appointment.AvailableAppointmentDTO;
+import Pet.Society.models.enums.SlotChange;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Evento de dominio: cambió la disponibilidad de turnos libres.
+ * Se publica dentro de la transacción que hizo el cambio y SlotAvailabilityBroadcaster lo difunde después del commit.
+ * - BOOKED / REMOVED: los turnos afectados, tomados antes del cambio (alcanza con id, motivo y horario).
+ * - RELEASED: doctor y rango; los turnos se leen después del commit porque los inserts en lote no devuelven ids.
+ * - EXPIRED: el corte; vencieron todos los turnos libres que empezaban antes de ese momento.
+ */
+@Getter
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class SlotAvailabilityEvent {
+
+    private final SlotChange change;
+    private final List<AvailableAppointmentDTO> slots;
+    private final Long doctorId;
+    private final LocalDateTime from;
+    private final LocalDateTime to;
+    private final LocalDateTime before;
+
+    public static SlotAvailabilityEvent booked(AvailableAppointmentDTO slot) {
+        return new SlotAvailabilityEvent(SlotChange.BOOKED, List.of(slot), null, null, null, null);
+    }
+
+    public static SlotAvailabilityEvent removed(List<AvailableAppointmentDTO> slots) {
+        return new SlotAvailabilityEvent(SlotChange.REMOVED, List.copyOf(slots), null, null, null, null);
+    }
+
+    /**
+     * Turnos libres del doctor que empiezan en [from, to).
+     */
+    public static SlotAvailabilityEvent released(long doctorId, LocalDateTime from, LocalDateTime to) {
+        return new SlotAvailabilityEvent(SlotChange.RELEASED, List.of(), doctorId, from, to, null);
+    }
+
+    public static SlotAvailabilityEvent expired(LocalDateTime before) {
+        return new SlotAvailabilityEvent(SlotChange.EXPIRED, List.of(), null, null, null, before);
+    }
+}
@@ -161,6 +161,16 @@ public class GlobalControllerException {
         return createProblemDetail(HttpStatus.UNAUTHORIZED, "Authentication Failed", "Invalid username or password", request);
     }
 
+    @ExceptionHandler(InvalidRefreshTokenException.class)
+    public ProblemDetail handlerInvalidRefreshTokenException(InvalidRefreshTokenException ex, HttpServletRequest request) {
+        return createProblemDetail(HttpStatus.UNAUTHORIZED, "Session Expired", ex.getMessage(), request);
+    }
+
+    @ExceptionHandler(StreamLimitException.class)
+    public ProblemDetail handlerStreamLimitException(StreamLimitException ex, HttpServletRequest request) {
+        return createProblemDetail(HttpStatus.TOO_MANY_REQUESTS, "Too Many Requests", ex.getMessage(), request);
+    }
+
     @ExceptionHandler(DisabledException.class)
     public ProblemDetail handlerDisabledException(DisabledException ex, HttpServletRequest request) {
         return createProblemDetail(HttpStatus.UNAUTHORIZED, "Authentication Failed", "Invalid username or password", request);
@@ -0,0 +1,9 @@
+package Pet.Society.models.exceptions;
+
+public class InvalidRefreshTokenException extends RuntimeException {
+
+    public InvalidRefreshTokenException(String message) {
+        super(message);
+    }
+
+}
@@ -0,0 +1,9 @@
+package Pet.Society.models.exceptions;
+
+public class StreamLimitException extends RuntimeException {
+
+    public StreamLimitException(String message) {
+        super(message);
+    }
+
+}
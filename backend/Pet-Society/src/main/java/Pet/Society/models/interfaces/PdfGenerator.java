@@ -1,5 +1,18 @@
 package Pet.Society.models.interfaces;
 
+import java.io.OutputStream;
+import java.util.Iterator;
+
 public interface PdfGenerator<T> {
-    byte[] generate(T data);
+
+    /**
+     * Escribe el PDF directamente en out (por ejemplo, el OutputStream de la respuesta). No cierra out.
+     */
+    void generate(T data, OutputStream out);
+
+    /**
+     * Un solo PDF con un documento por elemento, escrito a medida que se recorre data:
+     * la memoria no depende de la cantidad de elementos. No cierra out.
+     */
+    void generateAll(Iterator<T> data, OutputStream out);
 }
@@ -0,0 +1,17 @@
+package Pet.Society.repositories;
+
+import Pet.Society.models.entities.AppointmentEntity;
+
+import java.util.List;
+
+/**
+ * Fragmento de AppointmentRepository para cargar muchos turnos disponibles de una sola vez.
+ */
+public interface AppointmentBulkRepository {
+
+    /**
+     * Inserta los turnos en bloques con JDBC batch (sin pasar por el contexto de persistencia).
+     * Devuelve la cantidad de filas insertadas.
+     */
+    int bulkInsertAvailable(List<AppointmentEntity> appointments);
+}
@@ -0,0 +1,43 @@
+package Pet.Society.repositories;
+
+import Pet.Society.models.entities.AppointmentEntity;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+public class AppointmentBulkRepositoryImpl implements AppointmentBulkRepository {
+
+    // Reason y Status se guardan como ordinal, igual que en el mapeo JPA
+    private static final String INSERT_SQL =
+            "INSERT INTO appointments (start_date, end_date, reason, status, doctor_id, approved) VALUES (?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${appointments.bulk-insert.chunk-size:1000}")
+    private int chunkSize;
+
+    public AppointmentBulkRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public int bulkInsertAvailable(List<AppointmentEntity> appointments) {
+        if (appointments.isEmpty()) {
+            return 0;
+        }
+        // Con rewriteBatchedStatements=true el driver de MySQL manda cada bloque como un INSERT multi-fila
+        // Un fallo en cualquier bloque lanza DataAccessException y la transacción del servicio hace rollback;
+        // con el INSERT reescrito el driver informa SUCCESS_NO_INFO, por eso se devuelve el tamaño del lote
+        jdbcTemplate.batchUpdate(INSERT_SQL, appointments, chunkSize, (ps, appointment) -> {
+            ps.setTimestamp(1, Timestamp.valueOf(appointment.getStartDate()));
+            ps.setTimestamp(2, Timestamp.valueOf(appointment.getEndDate()));
+            ps.setInt(3, appointment.getReason().ordinal());
+            ps.setInt(4, appointment.getStatus().ordinal());
+            ps.setLong(5, appointment.getDoctor().getId());
+            ps.setBoolean(6, appointment.isApproved());
+        });
+        return appointments.size();
+    }
+}
@@ -1,26 +1,38 @@
 package Pet.Society.repositories;
 
+import Pet.Society.models.dto.appointment.AppointmentHistoryView;
+import Pet.Society.models.dto.appointment.AppointmentIndexFingerprintView;
+import Pet.Society.models.dto.appointment.AppointmentIntervalView;
+import Pet.Society.models.dto.appointment.AppointmentListView;
+import Pet.Society.models.dto.appointment.AppointmentSlotView;
+import Pet.Society.models.dto.appointment.AppointmentStatusCountView;
+import Pet.Society.models.dto.appointment.AvailableAppointmentDTO;
 import Pet.Society.models.entities.AppointmentEntity;
 import Pet.Society.models.entities.DiagnosesEntity;
 import Pet.Society.models.entities.DoctorEntity;
 import Pet.Society.models.entities.PetEntity;
 import Pet.Society.models.enums.Reason;
 import Pet.Society.models.enums.Status;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface AppointmentRepository extends JpaRepository<AppointmentEntity, Long> {
+public interface AppointmentRepository extends JpaRepository<AppointmentEntity, Long>, AppointmentBulkRepository {
 
     List<AppointmentEntity> findAppointmentByStartDateAndEndDate(LocalDateTime startDate, LocalDateTime endDate);
     AppointmentEntity findByPetAndId(PetEntity pet, long id);
@@ -33,6 +45,162 @@ public interface AppointmentRepository extends JpaRepository<AppointmentEntity,
             nativeQuery = true)
     Page<AppointmentEntity> findAllByDoctorIdOrderByStartDateAsc(Long doctorId, LocalDateTime now, Pageable pageable);
     List<AppointmentEntity> findAppointmentByDoctor(DoctorEntity doctor);
+
+    // Listado del admin en una sola consulta (sin N+1 sobre doctor / mascota / cliente)
+    String LIST_VIEW_SELECT = "SELECT a.id AS id, a.startDate AS startTime, a.endDate AS endTime, a.reason AS reason, " +
+            "a.approved AS approved, a.status AS status, d.name AS doctorName, d.surname AS doctorSurname, " +
+            "p.name AS petName, c.name AS clientName, c.surname AS clientSurname " +
+            "FROM AppointmentEntity a LEFT JOIN a.doctor d LEFT JOIN a.pet p LEFT JOIN p.client c ";
+
+    @Query(LIST_VIEW_SELECT + "ORDER BY a.id DESC")
+    List<AppointmentListView> findAllListViews(Limit limit);
+
+    // Keyset por id descendente: la primera página pasa afterId = Long.MAX_VALUE
+    @Query(LIST_VIEW_SELECT + "WHERE a.id < :afterId ORDER BY a.id DESC")
+    List<AppointmentListView> findListViewsBefore(@Param("afterId") Long afterId, Limit limit);
+
+    // Panel del admin: se cuenta en la base en lugar de bajar toda la tabla
+    @Query("SELECT a.status AS status, COUNT(a) AS total FROM AppointmentEntity a " +
+            "WHERE a.startDate >= :from AND a.startDate < :to GROUP BY a.status")
+    List<AppointmentStatusCountView> countByStatusStartingBetween(@Param("from") LocalDateTime from,
+                                                                  @Param("to") LocalDateTime to);
+
+    long countByStatusAndApprovedTrue(Status status);
+
+    // null si no hay citas por delante
+    @Query("SELECT MIN(a.startDate) FROM AppointmentEntity a " +
+            "WHERE a.status <> Pet.Society.models.enums.Status.CANCELED AND a.startDate > :now")
+    LocalDateTime findNextStartAfter(@Param("now") LocalDateTime now);
+
+    @Query(LIST_VIEW_SELECT + "WHERE a.startDate = :start AND a.status <> Pet.Society.models.enums.Status.CANCELED " +
+            "ORDER BY a.id")
+    List<AppointmentListView> findListViewsStartingAt(@Param("start") LocalDateTime start);
+
+    // Historiales (cliente y doctor) ordenados en la base por (start_date DESC, id DESC).
+    // Keyset: se sigue después de la última fila (afterStart, afterId); la primera página pasa 9999-12-31 y Long.MAX_VALUE.
+    // Los filtros en null no se aplican.
+    String HISTORY_VIEW_SELECT = "SELECT a.id AS appointmentId, a.startDate AS startTime, a.endDate AS endTime, " +
+            "d.id AS doctorId, d.name AS doctorName, d.surname AS doctorSurname, d.speciality AS doctorSpeciality, " +
+            "c.name AS clientName, c.surname AS clientSurname, p.id AS petId, p.name AS petName, " +
+            "p.petType AS petType, p.otherType AS otherType, a.reason AS reason, a.status AS status, dg.id AS diagnosisId " +
+            "FROM AppointmentEntity a JOIN a.doctor d JOIN a.pet p LEFT JOIN p.client c LEFT JOIN a.diagnoses dg ";
+
+    String HISTORY_VIEW_FILTERS = "AND (:status IS NULL OR a.status = :status) " +
+            "AND (:petId IS NULL OR p.id = :petId) AND (:reason IS NULL OR a.reason = :reason) " +
+            "AND (a.startDate < :afterStart OR (a.startDate = :afterStart AND a.id < :afterId)) " +
+            "ORDER BY a.startDate DESC, a.id DESC";
+
+    @Query(HISTORY_VIEW_SELECT + "WHERE c.id = :clientId " + HISTORY_VIEW_FILTERS)
+    List<AppointmentHistoryView> findClientHistory(@Param("clientId") Long clientId,
+                                                   @Param("status") Status status,
+                                                   @Param("petId") Long petId,
+                                                   @Param("reason") Reason reason,
+                                                   @Param("afterStart") LocalDateTime afterStart,
+                                                   @Param("afterId") Long afterId,
+                                                   Limit limit);
+
+    @Query(HISTORY_VIEW_SELECT + "WHERE d.id = :doctorId AND a.startDate < :now " + HISTORY_VIEW_FILTERS)
+    List<AppointmentHistoryView> findDoctorPastHistory(@Param("doctorId") Long doctorId,
+                                                       @Param("now") LocalDateTime now,
+                                                       @Param("status") Status status,
+                                                       @Param("petId") Long petId,
+                                                       @Param("reason") Reason reason,
+                                                       @Param("afterStart") LocalDateTime afterStart,
+                                                       @Param("afterId") Long afterId,
+                                                       Limit limit);
+
+    @Query("SELECT a.startDate FROM AppointmentEntity a WHERE a.id = :id")
+    Optional<LocalDateTime> findStartDateById(@Param("id") Long id);
+
+    /**
+     * Bloquea la fila del doctor hasta el fin de la transacción. Las altas de turnos de un mismo doctor quedan en
+     * fila (también entre instancias), así el chequeo de solapamiento y el insert no se intercalan con otra carga.
+     */
+    @Query(value = "SELECT id FROM doctors WHERE id = :doctorId FOR UPDATE", nativeQuery = true)
+    Optional<Long> lockDoctorForSlotWrites(@Param("doctorId") Long doctorId);
+
+    /**
+     * Regla única de ocupación: una cita ocupa el horario del doctor salvo que esté cancelada. La comparten los
+     * chequeos de solapamiento, la re-publicación de turnos cancelados (releaseCanceledSlots) y el índice en memoria
+     * (AppointmentIntervalIndex); si no, un turno re-publicado chocaría con la cita cancelada que lo originó.
+     */
+    String OCCUPIES_SLOT = "a.status <> Pet.Society.models.enums.Status.CANCELED ";
+
+    // Confirma por clave primaria los solapamientos que ve el índice en memoria: de esas citas, las que siguen ocupando
+    @Query("SELECT a.id FROM AppointmentEntity a WHERE a.id IN :ids AND " + OCCUPIES_SLOT)
+    List<Long> findIdsOccupyingSlot(@Param("ids") Collection<Long> ids);
+
+    // Chequeos de solapamiento resueltos en la base (índice doctor_id, start_date, end_date)
+    @Query("SELECT COUNT(a) > 0 FROM AppointmentEntity a " +
+            "WHERE a.doctor.id = :doctorId AND a.startDate < :endDate AND a.endDate > :startDate AND " + OCCUPIES_SLOT)
+    boolean existsOverlapping(@Param("doctorId") Long doctorId,
+                              @Param("startDate") LocalDateTime startDate,
+                              @Param("endDate") LocalDateTime endDate);
+
+    @Query("SELECT COUNT(a) > 0 FROM AppointmentEntity a " +
+            "WHERE a.doctor.id = :doctorId AND a.id <> :excludeId AND a.startDate < :endDate AND a.endDate > :startDate " +
+            "AND " + OCCUPIES_SLOT)
+    boolean existsOverlappingExcluding(@Param("doctorId") Long doctorId,
+                                       @Param("startDate") LocalDateTime startDate,
+                                       @Param("endDate") LocalDateTime endDate,
+                                       @Param("excludeId") Long excludeId);
+
+    // Los intervalos ocupados del doctor que tocan el rango [from, to); sirve para validar un lote de citas en un solo viaje
+    @Query("SELECT a.id AS id, a.startDate AS startDate, a.endDate AS endDate FROM AppointmentEntity a " +
+            "WHERE a.doctor.id = :doctorId AND a.startDate < :to AND a.endDate > :from AND " + OCCUPIES_SLOT +
+            "ORDER BY a.startDate ASC")
+    List<AppointmentIntervalView> findIntervalsInRange(@Param("doctorId") Long doctorId,
+                                                       @Param("from") LocalDateTime from,
+                                                       @Param("to") LocalDateTime to);
+
+    // Carga del índice en memoria (AppointmentIntervalIndex)
+    @Query("SELECT a.id AS id, d.id AS doctorId, a.startDate AS startDate, a.endDate AS endDate, " +
+            "a.status AS status, a.reason AS reason, p.id AS petId FROM AppointmentEntity a JOIN a.doctor d LEFT JOIN a.pet p")
+    List<AppointmentSlotView> findAllSlots();
+
+    @Query("SELECT a.id AS id, d.id AS doctorId, a.startDate AS startDate, a.endDate AS endDate, " +
+            "a.status AS status, a.reason AS reason, p.id AS petId FROM AppointmentEntity a JOIN a.doctor d LEFT JOIN a.pet p " +
+            "WHERE d.id = :doctorId")
+    List<AppointmentSlotView> findSlotsByDoctorId(@Param("doctorId") Long doctorId);
+
+    // Cancelaciones en bloque (AppointmentCancellationService): solo la proyección, sin hidratar entidades
+    @Query("SELECT a.id AS id, d.id AS doctorId, a.startDate AS startDate, a.endDate AS endDate, " +
+            "a.status AS status, a.reason AS reason, p.id AS petId FROM AppointmentEntity a JOIN a.doctor d JOIN a.pet p " +
+            "WHERE p.client.id = :clientId AND a.startDate > :now AND a.status NOT IN :closedStatuses")
+    List<AppointmentSlotView> findOpenSlotsByClientId(@Param("clientId") Long clientId,
+                                                      @Param("now") LocalDateTime now,
+                                                      @Param("closedStatuses") List<Status> closedStatuses);
+
+    @Query("SELECT a.id AS id, d.id AS doctorId, a.startDate AS startDate, a.endDate AS endDate, " +
+            "a.status AS status, a.reason AS reason, p.id AS petId FROM AppointmentEntity a JOIN a.doctor d LEFT JOIN a.pet p " +
+            "WHERE d.id = :doctorId AND a.startDate > :now AND a.status NOT IN :closedStatuses")
+    List<AppointmentSlotView> findOpenSlotsByDoctorId(@Param("doctorId") Long doctorId,
+                                                      @Param("now") LocalDateTime now,
+                                                      @Param("closedStatuses") List<Status> closedStatuses);
+
+    @Query("SELECT a.id AS id, d.id AS doctorId, a.startDate AS startDate, a.endDate AS endDate, " +
+            "a.status AS status, a.reason AS reason, p.id AS petId FROM AppointmentEntity a JOIN a.doctor d LEFT JOIN a.pet p " +
+            "WHERE a.id = :id")
+    Optional<AppointmentSlotView> findSlotById(@Param("id") Long id);
+
+    // Turnos libres recién publicados, para el stream de disponibilidad (SlotAvailabilityBroadcaster)
+    @Query("SELECT new Pet.Society.models.dto.appointment.AvailableAppointmentDTO(a.id, a.startDate, a.endDate, " +
+            "CONCAT(d.name, ' ', d.surname), d.id, d.speciality, a.reason) " +
+            "FROM AppointmentEntity a JOIN a.doctor d " +
+            "WHERE d.id = :doctorId AND a.status = :status AND a.pet IS NULL " +
+            "AND a.startDate >= :from AND a.startDate < :to ORDER BY a.startDate")
+    List<AvailableAppointmentDTO> findFreeSlotsStartingBetween(@Param("doctorId") Long doctorId,
+                                                               @Param("status") Status status,
+                                                               @Param("from") LocalDateTime from,
+                                                               @Param("to") LocalDateTime to);
+
+    @Query("SELECT d.id AS doctorId, COUNT(a) AS total, SUM(a.id) AS idSum, " +
+            "SUM(CASE WHEN a.status = :available AND a.pet IS NULL AND a.startDate > :now THEN 1 ELSE 0 END) AS freeUpcoming, " +
+            "SUM(CASE WHEN a.status = :canceled THEN 1 ELSE 0 END) AS canceled " +
+            "FROM AppointmentEntity a JOIN a.doctor d GROUP BY d.id")
+    List<AppointmentIndexFingerprintView> findIndexFingerprints(@Param("available") Status available,
+                                                                @Param("canceled") Status canceled,
+                                                                @Param("now") LocalDateTime now);
     
     // Métodos para obtener citas disponibles filtradas
     List<AppointmentEntity> findAllByReasonAndStatusAndPetIsNullAndStartDateAfter(
@@ -40,11 +208,72 @@ public interface AppointmentRepository extends JpaRepository<AppointmentEntity,
     
     List<AppointmentEntity> findAllByReasonAndStatusAndPetIsNullAndStartDateBetween(
         Reason reason, Status status, LocalDateTime startDate, LocalDateTime endDate);
-    
+
+    List<AppointmentEntity> findAllByStatusAndStartDateAfter(Status status, LocalDateTime startDate);
+
+    // Barridos de expiración: updates por lotes (LIMIT) para no bloquear la tabla completa.
+    // El status se guarda como ordinal, por eso se reciben enteros.
+    // NATIVE_SPACES: sin declarar la tabla, Hibernate vacía toda la caché de segundo nivel en cada update nativo.
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "appointments"))
+    @Modifying
+    @Query(value = "UPDATE appointments SET status = :newStatus " +
+            "WHERE status = :availableStatus AND pet_pet_id IS NULL AND start_date < :cutoff LIMIT :batchSize",
+            nativeQuery = true)
+    int cancelExpiredAvailableBatch(@Param("availableStatus") int availableStatus,
+                                    @Param("newStatus") int newStatus,
+                                    @Param("cutoff") LocalDateTime cutoff,
+                                    @Param("batchSize") int batchSize);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "appointments"))
+    @Modifying
+    @Query(value = "UPDATE appointments SET status = :newStatus " +
+            "WHERE status = :scheduledStatus AND pet_pet_id IS NOT NULL AND diagnoses_id IS NULL AND end_date < :cutoff LIMIT :batchSize",
+            nativeQuery = true)
+    int completeExpiredScheduledBatch(@Param("scheduledStatus") int scheduledStatus,
+                                      @Param("newStatus") int newStatus,
+                                      @Param("cutoff") LocalDateTime cutoff,
+                                      @Param("batchSize") int batchSize);
+
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE AppointmentEntity a SET a.status = :canceled WHERE a.id IN :ids")
+    int cancelAllByIds(@Param("ids") List<Long> ids, @Param("canceled") Status canceled);
+
+    // Re-publica como AVAILABLE (sin mascota) los turnos cancelados que empiezan desde releaseFrom,
+    // salvo que el doctor ya tenga otra cita que ocupe ese horario (misma regla que OCCUPIES_SLOT)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "appointments"))
+    @Modifying
+    @Query(value = "INSERT INTO appointments (start_date, end_date, reason, status, doctor_id, approved) " +
+            "SELECT a.start_date, a.end_date, a.reason, :availableStatus, a.doctor_id, " +
+            "CASE WHEN :keepApproved = TRUE THEN a.approved ELSE FALSE END " +
+            "FROM appointments a WHERE a.id IN (:ids) AND a.start_date >= :releaseFrom " +
+            "AND NOT EXISTS (SELECT 1 FROM appointments o WHERE o.doctor_id = a.doctor_id " +
+            "AND o.status <> :canceledStatus AND o.start_date < a.end_date AND o.end_date > a.start_date)",
+            nativeQuery = true)
+    int releaseCanceledSlots(@Param("ids") List<Long> ids,
+                             @Param("releaseFrom") LocalDateTime releaseFrom,
+                             @Param("availableStatus") int availableStatus,
+                             @Param("canceledStatus") int canceledStatus,
+                             @Param("keepApproved") boolean keepApproved);
+
+    // Reserva atómica: solo una de varias reservas concurrentes sobre el mismo turno afecta la fila
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("UPDATE AppointmentEntity a SET a.pet.id = :petId, a.status = :bookedStatus " +
+            "WHERE a.id = :id AND a.pet IS NULL AND a.status = :availableStatus")
+    int bookIfAvailable(@Param("id") Long id,
+                        @Param("petId") Long petId,
+                        @Param("availableStatus") Status availableStatus,
+                        @Param("bookedStatus") Status bookedStatus);
+
+    boolean existsByPetIdAndStatusAndStartDateAfter(Long petId, Status status, LocalDateTime startDate);
+
+    // Chequeo de pertenencia (OwnershipValidator): un join por clave primaria con la mascota
+    boolean existsByIdAndPetClientId(Long id, Long clientId);
+
     @Modifying
     @Query("UPDATE AppointmentEntity a SET a.approved = :approved WHERE a.id = :id")
     void updateApprovedStatus(@Param("id") Long id, @Param("approved") boolean approved);
     
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "appointments"))
     @Modifying(clearAutomatically = true, flushAutomatically = true)
     @Query(value = "UPDATE appointments SET status = :status WHERE id = :id", nativeQuery = true)
     void updateAppointmentStatusNative(@Param("id") Long id, @Param("status") String status);
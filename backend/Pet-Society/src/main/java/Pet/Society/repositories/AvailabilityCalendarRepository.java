@@ -0,0 +1,54 @@
+package Pet.Society.repositories;
+
+import Pet.Society.models.entities.AvailabilityCalendarEntity;
+import Pet.Society.models.enums.Reason;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface AvailabilityCalendarRepository extends JpaRepository<AvailabilityCalendarEntity, Long> {
+
+    // Lectura del calendario: usa el índice único (reason, calendar_date)
+    @Query("SELECT c.date FROM AvailabilityCalendarEntity c " +
+            "WHERE c.reason = :reason AND c.date BETWEEN :from AND :to AND c.freeSlots > 0 ORDER BY c.date ASC")
+    List<LocalDate> findDaysWithFreeSlots(@Param("reason") Reason reason,
+                                          @Param("from") LocalDate from,
+                                          @Param("to") LocalDate to);
+
+    // Suma (o resta) atómica; crea la fila si todavía no existe. Reason se guarda como ordinal.
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "availability_calendar"))
+    @Modifying
+    @Query(value = "INSERT INTO availability_calendar (reason, calendar_date, free_slots) VALUES (:reason, :date, GREATEST(:delta, 0)) " +
+            "ON DUPLICATE KEY UPDATE free_slots = GREATEST(free_slots + :delta, 0)",
+            nativeQuery = true)
+    void addFreeSlots(@Param("reason") int reason, @Param("date") LocalDate date, @Param("delta") int delta);
+
+    // Recalcular un rango de días desde la tabla de citas (arranque y barrido de expiración)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "availability_calendar"))
+    @Modifying
+    @Query(value = "UPDATE availability_calendar SET free_slots = 0 WHERE calendar_date BETWEEN :from AND :to",
+            nativeQuery = true)
+    void resetRange(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "availability_calendar"))
+    @Modifying
+    @Query(value = "INSERT INTO availability_calendar (reason, calendar_date, free_slots) " +
+            "SELECT reason, CAST(start_date AS DATE), COUNT(*) FROM appointments " +
+            "WHERE status = :availableStatus AND pet_pet_id IS NULL AND start_date >= :from AND start_date < :to " +
+            "GROUP BY reason, CAST(start_date AS DATE) " +
+            "ON DUPLICATE KEY UPDATE free_slots = VALUES(free_slots)",
+            nativeQuery = true)
+    void recountRange(@Param("availableStatus") int availableStatus,
+                      @Param("from") LocalDateTime from,
+                      @Param("to") LocalDateTime to);
+}
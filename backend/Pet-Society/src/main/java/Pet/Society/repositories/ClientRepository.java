@@ -28,6 +28,8 @@ import static java.sql.DriverManager.getConnection;
 public interface ClientRepository extends JpaRepository<ClientEntity, Long> {
 
     Optional<ClientEntity> findByDni(String dni);
+    // Chequeo de pertenencia (OwnershipValidator): por clave primaria, sin cargar el cliente
+    boolean existsByIdAndDni(Long id, String dni);
     List<ClientEntity> findBySubscribedTrue();
     List<ClientEntity> findBySubscribedFalse();
 }
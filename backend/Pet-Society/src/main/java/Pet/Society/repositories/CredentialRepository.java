@@ -3,6 +3,7 @@ package Pet.Society.repositories;
 import Pet.Society.models.entities.CredentialEntity;
 import Pet.Society.models.enums.Role;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
 import org.springframework.stereotype.Repository;
 
@@ -16,6 +17,11 @@ public interface CredentialRepository extends JpaRepository<CredentialEntity, Lo
 
     Optional<CredentialEntity> findByUsername(String username);
 
+    boolean existsByUsername(String username);
+
+    @Query("SELECT c.username FROM CredentialEntity c")
+    List<String> findAllUsernames();
+
     List<CredentialEntity> findByRole(Role role);
     
     Optional<CredentialEntity> findByUser_Id(Long userId);
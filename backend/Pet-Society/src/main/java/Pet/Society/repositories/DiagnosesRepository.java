@@ -1,7 +1,9 @@
 package Pet.Society.repositories;
 
+import Pet.Society.models.dto.diagnoses.DiagnosesDTOResponse;
 import Pet.Society.models.entities.AppointmentEntity;
 import Pet.Society.models.entities.DiagnosesEntity;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -10,6 +12,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -39,4 +42,41 @@ public interface DiagnosesRepository extends JpaRepository<DiagnosesEntity, Long
     Optional<DiagnosesEntity> findByIdWithRelations(@Param("id") Long id);
 
     Page<DiagnosesEntity> findByPetClientId(long petClientId, Pageable pageable);
+
+    // Chequeo de pertenencia (OwnershipValidator): un join por clave primaria con la mascota
+    boolean existsByIdAndPetClientId(Long id, Long clientId);
+
+    /*
+     * Exportación en lote: se leen DTOs (no entidades, así el contexto de persistencia no crece) en páginas
+     * keyset por (date, id). Cada página es una consulta corta: la conexión no queda tomada mientras el
+     * cliente descarga el PDF.
+     * Se sigue después de la última fila (afterDate, afterId); la primera página pasa from (o 1000-01-01) y
+     * Long.MIN_VALUE. to en null = sin límite; el rango es [from, to).
+     */
+    String EXPORT_SELECT = "SELECT new Pet.Society.models.dto.diagnoses.DiagnosesDTOResponse(" +
+            "d.id, d.diagnose, d.treatment, CONCAT(doc.name, ' ', doc.surname), p.name, p.petType, p.otherType, a.reason, d.date) " +
+            "FROM DiagnosesEntity d JOIN d.doctor doc JOIN d.pet p JOIN d.appointment a ";
+    String EXPORT_PAGE = "AND (d.date > :afterDate OR (d.date = :afterDate AND d.id > :afterId)) " +
+            "AND (:to IS NULL OR d.date < :to) ORDER BY d.date, d.id";
+
+    @Query(EXPORT_SELECT + "WHERE p.id = :petId " + EXPORT_PAGE)
+    List<DiagnosesDTOResponse> findExportPageByPetId(@Param("petId") long petId,
+                                                     @Param("afterDate") LocalDateTime afterDate,
+                                                     @Param("afterId") long afterId,
+                                                     @Param("to") LocalDateTime to,
+                                                     Limit limit);
+
+    @Query(EXPORT_SELECT + "WHERE p.client.id = :clientId " + EXPORT_PAGE)
+    List<DiagnosesDTOResponse> findExportPageByClientId(@Param("clientId") long clientId,
+                                                        @Param("afterDate") LocalDateTime afterDate,
+                                                        @Param("afterId") long afterId,
+                                                        @Param("to") LocalDateTime to,
+                                                        Limit limit);
+
+    @Query(EXPORT_SELECT + "WHERE doc.id = :doctorId " + EXPORT_PAGE)
+    List<DiagnosesDTOResponse> findExportPageByDoctorId(@Param("doctorId") long doctorId,
+                                                        @Param("afterDate") LocalDateTime afterDate,
+                                                        @Param("afterId") long afterId,
+                                                        @Param("to") LocalDateTime to,
+                                                        Limit limit);
 }
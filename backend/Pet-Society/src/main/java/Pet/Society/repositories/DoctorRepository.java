@@ -2,7 +2,10 @@ package Pet.Society.repositories;
 
 import Pet.Society.models.entities.DoctorEntity;
 import Pet.Society.models.entities.UserEntity;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -11,6 +14,9 @@ import java.util.Optional;
 @Repository
 public interface DoctorRepository extends JpaRepository<DoctorEntity, Long> {
     Optional<DoctorEntity> findByDni (String Dni);
+    // Listas chicas y muy leídas: caché de consultas, se invalida sola cuando cambia la tabla
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     List<DoctorEntity> findBySubscribedTrue();
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     List<DoctorEntity> findBySubscribedFalse();
 }
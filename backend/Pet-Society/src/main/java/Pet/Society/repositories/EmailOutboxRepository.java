@@ -0,0 +1,53 @@
+package Pet.Society.repositories;
+
+import Pet.Society.models.entities.EmailOutboxEntity;
+import Pet.Society.models.enums.EmailStatus;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface EmailOutboxRepository extends JpaRepository<EmailOutboxEntity, Long> {
+
+    // Toma atómicamente un lote de emails vencidos: varios dispatchers (o instancias) nunca se llevan la misma fila.
+    // El status se guarda como ordinal, por eso se reciben enteros. Se toman los más viejos primero.
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "email_outbox"))
+    @Modifying
+    @Query(value = "UPDATE email_outbox SET status = :sendingStatus, claim_token = :claimToken, claimed_at = :now " +
+            "WHERE status = :pendingStatus AND next_attempt_at <= :now " +
+            "ORDER BY next_attempt_at, id LIMIT :batchSize",
+            nativeQuery = true)
+    int claimDueBatch(@Param("pendingStatus") int pendingStatus,
+                      @Param("sendingStatus") int sendingStatus,
+                      @Param("claimToken") String claimToken,
+                      @Param("now") LocalDateTime now,
+                      @Param("batchSize") int batchSize);
+
+    List<EmailOutboxEntity> findAllByClaimTokenOrderByIdAsc(String claimToken);
+
+    @Modifying
+    @Query("UPDATE EmailOutboxEntity e SET e.status = :sent, e.sentAt = :now, e.claimToken = NULL, " +
+            "e.attempts = e.attempts + 1, e.lastError = NULL WHERE e.id IN :ids")
+    int markSent(@Param("ids") List<Long> ids, @Param("sent") EmailStatus sent, @Param("now") LocalDateTime now);
+
+    // Filas que quedaron en SENDING porque la instancia que las tomó se cayó a mitad del envío
+    @Modifying
+    @Query("UPDATE EmailOutboxEntity e SET e.status = :pending, e.claimToken = NULL " +
+            "WHERE e.status = :sending AND e.claimedAt < :cutoff")
+    int releaseStaleClaims(@Param("sending") EmailStatus sending,
+                           @Param("pending") EmailStatus pending,
+                           @Param("cutoff") LocalDateTime cutoff);
+
+    // Los enviados y fallidos guardan el cuerpo con enlaces de verificación y reseteo: no se conservan indefinidamente
+    @Modifying
+    @Query("DELETE FROM EmailOutboxEntity e WHERE e.status IN :statuses AND e.createdAt < :cutoff")
+    int deleteFinishedBefore(@Param("statuses") List<EmailStatus> statuses, @Param("cutoff") LocalDateTime cutoff);
+}
@@ -3,11 +3,16 @@ package Pet.Society.repositories;
 import Pet.Society.models.dto.pet.PetDTO;
 import Pet.Society.models.entities.ClientEntity;
 import Pet.Society.models.entities.PetEntity;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface PetRepository extends JpaRepository<PetEntity, Long> {
@@ -17,4 +22,12 @@ public interface PetRepository extends JpaRepository<PetEntity, Long> {
     List<PetEntity> findAllByClient_Dni(String clientDni);
 
     List<PetEntity> findAllByClientAndActiveTrue(ClientEntity client);
+
+    // Chequeo de pertenencia (OwnershipValidator): pet_id + id_cliente, sin joins
+    boolean existsByIdAndClientId(Long id, Long clientId);
+
+    // Bloquea la fila de la mascota hasta el fin de la transacción (reservas concurrentes de la misma mascota)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM PetEntity p WHERE p.id = :id")
+    Optional<PetEntity> findByIdForUpdate(@Param("id") Long id);
 }
@@ -0,0 +1,36 @@
+package Pet.Society.repositories;
+
+import Pet.Society.models.entities.RefreshTokenEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface RefreshTokenRepository extends JpaRepository<RefreshTokenEntity, Long> {
+
+    // Una sola consulta por refresh: el token por su hash (índice único) junto con la credencial y el usuario
+    @Query("SELECT t FROM RefreshTokenEntity t JOIN FETCH t.credential c LEFT JOIN FETCH c.user WHERE t.tokenHash = :tokenHash")
+    Optional<RefreshTokenEntity> findByTokenHash(@Param("tokenHash") String tokenHash);
+
+    // Marca el token como usado solo si nadie lo usó antes: de dos refresh concurrentes con el mismo token, uno solo gana
+    @Modifying
+    @Query("UPDATE RefreshTokenEntity t SET t.usedAt = :now WHERE t.id = :id AND t.usedAt IS NULL AND t.revokedAt IS NULL")
+    int markUsed(@Param("id") long id, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE RefreshTokenEntity t SET t.revokedAt = :now WHERE t.familyId = :familyId AND t.revokedAt IS NULL")
+    int revokeFamily(@Param("familyId") String familyId, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE RefreshTokenEntity t SET t.revokedAt = :now WHERE t.credential.id = :credentialId AND t.revokedAt IS NULL")
+    int revokeAllOfCredential(@Param("credentialId") long credentialId, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("DELETE FROM RefreshTokenEntity t WHERE t.expiresAt < :cutoff")
+    int deleteExpiredBefore(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -1,5 +1,6 @@
 package Pet.Society.repositories;
 
+import Pet.Society.models.dto.register.UserUniqueKeysView;
 import Pet.Society.models.entities.UserEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
@@ -7,6 +8,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -15,6 +17,13 @@ public interface UserRepository extends JpaRepository<UserEntity, Long> {
     Optional<UserEntity> findByEmail (String email);
     Optional<UserEntity> findByPhone (String phone);
 
+    boolean existsByDni(String dni);
+    boolean existsByEmail(String email);
+    boolean existsByPhone(String phone);
+
+    @Query("SELECT u.dni AS dni, u.email AS email, u.phone AS phone FROM UserEntity u")
+    List<UserUniqueKeysView> findAllUniqueKeys();
+
     @Modifying(clearAutomatically = true)
     @Query("UPDATE UserEntity u SET u.emailVerified = true WHERE u.id = :userId")
     int setEmailVerifiedTrue(@Param("userId") long userId);
@@ -0,0 +1,158 @@
+package Pet.Society.services;
+
+import Pet.Society.models.dto.appointment.AppointmentSlotView;
+import Pet.Society.models.dto.appointment.AvailableAppointmentDTO;
+import Pet.Society.models.enums.Status;
+import Pet.Society.models.events.SlotAvailabilityEvent;
+import Pet.Society.models.exceptions.AppointmentDoesntExistException;
+import Pet.Society.repositories.AppointmentRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Cancela citas en bloque y re-publica sus horarios como turnos libres con sentencias por conjunto:
+ * un UPDATE para cancelar y un INSERT ... SELECT (con anti-join por doctor) para los turnos re-publicados,
+ * en lugar de guardar y consultar cita por cita.
+ * Debe llamarse dentro de la transacción del llamador; el calendario, el índice en memoria
+ * y el stream de turnos libres se ajustan al final.
+ */
+@Service
+public class AppointmentCancellationService {
+
+    private static final ZoneId ARGENTINA_ZONE = ZoneId.of("America/Argentina/Buenos_Aires");
+    // Citas que ya no se pueden cancelar
+    private static final List<Status> CLOSED_STATUSES = List.of(Status.CANCELED, Status.SUCCESSFULLY);
+    // Solo se re-publica el turno si se cancela con al menos estas horas de anticipación
+    private static final long RELEASE_MIN_HOURS = 24;
+    // Tope de ids por sentencia para no armar listas IN gigantes
+    private static final int CHUNK_SIZE = 1000;
+
+    private final AppointmentRepository appointmentRepository;
+    private final AvailabilityCalendarService availabilityCalendar;
+    private final AppointmentIntervalIndex intervalIndex;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    public AppointmentCancellationService(AppointmentRepository appointmentRepository,
+                                          AvailabilityCalendarService availabilityCalendar,
+                                          AppointmentIntervalIndex intervalIndex,
+                                          ApplicationEventPublisher eventPublisher) {
+        this.appointmentRepository = appointmentRepository;
+        this.availabilityCalendar = availabilityCalendar;
+        this.intervalIndex = intervalIndex;
+        this.eventPublisher = eventPublisher;
+    }
+
+    private LocalDateTime getCurrentDateTimeArgentina() {
+        return ZonedDateTime.now(ARGENTINA_ZONE).toLocalDateTime();
+    }
+
+    /**
+     * Baja de un cliente: cancela las citas futuras de sus mascotas y re-publica las que faltan 24 horas o más.
+     * Devuelve la cantidad de citas canceladas.
+     */
+    public int cancelFutureAppointmentsOfClient(long clientId) {
+        LocalDateTime now = getCurrentDateTimeArgentina();
+        List<AppointmentSlotView> targets = appointmentRepository.findOpenSlotsByClientId(clientId, now, CLOSED_STATUSES);
+        return cancelAndRelease(targets, now.plusHours(RELEASE_MIN_HOURS), false);
+    }
+
+    /**
+     * Baja de un doctor: cancela todas sus citas futuras sin re-publicarlas.
+     * Las citas pasadas se mantienen para el registro histórico.
+     */
+    public int cancelFutureAppointmentsOfDoctor(long doctorId) {
+        LocalDateTime now = getCurrentDateTimeArgentina();
+        List<AppointmentSlotView> targets = appointmentRepository.findOpenSlotsByDoctorId(doctorId, now, CLOSED_STATUSES);
+        return cancelAndRelease(targets, null, false);
+    }
+
+    /**
+     * Cancela una cita (la mascota queda asociada para el historial) y, si faltan 24 horas o más,
+     * re-publica el horario conservando la aprobación.
+     */
+    public void cancelAppointment(long appointmentId) {
+        AppointmentSlotView target = appointmentRepository.findSlotById(appointmentId)
+                .orElseThrow(() -> new AppointmentDoesntExistException("Appointment does not exist"));
+        cancelAndRelease(List.of(target), getCurrentDateTimeArgentina().plusHours(RELEASE_MIN_HOURS), true);
+    }
+
+    /**
+     * releaseFrom null significa no re-publicar ningún turno.
+     */
+    private int cancelAndRelease(List<AppointmentSlotView> targets, LocalDateTime releaseFrom, boolean keepApproved) {
+        if (targets.isEmpty()) {
+            return 0;
+        }
+        List<Long> ids = targets.stream().map(AppointmentSlotView::getId).toList();
+
+        int canceled = 0;
+        int released = 0;
+        for (int from = 0; from < ids.size(); from += CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + CHUNK_SIZE, ids.size()));
+            canceled += appointmentRepository.cancelAllByIds(chunk, Status.CANCELED);
+            // Después de cancelar, así el anti-join no ve como ocupados los horarios que se acaban de liberar
+            if (releaseFrom != null) {
+                released += appointmentRepository.releaseCanceledSlots(chunk, releaseFrom,
+                        Status.AVAILABLE.ordinal(), Status.CANCELED.ordinal(), keepApproved);
+            }
+        }
+
+        List<AvailableAppointmentDTO> canceledFreeSlots = targets.stream()
+                .filter(slot -> slot.getStatus() == Status.AVAILABLE && slot.getPetId() == null)
+                .map(AppointmentCancellationService::toSlotRef)
+                .toList();
+        if (!canceledFreeSlots.isEmpty()) {
+            eventPublisher.publishEvent(SlotAvailabilityEvent.removed(canceledFreeSlots));
+        }
+        if (released > 0) {
+            publishReleased(targets, releaseFrom);
+        }
+
+        if (!canceledFreeSlots.isEmpty() || released > 0) {
+            LocalDate firstDay = targets.stream().map(AppointmentSlotView::getStartDate)
+                    .min(Comparator.naturalOrder()).orElseThrow().toLocalDate();
+            LocalDate lastDay = targets.stream().map(AppointmentSlotView::getStartDate)
+                    .max(Comparator.naturalOrder()).orElseThrow().toLocalDate();
+            availabilityCalendar.recount(firstDay, lastDay);
+        }
+
+        targets.stream().map(AppointmentSlotView::getDoctorId).distinct()
+                .forEach(intervalIndex::reloadDoctorAfterCommit);
+        return canceled;
+    }
+
+    // Los turnos re-publicados son filas nuevas: el stream los lee por doctor y rango después del commit
+    private void publishReleased(List<AppointmentSlotView> targets, LocalDateTime releaseFrom) {
+        Map<Long, List<AppointmentSlotView>> releasableByDoctor = targets.stream()
+                .filter(slot -> !slot.getStartDate().isBefore(releaseFrom))
+                .collect(Collectors.groupingBy(AppointmentSlotView::getDoctorId));
+        releasableByDoctor.forEach((doctorId, slots) -> {
+            LocalDateTime from = slots.stream().map(AppointmentSlotView::getStartDate)
+                    .min(Comparator.naturalOrder()).orElseThrow();
+            LocalDateTime to = slots.stream().map(AppointmentSlotView::getStartDate)
+                    .max(Comparator.naturalOrder()).orElseThrow();
+            eventPublisher.publishEvent(SlotAvailabilityEvent.released(doctorId, from, to.plusNanos(1)));
+        });
+    }
+
+    private static AvailableAppointmentDTO toSlotRef(AppointmentSlotView slot) {
+        return AvailableAppointmentDTO.builder()
+                .appointmentId(slot.getId())
+                .startTime(slot.getStartDate())
+                .endTime(slot.getEndDate())
+                .doctorId(slot.getDoctorId())
+                .reason(slot.getReason())
+                .build();
+    }
+}
@@ -0,0 +1,176 @@
+package Pet.Society.services;
+
+import Pet.Society.models.enums.Status;
+import Pet.Society.models.events.SlotAvailabilityEvent;
+import Pet.Society.repositories.AppointmentRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.function.IntSupplier;
+
+/**
+ * Job en segundo plano que reemplaza los barridos que antes se hacían en cada lectura de AppointmentService.
+ * - Cancela las citas AVAILABLE cuya hora de inicio ya pasó y nadie reservó.
+ * - Marca como SUCCESSFULLY las citas TO_BEGIN sin diagnóstico que terminaron hace más de 1 hora.
+ * Solo una instancia ejecuta el barrido a la vez (lock con nombre de MySQL) y los updates se hacen por lotes.
+ */
+@Service
+@ConditionalOnProperty(name = "appointments.expiry.enabled", havingValue = "true", matchIfMissing = true)
+public class AppointmentExpiryService {
+
+    private static final Logger log = LoggerFactory.getLogger(AppointmentExpiryService.class);
+
+    private static final ZoneId ARGENTINA_ZONE = ZoneId.of("America/Argentina/Buenos_Aires");
+    private static final String LEADER_LOCK_NAME = "pet_society.appointment_expiry";
+
+    private final AppointmentRepository appointmentRepository;
+    private final AvailabilityCalendarService availabilityCalendar;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final Counter canceledCounter;
+    private final Counter completedCounter;
+    private final Counter skippedRunsCounter;
+    private final Timer sweepTimer;
+
+    @Value("${appointments.expiry.batch-size:500}")
+    private int batchSize;
+
+    @Value("${appointments.expiry.max-batches-per-run:200}")
+    private int maxBatchesPerRun;
+
+    @Autowired
+    public AppointmentExpiryService(AppointmentRepository appointmentRepository,
+                                    AvailabilityCalendarService availabilityCalendar,
+                                    JdbcTemplate jdbcTemplate,
+                                    PlatformTransactionManager transactionManager,
+                                    ApplicationEventPublisher eventPublisher,
+                                    MeterRegistry meterRegistry) {
+        this.appointmentRepository = appointmentRepository;
+        this.availabilityCalendar = availabilityCalendar;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.canceledCounter = Counter.builder("appointments.expiry.canceled")
+                .description("Citas AVAILABLE vencidas que se pasaron a CANCELED")
+                .register(meterRegistry);
+        this.completedCounter = Counter.builder("appointments.expiry.completed")
+                .description("Citas TO_BEGIN vencidas que se pasaron a SUCCESSFULLY")
+                .register(meterRegistry);
+        this.skippedRunsCounter = Counter.builder("appointments.expiry.skipped")
+                .description("Ejecuciones omitidas porque otra instancia tenía el lock")
+                .register(meterRegistry);
+        this.sweepTimer = Timer.builder("appointments.expiry.sweep")
+                .description("Duración de cada barrido de expiración")
+                .register(meterRegistry);
+    }
+
+    private LocalDateTime getCurrentDateTimeArgentina() {
+        return ZonedDateTime.now(ARGENTINA_ZONE).toLocalDateTime();
+    }
+
+    @Scheduled(fixedDelayString = "${appointments.expiry.fixed-delay-ms:60000}",
+            initialDelayString = "${appointments.expiry.initial-delay-ms:10000}")
+    public void runScheduledSweep() {
+        try {
+            Boolean ran = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+                if (!acquireLeaderLock(connection)) {
+                    return false;
+                }
+                try {
+                    sweepTimer.record(this::sweep);
+                    return true;
+                } finally {
+                    releaseLeaderLock(connection);
+                }
+            });
+            if (!Boolean.TRUE.equals(ran)) {
+                skippedRunsCounter.increment();
+            }
+        } catch (Exception e) {
+            // Un fallo en el barrido no debe matar el scheduler; se reintenta en la próxima ejecución
+            log.error("Error al ejecutar el barrido de citas expiradas", e);
+        }
+    }
+
+    /**
+     * Ejecuta ambos barridos una vez. Devuelve la cantidad total de citas actualizadas.
+     */
+    public int sweep() {
+        LocalDateTime now = getCurrentDateTimeArgentina();
+
+        int canceled = runInBatches(() -> appointmentRepository.cancelExpiredAvailableBatch(
+                Status.AVAILABLE.ordinal(), Status.CANCELED.ordinal(), now, batchSize));
+        canceledCounter.increment(canceled);
+        if (canceled > 0) {
+            // Los turnos vencidos empiezan antes de ahora: solo pueden caer hoy o ayer (cruce de medianoche)
+            availabilityCalendar.recount(now.toLocalDate().minusDays(1), now.toLocalDate());
+            eventPublisher.publishEvent(SlotAvailabilityEvent.expired(now));
+        }
+
+        // Una cita programada se da por completada 1 hora después de su finalización
+        int completed = runInBatches(() -> appointmentRepository.completeExpiredScheduledBatch(
+                Status.TO_BEGIN.ordinal(), Status.SUCCESSFULLY.ordinal(), now.minusHours(1), batchSize));
+        completedCounter.increment(completed);
+
+        if (canceled > 0 || completed > 0) {
+            log.info("Barrido de expiración: {} citas canceladas, {} citas completadas", canceled, completed);
+        }
+        return canceled + completed;
+    }
+
+    /**
+     * Cada lote corre en su propia transacción para que los locks de fila se liberen enseguida.
+     */
+    private int runInBatches(IntSupplier batch) {
+        int total = 0;
+        for (int i = 0; i < maxBatchesPerRun; i++) {
+            Integer updated = transactionTemplate.execute(status -> batch.getAsInt());
+            int affected = updated == null ? 0 : updated;
+            total += affected;
+            if (affected < batchSize) {
+                break;
+            }
+        }
+        return total;
+    }
+
+    private boolean acquireLeaderLock(Connection connection) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT GET_LOCK(?, 0)")) {
+            statement.setString(1, LEADER_LOCK_NAME);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() && resultSet.getInt(1) == 1;
+            }
+        }
+    }
+
+    private void releaseLeaderLock(Connection connection) {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT RELEASE_LOCK(?)")) {
+            statement.setString(1, LEADER_LOCK_NAME);
+            statement.execute();
+        } catch (SQLException e) {
+            log.warn("No se pudo liberar el lock del barrido de expiración", e);
+        }
+    }
+}
@@ -0,0 +1,324 @@
+package Pet.Society.services;
+
+import Pet.Society.models.dto.appointment.AppointmentIndexFingerprintView;
+import Pet.Society.models.dto.appointment.AppointmentSlotView;
+import Pet.Society.models.entities.AppointmentEntity;
+import Pet.Society.models.enums.Status;
+import Pet.Society.repositories.AppointmentRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Índice en memoria de los intervalos de citas de cada doctor.
+ * Cada doctor tiene una foto inmutable con los inicios ordenados (en segundos) y el máximo fin acumulado,
+ * así los chequeos de solapamiento se resuelven con búsqueda binaria.
+ * - Las citas canceladas quedan en el índice (para el chequeo de consistencia) pero no ocupan el horario:
+ *   misma regla que AppointmentRepository.OCCUPIES_SLOT.
+ * - Para las altas el índice no decide solo, porque puede estar atrasado en los dos sentidos: las cancelaciones
+ *   del barrido de vencidos (updates nativos) y las de otras instancias no pasan por acá, y un horario que ve libre
+ *   puede estar ocupado por una escritura todavía no aplicada. Lo que aporta son los ids de las citas que chocarían:
+ *   AppointmentService los confirma en la base por clave primaria (las citas no se borran ni cambian de horario,
+ *   así que alcanza con ver si siguen ocupando) y, si ninguno se confirma, consulta el rango con la fila del doctor
+ *   bloqueada.
+ * - Se reconstruye completo al arrancar la aplicación; hasta entonces AppointmentService consulta la base.
+ * - Las escrituras se aplican recién después del commit de la transacción que las hizo.
+ * - Un chequeo periódico compara cada doctor contra la tabla y recarga los que difieran
+ *   (por ejemplo, cambios hechos por otra instancia).
+ */
+@Service
+public class AppointmentIntervalIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(AppointmentIntervalIndex.class);
+
+    private static final ZoneId ARGENTINA_ZONE = ZoneId.of("America/Argentina/Buenos_Aires");
+
+    private final AppointmentRepository appointmentRepository;
+    private final Map<Long, DoctorSlots> slotsByDoctor = new ConcurrentHashMap<>();
+    private final Counter driftCounter;
+    private volatile boolean ready = false;
+
+    @Value("${appointments.index.enabled:true}")
+    private boolean enabled;
+
+    @Autowired
+    public AppointmentIntervalIndex(AppointmentRepository appointmentRepository, MeterRegistry meterRegistry) {
+        this.appointmentRepository = appointmentRepository;
+        this.driftCounter = Counter.builder("appointments.index.drift")
+                .description("Doctores recargados porque el índice no coincidía con la tabla")
+                .register(meterRegistry);
+    }
+
+    private LocalDateTime getCurrentDateTimeArgentina() {
+        return ZonedDateTime.now(ARGENTINA_ZONE).toLocalDateTime();
+    }
+
+    public boolean isReady() {
+        return enabled && ready;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        if (!enabled) {
+            log.info("Índice de citas en memoria deshabilitado; los chequeos van a la base");
+            return;
+        }
+        try {
+            rebuild();
+        } catch (Exception e) {
+            log.error("No se pudo construir el índice de citas; se sigue consultando la base", e);
+        }
+    }
+
+    /**
+     * Vuelve a cargar todas las citas desde la tabla.
+     */
+    public void rebuild() {
+        long begin = System.currentTimeMillis();
+        Map<Long, List<Slot>> grouped = new HashMap<>();
+        int total = 0;
+        for (AppointmentSlotView view : appointmentRepository.findAllSlots()) {
+            grouped.computeIfAbsent(view.getDoctorId(), id -> new ArrayList<>()).add(Slot.of(view));
+            total++;
+        }
+        grouped.forEach((doctorId, slots) -> slotsByDoctor.put(doctorId, new DoctorSlots(slots)));
+        slotsByDoctor.keySet().retainAll(grouped.keySet());
+        ready = true;
+        log.info("Índice de citas construido: {} citas de {} doctores en {} ms",
+                total, grouped.size(), System.currentTimeMillis() - begin);
+    }
+
+    public void reloadDoctor(long doctorId) {
+        List<Slot> slots = appointmentRepository.findSlotsByDoctorId(doctorId).stream().map(Slot::of).toList();
+        if (slots.isEmpty()) {
+            slotsByDoctor.remove(doctorId);
+        } else {
+            slotsByDoctor.put(doctorId, new DoctorSlots(slots));
+        }
+    }
+
+    /**
+     * Ids de las citas del doctor que, según el índice, se solapan con [startDate, endDate).
+     * Misma regla que AppointmentRepository.existsOverlapping: cuentan todas salvo las canceladas.
+     * Son candidatas: quien las usa para rechazar un alta las confirma antes en la base.
+     */
+    public List<Long> findOverlappingIds(long doctorId, LocalDateTime startDate, LocalDateTime endDate,
+                                         Long excludeAppointmentId) {
+        DoctorSlots slots = slotsByDoctor.get(doctorId);
+        return slots == null ? List.of() : slots.overlappingIds(toKey(startDate), toKey(endDate),
+                excludeAppointmentId == null ? -1 : excludeAppointmentId);
+    }
+
+    /**
+     * Registra el estado actual de las citas para aplicarlo cuando la transacción confirme.
+     * Se toma la foto ahora porque las entidades pueden seguir cambiando antes del commit.
+     */
+    public void recordAfterCommit(AppointmentEntity... appointments) {
+        List<Slot> slots = new ArrayList<>();
+        for (AppointmentEntity appointment : appointments) {
+            slots.add(Slot.of(appointment));
+        }
+        afterCommit(() -> slots.forEach(this::upsert));
+    }
+
+    /**
+     * Para escrituras masivas donde no se conocen los ids (inserts en lote o updates por consulta).
+     */
+    public void reloadDoctorAfterCommit(long doctorId) {
+        afterCommit(() -> {
+            try {
+                reloadDoctor(doctorId);
+            } catch (Exception e) {
+                // El chequeo periódico vuelve a intentar la recarga
+                log.warn("No se pudo recargar el índice del doctor {}", doctorId, e);
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${appointments.index.consistency-check-ms:300000}",
+            initialDelayString = "${appointments.index.consistency-check-ms:300000}")
+    public void runScheduledConsistencyCheck() {
+        if (!isReady()) {
+            return;
+        }
+        try {
+            checkConsistency();
+        } catch (Exception e) {
+            log.error("Error al verificar el índice de citas contra la base", e);
+        }
+    }
+
+    /**
+     * Compara cada doctor (cantidad de citas, suma de ids, turnos libres futuros y canceladas) contra la tabla
+     * y recarga los que no coinciden. Devuelve la cantidad de doctores recargados.
+     */
+    public int checkConsistency() {
+        LocalDateTime now = getCurrentDateTimeArgentina();
+        long nowKey = toKey(now);
+        Map<Long, AppointmentIndexFingerprintView> fingerprints = new HashMap<>();
+        for (AppointmentIndexFingerprintView fingerprint :
+                appointmentRepository.findIndexFingerprints(Status.AVAILABLE, Status.CANCELED, now)) {
+            fingerprints.put(fingerprint.getDoctorId(), fingerprint);
+        }
+
+        Set<Long> doctorIds = new HashSet<>(fingerprints.keySet());
+        doctorIds.addAll(slotsByDoctor.keySet());
+
+        int reloaded = 0;
+        for (Long doctorId : doctorIds) {
+            DoctorSlots slots = slotsByDoctor.get(doctorId);
+            AppointmentIndexFingerprintView fingerprint = fingerprints.get(doctorId);
+            if (slots == null || fingerprint == null || !slots.matches(fingerprint, nowKey)) {
+                reloadDoctor(doctorId);
+                reloaded++;
+            }
+        }
+        if (reloaded > 0) {
+            driftCounter.increment(reloaded);
+            log.warn("Índice de citas desactualizado: se recargaron {} doctores", reloaded);
+        }
+        return reloaded;
+    }
+
+    private void upsert(Slot slot) {
+        slotsByDoctor.compute(slot.doctorId(), (doctorId, current) ->
+                current == null ? new DoctorSlots(List.of(slot)) : current.with(slot));
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!isReady()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    // Las fechas de las citas son hora local de Argentina; se usa UTC solo como escala fija para compararlas
+    private static long toKey(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    record Slot(long id, long doctorId, long start, long end, boolean free, boolean canceled) {
+
+        static Slot of(AppointmentSlotView view) {
+            return new Slot(view.getId(), view.getDoctorId(), toKey(view.getStartDate()), toKey(view.getEndDate()),
+                    view.getStatus() == Status.AVAILABLE && view.getPetId() == null, view.getStatus() == Status.CANCELED);
+        }
+
+        static Slot of(AppointmentEntity entity) {
+            return new Slot(entity.getId(), entity.getDoctor().getId(), toKey(entity.getStartDate()),
+                    toKey(entity.getEndDate()), entity.getStatus() == Status.AVAILABLE && entity.getPet() == null,
+                    entity.getStatus() == Status.CANCELED);
+        }
+    }
+
+    /**
+     * Foto inmutable de las citas de un doctor ordenadas por inicio; cada escritura arma una nueva.
+     */
+    static final class DoctorSlots {
+
+        private final Slot[] slots;
+        private final long[] starts;
+        private final long[] maxEnds;
+
+        DoctorSlots(List<Slot> unsorted) {
+            this.slots = unsorted.toArray(new Slot[0]);
+            Arrays.sort(this.slots, Comparator.comparingLong(Slot::start));
+            this.starts = new long[slots.length];
+            this.maxEnds = new long[slots.length];
+            for (int i = 0; i < slots.length; i++) {
+                starts[i] = slots[i].start();
+                maxEnds[i] = i == 0 ? slots[i].end() : Math.max(maxEnds[i - 1], slots[i].end());
+            }
+        }
+
+        DoctorSlots with(Slot slot) {
+            List<Slot> updated = new ArrayList<>(slots.length + 1);
+            for (Slot existing : slots) {
+                if (existing.id() != slot.id()) {
+                    updated.add(existing);
+                }
+            }
+            updated.add(slot);
+            return new DoctorSlots(updated);
+        }
+
+        List<Long> overlappingIds(long start, long end, long excludeId) {
+            List<Long> ids = new ArrayList<>();
+            // Se recorre hacia atrás desde el último intervalo que empieza antes del fin pedido;
+            // cuando el máximo fin acumulado ya no pasa el inicio pedido, ninguno anterior puede solaparse
+            for (int i = firstStartAtOrAfter(end) - 1; i >= 0 && maxEnds[i] > start; i--) {
+                if (slots[i].end() > start && slots[i].id() != excludeId && !slots[i].canceled()) {
+                    ids.add(slots[i].id());
+                }
+            }
+            return ids;
+        }
+
+        boolean matches(AppointmentIndexFingerprintView fingerprint, long nowKey) {
+            long idSum = 0;
+            long freeUpcoming = 0;
+            long canceled = 0;
+            for (Slot slot : slots) {
+                idSum += slot.id();
+                if (slot.free() && slot.start() > nowKey) {
+                    freeUpcoming++;
+                }
+                if (slot.canceled()) {
+                    canceled++;
+                }
+            }
+            // Las canceladas entran en la comparación porque liberan el horario: el barrido de vencidos las cambia
+            // con un update nativo que no pasa por el índice
+            return slots.length == fingerprint.getTotal().longValue()
+                    && idSum == fingerprint.getIdSum().longValue()
+                    && freeUpcoming == fingerprint.getFreeUpcoming().longValue()
+                    && canceled == fingerprint.getCanceled().longValue();
+        }
+
+        private int firstStartAtOrAfter(long key) {
+            int low = 0;
+            int high = starts.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (starts[mid] < key) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+}
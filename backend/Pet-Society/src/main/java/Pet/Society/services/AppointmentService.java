@@ -2,8 +2,15 @@ package Pet.Society.services;
 
 import Pet.Society.models.dto.appointment.AppointmentDTO;
 import Pet.Society.models.dto.appointment.AppointmentHistoryDTO;
+import Pet.Society.models.dto.appointment.AppointmentHistoryView;
+import Pet.Society.models.dto.appointment.AppointmentIntervalView;
+import Pet.Society.models.dto.appointment.AppointmentListView;
+import Pet.Society.models.dto.appointment.AvailabilityUploadResultDTO;
+import Pet.Society.models.dto.appointment.KeysetPageDTO;
 import Pet.Society.models.dto.appointment.AppointmentResponseDTO;
 import Pet.Society.models.dto.appointment.AppointmentScheduleDTO;
+import Pet.Society.models.dto.appointment.AppointmentStatsDTO;
+import Pet.Society.models.dto.appointment.AppointmentStatusCountView;
 import Pet.Society.models.dto.appointment.AppointmentUpdateDTO;
 import Pet.Society.models.dto.appointment.AvailableAppointmentDTO;
 import Pet.Society.models.dto.client.ClientDTO;
@@ -19,6 +26,7 @@ import Pet.Society.models.enums.PetType;
 import Pet.Society.models.enums.Reason;
 import Pet.Society.models.dto.appointment.AppointmentDTORequest;
 import Pet.Society.models.enums.Status;
+import Pet.Society.models.events.SlotAvailabilityEvent;
 import Pet.Society.models.exceptions.AppointmentDoesntExistException;
 import Pet.Society.models.exceptions.DoctorNotFoundException;
 import Pet.Society.models.exceptions.DuplicatedAppointmentException;
@@ -28,10 +36,13 @@ import Pet.Society.repositories.AppointmentRepository;
 import Pet.Society.repositories.DiagnosesRepository;
 import jakarta.transaction.Transactional;
 import org.aspectj.weaver.patterns.ThisOrTargetAnnotationPointcut;
+import io.micrometer.observation.annotation.Observed;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.cglib.core.Local;
 import org.springframework.context.ApplicationContextException;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -40,18 +51,24 @@ import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.time.YearMonth;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Random;
+import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.DoubleStream;
 
 
+// Un timer (appointments.service, por método) y un span por cada operación pública
+@Observed(name = "appointments.service")
 @Service
 public class AppointmentService implements Mapper<AppointmentDTO,AppointmentEntity> {
 
@@ -61,9 +78,17 @@ public class AppointmentService implements Mapper<AppointmentDTO,AppointmentEnti
     private final PetService petService;
     private final ClientService clientService;
     private final HttpMessageConverters messageConverters;
+    private final AppointmentIntervalIndex intervalIndex;
+    private final AvailabilityCalendarService availabilityCalendar;
+    private final AppointmentCancellationService appointmentCancellation;
+    private final ApplicationEventPublisher eventPublisher;
     
     // Zona horaria de Argentina
     private static final ZoneId ARGENTINA_ZONE = ZoneId.of("America/Argentina/Buenos_Aires");
+    // Cursor inicial de los historiales: ninguna cita empieza después (máxima fecha de MySQL)
+    private static final LocalDateTime HISTORY_FIRST_PAGE_START = LocalDateTime.of(9999, 12, 31, 0, 0);
+    // Tope de los listados sin paginar (deprecados): las citas más recientes; el resto se pide por cursor
+    static final int HISTORY_LIST_LIMIT = 500;
     
     /**
      * Obtiene la fecha y hora actual en la zona horaria de Argentina
@@ -75,13 +100,17 @@ public class AppointmentService implements Mapper<AppointmentDTO,AppointmentEnti
 
 
     @Autowired
-    public AppointmentService(AppointmentRepository appointmentRepository, DiagnosesRepository diagnosesRepository, DoctorService doctorService, PetService petService, ClientService clientService, HttpMessageConverters messageConverters) {
+    public AppointmentService(AppointmentRepository appointmentRepository, DiagnosesRepository diagnosesRepository, DoctorService doctorService, PetService petService, ClientService clientService, HttpMessageConverters messageConverters, AppointmentIntervalIndex intervalIndex, AvailabilityCalendarService availabilityCalendar, AppointmentCancellationService appointmentCancellation, ApplicationEventPublisher eventPublisher) {
         this.appointmentRepository = appointmentRepository;
         this.diagnosesRepository = diagnosesRepository;
         this.doctorService = doctorService;
         this.petService = petService;
         this.clientService = clientService;
         this.messageConverters = messageConverters;
+        this.intervalIndex = intervalIndex;
+        this.availabilityCalendar = availabilityCalendar;
+        this.appointmentCancellation = appointmentCancellation;
+        this.eventPublisher = eventPublisher;
     }
 
 
@@ -106,10 +135,14 @@ public class AppointmentService implements Mapper<AppointmentDTO,AppointmentEnti
                                         .doctor(findDoctor)
                                         .approved(false)
                                         .build();
+        appointmentRepository.lockDoctorForSlotWrites(findDoctor.getId());
         if (isOverlapping(appointment)) {
             throw new DuplicatedAppointmentException("The appointment already exists; it has the same hour.");
         }
         this.appointmentRepository.save(appointment);
+        availabilityCalendar.incrementIfFree(appointment);
+        intervalIndex.recordAfterCommit(appointment);
+        publishReleasedIfFree(appointment);
         return toDTO(appointment);
     }
 
@@ -128,21 +161,27 @@ public class AppointmentService implements Mapper<AppointmentDTO,AppointmentEnti
             throw new UnavailableAppointmentException("Esta cita no está disponible para asignar");
         }
 
-        Optional<PetEntity> findPet =Optional.ofNullable(this.petService.findById(dto.getPetId())) ;
+        // El lock sobre la mascota serializa las reservas de una misma mascota hasta el commit
+        Optional<PetEntity> findPet =Optional.ofNullable(this.petService.findByIdForUpdate(dto.getPetId())) ;
 
         // Validar que la mascota no tenga ya una cita programada (TO_BEGIN)
-        List<AppointmentEntity> existingAppointments = this.appointmentRepository.findAllByPetId(dto.getPetId());
-        boolean hasScheduledAppointment = existingAppointments.stream()
-                .anyMatch(apt -> apt.getStatus().equals(Status.TO_BEGIN) && 
-                               apt.getStartDate().isAfter(getCurrentDateTimeArgentina()));
-        
-        if (hasScheduledAppointment) {
+        if (this.appointmentRepository.existsByPetIdAndStatusAndStartDateAfter(
+                dto.getPetId(), Status.TO_BEGIN, getCurrentDateTimeArgentina())) {
             throw new UnavailableAppointmentException("Esta mascota ya tiene una cita programada");
         }
 
+        // Update condicional: si otra reserva ganó el turno entre la lectura y acá, no se afecta ninguna fila
+        int booked = this.appointmentRepository.bookIfAvailable(
+                idAppointment, dto.getPetId(), Status.AVAILABLE, Status.TO_BEGIN);
+        if (booked == 0) {
+            throw new UnavailableAppointmentException("This appointment is already booked");
+        }
+
+        availabilityCalendar.decrementIfFree(findAppointment);
+        eventPublisher.publishEvent(SlotAvailabilityEvent.booked(toSlotRef(findAppointment)));
         findAppointment.setPet(findPet.get());
         findAppointment.setStatus(Status.TO_BEGIN);
-        this.appointmentRepository.save(findAppointment);
+        intervalIndex.recordAfterCommit(findAppointment);
 
 
         return AppointmentResponseDTO.builder()
@@ -158,27 +197,99 @@ public class AppointmentService implements Mapper<AppointmentDTO,AppointmentEnti
 
     //Confirm if an Appointment doesn't overlap with another Appointment
    /// return if exist any match with another appointment in our database.
+    // El índice en memoria puede estar atrasado (cancelaciones del barrido de vencidos o de otra instancia): lo que
+    // ve solapado se confirma por id en la base, y un "libre" o un choque no confirmado se consulta por rango
     private boolean isOverlapping(AppointmentEntity newAppointment) {
+        if (intervalIndex.isReady()) {
+            List<Long> candidates = intervalIndex.findOverlappingIds(newAppointment.getDoctor().getId(),
+                    newAppointment.getStartDate(), newAppointment.getEndDate(), null);
+            if (!candidates.isEmpty() && !appointmentRepository.findIdsOccupyingSlot(candidates).isEmpty()) {
+                return true;
+            }
+        }
+        return appointmentRepository.existsOverlapping(
+                newAppointment.getDoctor().getId(), newAppointment.getStartDate(), newAppointment.getEndDate());
+    }
 
-        return appointmentRepository.findAppointmentByDoctor(newAppointment.getDoctor())
-                .stream()
-                .anyMatch(existing ->
-                        newAppointment.getStartDate().isBefore(existing.getEndDate()) &&
-                                newAppointment.getEndDate().isAfter(existing.getStartDate())
-                );
+    /**
+     * Devuelve las citas propuestas (de un mismo doctor) que se solapan con citas existentes.
+     * Los choques que ve el índice se confirman juntos por id (una consulta); las propuestas sin choque confirmado
+     * se validan contra la base en un solo viaje. Quien inserta tiene que haber tomado antes
+     * AppointmentRepository.lockDoctorForSlotWrites.
+     */
+    public List<AppointmentEntity> findOverlappingSlots(DoctorEntity doctor, List<AppointmentEntity> proposed) {
+        if (proposed.isEmpty()) {
+            return List.of();
+        }
+        if (!intervalIndex.isReady()) {
+            return findOverlappingInDatabase(doctor, proposed);
+        }
+        List<List<Long>> candidates = new ArrayList<>(proposed.size());
+        Set<Long> allCandidates = new HashSet<>();
+        for (AppointmentEntity appointment : proposed) {
+            List<Long> ids = intervalIndex.findOverlappingIds(doctor.getId(),
+                    appointment.getStartDate(), appointment.getEndDate(), null);
+            candidates.add(ids);
+            allCandidates.addAll(ids);
+        }
+        Set<Long> occupying = allCandidates.isEmpty() ? Set.of()
+                : new HashSet<>(appointmentRepository.findIdsOccupyingSlot(allCandidates));
+
+        List<AppointmentEntity> overlapping = new ArrayList<>();
+        List<AppointmentEntity> toConfirm = new ArrayList<>();
+        for (int i = 0; i < proposed.size(); i++) {
+            boolean known = candidates.get(i).stream().anyMatch(occupying::contains);
+            (known ? overlapping : toConfirm).add(proposed.get(i));
+        }
+        if (!toConfirm.isEmpty()) {
+            overlapping.addAll(findOverlappingInDatabase(doctor, toConfirm));
+        }
+        return overlapping;
     }
 
     /**
-     * Verifica si una cita se solapa con otras, excluyendo una cita específica (útil al cancelar)
+     * Trae los intervalos existentes del rango que cubre el lote y devuelve las citas propuestas que se solapan.
      */
-    private boolean isOverlappingExcludingAppointment(AppointmentEntity newAppointment, Long excludeAppointmentId) {
-        return appointmentRepository.findAppointmentByDoctor(newAppointment.getDoctor())
-                .stream()
-                .filter(existing -> !Objects.equals(existing.getId(), excludeAppointmentId))
-                .anyMatch(existing ->
-                        newAppointment.getStartDate().isBefore(existing.getEndDate()) &&
-                                newAppointment.getEndDate().isAfter(existing.getStartDate())
-                );
+    private List<AppointmentEntity> findOverlappingInDatabase(DoctorEntity doctor, List<AppointmentEntity> proposed) {
+        LocalDateTime from = proposed.stream().map(AppointmentEntity::getStartDate).min(LocalDateTime::compareTo).get();
+        LocalDateTime to = proposed.stream().map(AppointmentEntity::getEndDate).max(LocalDateTime::compareTo).get();
+
+        // Vienen ordenados por inicio; maxEnd[i] es el mayor fin entre los primeros i+1 intervalos
+        List<AppointmentIntervalView> existing = appointmentRepository.findIntervalsInRange(doctor.getId(), from, to);
+        if (existing.isEmpty()) {
+            return List.of();
+        }
+        LocalDateTime[] starts = new LocalDateTime[existing.size()];
+        LocalDateTime[] maxEnd = new LocalDateTime[existing.size()];
+        for (int i = 0; i < existing.size(); i++) {
+            starts[i] = existing.get(i).getStartDate();
+            LocalDateTime end = existing.get(i).getEndDate();
+            maxEnd[i] = i == 0 || end.isAfter(maxEnd[i - 1]) ? end : maxEnd[i - 1];
+        }
+
+        List<AppointmentEntity> overlapping = new ArrayList<>();
+        for (AppointmentEntity appointment : proposed) {
+            // Cantidad de intervalos existentes que empiezan antes de que termine la cita propuesta
+            int count = countStartingBefore(starts, appointment.getEndDate());
+            if (count > 0 && maxEnd[count - 1].isAfter(appointment.getStartDate())) {
+                overlapping.add(appointment);
+            }
+        }
+        return overlapping;
+    }
+
+    private int countStartingBefore(LocalDateTime[] sortedStarts, LocalDateTime limit) {
+        int low = 0;
+        int high = sortedStarts.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sortedStarts[mid].isBefore(limit)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
     }
 
     ///WORKS
@@ -188,6 +299,20 @@ public class AppointmentService implements Mapper<AppointmentDTO,AppointmentEnti
             throw new AppointmentDoesntExistException("Appointment does not exist");
         }
         AppointmentEntity appointmentToUpdate =  existingAppointment.get();
+        // Una cita cancelada no ocupa el horario (su turno pudo re-publicarse); reactivarla vuelve a ocuparlo
+        if (appointmentToUpdate.getStatus() == Status.CANCELED && appointmentUpdateDTO.getStatus() != null
+                && appointmentUpdateDTO.getStatus() != Status.CANCELED) {
+            appointmentRepository.lockDoctorForSlotWrites(appointmentToUpdate.getDoctor().getId());
+            if (appointmentRepository.existsOverlappingExcluding(appointmentToUpdate.getDoctor().getId(),
+                    appointmentToUpdate.getStartDate(), appointmentToUpdate.getEndDate(), appointmentToUpdate.getId())) {
+                throw new DuplicatedAppointmentException("The appointment already exists; it has the same hour.");
+            }
+        }
+        availabilityCalendar.decrementIfFree(appointmentToUpdate);
+        // El stream quita el turno como estaba y lo vuelve a publicar si sigue libre (puede cambiar de motivo)
+        if (isFree(appointmentToUpdate)) {
+            eventPublisher.publishEvent(SlotAvailabilityEvent.removed(List.of(toSlotRef(appointmentToUpdate))));
+        }
         if (appointmentUpdateDTO.getAproved() != null) {
             appointmentToUpdate.setApproved(appointmentUpdateDTO.getAproved());
         }
@@ -203,91 +328,94 @@ public class AppointmentService implements Mapper<AppointmentDTO,AppointmentEnti
         appointmentToUpdate.setPet(appointmentToUpdate.getPet());
 
             this.appointmentRepository.save(appointmentToUpdate);
+        availabilityCalendar.incrementIfFree(appointmentToUpdate);
+        intervalIndex.recordAfterCommit(appointmentToUpdate);
+        publishReleasedIfFree(appointmentToUpdate);
         return toDTO(appointmentToUpdate);
     }
 
+    /**
+     * @deprecated devuelve solo las HISTORY_LIST_LIMIT citas más nuevas; usar getAllAppointmentsPage o getAdminStats
+     */
+    @Deprecated
     public List<AppointmentResponseDTO>getAllAppointmets(){
-        return this.appointmentRepository.findAll().stream().map(appointmentEntity -> {
-            String petName = appointmentEntity.getPet() != null 
-                ? appointmentEntity.getPet().getName() 
-                : "No hay mascota asignada";
-            
-            String clientName = null;
-            if (appointmentEntity.getPet() != null && appointmentEntity.getPet().getClient() != null) {
-                clientName = appointmentEntity.getPet().getClient().getName() + " " + 
-                            appointmentEntity.getPet().getClient().getSurname();
-            }
-            
-            AppointmentResponseDTO.AppointmentResponseDTOBuilder builder = AppointmentResponseDTO.builder()
-                        .id(appointmentEntity.getId())
-                        .startTime(appointmentEntity.getStartDate())
-                        .endTime(appointmentEntity.getEndDate())
-                        .reason(appointmentEntity.getReason())
-                        .aproved(appointmentEntity.isApproved())
-                        .status(appointmentEntity.getStatus())
-                        .petName(petName)
-                        .doctorName(appointmentEntity.getDoctor().getName()+  " " + appointmentEntity.getDoctor().getSurname());
-            
-            if (clientName != null) {
-                builder.clientName(clientName);
-            }
-            
-            return builder.build();
-        }).collect(Collectors.toList());
+        return this.appointmentRepository.findAllListViews(Limit.of(HISTORY_LIST_LIMIT)).stream()
+                .map(this::toResponseDTO)
+                .collect(Collectors.toList());
     }
 
-    @Transactional
-    public void cancelAppointment(long id) {
-        Optional<AppointmentEntity> existingAppointment = this.appointmentRepository.findById(id);
+    /**
+     * Números del panel del admin: cantidades por estado del mes y del día, y las próximas citas.
+     */
+    public AppointmentStatsDTO getAdminStats() {
+        LocalDateTime now = getCurrentDateTimeArgentina();
+        LocalDateTime monthStart = now.toLocalDate().withDayOfMonth(1).atStartOfDay();
+        LocalDateTime todayStart = now.toLocalDate().atStartOfDay();
+        Map<Status, Long> thisMonth = countByStatus(monthStart, monthStart.plusMonths(1));
+        Map<Status, Long> today = countByStatus(todayStart, todayStart.plusDays(1));
+
+        LocalDateTime nextStart = this.appointmentRepository.findNextStartAfter(now);
+        List<AppointmentResponseDTO> nextAppointments = nextStart == null ? List.of()
+                : this.appointmentRepository.findListViewsStartingAt(nextStart).stream()
+                        .map(this::toResponseDTO)
+                        .collect(Collectors.toList());
+
+        return AppointmentStatsDTO.builder()
+                .canceledThisMonth(thisMonth.getOrDefault(Status.CANCELED, 0L))
+                .successfulThisMonth(thisMonth.getOrDefault(Status.SUCCESSFULLY, 0L))
+                .toBeginToday(today.getOrDefault(Status.TO_BEGIN, 0L))
+                .approvedToBegin(this.appointmentRepository.countByStatusAndApprovedTrue(Status.TO_BEGIN))
+                .nextAppointments(nextAppointments)
+                .build();
+    }
 
-        if (existingAppointment.isEmpty()) {
-            throw new AppointmentDoesntExistException("Appointment does not exist");
-        }
+    private Map<Status, Long> countByStatus(LocalDateTime from, LocalDateTime to) {
+        return this.appointmentRepository.countByStatusStartingBetween(from, to).stream()
+                .collect(Collectors.toMap(AppointmentStatusCountView::getStatus, view -> view.getTotal().longValue()));
+    }
 
-        AppointmentEntity appointment = existingAppointment.get();
-        LocalDateTime now = getCurrentDateTimeArgentina();
-        long hoursUntilAppointment = Duration.between(now, appointment.getStartDate()).toHours();
+    /**
+     * Listado del admin paginado por cursor (id descendente). after = null pide la primera página.
+     */
+    public KeysetPageDTO<AppointmentResponseDTO> getAllAppointmentsPage(Long after, int size) {
+        validatePageSize(size);
+        // Se pide un elemento de más para saber si hay otra página sin hacer un COUNT
+        List<AppointmentListView> rows = this.appointmentRepository.findListViewsBefore(
+                after == null ? Long.MAX_VALUE : after, Limit.of(size + 1));
+        boolean hasNext = rows.size() > size;
+        List<AppointmentResponseDTO> content = rows.stream()
+                .limit(size)
+                .map(this::toResponseDTO)
+                .collect(Collectors.toList());
+        Long nextCursor = hasNext ? content.get(content.size() - 1).getId() : null;
+        return new KeysetPageDTO<>(content, nextCursor, hasNext);
+    }
 
-        // Guardar la referencia a la mascota ANTES de modificar la cita
-        // Esto asegura que la relación se mantiene incluso si hay problemas con lazy loading
-        PetEntity petReference = appointment.getPet();
-        
-        // Marcar la cita como cancelada pero mantener la referencia a la mascota para el historial
-        appointment.setStatus(Status.CANCELED);
-        
-        // Asegurar explícitamente que el pet se mantiene - NO borrar para mantener el historial
-        // Esto es crítico para mantener la persistencia del registro de citas
-        if (petReference != null) {
-            appointment.setPet(petReference);
+    private static void validatePageSize(int size) {
+        if (size < 1 || size > 100) {
+            throw new IllegalArgumentException("Size must be between 1 and 100");
         }
-        
-        // Guardar la cita cancelada con la referencia a la mascota intacta
-        AppointmentEntity savedAppointment = this.appointmentRepository.save(appointment);
-        
-        // Verificar que la referencia se mantuvo después de guardar
-        if (savedAppointment.getPet() == null && petReference != null) {
-            // Si por alguna razón se perdió, restaurarla explícitamente
-            savedAppointment.setPet(petReference);
-            this.appointmentRepository.save(savedAppointment);
-        }
-
-        // Si se cancela con más de 24 horas de anticipación, crear una nueva cita disponible
-        if (hoursUntilAppointment >= 24) {
-            AppointmentEntity newAvailableAppointment = AppointmentEntity.builder()
-                    .startDate(appointment.getStartDate())
-                    .endDate(appointment.getEndDate())
-                    .reason(appointment.getReason())
-                    .doctor(appointment.getDoctor())
-                    .status(Status.AVAILABLE)
-                    .approved(appointment.isApproved())
-                    .pet(null) // La nueva cita disponible no tiene mascota asignada
-                    .build();
+    }
 
-            // Verificar que no se solape con otra cita existente (excluyendo la que acabamos de cancelar)
-            if (!isOverlappingExcludingAppointment(newAvailableAppointment, appointment.getId())) {
-                this.appointmentRepository.save(newAvailableAppointment);
-            }
-        }
+    private AppointmentResponseDTO toResponseDTO(AppointmentListView view) {
+        return AppointmentResponseDTO.builder()
+                .id(view.getId())
+                .startTime(view.getStartTime())
+                .endTime(view.getEndTime())
+                .reason(view.getReason())
+                .aproved(view.isApproved())
+                .status(view.getStatus())
+                .petName(view.getPetName() != null ? view.getPetName() : "No hay mascota asignada")
+                .clientName(view.getClientName() != null ? view.getClientName() + " " + view.getClientSurname() : null)
+                .doctorName(view.getDoctorName() + " " + view.getDoctorSurname())
+                .build();
+    }
+
+    @Transactional
+    public void cancelAppointment(long id) {
+        // Se cancela con un UPDATE (la mascota queda asociada para el historial) y, si faltan 24 horas o más,
+        // se re-publica el horario como turno libre salvo que el doctor ya tenga otra cita en ese rango
+        appointmentCancellation.cancelAppointment(id);
     }
 
     @Transactional
@@ -414,36 +542,34 @@ public class AppointmentService implements Mapper<AppointmentDTO,AppointmentEnti
     }
 
     public List<AppointmentHistoryDTO> getAllAppointmentsHistoryByClientId(long clientId) {
-        // Primero marcar como completadas las citas que ya pasaron el tiempo límite
-        markExpiredAppointmentsAsCompleted();
-        
         Optional<ClientDTO> client = Optional.ofNullable(this.clientService.findById(clientId));
         if (client.isEmpty()) {
             throw new AppointmentDoesntExistException("Client does not exist");
         }
         
-        return this.appointmentRepository.findAllByPetClientId(clientId).stream()
-                .filter(appointment -> appointment.getPet() != null) // Solo citas asignadas a mascotas
-                .sorted((a1, a2) -> a2.getStartDate().compareTo(a1.getStartDate())) // Ordenar por fecha descendente (más recientes primero)
-                .map(appointmentEntity -> AppointmentHistoryDTO.builder()
-                        .appointmentId(appointmentEntity.getId())
-                        .startTime(appointmentEntity.getStartDate())
-                        .endTime(appointmentEntity.getEndDate())
-                        .doctorName(appointmentEntity.getDoctor().getName() + " " + appointmentEntity.getDoctor().getSurname())
-                        .doctorId(appointmentEntity.getDoctor().getId())
-                        .doctorSpeciality(appointmentEntity.getDoctor().getSpeciality())
-                        .petName(appointmentEntity.getPet().getName())
-                        .petId(appointmentEntity.getPet().getId())
-                        .petType(appointmentEntity.getPet().getPetType())
-                        .otherType(appointmentEntity.getPet().getOtherType())
-                        .reason(appointmentEntity.getReason())
-                        .status(appointmentEntity.getStatus())
-                        .hasDiagnosis(appointmentEntity.getDiagnoses() != null)
-                        .diagnosisId(appointmentEntity.getDiagnoses() != null ? appointmentEntity.getDiagnoses().getId() : null)
-                        .build())
+        // Solo citas asignadas a mascotas, más recientes primero (orden resuelto en la base)
+        return this.appointmentRepository.findClientHistory(clientId, null, null, null,
+                        HISTORY_FIRST_PAGE_START, Long.MAX_VALUE, Limit.of(HISTORY_LIST_LIMIT)).stream()
+                .map(view -> toHistoryDTO(view, false))
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Historial del cliente paginado por cursor sobre (fecha de inicio DESC, id DESC).
+     * after es el id de la última cita de la página anterior; status, petId y reason son filtros opcionales.
+     */
+    public KeysetPageDTO<AppointmentHistoryDTO> getAppointmentsHistoryPageByClientId(long clientId, Status status, Long petId,
+                                                                                    Reason reason, Long after, int size) {
+        validatePageSize(size);
+        Optional<ClientDTO> client = Optional.ofNullable(this.clientService.findById(clientId));
+        if (client.isEmpty()) {
+            throw new AppointmentDoesntExistException("Client does not exist");
+        }
+        List<AppointmentHistoryView> rows = this.appointmentRepository.findClientHistory(clientId, status, petId, reason,
+                resolveHistoryCursor(after), after == null ? Long.MAX_VALUE : after, Limit.of(size + 1));
+        return toHistoryPage(rows, size, false);
+    }
+
     public List<AppointmentResponseDTO> getAllAppointmentsByPetId(long id) {
       Optional <PetEntity> pet = Optional.ofNullable(this.petService.findById(id));
         if(pet.isEmpty()){
@@ -462,52 +588,79 @@ public class AppointmentService implements Mapper<AppointmentDTO,AppointmentEnti
     }
 
     public List<AppointmentHistoryDTO> getAllPastAppointmentsByDoctorId(long doctorId){
-        // Primero marcar como completadas las citas que ya pasaron el tiempo límite
-        markExpiredAppointmentsAsCompleted();
-        
         Optional <DoctorEntity> doctor = Optional.ofNullable(this.doctorService.findById1(doctorId));
 
         if (doctor.isEmpty()){
             throw new DoctorNotFoundException("Doctor does not exist");
         }
 
-        LocalDateTime now = getCurrentDateTimeArgentina();
+        // Citas pasadas con mascota asignada, sin importar el estado (SUCCESSFULLY, CANCELED, etc.)
+        // para tener un historial completo, más recientes primero
+        return this.appointmentRepository.findDoctorPastHistory(doctorId, getCurrentDateTimeArgentina(), null, null, null,
+                        HISTORY_FIRST_PAGE_START, Long.MAX_VALUE, Limit.of(HISTORY_LIST_LIMIT)).stream()
+                .map(view -> toHistoryDTO(view, true))
+                .collect(Collectors.toList());
+    }
 
-        return this.appointmentRepository.findAllByDoctorId(doctorId).stream()
-                .filter(appointment -> {
-                    // Filtrar solo citas pasadas (fecha de inicio anterior a ahora)
-                    // Incluir todas las citas pasadas independientemente del estado
-                    // (SUCCESSFULLY, CANCELED, etc.) para tener un historial completo
-                    return appointment.getStartDate().isBefore(now) && 
-                           appointment.getPet() != null; // Solo citas con mascota asignada
-                })
-                .map(appointmentEntity -> {
-                    // Manejar casos donde el cliente puede ser null
-                    String clientName = appointmentEntity.getPet() != null && 
-                                      appointmentEntity.getPet().getClient() != null
-                                      ? appointmentEntity.getPet().getClient().getName() + " " + 
-                                        appointmentEntity.getPet().getClient().getSurname()
-                                      : "Sin cliente asignado";
-                    
-                    return AppointmentHistoryDTO.builder()
-                            .appointmentId(appointmentEntity.getId())
-                            .startTime(appointmentEntity.getStartDate())
-                            .endTime(appointmentEntity.getEndDate())
-                            .doctorName(appointmentEntity.getDoctor().getName() + " " + appointmentEntity.getDoctor().getSurname())
-                            .doctorId(appointmentEntity.getDoctor().getId())
-                            .doctorSpeciality(appointmentEntity.getDoctor().getSpeciality())
-                            .clientName(clientName)
-                            .petName(appointmentEntity.getPet() != null ? appointmentEntity.getPet().getName() : "Sin mascota asignada")
-                            .petId(appointmentEntity.getPet() != null ? appointmentEntity.getPet().getId() : 0)
-                            .petType(appointmentEntity.getPet() != null ? appointmentEntity.getPet().getPetType() : null)
-                            .otherType(appointmentEntity.getPet() != null ? appointmentEntity.getPet().getOtherType() : null)
-                            .reason(appointmentEntity.getReason())
-                            .status(appointmentEntity.getStatus())
-                            .hasDiagnosis(appointmentEntity.getDiagnoses() != null)
-                            .diagnosisId(appointmentEntity.getDiagnoses() != null ? appointmentEntity.getDiagnoses().getId() : null)
-                            .build();
-                })
+    /**
+     * Historial pasado del doctor paginado por cursor sobre (fecha de inicio DESC, id DESC).
+     * after es el id de la última cita de la página anterior; status, petId y reason son filtros opcionales.
+     */
+    public KeysetPageDTO<AppointmentHistoryDTO> getPastAppointmentsPageByDoctorId(long doctorId, Status status, Long petId,
+                                                                                 Reason reason, Long after, int size) {
+        validatePageSize(size);
+        Optional <DoctorEntity> doctor = Optional.ofNullable(this.doctorService.findById1(doctorId));
+        if (doctor.isEmpty()){
+            throw new DoctorNotFoundException("Doctor does not exist");
+        }
+        List<AppointmentHistoryView> rows = this.appointmentRepository.findDoctorPastHistory(doctorId,
+                getCurrentDateTimeArgentina(), status, petId, reason,
+                resolveHistoryCursor(after), after == null ? Long.MAX_VALUE : after, Limit.of(size + 1));
+        return toHistoryPage(rows, size, true);
+    }
+
+    private LocalDateTime resolveHistoryCursor(Long after) {
+        if (after == null) {
+            return HISTORY_FIRST_PAGE_START;
+        }
+        return this.appointmentRepository.findStartDateById(after)
+                .orElseThrow(() -> new IllegalArgumentException("Invalid cursor"));
+    }
+
+    private KeysetPageDTO<AppointmentHistoryDTO> toHistoryPage(List<AppointmentHistoryView> rows, int size, boolean withClient) {
+        // Se pide un elemento de más para saber si hay otra página sin hacer un COUNT
+        boolean hasNext = rows.size() > size;
+        List<AppointmentHistoryDTO> content = rows.stream()
+                .limit(size)
+                .map(view -> toHistoryDTO(view, withClient))
                 .collect(Collectors.toList());
+        Long nextCursor = hasNext ? content.get(content.size() - 1).getAppointmentId() : null;
+        return new KeysetPageDTO<>(content, nextCursor, hasNext);
+    }
+
+    private AppointmentHistoryDTO toHistoryDTO(AppointmentHistoryView view, boolean withClient) {
+        AppointmentHistoryDTO.AppointmentHistoryDTOBuilder<?, ?> builder = AppointmentHistoryDTO.builder()
+                .appointmentId(view.getAppointmentId())
+                .startTime(view.getStartTime())
+                .endTime(view.getEndTime())
+                .doctorName(view.getDoctorName() + " " + view.getDoctorSurname())
+                .doctorId(view.getDoctorId())
+                .doctorSpeciality(view.getDoctorSpeciality())
+                .petName(view.getPetName())
+                .petId(view.getPetId())
+                .petType(view.getPetType())
+                .otherType(view.getOtherType())
+                .reason(view.getReason())
+                .status(view.getStatus())
+                .hasDiagnosis(view.getDiagnosisId() != null)
+                .diagnosisId(view.getDiagnosisId());
+        if (withClient) {
+            // Manejar casos donde el cliente puede ser null
+            builder.clientName(view.getClientName() != null
+                    ? view.getClientName() + " " + view.getClientSurname()
+                    : "Sin cliente asignado");
+        }
+        return builder.build();
     }
 
     /**
@@ -536,9 +689,6 @@ public class AppointmentService implements Mapper<AppointmentDTO,AppointmentEnti
     }
 
     public Page<AppointmentScheduleDTO> getScheduleAppointmentsDoctorForToday(long id, Pageable pageable) {
-        // Primero marcar como completadas las citas que ya pasaron el tiempo límite
-        markExpiredAppointmentsAsCompleted();
-        
         if (!doctorService.doctorExistById(id)) {
             throw new AppointmentDoesntExistException("Doctor does not exist");
         }
@@ -587,102 +737,11 @@ public class AppointmentService implements Mapper<AppointmentDTO,AppointmentEnti
        return false;
     }
 
-    /**
-     * Marca automáticamente las citas AVAILABLE pasadas como CANCELED
-     * Una cita disponible se cancela si ya pasó su hora de inicio y nadie la reservó
-     * Esto evita que aparezcan citas disponibles que ya pasaron
-     */
-    @Transactional
-    public void cancelExpiredAvailableAppointments() {
-        try {
-            LocalDateTime now = getCurrentDateTimeArgentina();
-            // Buscar solo citas AVAILABLE para optimizar la consulta
-            List<AppointmentEntity> allAvailable = this.appointmentRepository.findAll().stream()
-                    .filter(appointment -> appointment.getStatus() != null && appointment.getStatus().equals(Status.AVAILABLE))
-                    .collect(Collectors.toList());
-            
-            // Filtrar las que ya pasó su hora de inicio y no tienen cliente asignado
-            List<AppointmentEntity> expiredAppointments = allAvailable.stream()
-                    .filter(appointment -> 
-                        appointment.getStartDate() != null &&
-                        appointment.getStartDate().isBefore(now) && // Ya pasó la hora de inicio
-                        appointment.getPet() == null // Solo citas sin cliente asignado
-                    )
-                    .collect(Collectors.toList());
-            
-            // Actualizar en batch si hay muchas, o individualmente si son pocas
-            if (!expiredAppointments.isEmpty()) {
-                for (AppointmentEntity appointment : expiredAppointments) {
-                    appointment.setStatus(Status.CANCELED);
-                    this.appointmentRepository.save(appointment);
-                }
-            }
-        } catch (Exception e) {
-            // Si hay algún error, simplemente no cancelar las citas para no romper el flujo
-            // El filtro por fecha en los métodos de consulta seguirá funcionando
-            System.err.println("Error al cancelar citas expiradas: " + e.getMessage());
-            e.printStackTrace();
-        }
-    }
-
-    /**
-     * Marca automáticamente como completadas las citas que ya pasaron el tiempo límite para emitir diagnóstico
-     * Una cita se marca como completada si:
-     * - Tiene cliente asignado (pet != null)
-     * - Está en estado TO_BEGIN (programada)
-     * - Ya pasó 1 hora después de su hora de finalización
-     * - No tiene diagnóstico
-     * Esto evita que las citas queden en estado "programadas" indefinidamente
-     */
-    @Transactional
-    public void markExpiredAppointmentsAsCompleted() {
-        try {
-            LocalDateTime now = getCurrentDateTimeArgentina();
-            // Buscar citas programadas con cliente asignado
-            List<AppointmentEntity> scheduledAppointments = this.appointmentRepository.findAll().stream()
-                    .filter(appointment -> 
-                        appointment.getStatus() != null && 
-                        appointment.getStatus().equals(Status.TO_BEGIN) &&
-                        appointment.getPet() != null // Solo citas con cliente asignado
-                    )
-                    .collect(Collectors.toList());
-            
-            // Filtrar las que ya pasó 1 hora después de su hora de finalización y no tienen diagnóstico
-            List<AppointmentEntity> expiredAppointments = scheduledAppointments.stream()
-                    .filter(appointment -> 
-                        appointment.getEndDate() != null &&
-                        appointment.getEndDate().plusHours(1).isBefore(now) && // Ya pasó 1 hora después de la finalización
-                        appointment.getDiagnoses() == null // No tienen diagnóstico
-                    )
-                    .collect(Collectors.toList());
-            
-            // Marcar como completadas
-            if (!expiredAppointments.isEmpty()) {
-                for (AppointmentEntity appointment : expiredAppointments) {
-                    appointment.setStatus(Status.SUCCESSFULLY);
-                    this.appointmentRepository.save(appointment);
-                }
-            }
-        } catch (Exception e) {
-            // Si hay algún error, simplemente no marcar las citas para no romper el flujo
-            System.err.println("Error al marcar citas expiradas como completadas: " + e.getMessage());
-            e.printStackTrace();
-        }
-    }
-
     public List<AppointmentResponseDTO> getAvailableAppointments() {
-        // Primero cancelar citas disponibles que ya pasaron
-        cancelExpiredAvailableAppointments();
-        // Marcar como completadas las citas programadas que ya pasaron el tiempo límite
-        markExpiredAppointmentsAsCompleted();
-        
-        // Luego obtener solo las citas disponibles futuras (que aún no comenzaron)
+        // Solo las citas disponibles futuras (que aún no comenzaron).
+        // La expiración de las pasadas la hace AppointmentExpiryService en segundo plano.
         LocalDateTime now = getCurrentDateTimeArgentina();
-        return this.appointmentRepository.findAll().stream()
-                .filter(appointment -> 
-                    appointment.getStatus().equals(Status.AVAILABLE) &&
-                    appointment.getStartDate().isAfter(now) // Solo citas que aún no comenzaron
-                )
+        return this.appointmentRepository.findAllByStatusAndStartDateAfter(Status.AVAILABLE, now).stream()
                 .map(appointmentEntity -> AppointmentResponseDTO.builder()
                         .startTime(appointmentEntity.getStartDate())
                         .endTime(appointmentEntity.getEndDate())
@@ -698,7 +757,7 @@ public class AppointmentService implements Mapper<AppointmentDTO,AppointmentEnti
 
 
     @Transactional
-    public void createMultipleAppointments(Long doctorId, LocalDateTime startDate, LocalDateTime endDate, Reason reason) {
+    public AvailabilityUploadResultDTO createMultipleAppointments(Long doctorId, LocalDateTime startDate, LocalDateTime endDate, Reason reason) {
         if (startDate == null || endDate == null || reason == null) {
             throw new IllegalArgumentException("Start date, end date and reason must be provided");
         }
@@ -716,6 +775,7 @@ public class AppointmentService implements Mapper<AppointmentDTO,AppointmentEnti
             throw new IllegalArgumentException("Block duration must be positive");
         }
 
+        List<AppointmentEntity> appointmentsToCreate = new ArrayList<>();
         for (long i = 0; i + blocksDuration <= minutes; i += blocksDuration) {
             LocalDateTime blockStart = startDate.plusMinutes(i);
             LocalDateTime blockEnd = blockStart.plusMinutes(blocksDuration);
@@ -729,14 +789,22 @@ public class AppointmentService implements Mapper<AppointmentDTO,AppointmentEnti
                     .approved(false)
                     .build();
 
-            if (!isOverlapping(appointment)) {
-                this.appointmentRepository.save(appointment);
-            }
+            appointmentsToCreate.add(appointment);
         }
+
+        // Se omiten los bloques que se solapan con citas existentes
+        appointmentRepository.lockDoctorForSlotWrites(doctorEntity.getId());
+        List<AppointmentEntity> overlapping = findOverlappingSlots(doctorEntity, appointmentsToCreate);
+        appointmentsToCreate.removeAll(overlapping);
+        int created = this.appointmentRepository.bulkInsertAvailable(appointmentsToCreate);
+        availabilityCalendar.incrementAll(appointmentsToCreate);
+        intervalIndex.reloadDoctorAfterCommit(doctorEntity.getId());
+        publishReleased(doctorEntity.getId(), appointmentsToCreate);
+        return new AvailabilityUploadResultDTO(created, overlapping.size());
     }
 
     @Transactional
-    public void uploadAvailibility(Long id, DoctorAvailabilityDTO availabilityDTO){
+    public AvailabilityUploadResultDTO uploadAvailibility(Long id, DoctorAvailabilityDTO availabilityDTO){
 
         if (availabilityDTO.getStart() == null || availabilityDTO.getEnd() == null || availabilityDTO.getReason() == null) {
             throw new IllegalArgumentException("Start, end and reason must be provided");
@@ -874,20 +942,21 @@ public class AppointmentService implements Mapper<AppointmentDTO,AppointmentEnti
             throw new IllegalArgumentException("El rango de fechas es demasiado amplio o hay un error en la configuración");
         }
         
-        // Validar TODAS las citas antes de crear ninguna
-        for (AppointmentEntity appointment : appointmentsToCreate) {
-            if (isOverlapping(appointment)) {
-                throw new DuplicatedAppointmentException(
-                    "Una o más citas del rango seleccionado se solapan con citas existentes. " +
-                    "Por favor, revisá la disponibilidad del doctor y elegí un rango diferente."
-                );
-            }
+        // Validar TODAS las citas antes de crear ninguna (una sola consulta para todo el lote)
+        appointmentRepository.lockDoctorForSlotWrites(doctorEntity.getId());
+        if (!findOverlappingSlots(doctorEntity, appointmentsToCreate).isEmpty()) {
+            throw new DuplicatedAppointmentException(
+                "Una o más citas del rango seleccionado se solapan con citas existentes. " +
+                "Por favor, revisá la disponibilidad del doctor y elegí un rango diferente."
+            );
         }
         
-        // Si todas las validaciones pasaron, crear todas las citas
-        for (AppointmentEntity appointment : appointmentsToCreate) {
-            this.appointmentRepository.save(appointment);
-        }
+        // Si todas las validaciones pasaron, crear todas las citas en bloques (JDBC batch)
+        int created = this.appointmentRepository.bulkInsertAvailable(appointmentsToCreate);
+        availabilityCalendar.incrementAll(appointmentsToCreate);
+        intervalIndex.reloadDoctorAfterCommit(doctorEntity.getId());
+        publishReleased(doctorEntity.getId(), appointmentsToCreate);
+        return new AvailabilityUploadResultDTO(created, 0);
     }
 
     /**
@@ -895,11 +964,6 @@ public class AppointmentService implements Mapper<AppointmentDTO,AppointmentEnti
      * Útil para mostrar días disponibles en el calendario
      */
     public List<AvailableAppointmentDTO> getAvailableAppointmentsByReason(Reason reason) {
-        // Primero cancelar citas disponibles que ya pasaron
-        cancelExpiredAvailableAppointments();
-        // Marcar como completadas las citas programadas que ya pasaron el tiempo límite
-        markExpiredAppointmentsAsCompleted();
-        
         LocalDateTime now = getCurrentDateTimeArgentina();
         List<AppointmentEntity> appointments = this.appointmentRepository
                 .findAllByReasonAndStatusAndPetIsNullAndStartDateAfter(reason, Status.AVAILABLE, now);
@@ -923,11 +987,6 @@ public class AppointmentService implements Mapper<AppointmentDTO,AppointmentEnti
      * Útil para mostrar horarios disponibles cuando el usuario selecciona un día
      */
     public List<AvailableAppointmentDTO> getAvailableAppointmentsByReasonAndDate(Reason reason, LocalDate date) {
-        // Primero cancelar citas disponibles que ya pasaron
-        cancelExpiredAvailableAppointments();
-        // Marcar como completadas las citas programadas que ya pasaron el tiempo límite
-        markExpiredAppointmentsAsCompleted();
-        
         LocalDateTime startOfDay = date.atStartOfDay();
         LocalDateTime endOfDay = date.atTime(23, 59, 59);
         LocalDateTime now = getCurrentDateTimeArgentina();
@@ -958,28 +1017,49 @@ public class AppointmentService implements Mapper<AppointmentDTO,AppointmentEnti
      * Útil para resaltar días en el calendario
      */
     public List<LocalDate> getAvailableDaysByReason(Reason reason) {
-        try {
-            // Primero cancelar citas disponibles que ya pasaron (solo una vez)
-            cancelExpiredAvailableAppointments();
-            // Marcar como completadas las citas programadas que ya pasaron el tiempo límite
-            markExpiredAppointmentsAsCompleted();
-        } catch (Exception e) {
-            // Si falla la cancelación, continuar de todas formas
-            System.err.println("Advertencia: No se pudieron cancelar citas expiradas: " + e.getMessage());
+        return getAvailableDaysByReason(reason, null, null);
+    }
+
+    /**
+     * Igual que el anterior pero acotado a un rango de meses (from/to inclusive; null = sin límite).
+     * Se lee del calendario materializado (AvailabilityCalendarService), no de la tabla de citas.
+     */
+    public List<LocalDate> getAvailableDaysByReason(Reason reason, YearMonth from, YearMonth to) {
+        return availabilityCalendar.getAvailableDays(reason,
+                from == null ? null : from.atDay(1),
+                to == null ? null : to.atEndOfMonth());
+    }
+
+    private static boolean isFree(AppointmentEntity appointment) {
+        return appointment.getStatus() == Status.AVAILABLE && appointment.getPet() == null;
+    }
+
+    // Lo que necesita el stream de disponibilidad para ubicar y quitar un turno
+    private static AvailableAppointmentDTO toSlotRef(AppointmentEntity appointment) {
+        return AvailableAppointmentDTO.builder()
+                .appointmentId(appointment.getId())
+                .startTime(appointment.getStartDate())
+                .endTime(appointment.getEndDate())
+                .doctorId(appointment.getDoctor().getId())
+                .reason(appointment.getReason())
+                .build();
+    }
+
+    private void publishReleasedIfFree(AppointmentEntity appointment) {
+        if (isFree(appointment)) {
+            eventPublisher.publishEvent(SlotAvailabilityEvent.released(appointment.getDoctor().getId(),
+                    appointment.getStartDate(), appointment.getEndDate()));
         }
-        
-        // Obtener las citas disponibles futuras directamente
-        LocalDateTime now = getCurrentDateTimeArgentina();
-        List<AppointmentEntity> appointments = this.appointmentRepository
-                .findAllByReasonAndStatusAndPetIsNullAndStartDateAfter(reason, Status.AVAILABLE, now);
-        
-        return appointments.stream()
-                .filter(appointment -> appointment.getStartDate() != null)
-                .filter(appointment -> appointment.getStartDate().isAfter(now)) // Asegurar que aún no comenzaron
-                .map(appointment -> appointment.getStartDate().toLocalDate())
-                .distinct()
-                .sorted()
-                .collect(Collectors.toList());
+    }
+
+    // Los inserts en lote no devuelven ids: el stream lee los turnos del rango después del commit
+    private void publishReleased(long doctorId, List<AppointmentEntity> created) {
+        if (created.isEmpty()) {
+            return;
+        }
+        LocalDateTime from = created.stream().map(AppointmentEntity::getStartDate).min(LocalDateTime::compareTo).get();
+        LocalDateTime to = created.stream().map(AppointmentEntity::getStartDate).max(LocalDateTime::compareTo).get();
+        eventPublisher.publishEvent(SlotAvailabilityEvent.released(doctorId, from, to.plusNanos(1)));
     }
 
     @Override
@@ -3,11 +3,14 @@ package Pet.Society.services;
 import Pet.Society.models.dto.auth.ChangeEmailUnverifiedDTO;
 import Pet.Society.models.dto.auth.ForgotPasswordDTO;
 import Pet.Society.models.dto.auth.ForgotPasswordResponseDTO;
+import Pet.Society.models.dto.auth.JwtClaims;
+import Pet.Society.models.dto.auth.RefreshTokenDTO;
 import Pet.Society.models.dto.auth.ResetPasswordDTO;
 import Pet.Society.models.dto.login.LoginDTO;
 import Pet.Society.models.dto.login.LoginResponseDTO;
 import Pet.Society.models.entities.CredentialEntity;
 import Pet.Society.models.entities.UserEntity;
+import Pet.Society.models.enums.TokenPurpose;
 import Pet.Society.models.exceptions.EmailNotVerifiedException;
 import Pet.Society.models.exceptions.UserAttributeException;
 import Pet.Society.models.exceptions.UserNotFoundException;
@@ -16,7 +19,6 @@ import Pet.Society.repositories.UserRepository;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -33,6 +35,8 @@ public class AuthService {
     private CredentialRepository credentialRepository;
     private PasswordEncoder passwordEncoder;
     private EmailService emailService;
+    private RefreshTokenService refreshTokenService;
+    private RegistrationUniquenessIndex uniquenessIndex;
 
     public AuthService(AuthenticationManager authenticationManager, 
                       JwtService jwtService, 
@@ -40,7 +44,9 @@ public class AuthService {
                       UserRepository userRepository,
                       CredentialRepository credentialRepository,
                       PasswordEncoder passwordEncoder,
-                      EmailService emailService) {
+                      EmailService emailService,
+                      RefreshTokenService refreshTokenService,
+                      RegistrationUniquenessIndex uniquenessIndex) {
         this.authenticationManager = authenticationManager;
         this.jwtService = jwtService;
         this.userDetailsService = userDetailsService;
@@ -48,6 +54,8 @@ public class AuthService {
         this.credentialRepository = credentialRepository;
         this.passwordEncoder = passwordEncoder;
         this.emailService = emailService;
+        this.refreshTokenService = refreshTokenService;
+        this.uniquenessIndex = uniquenessIndex;
     }
 
     public LoginResponseDTO login(LoginDTO request){
@@ -61,7 +69,6 @@ public class AuthService {
             throw new BadCredentialsException("Invalid username or password", e);
         }
 
-        UserDetails userDetails = userDetailsService.loadUserByUsername(request.getUsername());
         CredentialEntity credential = userDetailsService.findByUsername(request.getUsername())
                 .orElseThrow(() -> new UserNotFoundException("User not found with username: " + request.getUsername()));
 
@@ -71,10 +78,26 @@ public class AuthService {
             throw new EmailNotVerifiedException("Tu email no ha sido verificado. Por favor, verificá tu email antes de iniciar sesión. Revisá tu bandeja de entrada (y la carpeta de spam si no lo ves).");
         }
 
-        String token = jwtService.generateToken(userDetails);
+        String token = jwtService.generateToken(credential);
+        String refreshToken = refreshTokenService.issue(credential);
 
         // Retornar el ID del usuario (ClientEntity, DoctorEntity, etc.), no el de la credencial
-        return new LoginResponseDTO(token, credential.getUser().getId());
+        return new LoginResponseDTO(token, credential.getUser().getId(), refreshToken);
+    }
+
+    /**
+     * Renueva la sesión sin contraseña: cambia el refresh token por uno nuevo y emite un token de acceso.
+     * El refresh token usado deja de servir (ver RefreshTokenService).
+     */
+    public LoginResponseDTO refresh(RefreshTokenDTO request) {
+        RefreshTokenService.Rotation rotation = refreshTokenService.rotate(request.getRefreshToken());
+        CredentialEntity credential = rotation.credential();
+        String token = jwtService.generateToken(credential);
+        return new LoginResponseDTO(token, credential.getUser().getId(), rotation.refreshToken());
+    }
+
+    public void logout(RefreshTokenDTO request) {
+        refreshTokenService.revoke(request.getRefreshToken());
     }
 
     /**
@@ -115,7 +138,7 @@ public class AuthService {
                 "Se envió un email a " + request.getEmail() + " con las instrucciones para restablecer tu contraseña. Revisá tu bandeja de entrada (y la carpeta de spam si no lo ves)."
             );
         } catch (Exception e) {
-            // Si falla el envío de email, devolver el token en la respuesta como fallback
+            // Si no se pudo encolar el email, devolver el token en la respuesta como fallback
             return new ForgotPasswordResponseDTO(
                 resetToken,
                 "Hubo un problema al enviar el email. Usá este token para restablecer tu contraseña: " + resetToken
@@ -129,12 +152,10 @@ public class AuthService {
     @Transactional
     public void resetPassword(ResetPasswordDTO request) {
         // Validar que el token sea válido para reset de contraseña
-        if (!jwtService.isPasswordResetTokenValid(request.getToken())) {
-            throw new BadCredentialsException("Token inválido o expirado. Por favor, solicitá un nuevo token.");
-        }
-        
-        // Extraer el username del token
-        String username = jwtService.extractUsername(request.getToken());
+        // Validar el token y extraer el username en un solo parseo
+        String username = jwtService.parse(request.getToken(), TokenPurpose.RESET_PASSWORD)
+            .map(JwtClaims::getSubject)
+            .orElseThrow(() -> new BadCredentialsException("Token inválido o expirado. Por favor, solicitá un nuevo token."));
         
         // Buscar las credenciales
         CredentialEntity credential = userDetailsService.findByUsername(username)
@@ -143,6 +164,8 @@ public class AuthService {
         // Actualizar la contraseña
         credential.setPassword(passwordEncoder.encode(request.getNewPassword()));
         userDetailsService.save(credential);
+        // Con la contraseña nueva, las sesiones abiertas con la anterior dejan de renovarse
+        refreshTokenService.revokeAll(credential.getId());
     }
 
     /**
@@ -151,12 +174,10 @@ public class AuthService {
     @Transactional
     public void verifyEmail(String token) {
         // Validar que el token sea válido para verificación de email
-        if (!jwtService.isEmailVerificationTokenValid(token)) {
-            throw new BadCredentialsException("Token inválido o expirado. Por favor, solicitá un nuevo email de verificación.");
-        }
-        
-        // Extraer el username del token
-        String username = jwtService.extractUsername(token);
+        // Validar el token y extraer el username en un solo parseo
+        String username = jwtService.parse(token, TokenPurpose.VERIFY_EMAIL)
+            .map(JwtClaims::getSubject)
+            .orElseThrow(() -> new BadCredentialsException("Token inválido o expirado. Por favor, solicitá un nuevo email de verificación."));
         
         // Buscar las credenciales
         CredentialEntity credential = userDetailsService.findByUsername(username)
@@ -171,6 +192,7 @@ public class AuthService {
         if (updated == 0) {
             throw new UserNotFoundException("No se pudo actualizar la verificación del usuario.");
         }
+        userDetailsService.evictPrincipal(username);
     }
 
     /**
@@ -227,6 +249,8 @@ public class AuthService {
 
         user.setEmail(request.getNewEmail());
         userRepository.save(user);
+        uniquenessIndex.recordUser(user);
+        userDetailsService.evictPrincipal(request.getUsername());
 
         String verificationToken = jwtService.generateEmailVerificationToken(request.getUsername());
         String userName = user.getName() + " " + user.getSurname();
@@ -0,0 +1,118 @@
+package Pet.Society.services;
+
+import Pet.Society.models.entities.AppointmentEntity;
+import Pet.Society.models.enums.Reason;
+import Pet.Society.models.enums.Status;
+import Pet.Society.repositories.AvailabilityCalendarRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Calendario materializado de turnos libres por (motivo, día).
+ * Se actualiza con sumas/restas atómicas dentro de la misma transacción que crea, reserva o cancela citas,
+ * así getAvailableDaysByReason es una sola lectura por índice en vez de traer todas las citas.
+ * Las expiraciones del barrido en segundo plano y el arranque recalculan los días afectados desde la tabla de citas.
+ */
+@Service
+public class AvailabilityCalendarService {
+
+    private static final Logger log = LoggerFactory.getLogger(AvailabilityCalendarService.class);
+
+    private static final ZoneId ARGENTINA_ZONE = ZoneId.of("America/Argentina/Buenos_Aires");
+    // Máxima fecha de MySQL para tipo DATE
+    private static final LocalDate FAR_FUTURE = LocalDate.of(9999, 12, 31);
+
+    private final AvailabilityCalendarRepository calendarRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Autowired
+    public AvailabilityCalendarService(AvailabilityCalendarRepository calendarRepository,
+                                       PlatformTransactionManager transactionManager) {
+        this.calendarRepository = calendarRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    private LocalDate getCurrentDateArgentina() {
+        return ZonedDateTime.now(ARGENTINA_ZONE).toLocalDate();
+    }
+
+    private static boolean isFree(AppointmentEntity appointment) {
+        return appointment.getStatus() == Status.AVAILABLE && appointment.getPet() == null;
+    }
+
+    /**
+     * Llamar después de dejar la cita en su estado final (alta de turno, re-publicación al cancelar).
+     */
+    public void incrementIfFree(AppointmentEntity appointment) {
+        if (isFree(appointment)) {
+            calendarRepository.addFreeSlots(appointment.getReason().ordinal(), appointment.getStartDate().toLocalDate(), 1);
+        }
+    }
+
+    /**
+     * Llamar antes de modificar la cita (reserva, cancelación, cambio de estado o motivo).
+     */
+    public void decrementIfFree(AppointmentEntity appointment) {
+        if (isFree(appointment)) {
+            calendarRepository.addFreeSlots(appointment.getReason().ordinal(), appointment.getStartDate().toLocalDate(), -1);
+        }
+    }
+
+    /**
+     * Altas masivas: una sola actualización por (motivo, día) en lugar de una por turno.
+     */
+    public void incrementAll(List<AppointmentEntity> appointments) {
+        Map<Reason, Map<LocalDate, Long>> counts = appointments.stream()
+                .filter(AvailabilityCalendarService::isFree)
+                .collect(Collectors.groupingBy(AppointmentEntity::getReason,
+                        Collectors.groupingBy(appointment -> appointment.getStartDate().toLocalDate(), Collectors.counting())));
+        counts.forEach((reason, byDate) -> byDate.forEach((date, count) ->
+                calendarRepository.addFreeSlots(reason.ordinal(), date, count.intValue())));
+    }
+
+    /**
+     * Recalcula desde la tabla de citas los días entre from y to (inclusive), en su propia transacción.
+     */
+    public void recount(LocalDate from, LocalDate to) {
+        transactionTemplate.executeWithoutResult(status -> {
+            calendarRepository.resetRange(from, to);
+            calendarRepository.recountRange(Status.AVAILABLE.ordinal(), from.atStartOfDay(),
+                    to.equals(FAR_FUTURE) ? to.atStartOfDay() : to.plusDays(1).atStartOfDay());
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcileOnStartup() {
+        try {
+            recount(getCurrentDateArgentina(), FAR_FUTURE);
+        } catch (Exception e) {
+            log.error("No se pudo recalcular el calendario de disponibilidad", e);
+        }
+    }
+
+    /**
+     * Días con al menos un turno libre para el motivo entre from y to (inclusive), sin incluir días pasados.
+     */
+    public List<LocalDate> getAvailableDays(Reason reason, LocalDate from, LocalDate to) {
+        LocalDate today = getCurrentDateArgentina();
+        LocalDate start = from == null || from.isBefore(today) ? today : from;
+        LocalDate end = to == null ? FAR_FUTURE : to;
+        if (end.isBefore(start)) {
+            return List.of();
+        }
+        return calendarRepository.findDaysWithFreeSlots(reason, start, end);
+    }
+}
@@ -3,15 +3,10 @@ package Pet.Society.services;
 
 import Pet.Society.models.dto.client.ClientDTO;
 import Pet.Society.models.dto.client.ClientListDTO;
-import Pet.Society.models.entities.AppointmentEntity;
 import Pet.Society.models.entities.ClientEntity;
-import Pet.Society.models.entities.DoctorEntity;
-import Pet.Society.models.enums.Reason;
-import Pet.Society.models.enums.Status;
 import Pet.Society.models.exceptions.UserExistsException;
 import Pet.Society.models.exceptions.UserNotFoundException;
 import Pet.Society.models.interfaces.Mapper;
-import Pet.Society.repositories.AppointmentRepository;
 import Pet.Society.repositories.ClientRepository;
 import Pet.Society.repositories.PetRepository;
 import jakarta.transaction.Transactional;
@@ -20,10 +15,6 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
-import java.time.Duration;
-import java.time.LocalDateTime;
-import java.time.ZoneId;
-import java.time.ZonedDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -31,21 +22,21 @@ import java.util.stream.Collectors;
 @Service
 public class ClientService implements Mapper <ClientDTO, ClientEntity> {
 
-    private static final ZoneId ARGENTINA_ZONE = ZoneId.of("America/Argentina/Buenos_Aires");
-
     private final ClientRepository clientRepository;
     private final PetRepository petRepository;
-    private final AppointmentRepository appointmentRepository;
+    private final AppointmentCancellationService appointmentCancellation;
+    private final CredentialService credentialService;
+    private final ReferenceDataCache referenceDataCache;
+    private final RegistrationUniquenessIndex uniquenessIndex;
 
     @Autowired
-    public ClientService(ClientRepository clientRepository, PetRepository petRepository, AppointmentRepository appointmentRepository) {
+    public ClientService(ClientRepository clientRepository, PetRepository petRepository, AppointmentCancellationService appointmentCancellation, CredentialService credentialService, ReferenceDataCache referenceDataCache, RegistrationUniquenessIndex uniquenessIndex) {
         this.clientRepository = clientRepository;
         this.petRepository = petRepository;
-        this.appointmentRepository = appointmentRepository;
-    }
-
-    private LocalDateTime getCurrentDateTimeArgentina() {
-        return ZonedDateTime.now(ARGENTINA_ZONE).toLocalDateTime();
+        this.appointmentCancellation = appointmentCancellation;
+        this.credentialService = credentialService;
+        this.referenceDataCache = referenceDataCache;
+        this.uniquenessIndex = uniquenessIndex;
     }
 
     public ClientEntity save(ClientDTO clientDTO) {
@@ -85,6 +76,8 @@ public class ClientService implements Mapper <ClientDTO, ClientEntity> {
         clientToUpdate.setId(id);
         takeAttributes(clientToUpdate, existingClient.get());
         this.clientRepository.save(clientToUpdate);
+        referenceDataCache.evictUser(id);
+        uniquenessIndex.recordUser(clientToUpdate);
         return clientToModify;
     }
 
@@ -96,66 +89,14 @@ public class ClientService implements Mapper <ClientDTO, ClientEntity> {
         }
         ClientEntity clientToUnsubscribe = existingClient.get();
         
-        // Obtener todas las citas futuras del cliente (a través de sus mascotas)
-        LocalDateTime now = getCurrentDateTimeArgentina();
-        List<AppointmentEntity> futureAppointments = appointmentRepository.findAllByPetClientId(id)
-                .stream()
-                .filter(appointment -> {
-                    // Solo citas futuras que no estén canceladas ni completadas
-                    LocalDateTime startDate = appointment.getStartDate();
-                    return startDate.isAfter(now) && 
-                           appointment.getStatus() != Status.CANCELED && 
-                           appointment.getStatus() != Status.SUCCESSFULLY;
-                })
-                .collect(Collectors.toList());
-        
-        // Procesar cada cita futura
-        for (AppointmentEntity appointment : futureAppointments) {
-            // Guardar referencia a los datos de la cita antes de modificarla
-            DoctorEntity doctor = appointment.getDoctor();
-            LocalDateTime startDate = appointment.getStartDate();
-            LocalDateTime endDate = appointment.getEndDate();
-            Reason reason = appointment.getReason();
-            
-            // Marcar la cita original como cancelada
-            appointment.setStatus(Status.CANCELED);
-            appointmentRepository.save(appointment);
-            
-            // Calcular las horas hasta la cita
-            long hoursUntilAppointment = Duration.between(now, startDate).toHours();
-            
-            // Solo crear una nueva cita disponible si se cancela con más de 24 horas de anticipación
-            if (hoursUntilAppointment >= 24) {
-                AppointmentEntity newAvailableAppointment = AppointmentEntity.builder()
-                        .startDate(startDate)
-                        .endDate(endDate)
-                        .reason(reason)
-                        .status(Status.AVAILABLE)
-                        .doctor(doctor)
-                        .pet(null) // Sin mascota asignada
-                        .approved(false)
-                        .build();
-                
-                // Verificar que no haya solapamiento antes de crear la nueva cita
-                // (evitar duplicados si ya existe una cita disponible en ese horario)
-                boolean hasOverlap = appointmentRepository.findAppointmentByStartDateAndEndDate(startDate, endDate)
-                        .stream()
-                        .anyMatch(existing -> 
-                            existing.getDoctor().getId() == doctor.getId() &&
-                            existing.getStatus() == Status.AVAILABLE &&
-                            existing.getId() != appointment.getId()
-                        );
-                
-                if (!hasOverlap) {
-                    appointmentRepository.save(newAvailableAppointment);
-                }
-            }
-            // Si hay menos de 24 horas, solo se cancela la cita sin crear una nueva disponible
-        }
-        
+        // Cancelar las citas futuras de sus mascotas y re-publicar los horarios con 24 horas o más de anticipación
+        appointmentCancellation.cancelFutureAppointmentsOfClient(id);
+
         // Finalmente, marcar al cliente como dado de baja
         clientToUnsubscribe.setSubscribed(false);
         this.clientRepository.save(clientToUnsubscribe);
+        credentialService.evictPrincipalsOfUser(id);
+        referenceDataCache.evictUser(id);
     }
 
     public void reSubscribe(Long id){
@@ -166,6 +107,8 @@ public class ClientService implements Mapper <ClientDTO, ClientEntity> {
         ClientEntity clientToResubscribe = existingClient.get();
         clientToResubscribe.setSubscribed(true);
         this.clientRepository.save(clientToResubscribe);
+        credentialService.evictPrincipalsOfUser(id);
+        referenceDataCache.evictUser(id);
     }
 
     public ClientDTO findByDNI(String DNI){
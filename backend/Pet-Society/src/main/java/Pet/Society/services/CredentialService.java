@@ -2,13 +2,21 @@ package Pet.Society.services;
 
 import Pet.Society.models.entities.CredentialEntity;
 import Pet.Society.repositories.CredentialRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,11 +25,28 @@ public class CredentialService implements UserDetailsService {
 
     private final CredentialRepository credentialRepository;
 
+    // Principals ya cargados para JwtAuthFilter: evita la consulta credencial + usuario en cada request autenticado.
+    // Se invalida al cambiar contraseña, rol, baja/alta o verificación de email; el TTL acota lo que cambie en otra instancia.
+    private final Cache<String, CredentialEntity> principalCache;
+
+    private final RegistrationUniquenessIndex uniquenessIndex;
+
     //ALL OF THIS METHOD MUST BE NEED FOR OPERATIONAL FUNCTIONS. NOT FOR CONTROLLER!!
 
     @Autowired
-    public CredentialService(CredentialRepository credentialRepository) {
+    public CredentialService(CredentialRepository credentialRepository,
+                             RegistrationUniquenessIndex uniquenessIndex,
+                             MeterRegistry meterRegistry,
+                             @Value("${auth.principal-cache.max-size:10000}") long maxSize,
+                             @Value("${auth.principal-cache.ttl-seconds:300}") long ttlSeconds) {
         this.credentialRepository = credentialRepository;
+        this.uniquenessIndex = uniquenessIndex;
+        this.principalCache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, principalCache, "auth.principals");
     }
 
     public List<CredentialEntity> listAll (){
@@ -30,11 +55,19 @@ public class CredentialService implements UserDetailsService {
 
     public void delete(Long id){
        credentialRepository.deleteById(id);
+       evictNowAndAfterCommit(principalCache::invalidateAll);
     }
 
     @Transactional
     public CredentialEntity save(CredentialEntity c){
-        return credentialRepository.save(c);
+        // Cubre cambios de contraseña y de rol
+        if (c.getUsername() != null) {
+            evictPrincipal(c.getUsername());
+        }
+        CredentialEntity saved = credentialRepository.save(c);
+        // Registro: el username y los datos del usuario dejan de estar disponibles
+        uniquenessIndex.recordCredential(saved);
+        return saved;
     }
 
     public Optional<CredentialEntity> findById(Long id){
@@ -52,4 +85,44 @@ public class CredentialService implements UserDetailsService {
         return credentialRepository.findByUsername(username)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found with username: " + username));
     }
+
+    /**
+     * Igual que loadUserByUsername pero pasando por la caché de principals. Solo para autenticar requests:
+     * la entidad devuelta está desconectada de la sesión, no navegar relaciones lazy desde acá.
+     */
+    public UserDetails loadCachedPrincipal(String username) throws UsernameNotFoundException {
+        CredentialEntity cached = principalCache.getIfPresent(username);
+        if (cached != null) {
+            return cached;
+        }
+        CredentialEntity credential = credentialRepository.findByUsername(username)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found with username: " + username));
+        principalCache.put(username, credential);
+        return credential;
+    }
+
+    public void evictPrincipal(String username) {
+        evictNowAndAfterCommit(() -> principalCache.invalidate(username));
+    }
+
+    /**
+     * Para cambios hechos sobre el usuario (baja, alta, verificación de email) donde no se tiene el username a mano.
+     */
+    public void evictPrincipalsOfUser(long userId) {
+        evictNowAndAfterCommit(() -> principalCache.asMap().values()
+                .removeIf(credential -> credential.getUser() != null && credential.getUser().getId() == userId));
+    }
+
+    // Si se invalidara antes del commit, un request concurrente podría volver a cachear el estado viejo
+    private void evictNowAndAfterCommit(Runnable eviction) {
+        eviction.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    eviction.run();
+                }
+            });
+        }
+    }
 }
@@ -0,0 +1,186 @@
+package Pet.Society.services;
+
+import Pet.Society.models.dto.diagnoses.DiagnosesDTOResponse;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Objects;
+
+/**
+ * Caché de los PDFs de diagnóstico ya renderizados, direccionada por contenido: la clave es el id más un hash
+ * de lo que se imprime (textos, nombres, motivo, fecha y la versión del formato).
+ * - Si cambia algo de lo impreso (por ejemplo, el nombre de la mascota) el hash cambia y se renderiza de nuevo;
+ *   no hace falta invalidar nada. El mismo hash es el ETag de la respuesta.
+ * - Memoria: Caffeine acotada por bytes, para los PDFs más pedidos.
+ * - Disco: un subdirectorio por diagnóstico con un archivo por versión; sobrevive reinicios y se sirve con
+ *   FileChannel.transferTo, sin cargarlo en el heap.
+ * El directorio se puede borrar en cualquier momento: se vuelve a llenar a demanda.
+ */
+@Service
+public class DiagnosesPdfCache {
+
+    private static final Logger log = LoggerFactory.getLogger(DiagnosesPdfCache.class);
+
+    // Subir cuando cambie el diseño de DiagnosesPdfGeneratorService, así los PDFs viejos dejan de servirse
+    private static final String LAYOUT_VERSION = "1";
+
+    private final DiagnosesPdfGeneratorService pdfGenerator;
+    private final Cache<String, byte[]> memory;
+    private final Path directory;
+    private final Counter memoryHits;
+    private final Counter diskHits;
+    private final Counter renders;
+    private final boolean memoryEnabled;
+
+    @Autowired
+    public DiagnosesPdfCache(DiagnosesPdfGeneratorService pdfGenerator,
+                             MeterRegistry meterRegistry,
+                             @Value("${diagnoses.pdf-cache.memory-max-bytes:33554432}") long memoryMaxBytes,
+                             @Value("${diagnoses.pdf-cache.dir:${java.io.tmpdir}/pet-society/diagnoses-pdf}") String directory) {
+        this.pdfGenerator = pdfGenerator;
+        this.memoryEnabled = memoryMaxBytes > 0;
+        this.memory = Caffeine.newBuilder()
+                .maximumWeight(memoryMaxBytes)
+                .weigher((String key, byte[] pdf) -> pdf.length)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, memory, "diagnoses.pdf");
+        this.directory = Path.of(directory);
+        this.memoryHits = tierCounter(meterRegistry, "memory");
+        this.diskHits = tierCounter(meterRegistry, "disk");
+        this.renders = tierCounter(meterRegistry, "render");
+    }
+
+    private static Counter tierCounter(MeterRegistry meterRegistry, String tier) {
+        return Counter.builder("diagnoses.pdf.cache.requests")
+                .description("PDFs de diagnóstico servidos por nivel de la caché")
+                .tag("tier", tier)
+                .register(meterRegistry);
+    }
+
+    /**
+     * ETag del PDF (entre comillas, listo para el header). No requiere renderizar ni leer el disco.
+     */
+    public String etag(DiagnosesDTOResponse diagnosis) {
+        return "\"" + contentHash(diagnosis) + "\"";
+    }
+
+    public CachedPdf get(DiagnosesDTOResponse diagnosis) {
+        String hash = contentHash(diagnosis);
+        String key = diagnosis.getId() + "/" + hash;
+        String etag = "\"" + hash + "\"";
+
+        byte[] cached = memory.getIfPresent(key);
+        if (cached != null) {
+            memoryHits.increment();
+            return new CachedPdf(etag, cached, null, cached.length);
+        }
+
+        Path file = directory.resolve(Long.toString(diagnosis.getId())).resolve(hash + ".pdf");
+        try {
+            if (Files.isRegularFile(file)) {
+                diskHits.increment();
+                return new CachedPdf(etag, null, file, Files.size(file));
+            }
+        } catch (IOException e) {
+            log.warn("No se pudo leer el PDF cacheado {}", file, e);
+        }
+
+        // Por el bean, no por un método default de la interfaz, para que quede la observación diagnoses.pdf.generate
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        pdfGenerator.generate(diagnosis, out);
+        byte[] pdf = out.toByteArray();
+        renders.increment();
+        // Con presupuesto 0 no se guarda en memoria: Caffeine desaloja en segundo plano y el PDF seguiría un rato ahí
+        if (memoryEnabled) {
+            memory.put(key, pdf);
+        }
+        store(diagnosis.getId(), file, pdf);
+        return new CachedPdf(etag, pdf, null, pdf.length);
+    }
+
+    // Se escribe a un temporal y se mueve, así un request concurrente nunca sirve un archivo a medio escribir
+    private void store(long diagnosisId, Path file, byte[] pdf) {
+        try {
+            Path versions = file.getParent();
+            Files.createDirectories(versions);
+            Path temp = Files.createTempFile(versions, "render-", ".tmp");
+            Files.write(temp, pdf);
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            deleteOtherVersions(file);
+        } catch (IOException | UnsupportedOperationException e) {
+            // Sin disco se sigue sirviendo desde memoria
+            log.warn("No se pudo guardar el PDF del diagnóstico {} en {}", diagnosisId, directory, e);
+        }
+    }
+
+    // Solo recorre el subdirectorio del diagnóstico, no todo el directorio de la caché
+    private void deleteOtherVersions(Path current) throws IOException {
+        try (DirectoryStream<Path> versions = Files.newDirectoryStream(current.getParent(), "*.pdf")) {
+            for (Path version : versions) {
+                if (!version.equals(current)) {
+                    Files.deleteIfExists(version);
+                }
+            }
+        }
+    }
+
+    static String contentHash(DiagnosesDTOResponse diagnosis) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (Object field : new Object[]{LAYOUT_VERSION, diagnosis.getId(), diagnosis.getDiagnose(),
+                    diagnosis.getTreatment(), diagnosis.getDoctorName(), diagnosis.getPetName(),
+                    diagnosis.getAppointmentReason(), diagnosis.getDate()}) {
+                digest.update(Objects.toString(field, "").getBytes(StandardCharsets.UTF_8));
+                // Separador para que ("ab", "c") y ("a", "bc") no den el mismo hash
+                digest.update((byte) 0);
+            }
+            return HexFormat.of().formatHex(digest.digest(), 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    /**
+     * Un PDF listo para enviar: en memoria (content) o en disco (file).
+     */
+    public record CachedPdf(String etag, byte[] content, Path file, long length) {
+
+        public void writeTo(OutputStream out) throws IOException {
+            if (content != null) {
+                out.write(content);
+                return;
+            }
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                WritableByteChannel target = Channels.newChannel(out);
+                long position = 0;
+                while (position < length) {
+                    position += channel.transferTo(position, length - position, target);
+                }
+            }
+        }
+    }
+}
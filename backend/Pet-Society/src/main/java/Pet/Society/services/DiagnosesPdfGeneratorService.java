@@ -5,26 +5,56 @@ import Pet.Society.models.interfaces.PdfGenerator;
 import com.itextpdf.kernel.pdf.PdfDocument;
 import com.itextpdf.kernel.pdf.PdfWriter;
 import com.itextpdf.layout.Document;
+import com.itextpdf.layout.element.AreaBreak;
 import com.itextpdf.layout.element.Cell;
 import com.itextpdf.layout.element.Paragraph;
 import com.itextpdf.layout.element.Table;
+import com.itextpdf.layout.properties.AreaBreakType;
 import com.itextpdf.layout.properties.UnitValue;
+import io.micrometer.observation.annotation.Observed;
 import org.springframework.stereotype.Service;
 
-import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
 import java.time.format.DateTimeFormatter;
+import java.util.Iterator;
 
 @Service
 public class DiagnosesPdfGeneratorService implements PdfGenerator<DiagnosesDTOResponse> {
+
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
+
     @Override
-    public byte[] generate(DiagnosesDTOResponse dto) {
+    @Observed(name = "diagnoses.pdf.generate")
+    public void generate(DiagnosesDTOResponse dto, OutputStream out) {
+        Document document = openDocument(out);
+        addDiagnosis(document, dto);
+        document.close();
+    }
 
-        ByteArrayOutputStream out = new ByteArrayOutputStream();
+    @Override
+    @Observed(name = "diagnoses.pdf.generate-all")
+    public void generateAll(Iterator<DiagnosesDTOResponse> diagnoses, OutputStream out) {
+        Document document = openDocument(out);
+        if (!diagnoses.hasNext()) {
+            document.add(new Paragraph("No hay diagnósticos para exportar."));
+        }
+        while (diagnoses.hasNext()) {
+            addDiagnosis(document, diagnoses.next());
+            if (diagnoses.hasNext()) {
+                document.add(new AreaBreak(AreaBreakType.NEXT_PAGE));
+            }
+        }
+        document.close();
+    }
 
+    // Con immediateFlush (el valor por defecto) cada página terminada se escribe en out y se libera
+    private Document openDocument(OutputStream out) {
         PdfWriter writer = new PdfWriter(out);
-        PdfDocument pdfDocument = new PdfDocument(writer);
-        Document document = new Document(pdfDocument);
+        writer.setCloseStream(false);
+        return new Document(new PdfDocument(writer));
+    }
 
+    private void addDiagnosis(Document document, DiagnosesDTOResponse dto) {
         Paragraph title = new Paragraph("Diagnóstico Veterinario")
                 .setBold()
                 .setFontSize(18);
@@ -50,17 +80,10 @@ public class DiagnosesPdfGeneratorService implements PdfGenerator<DiagnosesDTORe
         infoTable.addCell(new Cell().add(new Paragraph("Tratamiento")));
         infoTable.addCell(new Cell().add(new Paragraph(dto.getTreatment())));
 
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
-
         infoTable.addCell(new Cell().add(new Paragraph("Fecha")));
-        infoTable.addCell(new Cell().add(new Paragraph(dto.getDate().format(formatter))));
+        infoTable.addCell(new Cell().add(new Paragraph(dto.getDate().format(DATE_FORMATTER))));
 
         document.add(infoTable);
         document.add(new Paragraph("\n"));
-
-        document.close();
-
-
-        return out.toByteArray();
     }
 }
@@ -14,22 +14,37 @@ import Pet.Society.repositories.PetRepository;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import jakarta.transaction.Transactional;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.OutputStream;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
 
 @Service
 public class DiagnosesService implements Mapper<DiagnosesDTOResponse, DiagnosesEntity> {
 
     private static final ZoneId ARGENTINA_ZONE = ZoneId.of("America/Argentina/Buenos_Aires");
+    private static final int EXPORT_PAGE_SIZE = 200;
+    // Menor que cualquier DATETIME de MySQL: primera página de una exportación sin fecha desde
+    private static final LocalDateTime EXPORT_FIRST_DATE = LocalDateTime.of(1000, 1, 1, 0, 0);
 
     private final DiagnosesRepository diagnosesRepository;
     private final AppointmentRepository appointmentRepository;
     private final DiagnosesPdfGeneratorService diagnosesPdfGeneratorService;
+    private final DiagnosesPdfCache diagnosesPdfCache;
+    private final TransactionTemplate exportTransaction;
 
     @PersistenceContext
     private EntityManager entityManager;
@@ -39,10 +54,15 @@ public class DiagnosesService implements Mapper<DiagnosesDTOResponse, DiagnosesE
                             DoctorRepository doctorRepository,
                             AppointmentRepository appointmentRepository,
                             AppointmentService appointmentService,
-                            DiagnosesPdfGeneratorService diagnosesPdfGeneratorService) {
+                            DiagnosesPdfGeneratorService diagnosesPdfGeneratorService,
+                            DiagnosesPdfCache diagnosesPdfCache,
+                            PlatformTransactionManager transactionManager) {
         this.diagnosesRepository = diagnosesRepository;
         this.appointmentRepository = appointmentRepository;
         this.diagnosesPdfGeneratorService = diagnosesPdfGeneratorService;
+        this.diagnosesPdfCache = diagnosesPdfCache;
+        this.exportTransaction = new TransactionTemplate(transactionManager);
+        this.exportTransaction.setReadOnly(true);
 
     }
 
@@ -117,6 +137,7 @@ public class DiagnosesService implements Mapper<DiagnosesDTOResponse, DiagnosesE
         entityManager.createNativeQuery(
             "UPDATE appointments SET status = :status, diagnoses_id = :diagnosesId WHERE id = :appointmentId"
         )
+        .setHint(HibernateHints.HINT_NATIVE_SPACES, "appointments")
         .setParameter("status", Status.SUCCESSFULLY.ordinal())
         .setParameter("diagnosesId", savedDiagnosis.getId())
         .setParameter("appointmentId", appointment.getId())
@@ -181,14 +202,89 @@ public class DiagnosesService implements Mapper<DiagnosesDTOResponse, DiagnosesE
         return diagnosesRepository.findByDoctorId(id, pageable).map(this::toDTO);
     }
 
-    public byte[] generateDiagnosisPdf(Long id){
+    /**
+     * ETag del PDF del diagnóstico: permite responder 304 sin renderizar ni leer la caché.
+     */
+    public String getDiagnosisPdfEtag(DiagnosesDTOResponse diagnosis) {
+        return diagnosesPdfCache.etag(diagnosis);
+    }
+
+    public DiagnosesPdfCache.CachedPdf getDiagnosisPdf(DiagnosesDTOResponse diagnosis) {
+        return diagnosesPdfCache.get(diagnosis);
+    }
+
+    /**
+     * Historia clínica de una mascota en un solo PDF, escrito directamente en out.
+     * from/to son días inclusive; null = sin límite.
+     */
+    public void exportPetDiagnosesPdf(long petId, LocalDate from, LocalDate to, OutputStream out) {
+        exportPdf((afterDate, afterId, until, limit) ->
+                diagnosesRepository.findExportPageByPetId(petId, afterDate, afterId, until, limit), from, to, out);
+    }
+
+    public void exportClientDiagnosesPdf(long clientId, LocalDate from, LocalDate to, OutputStream out) {
+        exportPdf((afterDate, afterId, until, limit) ->
+                diagnosesRepository.findExportPageByClientId(clientId, afterDate, afterId, until, limit), from, to, out);
+    }
 
-        DiagnosesEntity diagnosis = this.diagnosesRepository.findById(id)
-                .orElseThrow(() -> new DiagnosesNotFoundException("No se encuentra diagnóstico"));
+    public void exportDoctorDiagnosesPdf(long doctorId, LocalDate from, LocalDate to, OutputStream out) {
+        exportPdf((afterDate, afterId, until, limit) ->
+                diagnosesRepository.findExportPageByDoctorId(doctorId, afterDate, afterId, until, limit), from, to, out);
+    }
+
+    // Se llama desde el hilo del StreamingResponseBody. Cada página se lee en su propia transacción corta:
+    // mientras se renderiza y se envía el PDF no queda ninguna conexión del pool tomada
+    private void exportPdf(ExportPageQuery query, LocalDate from, LocalDate to, OutputStream out) {
+        LocalDateTime start = from == null ? EXPORT_FIRST_DATE : from.atStartOfDay();
+        LocalDateTime until = to == null ? null : to.plusDays(1).atStartOfDay();
+        diagnosesPdfGeneratorService.generateAll(new ExportPages(query, start, until), out);
+    }
 
-        DiagnosesDTOResponse dto = toDTO(diagnosis);
+    @FunctionalInterface
+    private interface ExportPageQuery {
+        List<DiagnosesDTOResponse> page(LocalDateTime afterDate, long afterId, LocalDateTime to, Limit limit);
+    }
 
-        return diagnosesPdfGeneratorService.generate(dto);
+    /**
+     * Recorre la exportación página por página: pide la siguiente recién cuando se terminó de escribir la anterior.
+     */
+    private final class ExportPages implements Iterator<DiagnosesDTOResponse> {
+        private final ExportPageQuery query;
+        private final LocalDateTime to;
+        private LocalDateTime afterDate;
+        private long afterId = Long.MIN_VALUE;
+        private Iterator<DiagnosesDTOResponse> page = Collections.emptyIterator();
+        private boolean lastPage;
+
+        ExportPages(ExportPageQuery query, LocalDateTime from, LocalDateTime to) {
+            this.query = query;
+            this.afterDate = from;
+            this.to = to;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (!page.hasNext() && !lastPage) {
+                List<DiagnosesDTOResponse> rows = exportTransaction.execute(status ->
+                        query.page(afterDate, afterId, to, Limit.of(EXPORT_PAGE_SIZE)));
+                lastPage = rows.size() < EXPORT_PAGE_SIZE;
+                if (!rows.isEmpty()) {
+                    DiagnosesDTOResponse last = rows.get(rows.size() - 1);
+                    afterDate = last.getDate();
+                    afterId = last.getId();
+                }
+                page = rows.iterator();
+            }
+            return page.hasNext();
+        }
+
+        @Override
+        public DiagnosesDTOResponse next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return page.next();
+        }
     }
 
     @Override
@@ -2,13 +2,10 @@ package Pet.Society.services;
 
 import Pet.Society.models.dto.doctor.DoctorDTO;
 import Pet.Society.models.dto.doctor.DoctorRequest;
-import Pet.Society.models.entities.AppointmentEntity;
 import Pet.Society.models.entities.DoctorEntity;
-import Pet.Society.models.enums.Status;
 import Pet.Society.models.exceptions.UserExistsException;
 import Pet.Society.models.exceptions.UserNotFoundException;
 import Pet.Society.models.interfaces.Mapper;
-import Pet.Society.repositories.AppointmentRepository;
 import Pet.Society.repositories.DoctorRepository;
 import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -18,21 +15,25 @@ import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
 
-import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 @Service
 public class DoctorService implements Mapper<DoctorDTO, DoctorEntity> {
 
 
     private final DoctorRepository doctorRepository;
-    private final AppointmentRepository appointmentRepository;
+    private final AppointmentCancellationService appointmentCancellation;
+    private final CredentialService credentialService;
+    private final ReferenceDataCache referenceDataCache;
+    private final RegistrationUniquenessIndex uniquenessIndex;
 
     @Autowired
-    public DoctorService(DoctorRepository doctorRepository, AppointmentRepository appointmentRepository) {
+    public DoctorService(DoctorRepository doctorRepository, AppointmentCancellationService appointmentCancellation, CredentialService credentialService, ReferenceDataCache referenceDataCache, RegistrationUniquenessIndex uniquenessIndex) {
         this.doctorRepository = doctorRepository;
-        this.appointmentRepository = appointmentRepository;
+        this.appointmentCancellation = appointmentCancellation;
+        this.credentialService = credentialService;
+        this.referenceDataCache = referenceDataCache;
+        this.uniquenessIndex = uniquenessIndex;
     }
 
     @Transactional
@@ -48,6 +49,7 @@ public class DoctorService implements Mapper<DoctorDTO, DoctorEntity> {
             throw new UserExistsException("The doctor already exists");
         }
         DoctorEntity saveDoctor = this.doctorRepository.save(toEntity(doctor)); //receives a Doctor Entity
+        uniquenessIndex.recordUser(saveDoctor);
         return toEntity(doctor);
     }
 
@@ -89,6 +91,8 @@ public class DoctorService implements Mapper<DoctorDTO, DoctorEntity> {
        takeAttributes(toEntity(doctorToModify), existingDoctor.get());
 
         this.doctorRepository.save(existingDoctor.get());
+        referenceDataCache.evictUser(id);
+        uniquenessIndex.recordUser(existingDoctor.get());
         return toDTO(existingDoctor.get());
     }
 
@@ -110,29 +114,15 @@ public class DoctorService implements Mapper<DoctorDTO, DoctorEntity> {
         }
         DoctorEntity doctorToUnsubscribe = existingDoctor.get();
         
-        // Obtener todas las citas futuras del doctor
-        LocalDateTime now = LocalDateTime.now();
-        List<AppointmentEntity> futureAppointments = appointmentRepository.findAllByDoctorId(id)
-                .stream()
-                .filter(appointment -> {
-                    // Solo citas futuras que no estén canceladas ni completadas
-                    LocalDateTime startDate = appointment.getStartDate();
-                    return startDate.isAfter(now) && 
-                           appointment.getStatus() != Status.CANCELED && 
-                           appointment.getStatus() != Status.SUCCESSFULLY;
-                })
-                .collect(Collectors.toList());
-        
         // Cancelar todas las citas futuras del doctor
         // Las citas pasadas se mantienen para el registro histórico
-        for (AppointmentEntity appointment : futureAppointments) {
-            appointment.setStatus(Status.CANCELED);
-            appointmentRepository.save(appointment);
-        }
+        appointmentCancellation.cancelFutureAppointmentsOfDoctor(id);
         
         // Finalmente, marcar al doctor como dado de baja
         doctorToUnsubscribe.setSubscribed(false);
         this.doctorRepository.save(doctorToUnsubscribe);
+        credentialService.evictPrincipalsOfUser(id);
+        referenceDataCache.evictUser(id);
     }
 
     public void reSubscribe(Long id){
@@ -143,6 +133,8 @@ public class DoctorService implements Mapper<DoctorDTO, DoctorEntity> {
         DoctorEntity doctorToResubscribe = existingDoctor.get();
         doctorToResubscribe.setSubscribed(true);
         this.doctorRepository.save(doctorToResubscribe);
+        credentialService.evictPrincipalsOfUser(id);
+        referenceDataCache.evictUser(id);
     }
 
     public boolean doctorExistByDni(String dni){
@@ -0,0 +1,319 @@
+package Pet.Society.services;
+
+import Pet.Society.models.entities.EmailOutboxEntity;
+import Pet.Society.models.enums.EmailStatus;
+import Pet.Society.repositories.EmailOutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.internet.MimeMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Envía en segundo plano los emails encolados en email_outbox por EmailService.
+ * - Cada worker toma un lote con un UPDATE condicional y lo envía por una sola conexión SMTP.
+ * - Los envíos fallidos se reintentan con backoff exponencial hasta max-attempts; después quedan en FAILED.
+ * - Se despierta apenas confirma la transacción que encoló el email y además revisa la tabla periódicamente.
+ * - Los emails enviados o fallidos se borran pasados retention-days, porque su cuerpo lleva tokens de un solo uso.
+ */
+@Service
+public class EmailOutboxDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(EmailOutboxDispatcher.class);
+
+    private static final ZoneId ARGENTINA_ZONE = ZoneId.of("America/Argentina/Buenos_Aires");
+
+    private final EmailOutboxRepository outboxRepository;
+    private final JavaMailSender mailSender;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolTaskExecutor workers;
+
+    private final Counter sentCounter;
+    private final Counter retriedCounter;
+    private final Counter failedCounter;
+    private final Timer batchTimer;
+    private final Timer deliveryDelayTimer;
+
+    @Value("${spring.mail.username}")
+    private String fromEmail;
+
+    @Value("${email.outbox.enabled:true}")
+    private boolean enabled;
+
+    @Value("${email.outbox.batch-size:20}")
+    private int batchSize;
+
+    @Value("${email.outbox.max-attempts:6}")
+    private int maxAttempts;
+
+    @Value("${email.outbox.backoff-initial-ms:30000}")
+    private long backoffInitialMs;
+
+    @Value("${email.outbox.backoff-max-ms:3600000}")
+    private long backoffMaxMs;
+
+    @Value("${email.outbox.stale-after-ms:600000}")
+    private long staleAfterMs;
+
+    @Value("${email.outbox.retention-days:7}")
+    private int retentionDays;
+
+    @Autowired
+    public EmailOutboxDispatcher(EmailOutboxRepository outboxRepository,
+                                 JavaMailSender mailSender,
+                                 PlatformTransactionManager transactionManager,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${email.outbox.workers:2}") int workerCount) {
+        this.outboxRepository = outboxRepository;
+        this.mailSender = mailSender;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+
+        // Cola de 1: si todos los workers están ocupados alcanza con un drenado pendiente,
+        // porque cada worker sigue tomando lotes hasta vaciar la tabla.
+        // Hilos de plataforma aunque la app use hilos virtuales: el transporte SMTP de Jakarta Mail
+        // hace el I/O dentro de bloques synchronized y fijaría el hilo portador
+        this.workers = new ThreadPoolTaskExecutor();
+        this.workers.setCorePoolSize(workerCount);
+        this.workers.setMaxPoolSize(workerCount);
+        this.workers.setQueueCapacity(1);
+        this.workers.setThreadNamePrefix("email-outbox-");
+        this.workers.initialize();
+
+        this.sentCounter = Counter.builder("email.outbox.sent")
+                .description("Emails entregados al servidor SMTP")
+                .register(meterRegistry);
+        this.retriedCounter = Counter.builder("email.outbox.retried")
+                .description("Envíos fallidos que se reprogramaron")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("email.outbox.failed")
+                .description("Emails que agotaron los reintentos")
+                .register(meterRegistry);
+        this.batchTimer = Timer.builder("email.outbox.batch")
+                .description("Duración del envío de cada lote por SMTP")
+                .register(meterRegistry);
+        this.deliveryDelayTimer = Timer.builder("email.outbox.delivery.delay")
+                .description("Tiempo entre que se encola un email y que el servidor SMTP lo acepta")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdown();
+    }
+
+    private LocalDateTime getCurrentDateTimeArgentina() {
+        return ZonedDateTime.now(ARGENTINA_ZONE).toLocalDateTime();
+    }
+
+    /**
+     * Dispara un drenado cuando confirme la transacción actual (o enseguida si no hay transacción).
+     */
+    public void wakeAfterCommit() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    wake();
+                }
+            });
+        } else {
+            wake();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${email.outbox.poll-ms:5000}",
+            initialDelayString = "${email.outbox.poll-ms:5000}")
+    public void runScheduledDispatch() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            int released = transactionTemplate.execute(status -> outboxRepository.releaseStaleClaims(
+                    EmailStatus.SENDING, EmailStatus.PENDING,
+                    getCurrentDateTimeArgentina().minusNanos(staleAfterMs * 1_000_000)));
+            if (released > 0) {
+                log.warn("Se liberaron {} emails que quedaron tomados por un dispatcher caído", released);
+            }
+        } catch (Exception e) {
+            log.error("Error al liberar emails tomados por un dispatcher caído", e);
+        }
+        wake();
+    }
+
+    @Scheduled(cron = "${email.outbox.purge-cron:0 45 4 * * *}", zone = "America/Argentina/Buenos_Aires")
+    public void purgeFinished() {
+        int deleted = transactionTemplate.execute(status -> outboxRepository.deleteFinishedBefore(
+                List.of(EmailStatus.SENT, EmailStatus.FAILED), getCurrentDateTimeArgentina().minusDays(retentionDays)));
+        if (deleted > 0) {
+            log.info("Se borraron {} emails enviados o fallidos de la cola", deleted);
+        }
+    }
+
+    private void wake() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            workers.execute(this::drain);
+        } catch (TaskRejectedException e) {
+            // Ya hay un drenado en cola que va a ver este email
+        }
+    }
+
+    /**
+     * Toma y envía lotes hasta que no queden emails vencidos. Devuelve la cantidad de emails procesados.
+     */
+    public int drain() {
+        int processed = 0;
+        try {
+            List<EmailOutboxEntity> batch;
+            while (!(batch = claimBatch()).isEmpty()) {
+                List<EmailOutboxEntity> claimed = batch;
+                batchTimer.record(() -> sendBatch(claimed));
+                processed += claimed.size();
+            }
+        } catch (Exception e) {
+            // Lo que haya quedado tomado se libera por timeout; se reintenta en la próxima ejecución
+            log.error("Error al despachar la cola de emails", e);
+        }
+        return processed;
+    }
+
+    private List<EmailOutboxEntity> claimBatch() {
+        String claimToken = UUID.randomUUID().toString();
+        return transactionTemplate.execute(status -> {
+            int claimed = outboxRepository.claimDueBatch(EmailStatus.PENDING.ordinal(), EmailStatus.SENDING.ordinal(),
+                    claimToken, getCurrentDateTimeArgentina(), batchSize);
+            return claimed == 0 ? List.of() : outboxRepository.findAllByClaimTokenOrderByIdAsc(claimToken);
+        });
+    }
+
+    private void sendBatch(List<EmailOutboxEntity> batch) {
+        // En el orden del lote (por id); MimeMessage compara por identidad
+        Map<MimeMessage, EmailOutboxEntity> byMessage = new LinkedHashMap<>();
+        Map<EmailOutboxEntity, Exception> failures = new IdentityHashMap<>();
+        for (EmailOutboxEntity email : batch) {
+            try {
+                byMessage.put(buildMessage(email), email);
+            } catch (Exception e) {
+                failures.put(email, e);
+            }
+        }
+
+        if (!byMessage.isEmpty()) {
+            try {
+                // JavaMailSender abre una sola conexión para todo el arreglo
+                mailSender.send(byMessage.keySet().toArray(new MimeMessage[0]));
+            } catch (MailSendException e) {
+                e.getFailedMessages().forEach((message, cause) -> {
+                    EmailOutboxEntity email = byMessage.get(message);
+                    if (email != null) {
+                        failures.put(email, cause);
+                    }
+                });
+                if (e.getFailedMessages().isEmpty()) {
+                    byMessage.values().forEach(email -> failures.put(email, e));
+                }
+            } catch (MailException e) {
+                byMessage.values().forEach(email -> failures.put(email, e));
+            }
+        }
+
+        recordResults(batch, failures);
+    }
+
+    private MimeMessage buildMessage(EmailOutboxEntity email) throws Exception {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+        helper.setFrom(fromEmail, "Pet Society");
+        helper.setTo(email.getRecipient());
+        helper.setSubject(email.getSubject());
+        if (email.getTextBody() != null) {
+            helper.setText(email.getTextBody(), email.getHtmlBody());
+        } else {
+            helper.setText(email.getHtmlBody(), true); // true indica que es HTML
+        }
+        return message;
+    }
+
+    private void recordResults(List<EmailOutboxEntity> batch, Map<EmailOutboxEntity, Exception> failures) {
+        LocalDateTime now = getCurrentDateTimeArgentina();
+        List<Long> sentIds = new ArrayList<>();
+        List<EmailOutboxEntity> failed = new ArrayList<>();
+        for (EmailOutboxEntity email : batch) {
+            Exception cause = failures.get(email);
+            if (cause == null) {
+                sentIds.add(email.getId());
+                if (email.getCreatedAt() != null) {
+                    deliveryDelayTimer.record(Duration.between(email.getCreatedAt(), now));
+                }
+                continue;
+            }
+            int attempts = email.getAttempts() + 1;
+            email.setAttempts(attempts);
+            email.setClaimToken(null);
+            email.setLastError(truncate(cause.getMessage()));
+            if (attempts >= maxAttempts) {
+                email.setStatus(EmailStatus.FAILED);
+                failedCounter.increment();
+                log.error("No se pudo enviar el email {} a {} después de {} intentos",
+                        email.getId(), email.getRecipient(), attempts, cause);
+            } else {
+                email.setStatus(EmailStatus.PENDING);
+                email.setNextAttemptAt(now.plusNanos(backoffMs(attempts) * 1_000_000));
+                retriedCounter.increment();
+                log.warn("Falló el envío del email {} (intento {}); se reintenta a las {}",
+                        email.getId(), attempts, email.getNextAttemptAt());
+            }
+            failed.add(email);
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!sentIds.isEmpty()) {
+                outboxRepository.markSent(sentIds, EmailStatus.SENT, now);
+            }
+            outboxRepository.saveAll(failed);
+        });
+        sentCounter.increment(sentIds.size());
+    }
+
+    // 30s, 1m, 2m, 4m... hasta backoff-max-ms
+    private long backoffMs(int attempts) {
+        long delay = backoffInitialMs << Math.min(attempts - 1, 20);
+        return Math.min(delay, backoffMaxMs);
+    }
+
+    private static String truncate(String message) {
+        if (message == null) {
+            return null;
+        }
+        return message.length() <= 1000 ? message : message.substring(0, 1000);
+    }
+}
@@ -0,0 +1,197 @@
+package Pet.Society.services;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Plantillas de email (src/main/resources/templates/email), leídas y compiladas una sola vez al arrancar.
+ * - Archivos: nombre[_idioma[_PAIS]].parte, con parte = subject | html | txt. Ej.: password-reset.html,
+ *   password-reset_en.html. Para cada email son obligatorios el subject y el html sin idioma (español).
+ * - Variables: {{nombre}}. En el html se escapan; en subject y txt van tal cual.
+ * - Compilar = partir el texto en literales y variables; renderizar = appends directos en un StringBuilder,
+ *   sin volver a recorrer el texto (ni el CSS) en cada envío.
+ * El idioma se resuelve como ResourceBundle: es_AR -> es -> sin idioma.
+ */
+@Service
+public class EmailTemplates {
+
+    public enum Part {
+        SUBJECT("subject", false),
+        HTML("html", true),
+        TEXT("txt", false);
+
+        private final String extension;
+        private final boolean escapeHtml;
+
+        Part(String extension, boolean escapeHtml) {
+            this.extension = extension;
+            this.escapeHtml = escapeHtml;
+        }
+    }
+
+    /**
+     * Email listo para encolar. text es null si la plantilla no tiene versión en texto plano.
+     */
+    public record RenderedEmail(String subject, String html, String text) {
+    }
+
+    private static final String LOCATION = "classpath*:templates/email/*.*";
+
+    // clave: nombre[_idioma[_PAIS]].parte, igual que el archivo
+    private final Map<String, CompiledTemplate> templates;
+    private final Map<String, String> globals;
+
+    @Autowired
+    public EmailTemplates(@Value("${app.frontend-url:http://localhost:4200}") String frontendUrl) throws IOException {
+        this(new PathMatchingResourcePatternResolver().getResources(LOCATION), Map.of("frontendUrl", frontendUrl));
+    }
+
+    public EmailTemplates(Resource[] resources, Map<String, String> globals) throws IOException {
+        Map<String, CompiledTemplate> compiled = new HashMap<>();
+        for (Resource resource : resources) {
+            String filename = resource.getFilename();
+            if (filename == null) {
+                continue;
+            }
+            String source = resource.getContentAsString(StandardCharsets.UTF_8);
+            compiled.put(filename, CompiledTemplate.compile(filename, filename.endsWith(".subject") ? source.strip() : source));
+        }
+        for (String key : compiled.keySet()) {
+            String name = key.substring(0, key.indexOf('.'));
+            if (!name.contains("_") && (!compiled.containsKey(name + ".subject") || !compiled.containsKey(name + ".html"))) {
+                throw new IllegalStateException("La plantilla de email " + name + " necesita " + name + ".subject y " + name + ".html");
+            }
+        }
+        this.templates = Map.copyOf(compiled);
+        this.globals = Map.copyOf(globals);
+    }
+
+    public RenderedEmail render(String name, Locale locale, Map<String, String> variables) {
+        StringBuilder buffer = new StringBuilder(8192);
+        String subject = renderPart(name, Part.SUBJECT, locale, variables, buffer);
+        String html = renderPart(name, Part.HTML, locale, variables, buffer);
+        String text = has(name, Part.TEXT, locale) ? renderPart(name, Part.TEXT, locale, variables, buffer) : null;
+        return new RenderedEmail(subject, html, text);
+    }
+
+    /**
+     * Renderiza una parte al final de out. Para envíos masivos: reusar el mismo StringBuilder (setLength(0))
+     * evita crear y agrandar un buffer por destinatario.
+     */
+    public void renderTo(String name, Part part, Locale locale, Map<String, String> variables, StringBuilder out) {
+        CompiledTemplate template = resolve(name, part, locale);
+        if (template == null) {
+            throw new IllegalArgumentException("No existe la plantilla de email " + name + "." + part.extension);
+        }
+        template.renderTo(variables, globals, part.escapeHtml, out);
+    }
+
+    private String renderPart(String name, Part part, Locale locale, Map<String, String> variables, StringBuilder buffer) {
+        buffer.setLength(0);
+        renderTo(name, part, locale, variables, buffer);
+        return buffer.toString();
+    }
+
+    private boolean has(String name, Part part, Locale locale) {
+        return resolve(name, part, locale) != null;
+    }
+
+    private CompiledTemplate resolve(String name, Part part, Locale locale) {
+        String extension = "." + part.extension;
+        if (locale != null && !locale.getLanguage().isEmpty()) {
+            if (!locale.getCountry().isEmpty()) {
+                CompiledTemplate exact = templates.get(name + "_" + locale.getLanguage() + "_" + locale.getCountry() + extension);
+                if (exact != null) {
+                    return exact;
+                }
+            }
+            CompiledTemplate language = templates.get(name + "_" + locale.getLanguage() + extension);
+            if (language != null) {
+                return language;
+            }
+        }
+        return templates.get(name + extension);
+    }
+
+    /**
+     * Texto partido en literals[0] var[0] literals[1] var[1] ... literals[n].
+     */
+    private static final class CompiledTemplate {
+        private final String[] literals;
+        private final String[] variables;
+        private final int literalLength;
+
+        private CompiledTemplate(String[] literals, String[] variables) {
+            this.literals = literals;
+            this.variables = variables;
+            int length = 0;
+            for (String literal : literals) {
+                length += literal.length();
+            }
+            this.literalLength = length;
+        }
+
+        static CompiledTemplate compile(String filename, String source) {
+            List<String> literals = new ArrayList<>();
+            List<String> variables = new ArrayList<>();
+            int position = 0;
+            int open;
+            while ((open = source.indexOf("{{", position)) >= 0) {
+                int close = source.indexOf("}}", open + 2);
+                if (close < 0) {
+                    throw new IllegalStateException("Variable sin cerrar en " + filename + " (posición " + open + ")");
+                }
+                literals.add(source.substring(position, open));
+                variables.add(source.substring(open + 2, close).strip());
+                position = close + 2;
+            }
+            literals.add(source.substring(position));
+            return new CompiledTemplate(literals.toArray(String[]::new), variables.toArray(String[]::new));
+        }
+
+        void renderTo(Map<String, String> values, Map<String, String> globals, boolean escapeHtml, StringBuilder out) {
+            out.ensureCapacity(out.length() + literalLength + variables.length * 32);
+            out.append(literals[0]);
+            for (int i = 0; i < variables.length; i++) {
+                String value = values.get(variables[i]);
+                if (value == null) {
+                    value = globals.get(variables[i]);
+                }
+                if (value == null) {
+                    throw new IllegalArgumentException("Falta la variable " + variables[i] + " para la plantilla de email");
+                }
+                if (escapeHtml) {
+                    appendEscaped(value, out);
+                } else {
+                    out.append(value);
+                }
+                out.append(literals[i + 1]);
+            }
+        }
+
+        private static void appendEscaped(String value, StringBuilder out) {
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                switch (c) {
+                    case '&' -> out.append("&amp;");
+                    case '<' -> out.append("&lt;");
+                    case '>' -> out.append("&gt;");
+                    case '"' -> out.append("&quot;");
+                    case '\'' -> out.append("&#39;");
+                    default -> out.append(c);
+                }
+            }
+        }
+    }
+}
@@ -1,16 +1,27 @@
 package Pet.Society.services;
+import Pet.Society.models.dto.auth.JwtClaims;
+import Pet.Society.models.entities.ClientEntity;
 import Pet.Society.models.entities.CredentialEntity;
+import Pet.Society.models.entities.UserEntity;
+import Pet.Society.models.enums.TokenPurpose;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
 import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 
 
@@ -22,24 +33,60 @@ public class JwtService {
     @Value("${jwt.secret}")
     private String jwtSecret;
 
+    // La clave y el parser se arman una sola vez; ambos son inmutables y seguros entre hilos
+    private Key signingKey;
+    private JwtParser parser;
 
-    public String generateToken(UserDetails userDetails) {
+    @PostConstruct
+    void init() {
+        this.signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+        this.parser = Jwts.parserBuilder().setSigningKey(signingKey).build();
+    }
+
+    // Claims de identidad: OwnershipValidator los usa para chequear pertenencia sin volver a cargar la credencial
+    private static final String USER_ID_CLAIM = "userId";
+    private static final String CLIENT_ID_CLAIM = "clientId";
+
+    /**
+     * Token de acceso. Además del rol lleva el id del usuario y, si es cliente, su id de cliente; como van
+     * firmados, alcanzan para decidir pertenencia sin consultar la credencial.
+     */
+    public String generateToken(CredentialEntity credential) {
+        UserEntity user = credential.getUser();
         return Jwts.builder().
-                setSubject(userDetails.getUsername())
-                .claim("role", userDetails.getAuthorities())
+                setSubject(credential.getUsername())
+                .claim("role", credential.getAuthorities())
+                .claim(USER_ID_CLAIM, user != null ? user.getId() : null)
+                .claim(CLIENT_ID_CLAIM, user instanceof ClientEntity client ? client.getId() : null)
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + 1000 * 60 * 60 )) // 1 hour
-                .signWith(getKey(), SignatureAlgorithm.HS256)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
-    public boolean isTokenValid(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+    /**
+     * Verifica firma y expiración en un solo parseo y devuelve los claims tipados.
+     * Vacío si el token está mal formado, tiene otra firma o ya expiró.
+     */
+    public Optional<JwtClaims> parse(String token) {
+        if (token == null || token.isBlank()) {
+            return Optional.empty();
+        }
+        try {
+            Claims claims = parser.parseClaimsJws(token).getBody();
+            return Optional.of(new JwtClaims(claims.getSubject(), extractRoles(claims),
+                    claims.getIssuedAt(), claims.getExpiration(), extractPurpose(claims),
+                    extractId(claims, USER_ID_CLAIM), extractId(claims, CLIENT_ID_CLAIM)));
+        } catch (JwtException | IllegalArgumentException e) {
+            return Optional.empty();
+        }
     }
 
-    public String extractUsername(String token) {
-        return extractAllClaims(token).getSubject();
+    /**
+     * Igual que parse, pero solo acepta tokens emitidos para el propósito indicado.
+     */
+    public Optional<JwtClaims> parse(String token, TokenPurpose purpose) {
+        return parse(token).filter(claims -> claims.getPurpose() == purpose);
     }
 
     /**
@@ -52,23 +99,10 @@ public class JwtService {
                 .claim("resetPassword", true)
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + 1000 * 60 * 30)) // 30 minutos
-                .signWith(getKey(), SignatureAlgorithm.HS256)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
-    /**
-     * Valida si un token es válido para reset de contraseña
-     */
-    public boolean isPasswordResetTokenValid(String token) {
-        try {
-            Claims claims = extractAllClaims(token);
-            Boolean isResetToken = claims.get("resetPassword", Boolean.class);
-            return isResetToken != null && isResetToken && !isTokenExpired(token);
-        } catch (Exception e) {
-            return false;
-        }
-    }
-
     /**
      * Genera un token especial para verificación de email
      * Expira en 24 horas y tiene un claim especial "verifyEmail: true"
@@ -79,40 +113,37 @@ public class JwtService {
                 .claim("verifyEmail", true)
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + 1000 * 60 * 60 * 24)) // 24 horas
-                .signWith(getKey(), SignatureAlgorithm.HS256)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
-    /**
-     * Valida si un token es válido para verificación de email
-     */
-    public boolean isEmailVerificationTokenValid(String token) {
-        try {
-            Claims claims = extractAllClaims(token);
-            Boolean isVerifyToken = claims.get("verifyEmail", Boolean.class);
-            return isVerifyToken != null && isVerifyToken && !isTokenExpired(token);
-        } catch (Exception e) {
-            return false;
+    private static TokenPurpose extractPurpose(Claims claims) {
+        if (Boolean.TRUE.equals(claims.get("resetPassword", Boolean.class))) {
+            return TokenPurpose.RESET_PASSWORD;
         }
+        if (Boolean.TRUE.equals(claims.get("verifyEmail", Boolean.class))) {
+            return TokenPurpose.VERIFY_EMAIL;
+        }
+        return TokenPurpose.ACCESS;
     }
 
-    private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-    }
-
-    private boolean isTokenExpired(String token) {
-        return extractAllClaims(token).getExpiration().before(new Date());
+    // Los números del payload se leen como Integer o Long según su tamaño
+    private static Long extractId(Claims claims, String name) {
+        return claims.get(name) instanceof Number id ? id.longValue() : null;
     }
 
-    private Key getKey() {
-        byte[] keyBytes = jwtSecret.getBytes(StandardCharsets.UTF_8);
-        return Keys.hmacShaKeyFor(keyBytes);
+    // El claim "role" se serializa como [{"authority": "ROLE_X"}] (así lo lee también el front)
+    private static List<String> extractRoles(Claims claims) {
+        Object role = claims.get("role");
+        if (!(role instanceof Collection<?> entries)) {
+            return List.of();
+        }
+        List<String> roles = new ArrayList<>(entries.size());
+        for (Object entry : entries) {
+            if (entry instanceof Map<?, ?> map && map.get("authority") != null) {
+                roles.add(map.get("authority").toString());
+            }
+        }
+        return roles;
     }
-
-
-
 }
@@ -30,11 +30,13 @@ public class PetService implements Mapper<PetDTO, PetEntity> {
 
     private final PetRepository petRepository;
     private final ClientRepository clientRepository;
+    private final ReferenceDataCache referenceDataCache;
 
     @Autowired
-    public PetService(PetRepository petRepository, ClientRepository clientRepository) {
+    public PetService(PetRepository petRepository, ClientRepository clientRepository, ReferenceDataCache referenceDataCache) {
         this.petRepository = petRepository;
         this.clientRepository = clientRepository;
+        this.referenceDataCache = referenceDataCache;
     }
 
 
@@ -86,13 +88,16 @@ public class PetService implements Mapper<PetDTO, PetEntity> {
         }
         
         takeAttributes(toEntity(pet),existingPet);
-        return toDTO(petRepository.save(existingPet));
+        PetEntity savedPet = petRepository.save(existingPet);
+        referenceDataCache.evictPet(id);
+        return toDTO(savedPet);
     }
 
     public void deletePet(Long id) {
         PetEntity pet =petRepository.findById(id).orElseThrow(() -> new PetNotFoundException("The pet with " + id + " was not found."));
         pet.setActive(false);
         this.petRepository.save(pet);
+        referenceDataCache.evictPet(id);
     }
 
     @Transactional
@@ -109,6 +114,7 @@ public class PetService implements Mapper<PetDTO, PetEntity> {
         
         pet.setActive(true);
         this.petRepository.save(pet);
+        referenceDataCache.evictPet(id);
     }
 
     //WORKS BUT IT'S NEED ALWAYS THE clientID from petDTO
@@ -140,6 +146,13 @@ public class PetService implements Mapper<PetDTO, PetEntity> {
         return this.petRepository.findById(id).orElseThrow(() -> new PetNotFoundException("the pet doesn't exist with ID: " + id));
     }
 
+    /**
+     * Igual que findById pero con lock de escritura sobre la fila; debe llamarse dentro de una transacción.
+     */
+    public PetEntity findByIdForUpdate(Long id) {
+        return this.petRepository.findByIdForUpdate(id).orElseThrow(() -> new PetNotFoundException("the pet doesn't exist with ID: " + id));
+    }
+
     public Optional<ClientDTO> getOwnerByPetId(Long id) {
         PetEntity pet = petRepository.findById(id)
                 .orElseThrow(() -> new PetNotFoundException("The pet doesn't exist with ID: " + id));
@@ -0,0 +1,48 @@
+package Pet.Society.services;
+
+import Pet.Society.models.entities.PetEntity;
+import Pet.Society.models.entities.UserEntity;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Invalidación explícita de la caché de segundo nivel (SecondLevelCacheConfig) para usuarios y mascotas.
+ * Hibernate ya actualiza la región cuando el cambio pasa por el EntityManager; esto cubre además los cambios
+ * que no pasan por él (updates masivos o nativos en el mismo flujo) y deja la baja/alta visible al instante.
+ */
+@Service
+public class ReferenceDataCache {
+
+    private final Cache cache;
+
+    @Autowired
+    public ReferenceDataCache(EntityManagerFactory entityManagerFactory) {
+        this.cache = entityManagerFactory.getCache();
+    }
+
+    // Doctores y clientes comparten la región de UserEntity (herencia JOINED)
+    public void evictUser(long userId) {
+        evictNowAndAfterCommit(() -> cache.evict(UserEntity.class, userId));
+    }
+
+    public void evictPet(long petId) {
+        evictNowAndAfterCommit(() -> cache.evict(PetEntity.class, petId));
+    }
+
+    // Igual que en CredentialService: sin el segundo evict, un request concurrente podría cachear el estado viejo
+    private void evictNowAndAfterCommit(Runnable eviction) {
+        eviction.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    eviction.run();
+                }
+            });
+        }
+    }
+}
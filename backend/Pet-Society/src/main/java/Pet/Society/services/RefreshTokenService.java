@@ -0,0 +1,200 @@
+package Pet.Society.services;
+
+import Pet.Society.models.entities.CredentialEntity;
+import Pet.Society.models.entities.RefreshTokenEntity;
+import Pet.Society.models.entities.UserEntity;
+import Pet.Society.models.exceptions.InvalidRefreshTokenException;
+import Pet.Society.repositories.RefreshTokenRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Sesiones con refresh token: el login con contraseña (BCrypt) se hace una vez y después el cliente renueva el
+ * token de acceso en /auth/refresh, que cuesta un SHA-256 y una consulta por índice único.
+ * - El token es opaco (256 bits aleatorios); en la base solo queda su SHA-256. Con esa entropía no hace falta
+ *   un hash lento como BCrypt.
+ * - Rotación: cada refresh marca el token como usado y entrega uno nuevo de la misma familia.
+ * - Reuso: si llega un token ya usado, alguien más lo tiene; se revoca la familia entera y las dos
+ *   partes tienen que volver a loguearse.
+ * - Cambio de contraseña: se revocan todas las sesiones de la credencial.
+ */
+@Service
+public class RefreshTokenService {
+
+    private static final Logger log = LoggerFactory.getLogger(RefreshTokenService.class);
+    private static final ZoneId ARGENTINA_ZONE = ZoneId.of("America/Argentina/Buenos_Aires");
+    private static final int TOKEN_BYTES = 32;
+
+    /**
+     * Resultado de un refresh: la credencial (para emitir el token de acceso) y el refresh token que reemplaza al usado.
+     */
+    public record Rotation(CredentialEntity credential, String refreshToken) {
+    }
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final Duration ttl;
+    private final SecureRandom random = new SecureRandom();
+    private final Counter rotated;
+    private final Counter reused;
+    private final Counter revoked;
+    private final Counter expired;
+    private final Counter invalid;
+    private final Counter disabled;
+
+    @Autowired
+    public RefreshTokenService(RefreshTokenRepository refreshTokenRepository,
+                               MeterRegistry meterRegistry,
+                               @Value("${auth.refresh-token.ttl-days:30}") long ttlDays) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.ttl = Duration.ofDays(ttlDays);
+        this.rotated = outcomeCounter(meterRegistry, "rotated");
+        this.reused = outcomeCounter(meterRegistry, "reused");
+        this.revoked = outcomeCounter(meterRegistry, "revoked");
+        this.expired = outcomeCounter(meterRegistry, "expired");
+        this.invalid = outcomeCounter(meterRegistry, "invalid");
+        this.disabled = outcomeCounter(meterRegistry, "disabled");
+    }
+
+    private static Counter outcomeCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("auth.refresh")
+                .description("Pedidos a /auth/refresh por resultado")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Abre una sesión nueva (login con contraseña). Devuelve el token en claro; no se puede volver a obtener.
+     */
+    @Transactional
+    public String issue(CredentialEntity credential) {
+        return store(credential, UUID.randomUUID().toString(), getCurrentDateTimeArgentina());
+    }
+
+    /**
+     * Cambia un refresh token por uno nuevo de la misma familia. No verifica contraseña.
+     * Los rechazos no hacen rollback: la revocación por reuso tiene que quedar guardada.
+     */
+    @Transactional(noRollbackFor = InvalidRefreshTokenException.class)
+    public Rotation rotate(String rawToken) {
+        LocalDateTime now = getCurrentDateTimeArgentina();
+        Optional<RefreshTokenEntity> found = rawToken == null || rawToken.isBlank()
+                ? Optional.empty()
+                : refreshTokenRepository.findByTokenHash(hash(rawToken));
+        if (found.isEmpty()) {
+            invalid.increment();
+            throw new InvalidRefreshTokenException("La sesión no es válida. Iniciá sesión de nuevo.");
+        }
+        RefreshTokenEntity token = found.get();
+
+        if (token.getUsedAt() != null) {
+            revokeReusedFamily(token, now);
+        }
+        if (token.getRevokedAt() != null) {
+            // Logout, cambio de contraseña o una familia ya revocada por reuso
+            revoked.increment();
+            throw new InvalidRefreshTokenException("La sesión fue cerrada. Iniciá sesión de nuevo.");
+        }
+        if (!token.getExpiresAt().isAfter(now)) {
+            expired.increment();
+            throw new InvalidRefreshTokenException("La sesión expiró. Iniciá sesión de nuevo.");
+        }
+        CredentialEntity credential = token.getCredential();
+        UserEntity user = credential.getUser();
+        if (!credential.isEnabled() || user == null || !Boolean.TRUE.equals(user.getEmailVerified())) {
+            // Usuario dado de baja (o sin verificar) después del login: la sesión no se renueva más
+            refreshTokenRepository.revokeFamily(token.getFamilyId(), now);
+            disabled.increment();
+            throw new InvalidRefreshTokenException("La sesión no es válida. Iniciá sesión de nuevo.");
+        }
+        // Otro refresh con el mismo token ganó la carrera: también es reuso
+        if (refreshTokenRepository.markUsed(token.getId(), now) == 0) {
+            revokeReusedFamily(token, now);
+        }
+
+        String next = store(credential, token.getFamilyId(), now);
+        rotated.increment();
+        return new Rotation(credential, next);
+    }
+
+    /**
+     * Logout: revoca la sesión (la familia completa) a la que pertenece el token. Un token desconocido se ignora.
+     */
+    @Transactional
+    public void revoke(String rawToken) {
+        if (rawToken == null || rawToken.isBlank()) {
+            return;
+        }
+        refreshTokenRepository.findByTokenHash(hash(rawToken))
+                .ifPresent(token -> refreshTokenRepository.revokeFamily(token.getFamilyId(), getCurrentDateTimeArgentina()));
+    }
+
+    @Transactional
+    public void revokeAll(long credentialId) {
+        refreshTokenRepository.revokeAllOfCredential(credentialId, getCurrentDateTimeArgentina());
+    }
+
+    // Los vencidos ya no sirven ni para detectar reuso
+    @Scheduled(cron = "${auth.refresh-token.purge-cron:0 30 4 * * *}", zone = "America/Argentina/Buenos_Aires")
+    @Transactional
+    public void purgeExpired() {
+        int deleted = refreshTokenRepository.deleteExpiredBefore(getCurrentDateTimeArgentina());
+        if (deleted > 0) {
+            log.info("Se borraron {} refresh tokens vencidos", deleted);
+        }
+    }
+
+    private void revokeReusedFamily(RefreshTokenEntity token, LocalDateTime now) {
+        refreshTokenRepository.revokeFamily(token.getFamilyId(), now);
+        reused.increment();
+        log.warn("Reuso de refresh token en la sesión {} de la credencial {}: se revocó la sesión",
+                token.getFamilyId(), token.getCredential().getId());
+        throw new InvalidRefreshTokenException("La sesión fue cerrada por seguridad. Iniciá sesión de nuevo.");
+    }
+
+    private String store(CredentialEntity credential, String familyId, LocalDateTime now) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        String rawToken = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        refreshTokenRepository.save(RefreshTokenEntity.builder()
+                .credential(credential)
+                .tokenHash(hash(rawToken))
+                .familyId(familyId)
+                .createdAt(now)
+                .expiresAt(now.plus(ttl))
+                .build());
+        return rawToken;
+    }
+
+    private static String hash(String rawToken) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(rawToken.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    private LocalDateTime getCurrentDateTimeArgentina() {
+        return ZonedDateTime.now(ARGENTINA_ZONE).toLocalDateTime();
+    }
+}
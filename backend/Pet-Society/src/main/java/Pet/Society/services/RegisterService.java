@@ -70,13 +70,13 @@ public class RegisterService  {
 
         credentialService.save(credentialEntity);
         
-        // Enviar email de verificación
+        // Encolar email de verificación
         try {
             String verificationToken = jwtService.generateEmailVerificationToken(registerDTO.getUsername());
             String userName = registerDTO.getName() + " " + registerDTO.getSurname();
             emailService.sendEmailVerification(registerDTO.getEmail(), verificationToken, userName);
         } catch (Exception e) {
-            // Si falla el envío del email, hacer rollback de la transacción
+            // Si no se pudo encolar el email, hacer rollback de la transacción (el envío SMTP es en segundo plano)
             throw new RuntimeException("No se pudo enviar el email de verificación. Por favor, verifica que el email sea válido: " + e.getMessage(), e);
         }
         
@@ -106,13 +106,13 @@ public class RegisterService  {
 
         credentialService.save(credentialEntity);
         
-        // Enviar email de verificación
+        // Encolar email de verificación
         try {
             String verificationToken = jwtService.generateEmailVerificationToken(registerDTO.getUsername());
             String userName = registerDTO.getName() + " " + registerDTO.getSurname();
             emailService.sendEmailVerification(registerDTO.getEmail(), verificationToken, userName);
         } catch (Exception e) {
-            // Si falla el envío del email, hacer rollback de la transacción
+            // Si no se pudo encolar el email, hacer rollback de la transacción (el envío SMTP es en segundo plano)
             throw new RuntimeException("No se pudo enviar el email de verificación. Por favor, verifica que el email sea válido: " + e.getMessage(), e);
         }
         
@@ -141,13 +141,13 @@ public class RegisterService  {
 
         credentialService.save(credentialEntity);
         
-        // Enviar email de verificación
+        // Encolar email de verificación
         try {
             String verificationToken = jwtService.generateEmailVerificationToken(registerDTO.getUsername());
             String userName = registerDTO.getName() + " " + registerDTO.getSurname();
             emailService.sendEmailVerification(registerDTO.getEmail(), verificationToken, userName);
         } catch (Exception e) {
-            // Si falla el envío del email, hacer rollback de la transacción
+            // Si no se pudo encolar el email, hacer rollback de la transacción (el envío SMTP es en segundo plano)
             throw new RuntimeException("No se pudo enviar el email de verificación. Por favor, verifica que el email sea válido: " + e.getMessage(), e);
         }
     }
@@ -182,13 +182,13 @@ public class RegisterService  {
 
         credentialService.save(credentialEntity);
         
-        // Enviar email de verificación
+        // Encolar email de verificación
         try {
             String verificationToken = jwtService.generateEmailVerificationToken(registerDTO.getUsername());
             String userName = registerDTO.getName() + " " + registerDTO.getSurname();
             emailService.sendEmailVerification(registerDTO.getEmail(), verificationToken, userName);
         } catch (Exception e) {
-            // Si falla el envío del email, hacer rollback de la transacción
+            // Si no se pudo encolar el email, hacer rollback de la transacción (el envío SMTP es en segundo plano)
             throw new RuntimeException("No se pudo enviar el email de verificación. Por favor, verifica que el email sea válido: " + e.getMessage(), e);
         }
     }
@@ -0,0 +1,371 @@
+package Pet.Society.services;
+
+import Pet.Society.models.dto.register.UserUniqueKeysView;
+import Pet.Society.models.entities.CredentialEntity;
+import Pet.Society.models.entities.UserEntity;
+import Pet.Society.repositories.CredentialRepository;
+import Pet.Society.repositories.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+/**
+ * Filtros de Bloom en memoria con los usernames, DNIs, emails y teléfonos ya registrados, para los chequeos de
+ * disponibilidad del formulario de registro (/auth/check-*). Un "no está" del filtro es definitivo y no va a la
+ * base; un "puede estar" se confirma con un EXISTS por índice único.
+ * - Se construye al arrancar y se reconstruye periódicamente (registration.uniqueness.rebuild-ms), lo que
+ *   además lo redimensiona y descarta los valores que ya no existen (un filtro de Bloom no permite borrar).
+ * - Registro y cambios de email/teléfono agregan el valor en el momento y otra vez después del commit, así no
+ *   se pierde si coincide con una reconstrucción. Un valor de una transacción que hizo rollback solo suma un
+ *   falso positivo.
+ * - Los valores se normalizan (minúsculas, sin tildes) porque la collation de MySQL compara sin distinguirlos.
+ * - Cambios hechos por otra instancia se ven recién en la próxima reconstrucción; el registro igual valida
+ *   contra la base, este chequeo es solo para el formulario.
+ * Métrica: registration.uniqueness.lookups{field, result=absent|taken|false_positive|database}.
+ */
+@Service
+public class RegistrationUniquenessIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(RegistrationUniquenessIndex.class);
+
+    // Margen para los registros que lleguen hasta la próxima reconstrucción
+    private static final int MIN_EXPECTED_INSERTIONS = 10_000;
+
+    public enum Field {
+        USERNAME("username"), DNI("dni"), EMAIL("email"), PHONE("phone");
+
+        private final String key;
+
+        Field(String key) {
+            this.key = key;
+        }
+
+        public String key() {
+            return key;
+        }
+    }
+
+    private final CredentialRepository credentialRepository;
+    private final UserRepository userRepository;
+    private final double falsePositiveRate;
+    private final Map<Field, Map<String, Counter>> lookups = new EnumMap<>(Field.class);
+
+    // Una reconstrucción a la vez. ReentrantLock y no synchronized: la carga hace I/O JDBC y synchronized
+    // fijaría el hilo virtual a su portador mientras tanto
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    // Las altas leen filters y building bajo el lock de lectura; el cambio de filtros toma el de escritura.
+    // Así un alta no puede quedar solo en los filtros viejos justo cuando se reemplazan
+    private final ReentrantReadWriteLock swapLock = new ReentrantReadWriteLock();
+
+    // null hasta la primera construcción: mientras tanto se consulta la base
+    private volatile Map<Field, BloomFilter> filters;
+    // Filtros que se están cargando: las altas concurrentes también se escriben acá
+    private Map<Field, BloomFilter> building;
+
+    @Value("${registration.uniqueness.enabled:true}")
+    private boolean enabled;
+
+    @Autowired
+    public RegistrationUniquenessIndex(CredentialRepository credentialRepository,
+                                       UserRepository userRepository,
+                                       MeterRegistry meterRegistry,
+                                       @Value("${registration.uniqueness.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.credentialRepository = credentialRepository;
+        this.userRepository = userRepository;
+        this.falsePositiveRate = falsePositiveRate;
+        for (Field field : Field.values()) {
+            Map<String, Counter> byResult = new LinkedHashMap<>();
+            for (String result : new String[]{"absent", "taken", "false_positive", "database"}) {
+                byResult.put(result, Counter.builder("registration.uniqueness.lookups")
+                        .description("Chequeos de disponibilidad de datos de registro por resultado")
+                        .tag("field", field.key())
+                        .tag("result", result)
+                        .register(meterRegistry));
+            }
+            lookups.put(field, byResult);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        if (!enabled) {
+            log.info("Índice de datos de registro deshabilitado; los chequeos van a la base");
+            return;
+        }
+        try {
+            rebuild();
+            log.info("Índice de datos de registro listo");
+        } catch (Exception e) {
+            log.error("No se pudo construir el índice de datos de registro; se sigue consultando la base", e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${registration.uniqueness.rebuild-ms:600000}",
+            initialDelayString = "${registration.uniqueness.rebuild-ms:600000}")
+    public void runScheduledRebuild() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            rebuild();
+        } catch (Exception e) {
+            log.error("Error al reconstruir el índice de datos de registro", e);
+        }
+    }
+
+    /**
+     * Vuelve a cargar los cuatro filtros desde las tablas y reemplaza los actuales.
+     */
+    public void rebuild() {
+        rebuildLock.lock();
+        try {
+            long begin = System.currentTimeMillis();
+            Map<Field, BloomFilter> next = load();
+            long bytes = next.values().stream().mapToLong(BloomFilter::sizeInBytes).sum();
+            log.debug("Índice de datos de registro construido: {} KB en {} ms",
+                    bytes / 1024, System.currentTimeMillis() - begin);
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    private Map<Field, BloomFilter> load() {
+        long expectedCredentials = Math.max(MIN_EXPECTED_INSERTIONS, credentialRepository.count() * 2);
+        long expectedUsers = Math.max(MIN_EXPECTED_INSERTIONS, userRepository.count() * 2);
+
+        Map<Field, BloomFilter> next = new EnumMap<>(Field.class);
+        next.put(Field.USERNAME, BloomFilter.create(expectedCredentials, falsePositiveRate));
+        next.put(Field.DNI, BloomFilter.create(expectedUsers, falsePositiveRate));
+        next.put(Field.EMAIL, BloomFilter.create(expectedUsers, falsePositiveRate));
+        next.put(Field.PHONE, BloomFilter.create(expectedUsers, falsePositiveRate));
+        swap(filters, next);
+        try {
+            // Sin lock: las altas que lleguen mientras tanto siguen entrando en los dos juegos de filtros
+            for (String username : credentialRepository.findAllUsernames()) {
+                put(next, Field.USERNAME, username);
+            }
+            for (UserUniqueKeysView user : userRepository.findAllUniqueKeys()) {
+                put(next, Field.DNI, user.getDni());
+                put(next, Field.EMAIL, user.getEmail());
+                put(next, Field.PHONE, user.getPhone());
+            }
+        } catch (RuntimeException e) {
+            swap(filters, null);
+            throw e;
+        }
+        swap(Collections.unmodifiableMap(next), null);
+        return next;
+    }
+
+    private void swap(Map<Field, BloomFilter> current, Map<Field, BloomFilter> inProgress) {
+        swapLock.writeLock().lock();
+        try {
+            filters = current;
+            building = inProgress;
+        } finally {
+            swapLock.writeLock().unlock();
+        }
+    }
+
+    public boolean usernameTaken(String username) {
+        return taken(Field.USERNAME, username, credentialRepository::existsByUsername);
+    }
+
+    public boolean dniTaken(String dni) {
+        return taken(Field.DNI, dni, userRepository::existsByDni);
+    }
+
+    public boolean emailTaken(String email) {
+        return taken(Field.EMAIL, email, userRepository::existsByEmail);
+    }
+
+    public boolean phoneTaken(String phone) {
+        return taken(Field.PHONE, phone, userRepository::existsByPhone);
+    }
+
+    /**
+     * Chequea de una vez los campos que vengan (los null se omiten). Devuelve campo -> ya existe.
+     */
+    public Map<String, Boolean> check(String username, String dni, String email, String phone) {
+        Map<String, Boolean> result = new LinkedHashMap<>();
+        if (username != null) result.put(Field.USERNAME.key(), usernameTaken(username));
+        if (dni != null) result.put(Field.DNI.key(), dniTaken(dni));
+        if (email != null) result.put(Field.EMAIL.key(), emailTaken(email));
+        if (phone != null) result.put(Field.PHONE.key(), phoneTaken(phone));
+        return result;
+    }
+
+    /**
+     * Alta o cambio de credencial: su username y los datos del usuario asociado.
+     */
+    public void recordCredential(CredentialEntity credential) {
+        String username = credential.getUsername();
+        UserEntity user = credential.getUser();
+        addNowAndAfterCommit(() -> {
+            add(Field.USERNAME, username);
+            if (user != null) {
+                addUser(user.getDni(), user.getEmail(), user.getPhone());
+            }
+        });
+    }
+
+    /**
+     * Cambio de datos de un usuario (email o teléfono).
+     */
+    public void recordUser(UserEntity user) {
+        String dni = user.getDni();
+        String email = user.getEmail();
+        String phone = user.getPhone();
+        addNowAndAfterCommit(() -> addUser(dni, email, phone));
+    }
+
+    private boolean taken(Field field, String value, Predicate<String> database) {
+        Map<Field, BloomFilter> current = filters;
+        if (!enabled || current == null || value == null) {
+            lookups.get(field).get("database").increment();
+            return database.test(value);
+        }
+        if (!current.get(field).mightContain(normalize(value))) {
+            lookups.get(field).get("absent").increment();
+            return false;
+        }
+        boolean exists = database.test(value);
+        lookups.get(field).get(exists ? "taken" : "false_positive").increment();
+        return exists;
+    }
+
+    private void addUser(String dni, String email, String phone) {
+        add(Field.DNI, dni);
+        add(Field.EMAIL, email);
+        add(Field.PHONE, phone);
+    }
+
+    private void add(Field field, String value) {
+        swapLock.readLock().lock();
+        try {
+            if (filters != null) {
+                put(filters, field, value);
+            }
+            if (building != null) {
+                put(building, field, value);
+            }
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    private static void put(Map<Field, BloomFilter> target, Field field, String value) {
+        if (value != null) {
+            target.get(field).put(normalize(value));
+        }
+    }
+
+    // Misma idea que ReferenceDataCache, pero agregando: si la reconstrucción leyó la tabla antes del commit,
+    // el segundo add lo deja en los filtros nuevos
+    private void addNowAndAfterCommit(Runnable addition) {
+        addition.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    addition.run();
+                }
+            });
+        }
+    }
+
+    // Colapsa lo que la collation de MySQL (accent/case insensitive) considera igual; solo suma falsos positivos
+    static String normalize(String value) {
+        String decomposed = Normalizer.normalize(value.strip(), Normalizer.Form.NFD);
+        return decomposed.replaceAll("\\p{M}", "").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Filtro de Bloom con bits en un AtomicLongArray: put y mightContain no toman locks.
+     * Los k índices salen de dos hashes de 64 bits (h1 + i * h2, Kirsch-Mitzenmacher).
+     */
+    static final class BloomFilter {
+        private final AtomicLongArray words;
+        private final long bitCount;
+        private final int hashCount;
+
+        private BloomFilter(long bitCount, int hashCount) {
+            this.words = new AtomicLongArray((int) ((bitCount + 63) / 64));
+            this.bitCount = words.length() * 64L;
+            this.hashCount = hashCount;
+        }
+
+        static BloomFilter create(long expectedInsertions, double falsePositiveRate) {
+            double ln2 = Math.log(2);
+            long bits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (ln2 * ln2));
+            int hashes = Math.max(1, (int) Math.round((double) bits / expectedInsertions * ln2));
+            return new BloomFilter(Math.max(64, bits), hashes);
+        }
+
+        void put(String value) {
+            long h1 = hash(value);
+            long h2 = mix(h1 + 0x9E3779B97F4A7C15L) | 1;
+            for (int i = 0; i < hashCount; i++) {
+                long bit = Math.floorMod(h1 + i * h2, bitCount);
+                long mask = 1L << bit;
+                words.getAndUpdate((int) (bit >>> 6), word -> word | mask);
+            }
+        }
+
+        boolean mightContain(String value) {
+            long h1 = hash(value);
+            long h2 = mix(h1 + 0x9E3779B97F4A7C15L) | 1;
+            for (int i = 0; i < hashCount; i++) {
+                long bit = Math.floorMod(h1 + i * h2, bitCount);
+                if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        long sizeInBytes() {
+            return words.length() * 8L;
+        }
+
+        // FNV-1a sobre los bytes UTF-8 y el finalizador de MurmurHash3 para repartir los bits
+        private static long hash(String value) {
+            long h = 0xcbf29ce484222325L;
+            for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+                h ^= b & 0xff;
+                h *= 0x100000001b3L;
+            }
+            return mix(h);
+        }
+
+        private static long mix(long h) {
+            h ^= h >>> 33;
+            h *= 0xff51afd7ed558ccdL;
+            h ^= h >>> 33;
+            h *= 0xc4ceb93fe53e1a49L;
+            h ^= h >>> 33;
+            return h;
+        }
+    }
+}
@@ -0,0 +1,390 @@
+package Pet.Society.services;
+
+import Pet.Society.models.dto.appointment.AvailableAppointmentDTO;
+import Pet.Society.models.dto.appointment.SlotAvailabilityMessage;
+import Pet.Society.models.enums.Reason;
+import Pet.Society.models.enums.SlotChange;
+import Pet.Society.models.enums.Status;
+import Pet.Society.models.events.SlotAvailabilityEvent;
+import Pet.Society.models.exceptions.StreamLimitException;
+import Pet.Society.repositories.AppointmentRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Stream (Server-Sent Events) de turnos libres por motivo y día, para que la pantalla de reserva
+ * no tenga que consultar la lista cada pocos segundos.
+ * - Cada suscripción recibe primero un SNAPSHOT del día y después solo los cambios.
+ * - Los cambios llegan como SlotAvailabilityEvent y se difunden recién después del commit.
+ * - Las consultas (snapshot y turnos liberados) corren en el hilo del request que las origina; al hilo del
+ *   stream solo llegan mensajes ya armados. Cada conexión arma su propio evento SSE al enviarlo: el builder
+ *   de Spring se modifica en build() y no se puede compartir entre conexiones.
+ * - Cada conexión tiene su propia cola acotada (max-pending) que envía un hilo virtual: un cliente lento no
+ *   demora a los demás, y si su cola se llena se le cierra la conexión (el navegador se reconecta y recibe un
+ *   snapshot nuevo). Un cambio nunca sale antes que el snapshot de su conexión.
+ * - Conexiones acotadas en total (max-subscribers) y por IP (max-per-client); por encima se responde 429.
+ * Los suscriptores viven en memoria de cada instancia: con varias instancias, cada una difunde solo sus cambios.
+ */
+@Service
+public class SlotAvailabilityBroadcaster {
+
+    private static final Logger log = LoggerFactory.getLogger(SlotAvailabilityBroadcaster.class);
+
+    // Marca en la cola de una conexión; se compara por identidad y se envía como comentario
+    private static final SlotAvailabilityMessage HEARTBEAT = new SlotAvailabilityMessage();
+
+    private final AppointmentRepository appointmentRepository;
+    private final Map<Subscription, Set<Connection>> connectionsBySubscription = new ConcurrentHashMap<>();
+    private final Map<String, Integer> connectionsByClient = new ConcurrentHashMap<>();
+    private final AtomicInteger connectionCount = new AtomicInteger();
+    private final ExecutorService senders = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("slot-availability-stream-", 0).factory());
+    private final Counter messagesCounter;
+    private final Counter rejectedCounter;
+    private final Counter slowClosedCounter;
+
+    @Value("${appointments.stream.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    @Value("${appointments.stream.max-subscribers:10000}")
+    private int maxSubscribers;
+
+    @Value("${appointments.stream.max-per-client:6}")
+    private int maxPerClient;
+
+    @Value("${appointments.stream.max-pending:64}")
+    private int maxPending;
+
+    @Autowired
+    public SlotAvailabilityBroadcaster(AppointmentRepository appointmentRepository, MeterRegistry meterRegistry) {
+        this.appointmentRepository = appointmentRepository;
+        this.messagesCounter = Counter.builder("appointments.stream.messages")
+                .description("Mensajes de disponibilidad enviados a los suscriptores")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("appointments.stream.dropped")
+                .description("Conexiones al stream rechazadas o cerradas por el servidor")
+                .tag("reason", "limit")
+                .register(meterRegistry);
+        this.slowClosedCounter = Counter.builder("appointments.stream.dropped")
+                .description("Conexiones al stream rechazadas o cerradas por el servidor")
+                .tag("reason", "slow")
+                .register(meterRegistry);
+        Gauge.builder("appointments.stream.subscribers", connectionCount, AtomicInteger::get)
+                .description("Conexiones abiertas al stream de turnos libres")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        senders.shutdownNow();
+        connectionsBySubscription.values().forEach(connections -> connections.forEach(Connection::close));
+    }
+
+    /**
+     * Abre una suscripción a los turnos libres del motivo y el día. La conexión se registra antes de leer el
+     * snapshot (en este mismo hilo), así ningún cambio confirmado en el medio se pierde: los cambios que llegan
+     * mientras tanto esperan en su cola y salen después del snapshot.
+     * @param client IP del cliente, para el límite de conexiones por cliente
+     * @throws StreamLimitException si se superó el límite total o el del cliente
+     */
+    public SseEmitter subscribe(Reason reason, LocalDate date, String client,
+                                Supplier<List<AvailableAppointmentDTO>> snapshot) {
+        reserve(client);
+        Subscription subscription = new Subscription(reason, date);
+        Connection connection = new Connection(subscription, client, createEmitter());
+        connection.emitter.onCompletion(connection::release);
+        connection.emitter.onTimeout(connection::release);
+        connection.emitter.onError(error -> connection.release());
+        connectionsBySubscription.computeIfAbsent(subscription, key -> new CopyOnWriteArraySet<>()).add(connection);
+
+        try {
+            connection.start(SlotAvailabilityMessage.builder()
+                    .change(SlotChange.SNAPSHOT)
+                    .reason(reason)
+                    .date(date)
+                    .slots(List.copyOf(snapshot.get()))
+                    .build());
+        } catch (RuntimeException e) {
+            connection.release();
+            throw e;
+        }
+        return connection.emitter;
+    }
+
+    // Corre después del commit en el hilo que confirmó el cambio: la consulta de RELEASED no pasa por el stream
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSlotAvailabilityChanged(SlotAvailabilityEvent event) {
+        if (connectionsBySubscription.isEmpty()) {
+            return;
+        }
+        try {
+            publish(event);
+        } catch (Exception e) {
+            log.error("Error al publicar en el stream de turnos libres", e);
+        }
+    }
+
+    // Mantiene viva la conexión a través de proxies y detecta clientes que se fueron sin cerrar
+    @Scheduled(fixedDelayString = "${appointments.stream.heartbeat-ms:25000}")
+    public void sendHeartbeats() {
+        connectionsBySubscription.values().forEach(connections ->
+                connections.forEach(Connection::heartbeat));
+    }
+
+    private void publish(SlotAvailabilityEvent event) {
+        switch (event.getChange()) {
+            case BOOKED, REMOVED -> broadcastSlots(event.getChange(), event.getSlots());
+            case RELEASED -> broadcastSlots(SlotChange.RELEASED, appointmentRepository.findFreeSlotsStartingBetween(
+                    event.getDoctorId(), Status.AVAILABLE, event.getFrom(), event.getTo()));
+            case EXPIRED -> broadcastExpired(event.getBefore());
+            default -> log.warn("Cambio de disponibilidad no soportado: {}", event.getChange());
+        }
+    }
+
+    private void broadcastSlots(SlotChange change, List<AvailableAppointmentDTO> slots) {
+        Map<Subscription, List<AvailableAppointmentDTO>> bySubscription = slots.stream()
+                .collect(Collectors.groupingBy(slot ->
+                        new Subscription(slot.getReason(), slot.getStartTime().toLocalDate())));
+        bySubscription.forEach((subscription, changed) -> broadcast(subscription, SlotAvailabilityMessage.builder()
+                .change(change)
+                .reason(subscription.reason())
+                .date(subscription.date())
+                .slots(List.copyOf(changed))
+                .build()));
+    }
+
+    private void broadcastExpired(LocalDateTime before) {
+        connectionsBySubscription.keySet().stream()
+                .filter(subscription -> !subscription.date().isAfter(before.toLocalDate()))
+                .forEach(subscription -> broadcast(subscription, SlotAvailabilityMessage.builder()
+                        .change(SlotChange.EXPIRED)
+                        .reason(subscription.reason())
+                        .date(subscription.date())
+                        .slots(List.of())
+                        .before(before)
+                        .build()));
+    }
+
+    private void broadcast(Subscription subscription, SlotAvailabilityMessage message) {
+        Set<Connection> connections = connectionsBySubscription.get(subscription);
+        if (connections != null) {
+            connections.forEach(connection -> connection.enqueue(message));
+        }
+    }
+
+    // Un builder nuevo por envío
+    private static SseEmitter.SseEventBuilder event(SlotAvailabilityMessage message) {
+        if (message == HEARTBEAT) {
+            return SseEmitter.event().comment("heartbeat");
+        }
+        return SseEmitter.event().name(message.getChange().name().toLowerCase()).data(message);
+    }
+
+    // Punto de extensión para los tests
+    SseEmitter createEmitter() {
+        return new SseEmitter(timeoutMs);
+    }
+
+    private void reserve(String client) {
+        if (connectionCount.incrementAndGet() > maxSubscribers) {
+            connectionCount.decrementAndGet();
+            rejectedCounter.increment();
+            throw new StreamLimitException("El servidor tiene demasiadas conexiones abiertas al stream de turnos. Probá de nuevo en unos minutos.");
+        }
+        boolean[] allowed = {false};
+        connectionsByClient.compute(client, (key, open) -> {
+            int current = open == null ? 0 : open;
+            allowed[0] = current < maxPerClient;
+            return allowed[0] ? current + 1 : open;
+        });
+        if (!allowed[0]) {
+            connectionCount.decrementAndGet();
+            rejectedCounter.increment();
+            throw new StreamLimitException("Hay demasiadas conexiones abiertas al stream de turnos desde esta dirección.");
+        }
+    }
+
+    private void unregister(Connection connection) {
+        connectionsBySubscription.computeIfPresent(connection.subscription, (key, connections) -> {
+            connections.remove(connection);
+            return connections.isEmpty() ? null : connections;
+        });
+        connectionsByClient.computeIfPresent(connection.client, (key, open) -> open <= 1 ? null : open - 1);
+        connectionCount.decrementAndGet();
+    }
+
+    /**
+     * Una conexión abierta: sus mensajes pendientes y el hilo que los envía de a uno, en orden.
+     * Hasta que se encola el snapshot (start) los cambios solo se acumulan.
+     */
+    private final class Connection {
+        private final Subscription subscription;
+        private final String client;
+        private final SseEmitter emitter;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final ArrayDeque<SlotAvailabilityMessage> pending = new ArrayDeque<>();
+        private boolean started;
+        private boolean sending;
+        private boolean released;
+
+        Connection(Subscription subscription, String client, SseEmitter emitter) {
+            this.subscription = subscription;
+            this.client = client;
+            this.emitter = emitter;
+        }
+
+        void start(SlotAvailabilityMessage snapshot) {
+            lock.lock();
+            try {
+                pending.addFirst(snapshot);
+                started = true;
+            } finally {
+                lock.unlock();
+            }
+            scheduleSend();
+        }
+
+        void enqueue(SlotAvailabilityMessage message) {
+            boolean overflow;
+            lock.lock();
+            try {
+                if (released) {
+                    return;
+                }
+                overflow = pending.size() >= maxPending;
+                if (!overflow) {
+                    pending.addLast(message);
+                }
+            } finally {
+                lock.unlock();
+            }
+            if (overflow) {
+                // No lee lo que se le manda: se corta y al reconectarse arranca de un snapshot nuevo
+                slowClosedCounter.increment();
+                log.debug("Se cerró una conexión lenta al stream de turnos ({})", client);
+                release();
+                // complete() espera a que termine el envío en curso: no se bloquea el hilo que publica
+                try {
+                    senders.execute(this::close);
+                } catch (RejectedExecutionException e) {
+                    // La aplicación se está apagando
+                }
+            } else {
+                scheduleSend();
+            }
+        }
+
+        // Solo hace falta si no hay nada pendiente: cualquier mensaje ya mantiene viva la conexión
+        void heartbeat() {
+            lock.lock();
+            try {
+                if (released || !started || !pending.isEmpty() || sending) {
+                    return;
+                }
+                pending.addLast(HEARTBEAT);
+            } finally {
+                lock.unlock();
+            }
+            scheduleSend();
+        }
+
+        private void scheduleSend() {
+            lock.lock();
+            try {
+                if (!started || sending || released || pending.isEmpty()) {
+                    return;
+                }
+                sending = true;
+            } finally {
+                lock.unlock();
+            }
+            try {
+                senders.execute(this::sendPending);
+            } catch (RejectedExecutionException e) {
+                // La aplicación se está apagando
+            }
+        }
+
+        private void sendPending() {
+            while (true) {
+                SlotAvailabilityMessage message;
+                lock.lock();
+                try {
+                    message = released ? null : pending.pollFirst();
+                    if (message == null) {
+                        sending = false;
+                        return;
+                    }
+                } finally {
+                    lock.unlock();
+                }
+                try {
+                    emitter.send(event(message));
+                    messagesCounter.increment();
+                } catch (IOException | IllegalStateException e) {
+                    // El cliente cerró la conexión; el navegador se reconecta solo y vuelve a pedir el snapshot
+                    release();
+                } catch (RuntimeException e) {
+                    // Sin esto el hilo termina con sending en true y la conexión queda muda hasta el timeout;
+                    // se cierra para que el navegador se reconecte y reciba un snapshot nuevo
+                    log.warn("Error al enviar al stream de turnos libres ({})", client, e);
+                    close();
+                }
+            }
+        }
+
+        void close() {
+            release();
+            try {
+                emitter.complete();
+            } catch (IllegalStateException e) {
+                // La respuesta ya se había cerrado del lado del cliente
+            }
+        }
+
+        // Idempotente: la llaman los callbacks del emitter y los errores de envío
+        void release() {
+            lock.lock();
+            try {
+                if (released) {
+                    return;
+                }
+                released = true;
+                pending.clear();
+            } finally {
+                lock.unlock();
+            }
+            unregister(this);
+        }
+    }
+
+    private record Subscription(Reason reason, LocalDate date) {
+    }
+}
@@ -21,9 +21,15 @@ public class UserService {
 
     private final CredentialRepository credentialRepository;
 
-    public UserService(UserRepository userRepository, CredentialRepository credentialRepository) {
+    private final CredentialService credentialService;
+
+    private final RegistrationUniquenessIndex uniquenessIndex;
+
+    public UserService(UserRepository userRepository, CredentialRepository credentialRepository, CredentialService credentialService, RegistrationUniquenessIndex uniquenessIndex) {
         this.userRepository = userRepository;
         this.credentialRepository = credentialRepository;
+        this.credentialService = credentialService;
+        this.uniquenessIndex = uniquenessIndex;
     }
 
 
@@ -34,6 +40,7 @@ public class UserService {
             throw new UserExistsException("User already exists");
         }
         this.userRepository.save(admin);
+        uniquenessIndex.recordUser(admin);
         return admin;
     }
 
@@ -46,6 +53,7 @@ public class UserService {
         userToUpdate.setId(id);
         takeAttributes(userToUpdate, userOpt.get());
         this.userRepository.save(userToUpdate);
+        uniquenessIndex.recordUser(userToUpdate);
     }
 
 
@@ -92,6 +100,7 @@ public class UserService {
         
         userToUnsubscribe.setSubscribed(false);
         this.userRepository.save(userToUnsubscribe);
+        credentialService.evictPrincipalsOfUser(id);
     }
 
     /**Suscribe uno ya dado de baja por la funcion de arriba
@@ -104,6 +113,7 @@ public class UserService {
         UserEntity userToResubscribe = existingUser.get();
         userToResubscribe.setSubscribed(true);
         this.userRepository.save(userToResubscribe);
+        credentialService.evictPrincipalsOfUser(id);
     }
 
 
@@ -0,0 +1,4 @@
+-- Chequeo de solapamiento de citas en la base (AppointmentRepository.existsOverlapping):
+-- doctor_id = ? AND start_date < ? AND end_date > ?
+create index idx_appointments_doctor_range
+    on appointments (doctor_id, start_date, end_date);
@@ -0,0 +1,11 @@
+-- Calendario de disponibilidad: turnos libres por motivo y día (AvailabilityCalendarEntity)
+create table availability_calendar (
+    calendar_date date,
+    free_slots integer not null,
+    reason tinyint,
+    id bigint not null auto_increment,
+    primary key (id)
+) engine=InnoDB;
+
+alter table availability_calendar
+    add constraint uk_availability_calendar_reason_date unique (reason, calendar_date);
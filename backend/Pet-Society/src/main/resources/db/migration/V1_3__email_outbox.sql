@@ -0,0 +1,22 @@
+-- Cola de emails salientes (EmailOutboxEntity). text_body se agrega en V4.
+create table email_outbox (
+    attempts integer not null,
+    status tinyint,
+    claimed_at datetime(6),
+    created_at datetime(6),
+    id bigint not null auto_increment,
+    next_attempt_at datetime(6),
+    sent_at datetime(6),
+    last_error varchar(1000),
+    claim_token varchar(255),
+    recipient varchar(255),
+    subject varchar(255),
+    html_body longtext,
+    primary key (id)
+) engine=InnoDB;
+
+create index idx_email_outbox_status_next_attempt
+    on email_outbox (status, next_attempt_at);
+
+create index idx_email_outbox_claim_token
+    on email_outbox (claim_token);
@@ -0,0 +1,139 @@
+-- Esquema base: el mismo que generaba spring.jpa.hibernate.ddl-auto=update antes de pasar a Flyway.
+-- En bases que ya existían, Flyway marca esta versión como aplicada (baseline-on-migrate) y sigue desde V1_1,
+-- así que acá no puede haber nada que esas bases no tengan: las tablas e índices nuevos van en migraciones aparte.
+
+create table appointments (
+    approved bit not null,
+    reason tinyint,
+    status tinyint,
+    diagnoses_id bigint,
+    doctor_id bigint,
+    end_date datetime(6),
+    id bigint not null auto_increment,
+    pet_pet_id bigint,
+    start_date datetime(6),
+    primary key (id)
+) engine=InnoDB;
+
+create table client_entity (
+    foundation bit,
+    id bigint not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table credential_entity (
+    role tinyint,
+    id bigint not null auto_increment,
+    user_id bigint,
+    password varchar(255),
+    username varchar(255),
+    primary key (id)
+) engine=InnoDB;
+
+create table diagnoses_entity (
+    appointment_id bigint,
+    date datetime(6),
+    doctor_id bigint,
+    id bigint not null auto_increment,
+    pet_pet_id bigint,
+    diagnose longtext,
+    treatment longtext,
+    primary key (id)
+) engine=InnoDB;
+
+create table doctors (
+    speciality tinyint,
+    id bigint not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table pet_entity (
+    active bit default 1 not null,
+    age integer not null,
+    id_cliente bigint not null,
+    pet_id bigint not null auto_increment,
+    name varchar(50) not null,
+    other_type varchar(50),
+    pet_type enum ('BIRD','CAPYBARA','CAT','DOG','FISH','HAMSTER','OTHER','RABBIT','REPTILE','TURTLE') not null,
+    primary key (pet_id)
+) engine=InnoDB;
+
+create table user_entity (
+    email_verified bit default false,
+    subscribed bit default true not null,
+    dni varchar(8) not null,
+    id bigint not null auto_increment,
+    phone varchar(20) not null,
+    name varchar(50) not null,
+    surname varchar(50) not null,
+    email varchar(255) not null,
+    primary key (id)
+) engine=InnoDB;
+
+alter table appointments
+    add constraint UKfh3pob0h4hfoa8diq2mg4x0n4 unique (diagnoses_id);
+
+alter table credential_entity
+    add constraint UKpek762gfsfwa61sasloejpklb unique (user_id);
+
+alter table credential_entity
+    add constraint UKg3pev2f6hc5jvgbtjxg5recim unique (username);
+
+alter table diagnoses_entity
+    add constraint UK3nkm7q95fkvm6euah7xtkdok5 unique (appointment_id);
+
+alter table user_entity
+    add constraint UK954y33fqknr0qy4jiolrpjo7r unique (dni);
+
+alter table user_entity
+    add constraint UK4xad1enskw4j1t2866f7sodrx unique (email);
+
+alter table appointments
+    add constraint FK7dse3glhkbx4q4qtkh6vcqt61
+    foreign key (diagnoses_id)
+    references diagnoses_entity (id);
+
+alter table appointments
+    add constraint FKmujeo4tymoo98cmf7uj3vsv76
+    foreign key (doctor_id)
+    references doctors (id);
+
+alter table appointments
+    add constraint FK8xobad6x1acuv6qkh4p5gh5d7
+    foreign key (pet_pet_id)
+    references pet_entity (pet_id);
+
+alter table client_entity
+    add constraint FK8irawg38jw7uxwdsp92mtkl0f
+    foreign key (id)
+    references user_entity (id);
+
+alter table credential_entity
+    add constraint FKf9dg4xwd2hgov8yq1b2du246g
+    foreign key (user_id)
+    references user_entity (id);
+
+alter table diagnoses_entity
+    add constraint FK3gpj07itie7xjdtrrp9ojlwes
+    foreign key (appointment_id)
+    references appointments (id);
+
+alter table diagnoses_entity
+    add constraint FK5nfshmdfrxbgggqht3lnkfbq7
+    foreign key (doctor_id)
+    references doctors (id);
+
+alter table diagnoses_entity
+    add constraint FKtr2itkew9kqqalvct7uts1njg
+    foreign key (pet_pet_id)
+    references pet_entity (pet_id);
+
+alter table doctors
+    add constraint FKkokp7cdhxenfa5bc5qpk64hep
+    foreign key (id)
+    references user_entity (id);
+
+alter table pet_entity
+    add constraint FK1p4qg2qelu0x8gkhwwvxhq8ei
+    foreign key (id_cliente)
+    references client_entity (id);
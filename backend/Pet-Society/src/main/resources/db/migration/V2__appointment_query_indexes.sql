@@ -0,0 +1,22 @@
+-- Índices compuestos para las consultas calientes de AppointmentRepository.
+-- status y reason se guardan como ordinal; pet_pet_id es la columna de la relación con la mascota.
+
+-- Turnos libres por motivo: findAllByReasonAndStatusAndPetIsNullAndStartDate{After,Between}
+create index idx_appointments_reason_status_pet_start
+    on appointments (reason, status, pet_pet_id, start_date);
+
+-- Agenda del doctor: doctor_id = ? AND end_date > ? ORDER BY start_date
+create index idx_appointments_doctor_end_start
+    on appointments (doctor_id, end_date, start_date);
+
+-- Citas de una mascota (findAllByPetId, findAllByPetClientId vía pet_entity, reserva vigente, historial del cliente)
+create index idx_appointments_pet_status_start
+    on appointments (pet_pet_id, status, start_date);
+
+-- Barrido de turnos libres vencidos, findAllByStatusAndStartDateAfter y recálculo del calendario
+create index idx_appointments_status_start
+    on appointments (status, start_date);
+
+-- Barrido de citas programadas ya terminadas
+create index idx_appointments_status_end
+    on appointments (status, end_date);
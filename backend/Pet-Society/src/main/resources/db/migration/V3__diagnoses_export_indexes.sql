@@ -0,0 +1,9 @@
+-- Índices para la exportación de diagnósticos (DiagnosesRepository.streamForExportBy*):
+-- filtro por mascota o doctor, rango de fechas y ORDER BY date sin filesort.
+-- Para la exportación por cliente se entra por pet_entity y después por el índice de mascota.
+
+create index idx_diagnoses_pet_date
+    on diagnoses_entity (pet_pet_id, date);
+
+create index idx_diagnoses_doctor_date
+    on diagnoses_entity (doctor_id, date);
@@ -0,0 +1,3 @@
+-- Alternativa en texto plano de cada email (EmailTemplates: plantillas .txt)
+alter table email_outbox
+    add column text_body longtext;
@@ -0,0 +1,27 @@
+-- Sesiones con refresh token (RefreshTokenService): solo se guarda el SHA-256 del token
+create table refresh_tokens (
+    id bigint not null auto_increment,
+    credential_id bigint not null,
+    token_hash varchar(64) not null,
+    family_id varchar(36) not null,
+    created_at datetime(6),
+    expires_at datetime(6) not null,
+    used_at datetime(6),
+    revoked_at datetime(6),
+    primary key (id)
+) engine=InnoDB;
+
+create unique index idx_refresh_tokens_token_hash
+    on refresh_tokens (token_hash);
+
+create index idx_refresh_tokens_family_id
+    on refresh_tokens (family_id);
+
+create index idx_refresh_tokens_expires_at
+    on refresh_tokens (expires_at);
+
+alter table refresh_tokens
+    add constraint FK_refresh_tokens_credential
+    foreign key (credential_id)
+    references credential_entity (id)
+    on delete cascade;
@@ -0,0 +1,135 @@
+package Pet.Society;
+
+import Pet.Society.models.dto.pet.AssingmentPetDTO;
+import Pet.Society.models.exceptions.UnavailableAppointmentException;
+import Pet.Society.services.AppointmentService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Reserva concurrente: N mascotas distintas piden el mismo turno libre al mismo tiempo y solo una puede quedárselo.
+ * Necesita un MySQL 8 con un esquema descartable (aplica las migraciones y borra al final lo que carga):
+ * BOOKING_DB_URL=jdbc:mysql://localhost:3306/pet_society_test BOOKING_DB_USER=root BOOKING_DB_PASSWORD=root
+ */
+@SpringBootTest(properties = {
+		"jwt.secret=clave-de-prueba-para-reservas-concurrentes-1234567890",
+		"spring.mail.host=localhost",
+		"spring.mail.username=test@petsociety.local",
+		"email.outbox.enabled=false",
+		"appointments.expiry.enabled=false"
+})
+@EnabledIfEnvironmentVariable(named = "BOOKING_DB_URL", matches = ".+")
+class AppointmentBookingConcurrencyTests {
+
+	private static final int CONCURRENT_BOOKINGS = 16;
+
+	// Ids altos para no chocar con datos que ya tenga el esquema
+	private static final long DOCTOR_ID = 990_000_001L;
+	private static final long CLIENT_ID = 990_000_002L;
+	private static final long FIRST_PET_ID = 990_000_100L;
+	private static final long APPOINTMENT_ID = 990_000_500L;
+
+	@Autowired
+	private AppointmentService appointmentService;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@DynamicPropertySource
+	static void datasource(DynamicPropertyRegistry registry) {
+		registry.add("spring.datasource.url", () -> System.getenv("BOOKING_DB_URL"));
+		registry.add("spring.datasource.username", () -> System.getenv("BOOKING_DB_USER"));
+		registry.add("spring.datasource.password", () -> System.getenv("BOOKING_DB_PASSWORD"));
+	}
+
+	@BeforeEach
+	void seed() {
+		cleanUp();
+		jdbcTemplate.update("INSERT INTO user_entity (id, name, surname, phone, dni, email, subscribed, email_verified) " +
+				"VALUES (?, 'Doctora', 'Prueba', '1100000001', '9900001', 'doctora.concurrencia@test.local', 1, 1)", DOCTOR_ID);
+		jdbcTemplate.update("INSERT INTO doctors (id, speciality) VALUES (?, 0)", DOCTOR_ID);
+		jdbcTemplate.update("INSERT INTO user_entity (id, name, surname, phone, dni, email, subscribed, email_verified) " +
+				"VALUES (?, 'Cliente', 'Prueba', '1100000002', '9900002', 'cliente.concurrencia@test.local', 1, 1)", CLIENT_ID);
+		jdbcTemplate.update("INSERT INTO client_entity (id, foundation) VALUES (?, 0)", CLIENT_ID);
+		for (int i = 0; i < CONCURRENT_BOOKINGS; i++) {
+			jdbcTemplate.update("INSERT INTO pet_entity (pet_id, active, age, id_cliente, name, pet_type) " +
+					"VALUES (?, 1, 3, ?, 'Firulais', 'DOG')", FIRST_PET_ID + i, CLIENT_ID);
+		}
+		// Turno libre (status 4 = AVAILABLE) dentro de un año
+		LocalDateTime start = LocalDateTime.now().plusYears(1).withNano(0);
+		jdbcTemplate.update("INSERT INTO appointments (id, approved, reason, status, doctor_id, pet_pet_id, start_date, end_date) " +
+				"VALUES (?, 0, 0, 4, ?, NULL, ?, ?)", APPOINTMENT_ID, DOCTOR_ID, start, start.plusMinutes(15));
+	}
+
+	@AfterEach
+	void cleanUp() {
+		jdbcTemplate.update("DELETE FROM appointments WHERE id = ?", APPOINTMENT_ID);
+		jdbcTemplate.update("DELETE FROM pet_entity WHERE pet_id BETWEEN ? AND ?",
+				FIRST_PET_ID, FIRST_PET_ID + CONCURRENT_BOOKINGS - 1);
+		jdbcTemplate.update("DELETE FROM client_entity WHERE id = ?", CLIENT_ID);
+		jdbcTemplate.update("DELETE FROM doctors WHERE id = ?", DOCTOR_ID);
+		jdbcTemplate.update("DELETE FROM user_entity WHERE id IN (?, ?)", DOCTOR_ID, CLIENT_ID);
+	}
+
+	@Test
+	void concurrentBookingsOfOneSlotLetExactlyOneThrough() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(CONCURRENT_BOOKINGS);
+		CountDownLatch start = new CountDownLatch(1);
+		AtomicInteger booked = new AtomicInteger();
+		AtomicInteger rejected = new AtomicInteger();
+		List<Throwable> unexpected = new ArrayList<>();
+
+		List<Future<?>> futures = new ArrayList<>();
+		for (int i = 0; i < CONCURRENT_BOOKINGS; i++) {
+			long petId = FIRST_PET_ID + i;
+			futures.add(executor.submit(() -> {
+				start.await();
+				try {
+					appointmentService.bookAppointment(APPOINTMENT_ID, new AssingmentPetDTO(petId));
+					booked.incrementAndGet();
+				} catch (UnavailableAppointmentException e) {
+					rejected.incrementAndGet();
+				} catch (Throwable e) {
+					synchronized (unexpected) {
+						unexpected.add(e);
+					}
+				}
+				return null;
+			}));
+		}
+		start.countDown();
+		for (Future<?> future : futures) {
+			future.get(60, TimeUnit.SECONDS);
+		}
+		executor.shutdown();
+
+		assertTrue(unexpected.isEmpty(), "Errores inesperados: " + unexpected);
+		assertEquals(1, booked.get(), "Tiene que haber exactamente una reserva");
+		assertEquals(CONCURRENT_BOOKINGS - 1, rejected.get());
+
+		Long petInSlot = jdbcTemplate.queryForObject("SELECT pet_pet_id FROM appointments WHERE id = ?", Long.class, APPOINTMENT_ID);
+		Integer status = jdbcTemplate.queryForObject("SELECT status FROM appointments WHERE id = ?", Integer.class, APPOINTMENT_ID);
+		assertTrue(petInSlot != null && petInSlot >= FIRST_PET_ID && petInSlot < FIRST_PET_ID + CONCURRENT_BOOKINGS);
+		assertEquals(3, status, "El turno tiene que quedar TO_BEGIN");
+	}
+}
@@ -0,0 +1,168 @@
+package Pet.Society;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Regresión de planes: corre EXPLAIN sobre las consultas calientes de AppointmentRepository y falla
+ * si alguna deja de usar un índice que empiece por las columnas esperadas.
+ * Necesita un MySQL 8 con un esquema vacío descartable (aplica las migraciones, carga datos y los borra al final):
+ * EXPLAIN_DB_URL=jdbc:mysql://localhost:3306/pet_society_explain EXPLAIN_DB_USER=root EXPLAIN_DB_PASSWORD=root
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@EnabledIfEnvironmentVariable(named = "EXPLAIN_DB_URL", matches = ".+")
+class AppointmentQueryPlanTests {
+
+	private static final int SEED_APPOINTMENTS = 50000;
+
+	private Connection connection;
+
+	@BeforeAll
+	void migrateAndSeed() throws SQLException {
+		String url = System.getenv("EXPLAIN_DB_URL");
+		String user = System.getenv("EXPLAIN_DB_USER");
+		String password = System.getenv("EXPLAIN_DB_PASSWORD");
+
+		Flyway.configure().dataSource(url, user, password).load().migrate();
+		connection = DriverManager.getConnection(url, user, password);
+
+		try (Statement statement = connection.createStatement()) {
+			statement.execute("SET SESSION cte_max_recursion_depth = " + SEED_APPOINTMENTS);
+			statement.execute("SET FOREIGN_KEY_CHECKS = 0");
+			// 5000 mascotas de 1000 clientes
+			statement.execute("INSERT INTO pet_entity (pet_id, active, age, id_cliente, name, pet_type) " +
+					"WITH RECURSIVE seq (n) AS (SELECT 1 UNION ALL SELECT n + 1 FROM seq WHERE n < 5000) " +
+					"SELECT n, 1, 3, 1 + n % 1000, 'Firulais', 'DOG' FROM seq");
+			// Turnos de 15 minutos de 200 doctores; uno de cada cinco libre (AVAILABLE, sin mascota)
+			statement.execute("INSERT INTO appointments (approved, reason, status, doctor_id, pet_pet_id, start_date, end_date) " +
+					"WITH RECURSIVE seq (n) AS (SELECT 1 UNION ALL SELECT n + 1 FROM seq WHERE n < " + SEED_APPOINTMENTS + ") " +
+					"SELECT 0, n % 4, CASE WHEN n % 5 = 0 THEN 4 ELSE n % 4 END, 1 + n % 200, " +
+					"CASE WHEN n % 5 = 0 THEN NULL ELSE 1 + n % 5000 END, " +
+					"TIMESTAMP('2024-01-01') + INTERVAL n * 15 MINUTE, TIMESTAMP('2024-01-01') + INTERVAL (n + 1) * 15 MINUTE " +
+					"FROM seq");
+			statement.execute("SET FOREIGN_KEY_CHECKS = 1");
+			statement.execute("ANALYZE TABLE appointments, pet_entity");
+		}
+	}
+
+	@AfterAll
+	void cleanUp() throws SQLException {
+		if (connection == null) {
+			return;
+		}
+		try (Statement statement = connection.createStatement()) {
+			statement.execute("SET FOREIGN_KEY_CHECKS = 0");
+			statement.execute("DELETE FROM appointments");
+			statement.execute("DELETE FROM pet_entity");
+			statement.execute("SET FOREIGN_KEY_CHECKS = 1");
+		}
+		connection.close();
+	}
+
+	@Test
+	void availableSlotsByReasonUseReasonStatusIndex() throws SQLException {
+		assertUsesIndexStartingWith("SELECT a.* FROM appointments a " +
+						"WHERE a.reason = 1 AND a.status = 4 AND a.pet_pet_id IS NULL AND a.start_date > '2025-05-01'",
+				"reason", "status");
+	}
+
+	@Test
+	void doctorAgendaUsesDoctorIndex() throws SQLException {
+		assertUsesIndexStartingWith("SELECT a.* FROM appointments a " +
+						"WHERE a.doctor_id = 7 AND a.end_date > '2025-05-01' ORDER BY a.start_date ASC",
+				"doctor_id");
+	}
+
+	@Test
+	void overlapCheckUsesDoctorIndex() throws SQLException {
+		assertUsesIndexStartingWith("SELECT COUNT(*) FROM appointments a " +
+						"WHERE a.doctor_id = 7 AND a.start_date < '2024-06-01 10:15' AND a.end_date > '2024-06-01 10:00' AND a.status <> 0",
+				"doctor_id");
+	}
+
+	@Test
+	void appointmentsByPetUsePetIndex() throws SQLException {
+		assertUsesIndexStartingWith("SELECT a.* FROM appointments a WHERE a.pet_pet_id = 42",
+				"pet_pet_id");
+	}
+
+	@Test
+	void scheduledAppointmentOfPetUsesPetStatusIndex() throws SQLException {
+		assertUsesIndexStartingWith("SELECT a.id FROM appointments a " +
+						"WHERE a.pet_pet_id = 42 AND a.status = 3 AND a.start_date > '2025-05-01' LIMIT 1",
+				"pet_pet_id", "status");
+	}
+
+	@Test
+	void clientHistoryReachesAppointmentsThroughPetIndex() throws SQLException {
+		assertUsesIndexStartingWith("SELECT a.* FROM appointments a JOIN pet_entity p ON p.pet_id = a.pet_pet_id " +
+						"WHERE p.id_cliente = 17 ORDER BY a.start_date DESC, a.id DESC LIMIT 21",
+				"pet_pet_id");
+	}
+
+	@Test
+	void expiredAvailableSweepUsesStatusIndex() throws SQLException {
+		assertUsesIndexStartingWith("UPDATE appointments a SET a.status = 0 " +
+						"WHERE a.status = 4 AND a.pet_pet_id IS NULL AND a.start_date < '2024-01-03' LIMIT 500",
+				"status");
+	}
+
+	@Test
+	void expiredScheduledSweepUsesStatusIndex() throws SQLException {
+		assertUsesIndexStartingWith("UPDATE appointments a SET a.status = 2 " +
+						"WHERE a.status = 3 AND a.pet_pet_id IS NOT NULL AND a.diagnoses_id IS NULL " +
+						"AND a.end_date < '2024-01-03' LIMIT 500",
+				"status");
+	}
+
+	private void assertUsesIndexStartingWith(String sql, String... leadingColumns) throws SQLException {
+		String key = null;
+		try (Statement statement = connection.createStatement();
+			 ResultSet plan = statement.executeQuery("EXPLAIN " + sql)) {
+			while (plan.next()) {
+				if ("a".equals(plan.getString("table"))) {
+					key = plan.getString("key");
+				}
+			}
+		}
+		assertNotNull(key, "Sin índice (full scan) en appointments para: " + sql);
+
+		List<String> columns = indexColumns(key);
+		assertTrue(columns.size() >= leadingColumns.length
+						&& columns.subList(0, leadingColumns.length).equals(List.of(leadingColumns)),
+				"Se usó " + key + " " + columns + ", se esperaba un índice que empiece por "
+						+ List.of(leadingColumns) + " para: " + sql);
+	}
+
+	private List<String> indexColumns(String indexName) throws SQLException {
+		List<String> columns = new ArrayList<>();
+		try (PreparedStatement statement = connection.prepareStatement(
+				"SELECT column_name FROM information_schema.statistics " +
+						"WHERE table_schema = DATABASE() AND table_name = 'appointments' AND index_name = ? " +
+						"ORDER BY seq_in_index")) {
+			statement.setString(1, indexName);
+			try (ResultSet resultSet = statement.executeQuery()) {
+				while (resultSet.next()) {
+					columns.add(resultSet.getString(1));
+				}
+			}
+		}
+		return columns;
+	}
+}
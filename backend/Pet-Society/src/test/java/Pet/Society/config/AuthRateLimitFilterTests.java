@@ -0,0 +1,233 @@
+package Pet.Society.config;
+
+import Pet.Society.config.AuthRateLimitFilter.Bucket;
+import Pet.Society.config.AuthRateLimitFilter.Limit;
+import Pet.Society.config.AuthRateLimitFilter.PrefixedInputStream;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.web.DelegatingServletInputStream;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Límite de pedidos de los endpoints públicos: parseo de "N/duración", el bucket GCRA y el body que se le
+ * devuelve al controller después de leer la cuenta.
+ */
+class AuthRateLimitFilterTests {
+
+	private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+	@Test
+	void limitSpreadsThePeriodOverTheCapacity() {
+		Limit limit = Limit.parse("5/1m");
+
+		assertEquals(5, limit.capacity());
+		assertEquals(12 * SECOND, limit.intervalNanos());
+		assertEquals(60 * SECOND, limit.periodNanos());
+		assertEquals(TimeUnit.MINUTES.toNanos(15) / 3, Limit.parse(" 3 / 15m ").intervalNanos());
+		assertEquals(TimeUnit.HOURS.toNanos(1) / 10, Limit.parse("10/PT1H").intervalNanos());
+	}
+
+	@Test
+	void invalidLimitsAreRejected() {
+		assertThrows(IllegalArgumentException.class, () -> Limit.parse("5"));
+		assertThrows(IllegalArgumentException.class, () -> Limit.parse("/1m"));
+		assertThrows(IllegalArgumentException.class, () -> Limit.parse("0/1m"));
+		assertThrows(IllegalArgumentException.class, () -> Limit.parse("5/0s"));
+		assertThrows(IllegalArgumentException.class, () -> Limit.parse("cinco/1m"));
+	}
+
+	@Test
+	void bucketAllowsABurstOfCapacityAndThenReportsTheWait() {
+		Limit limit = Limit.parse("5/1m");
+		Bucket bucket = new Bucket();
+		long now = 1_000 * SECOND;
+
+		for (int i = 0; i < 5; i++) {
+			assertEquals(0, bucket.tryAcquire(limit, now), "pedido " + (i + 1));
+		}
+		assertEquals(12 * SECOND, bucket.tryAcquire(limit, now));
+		assertEquals(2 * SECOND, bucket.tryAcquire(limit, now + 10 * SECOND));
+	}
+
+	@Test
+	void bucketRecoversOneTokenPerInterval() {
+		Limit limit = Limit.parse("5/1m");
+		Bucket bucket = new Bucket();
+		long now = 1_000 * SECOND;
+		for (int i = 0; i < 5; i++) {
+			bucket.tryAcquire(limit, now);
+		}
+
+		long later = now + 12 * SECOND;
+		assertEquals(0, bucket.tryAcquire(limit, later));
+		assertTrue(bucket.tryAcquire(limit, later) > 0);
+
+		// Después de un período entero sin pedidos vuelve a estar lleno, pero no acumula más que capacity
+		long idle = later + 10 * 60 * SECOND;
+		for (int i = 0; i < 5; i++) {
+			assertEquals(0, bucket.tryAcquire(limit, idle));
+		}
+		assertTrue(bucket.tryAcquire(limit, idle) > 0);
+	}
+
+	@Test
+	void rejectedRequestsDoNotConsumeTokens() {
+		Limit limit = Limit.parse("1/10s");
+		Bucket bucket = new Bucket();
+		long now = 1_000 * SECOND;
+
+		assertEquals(0, bucket.tryAcquire(limit, now));
+		for (int i = 0; i < 100; i++) {
+			assertTrue(bucket.tryAcquire(limit, now + i) > 0);
+		}
+		assertEquals(0, bucket.tryAcquire(limit, now + 10 * SECOND));
+	}
+
+	@Test
+	void concurrentAcquiresNeverExceedTheCapacity() throws Exception {
+		Limit limit = Limit.parse("50/1h");
+		Bucket bucket = new Bucket();
+		long now = 1_000 * SECOND;
+		int threads = 16;
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		CountDownLatch start = new CountDownLatch(1);
+		AtomicInteger granted = new AtomicInteger();
+
+		List<Future<?>> futures = new ArrayList<>();
+		for (int t = 0; t < threads; t++) {
+			futures.add(executor.submit(() -> {
+				start.await();
+				for (int i = 0; i < 100; i++) {
+					if (bucket.tryAcquire(limit, now) == 0) {
+						granted.incrementAndGet();
+					}
+				}
+				return null;
+			}));
+		}
+		start.countDown();
+		for (Future<?> future : futures) {
+			future.get(30, TimeUnit.SECONDS);
+		}
+		executor.shutdown();
+
+		assertEquals(50, granted.get());
+	}
+
+	@Test
+	void bufferedBodyIsReadOnceAndThenFinished() throws IOException {
+		byte[] body = "{\"username\":\"ana\"}".getBytes(StandardCharsets.UTF_8);
+		PrefixedInputStream stream = new PrefixedInputStream(body, null);
+
+		assertFalse(stream.isFinished());
+		assertTrue(stream.isReady());
+		assertArrayEquals(body, stream.readAllBytes());
+		assertTrue(stream.isFinished());
+		assertEquals(-1, stream.read());
+	}
+
+	@Test
+	void remainderIsReadAfterThePrefixAndEofIsTracked() throws IOException {
+		byte[] prefix = "hola ".getBytes(StandardCharsets.UTF_8);
+		ServletInputStream remainder = new DelegatingServletInputStream(
+				new ByteArrayInputStream("mundo".getBytes(StandardCharsets.UTF_8)));
+		PrefixedInputStream stream = new PrefixedInputStream(prefix, remainder);
+
+		byte[] buffer = new byte[3];
+		assertEquals(3, stream.read(buffer, 0, 3));
+		assertFalse(stream.isFinished());
+		assertEquals("hola mundo", "hol" + new String(stream.readAllBytes(), StandardCharsets.UTF_8));
+		assertTrue(stream.isFinished());
+	}
+
+	@Test
+	void readListenerGetsTheBufferedBodyAndAllDataRead() {
+		byte[] body = "{\"email\":\"ana@test.local\"}".getBytes(StandardCharsets.UTF_8);
+		PrefixedInputStream stream = new PrefixedInputStream(body, null);
+		List<String> events = new ArrayList<>();
+		StringBuilder read = new StringBuilder();
+
+		stream.setReadListener(new ReadListener() {
+			@Override
+			public void onDataAvailable() throws IOException {
+				events.add("data");
+				byte[] buffer = new byte[8];
+				int count;
+				while (stream.isReady() && (count = stream.read(buffer)) != -1) {
+					read.append(new String(buffer, 0, count, StandardCharsets.UTF_8));
+				}
+			}
+
+			@Override
+			public void onAllDataRead() {
+				events.add("done");
+			}
+
+			@Override
+			public void onError(Throwable t) {
+				events.add("error");
+			}
+		});
+
+		assertEquals(List.of("data", "done"), events);
+		assertEquals("{\"email\":\"ana@test.local\"}", read.toString());
+	}
+
+	@Test
+	void filterRejectsTheSixthLoginOfAnAccountAndForwardsTheBodyIntact() throws Exception {
+		AuthRateLimitFilter filter = new AuthRateLimitFilter(new ObjectMapper().findAndRegisterModules(),
+				new SimpleMeterRegistry(), new MockEnvironment(), true, 1000);
+		String body = "{\"username\":\"Ana\",\"password\":\"incorrecta\"}";
+
+		for (int i = 0; i < 5; i++) {
+			MockFilterChain chain = new MockFilterChain();
+			MockHttpServletResponse response = new MockHttpServletResponse();
+			filter.doFilter(login(body, "10.0.0." + i), response, chain);
+
+			assertEquals(200, response.getStatus());
+			assertEquals(body, new String(chain.getRequest().getInputStream().readAllBytes(), StandardCharsets.UTF_8));
+		}
+
+		MockFilterChain chain = new MockFilterChain();
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		filter.doFilter(login(body.replace("Ana", " ana "), "10.0.0.99"), response, chain);
+
+		assertEquals(429, response.getStatus());
+		assertNotNull(response.getHeader("Retry-After"));
+		assertNull(chain.getRequest());
+	}
+
+	private static MockHttpServletRequest login(String body, String ip) {
+		MockHttpServletRequest request = new MockHttpServletRequest("POST", "/auth/login");
+		request.setRemoteAddr(ip);
+		request.setContentType("application/json");
+		request.setContent(body.getBytes(StandardCharsets.UTF_8));
+		return request;
+	}
+}
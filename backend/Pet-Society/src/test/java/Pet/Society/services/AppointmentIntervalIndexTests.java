@@ -0,0 +1,183 @@
+package Pet.Society.services;
+
+import Pet.Society.models.dto.appointment.AppointmentIndexFingerprintView;
+import Pet.Society.models.dto.appointment.AppointmentSlotView;
+import Pet.Society.models.entities.AppointmentEntity;
+import Pet.Society.models.entities.DoctorEntity;
+import Pet.Society.models.enums.Status;
+import Pet.Society.repositories.AppointmentRepository;
+import Pet.Society.services.AppointmentIntervalIndex.DoctorSlots;
+import Pet.Society.services.AppointmentIntervalIndex.Slot;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Lógica del índice de citas en memoria: solapamiento por doctor, fotos inmutables y citas canceladas.
+ * No necesita base: el repositorio es un mock.
+ */
+class AppointmentIntervalIndexTests {
+
+	private static final LocalDateTime BASE = LocalDateTime.of(2030, 1, 7, 9, 0);
+
+	// Minutos desde BASE, en la escala de segundos que usa el índice
+	private static long at(int minutes) {
+		return minutes * 60L;
+	}
+
+	private static Slot slot(long id, int startMinutes, int endMinutes, boolean free) {
+		return new Slot(id, 1L, at(startMinutes), at(endMinutes), free, false);
+	}
+
+	private static Slot canceled(long id, int startMinutes, int endMinutes) {
+		return new Slot(id, 1L, at(startMinutes), at(endMinutes), false, true);
+	}
+
+	@Test
+	void adjacentIntervalsDoNotOverlap() {
+		DoctorSlots slots = new DoctorSlots(List.of(slot(1, 0, 30, true), slot(2, 60, 90, true)));
+
+		assertEquals(List.of(), slots.overlappingIds(at(30), at(60), -1));
+		assertEquals(List.of(), slots.overlappingIds(at(90), at(120), -1));
+		assertEquals(List.of(), slots.overlappingIds(at(-30), at(0), -1));
+	}
+
+	@Test
+	void partialAndContainedIntervalsOverlap() {
+		DoctorSlots slots = new DoctorSlots(List.of(slot(1, 0, 30, true), slot(2, 60, 90, true)));
+
+		assertEquals(List.of(1L), slots.overlappingIds(at(20), at(40), -1));
+		assertEquals(List.of(2L), slots.overlappingIds(at(65), at(70), -1));
+		assertEquals(List.of(2L, 1L), slots.overlappingIds(at(-10), at(200), -1));
+	}
+
+	@Test
+	void longEarlierIntervalIsFoundThroughMaxEnd() {
+		// El primero empieza antes pero termina después de los cortos que lo siguen
+		DoctorSlots slots = new DoctorSlots(List.of(
+				slot(1, 0, 240, false), slot(2, 10, 20, true), slot(3, 30, 40, true)));
+
+		assertEquals(List.of(1L), slots.overlappingIds(at(200), at(210), -1));
+		assertEquals(List.of(), slots.overlappingIds(at(240), at(250), -1));
+	}
+
+	@Test
+	void excludedIdIsIgnored() {
+		DoctorSlots slots = new DoctorSlots(List.of(slot(1, 0, 30, true)));
+
+		assertEquals(List.of(), slots.overlappingIds(at(0), at(30), 1));
+		assertEquals(List.of(1L), slots.overlappingIds(at(0), at(30), 2));
+	}
+
+	@Test
+	void unsortedInputIsSortedByStart() {
+		DoctorSlots slots = new DoctorSlots(List.of(slot(3, 120, 150, true), slot(1, 0, 30, true), slot(2, 60, 90, true)));
+
+		assertEquals(List.of(3L, 2L, 1L), slots.overlappingIds(at(0), at(200), -1));
+		assertEquals(List.of(3L), slots.overlappingIds(at(130), at(140), -1));
+	}
+
+	@Test
+	void withReturnsNewSnapshotAndLeavesTheOldOneUntouched() {
+		DoctorSlots before = new DoctorSlots(List.of(slot(1, 0, 30, true)));
+
+		DoctorSlots after = before.with(slot(2, 60, 90, true));
+
+		assertEquals(List.of(), before.overlappingIds(at(60), at(90), -1));
+		assertEquals(List.of(2L), after.overlappingIds(at(60), at(90), -1));
+		assertEquals(List.of(1L), after.overlappingIds(at(0), at(30), -1));
+	}
+
+	@Test
+	void withReplacesTheSlotWithTheSameId() {
+		DoctorSlots slots = new DoctorSlots(List.of(slot(1, 0, 30, true), slot(2, 60, 90, true)));
+
+		// La cita 1 se canceló: sigue en el índice pero ya no ocupa el horario
+		DoctorSlots afterCancel = slots.with(canceled(1, 0, 30));
+
+		assertEquals(List.of(2L), afterCancel.overlappingIds(at(0), at(200), -1));
+		assertEquals(List.of(1L), slots.overlappingIds(at(0), at(30), -1));
+	}
+
+	@Test
+	void canceledAppointmentsDoNotOccupyTheirInterval() {
+		// La cita 1 se canceló y su turno se re-publicó como la 2, en el mismo horario
+		DoctorSlots slots = new DoctorSlots(List.of(canceled(1, 0, 240), slot(2, 0, 240, true), canceled(3, 300, 330)));
+
+		assertEquals(List.of(2L), slots.overlappingIds(at(200), at(210), -1));
+		assertEquals(List.of(), slots.overlappingIds(at(200), at(210), 2));
+		assertEquals(List.of(), slots.overlappingIds(at(300), at(330), -1));
+	}
+
+	@Test
+	void fingerprintMatchesCountIdSumFreeUpcomingAndCanceled() {
+		DoctorSlots slots = new DoctorSlots(List.of(slot(1, 0, 30, true), slot(2, 60, 90, false), slot(3, 120, 150, true)));
+
+		assertTrue(slots.matches(fingerprint(3, 6, 1, 0), at(60)));
+		assertFalse(slots.matches(fingerprint(3, 6, 2, 0), at(60)));
+		assertFalse(slots.matches(fingerprint(2, 6, 1, 0), at(60)));
+		assertFalse(slots.matches(fingerprint(3, 7, 1, 0), at(60)));
+		// Un barrido canceló la 2 sin pasar por el índice
+		assertFalse(slots.matches(fingerprint(3, 6, 1, 1), at(60)));
+	}
+
+	@Test
+	void indexAnswersPerDoctorAfterRebuildAndRecordsWritesOutsideTransactions() {
+		AppointmentRepository repository = mock(AppointmentRepository.class);
+		List<AppointmentSlotView> stored = List.of(
+				view(1, 10, 0, 30, Status.AVAILABLE, null),
+				view(2, 20, 0, 30, Status.TO_BEGIN, 5L));
+		when(repository.findAllSlots()).thenReturn(stored);
+		AppointmentIntervalIndex index = new AppointmentIntervalIndex(repository, new SimpleMeterRegistry());
+		ReflectionTestUtils.setField(index, "enabled", true);
+
+		assertFalse(index.isReady());
+		index.rebuild();
+		assertTrue(index.isReady());
+
+		assertEquals(List.of(1L), index.findOverlappingIds(10, BASE, BASE.plusMinutes(15), null));
+		assertEquals(List.of(), index.findOverlappingIds(10, BASE, BASE.plusMinutes(15), 1L));
+		assertEquals(List.of(), index.findOverlappingIds(30, BASE, BASE.plusMinutes(15), null));
+
+		// Sin transacción activa la escritura se aplica en el momento
+		DoctorEntity doctor = new DoctorEntity();
+		doctor.setId(30);
+		AppointmentEntity created = AppointmentEntity.builder()
+				.id(3).doctor(doctor).status(Status.AVAILABLE)
+				.startDate(BASE.plusHours(1)).endDate(BASE.plusHours(2))
+				.build();
+		index.recordAfterCommit(created);
+
+		assertEquals(List.of(3L), index.findOverlappingIds(30, BASE.plusMinutes(90), BASE.plusMinutes(100), null));
+	}
+
+	private static AppointmentIndexFingerprintView fingerprint(long total, long idSum, long freeUpcoming, long canceled) {
+		AppointmentIndexFingerprintView fingerprint = mock(AppointmentIndexFingerprintView.class);
+		when(fingerprint.getTotal()).thenReturn(total);
+		when(fingerprint.getIdSum()).thenReturn(idSum);
+		when(fingerprint.getFreeUpcoming()).thenReturn(freeUpcoming);
+		when(fingerprint.getCanceled()).thenReturn(canceled);
+		return fingerprint;
+	}
+
+	private static AppointmentSlotView view(long id, long doctorId, int startMinutes, int endMinutes,
+											Status status, Long petId) {
+		AppointmentSlotView view = mock(AppointmentSlotView.class);
+		when(view.getId()).thenReturn(id);
+		when(view.getDoctorId()).thenReturn(doctorId);
+		when(view.getStartDate()).thenReturn(BASE.plusMinutes(startMinutes));
+		when(view.getEndDate()).thenReturn(BASE.plusMinutes(endMinutes));
+		when(view.getStatus()).thenReturn(status);
+		when(view.getPetId()).thenReturn(petId);
+		return view;
+	}
+}
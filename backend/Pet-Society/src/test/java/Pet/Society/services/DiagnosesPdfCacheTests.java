@@ -0,0 +1,197 @@
+package Pet.Society.services;
+
+import Pet.Society.models.dto.diagnoses.DiagnosesDTOResponse;
+import Pet.Society.models.enums.PetType;
+import Pet.Society.models.enums.Reason;
+import Pet.Society.services.DiagnosesPdfCache.CachedPdf;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Caché de PDFs de diagnóstico: hash del contenido (ETag) y los tres niveles (memoria, disco y render).
+ * El generador es un mock que escribe un PDF falso y cuenta cuántas veces se le pidió renderizar.
+ */
+class DiagnosesPdfCacheTests {
+
+	@TempDir
+	Path directory;
+
+	private final DiagnosesPdfGeneratorService generator = mock(DiagnosesPdfGeneratorService.class);
+	private final AtomicInteger renderCalls = new AtomicInteger();
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	private DiagnosesPdfCache cache(long memoryMaxBytes) {
+		doAnswer(invocation -> {
+			DiagnosesDTOResponse diagnosis = invocation.getArgument(0);
+			OutputStream out = invocation.getArgument(1);
+			renderCalls.incrementAndGet();
+			out.write(("%PDF " + diagnosis.getId() + " " + diagnosis.getPetName()).getBytes(StandardCharsets.UTF_8));
+			return null;
+		}).when(generator).generate(any(DiagnosesDTOResponse.class), any(OutputStream.class));
+		return new DiagnosesPdfCache(generator, meterRegistry, memoryMaxBytes, directory.toString());
+	}
+
+	private double tier(String tier) {
+		return meterRegistry.get("diagnoses.pdf.cache.requests").tag("tier", tier).counter().count();
+	}
+
+	@Test
+	void hashDependsOnEveryPrintedField() {
+		DiagnosesDTOResponse base = diagnosis(1, "Firulais");
+		String hash = DiagnosesPdfCache.contentHash(base);
+
+		assertEquals(hash, DiagnosesPdfCache.contentHash(diagnosis(1, "Firulais")));
+		assertEquals(32, hash.length());
+
+		List<DiagnosesDTOResponse> changed = List.of(
+				diagnosis(2, "Firulais"),
+				diagnosis(1, "Manchita"),
+				with(base, d -> d.setDiagnose("Otitis leve")),
+				with(base, d -> d.setTreatment("Gotas cada 8 horas")),
+				with(base, d -> d.setDoctorName("Dra. Gómez")),
+				with(base, d -> d.setAppointmentReason(Reason.VACCINATION)),
+				with(base, d -> d.setDate(base.getDate().plusMinutes(1))));
+		for (DiagnosesDTOResponse other : changed) {
+			assertNotEquals(hash, DiagnosesPdfCache.contentHash(other), other.toString());
+		}
+	}
+
+	@Test
+	void hashSeparatesAdjacentFields() {
+		DiagnosesDTOResponse first = with(diagnosis(1, "Firulais"), d -> {
+			d.setDiagnose("ab");
+			d.setTreatment("c");
+		});
+		DiagnosesDTOResponse second = with(diagnosis(1, "Firulais"), d -> {
+			d.setDiagnose("a");
+			d.setTreatment("bc");
+		});
+
+		assertNotEquals(DiagnosesPdfCache.contentHash(first), DiagnosesPdfCache.contentHash(second));
+	}
+
+	@Test
+	void etagIsTheQuotedHashAndMatchesTheServedPdf() {
+		DiagnosesPdfCache cache = cache(1024 * 1024);
+		DiagnosesDTOResponse diagnosis = diagnosis(1, "Firulais");
+
+		String etag = cache.etag(diagnosis);
+
+		assertEquals("\"" + DiagnosesPdfCache.contentHash(diagnosis) + "\"", etag);
+		assertEquals(etag, cache.get(diagnosis).etag());
+		assertEquals(1, renderCalls.get());
+	}
+
+	@Test
+	void firstRequestRendersThenMemoryServesIt() throws IOException {
+		DiagnosesPdfCache cache = cache(1024 * 1024);
+		DiagnosesDTOResponse diagnosis = diagnosis(1, "Firulais");
+
+		CachedPdf rendered = cache.get(diagnosis);
+		CachedPdf fromMemory = cache.get(diagnosis);
+
+		assertEquals(1, renderCalls.get());
+		assertEquals(1, tier("render"));
+		assertEquals(1, tier("memory"));
+		assertArrayEquals(rendered.content(), fromMemory.content());
+		assertEquals("%PDF 1 Firulais", new String(bytes(fromMemory), StandardCharsets.UTF_8));
+	}
+
+	@Test
+	void diskServesTheFileAfterARestart() throws IOException {
+		DiagnosesDTOResponse diagnosis = diagnosis(1, "Firulais");
+		cache(1024 * 1024).get(diagnosis);
+
+		// Otra instancia sobre el mismo directorio: la memoria arranca vacía
+		CachedPdf fromDisk = cache(1024 * 1024).get(diagnosis);
+
+		assertEquals(1, renderCalls.get());
+		assertEquals(1, tier("disk"));
+		assertNull(fromDisk.content());
+		assertNotNull(fromDisk.file());
+		assertEquals(fromDisk.length(), Files.size(fromDisk.file()));
+		assertEquals("%PDF 1 Firulais", new String(bytes(fromDisk), StandardCharsets.UTF_8));
+	}
+
+	@Test
+	void newVersionReplacesOnlyThatDiagnosisFiles() throws IOException {
+		DiagnosesPdfCache cache = cache(1024 * 1024);
+		cache.get(diagnosis(1, "Firulais"));
+		cache.get(diagnosis(11, "Rocky"));
+
+		cache.get(diagnosis(1, "Manchita"));
+
+		assertEquals(3, renderCalls.get());
+		assertEquals(List.of(DiagnosesPdfCache.contentHash(diagnosis(1, "Manchita")) + ".pdf"), files(directory.resolve("1")));
+		assertEquals(List.of(DiagnosesPdfCache.contentHash(diagnosis(11, "Rocky")) + ".pdf"), files(directory.resolve("11")));
+	}
+
+	@Test
+	void withoutMemoryBudgetEveryRepeatIsADiskHit() {
+		DiagnosesPdfCache cache = cache(0);
+		DiagnosesDTOResponse diagnosis = diagnosis(1, "Firulais");
+
+		cache.get(diagnosis);
+		cache.get(diagnosis);
+		cache.get(diagnosis);
+
+		assertEquals(1, renderCalls.get());
+		assertEquals(2, tier("disk"));
+		assertEquals(0, tier("memory"));
+	}
+
+	private static byte[] bytes(CachedPdf pdf) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		pdf.writeTo(out);
+		return out.toByteArray();
+	}
+
+	private static List<String> files(Path dir) throws IOException {
+		try (Stream<Path> files = Files.list(dir)) {
+			return files.map(file -> file.getFileName().toString()).sorted().toList();
+		}
+	}
+
+	private static DiagnosesDTOResponse with(DiagnosesDTOResponse base, Consumer<DiagnosesDTOResponse> change) {
+		DiagnosesDTOResponse copy = new DiagnosesDTOResponse(base.getId(), base.getDiagnose(), base.getTreatment(),
+				base.getDoctorName(), base.getPetName(), base.getPetType(), base.getOtherType(),
+				base.getAppointmentReason(), base.getDate());
+		change.accept(copy);
+		return copy;
+	}
+
+	private static DiagnosesDTOResponse diagnosis(long id, String petName) {
+		return DiagnosesDTOResponse.builder()
+				.id(id)
+				.diagnose("Otitis")
+				.treatment("Gotas")
+				.doctorName("Dr. Pérez")
+				.petName(petName)
+				.petType(PetType.DOG)
+				.appointmentReason(Reason.CONTROL)
+				.date(LocalDateTime.of(2030, 1, 7, 9, 0))
+				.build();
+	}
+}
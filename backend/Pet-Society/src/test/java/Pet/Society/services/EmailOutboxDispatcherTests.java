@@ -0,0 +1,155 @@
+package Pet.Society.services;
+
+import Pet.Society.models.entities.EmailOutboxEntity;
+import Pet.Society.models.enums.EmailStatus;
+import Pet.Society.repositories.EmailOutboxRepository;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.GreenMailUtil;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.mockito.ArgumentCaptor;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Envío real de la cola de emails contra un servidor SMTP en memoria (GreenMail).
+ * El repositorio es un mock: se prueba el armado de los mensajes, el envío por lote y el registro del resultado.
+ */
+class EmailOutboxDispatcherTests {
+
+	@RegisterExtension
+	static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP.dynamicPort());
+
+	private final EmailOutboxRepository repository = mock(EmailOutboxRepository.class);
+
+	private EmailOutboxDispatcher dispatcher;
+
+	@AfterEach
+	void shutdown() {
+		if (dispatcher != null) {
+			dispatcher.shutdown();
+		}
+	}
+
+	@Test
+	void drainDeliversTheClaimedBatchAndMarksItSent() throws Exception {
+		List<EmailOutboxEntity> batch = List.of(
+				email(1, "ana@test.local", "Verificá tu cuenta", "<p>Hola Ana</p>", "Hola Ana"),
+				email(2, "juan@test.local", "Recuperá tu contraseña", "<p>Hola Juan</p>", null));
+		when(repository.claimDueBatch(anyInt(), anyInt(), anyString(), any(), anyInt())).thenReturn(2, 0);
+		when(repository.findAllByClaimTokenOrderByIdAsc(anyString())).thenReturn(batch);
+		dispatcher = dispatcher(greenMail.getSmtp().getPort());
+
+		assertEquals(2, dispatcher.drain());
+
+		MimeMessage[] received = greenMail.getReceivedMessages();
+		assertEquals(2, received.length);
+		assertEquals("Verificá tu cuenta", received[0].getSubject());
+		assertEquals("ana@test.local", received[0].getAllRecipients()[0].toString());
+		assertTrue(GreenMailUtil.getBody(received[0]).contains("Hola Ana"));
+		assertEquals("Recuperá tu contraseña", received[1].getSubject());
+
+		verify(repository).markSent(eq(List.of(1L, 2L)), eq(EmailStatus.SENT), any(LocalDateTime.class));
+		verify(repository).saveAll(List.of());
+	}
+
+	@Test
+	void unreachableServerSchedulesARetryWithBackoff() {
+		EmailOutboxEntity pending = email(3, "ana@test.local", "Turno confirmado", "<p>Hola</p>", null);
+		when(repository.claimDueBatch(anyInt(), anyInt(), anyString(), any(), anyInt())).thenReturn(1, 0);
+		when(repository.findAllByClaimTokenOrderByIdAsc(anyString())).thenReturn(List.of(pending));
+		// Puerto sin servidor: la conexión se rechaza
+		dispatcher = dispatcher(1);
+
+		LocalDateTime before = LocalDateTime.now().minusDays(1);
+		assertEquals(1, dispatcher.drain());
+
+		assertEquals(EmailStatus.PENDING, pending.getStatus());
+		assertEquals(1, pending.getAttempts());
+		assertTrue(pending.getNextAttemptAt().isAfter(before));
+		assertTrue(pending.getLastError() != null);
+		verify(repository, never()).markSent(any(), any(), any());
+		verify(repository).saveAll(List.of(pending));
+	}
+
+	@Test
+	void lastAttemptMarksTheEmailFailed() {
+		EmailOutboxEntity pending = email(4, "ana@test.local", "Turno confirmado", "<p>Hola</p>", null);
+		pending.setAttempts(5);
+		when(repository.claimDueBatch(anyInt(), anyInt(), anyString(), any(), anyInt())).thenReturn(1, 0);
+		when(repository.findAllByClaimTokenOrderByIdAsc(anyString())).thenReturn(List.of(pending));
+		dispatcher = dispatcher(1);
+
+		dispatcher.drain();
+
+		assertEquals(EmailStatus.FAILED, pending.getStatus());
+		assertEquals(6, pending.getAttempts());
+	}
+
+	@Test
+	void purgeDeletesSentAndFailedOlderThanTheRetention() {
+		dispatcher = dispatcher(greenMail.getSmtp().getPort());
+		ArgumentCaptor<LocalDateTime> cutoff = ArgumentCaptor.forClass(LocalDateTime.class);
+
+		dispatcher.purgeFinished();
+
+		verify(repository).deleteFinishedBefore(eq(List.of(EmailStatus.SENT, EmailStatus.FAILED)), cutoff.capture());
+		// Margen amplio por la diferencia entre la zona de Argentina y la de la máquina
+		LocalDateTime expected = LocalDateTime.now().minusDays(7);
+		assertTrue(cutoff.getValue().isAfter(expected.minusDays(1)) && cutoff.getValue().isBefore(expected.plusDays(1)));
+	}
+
+	private EmailOutboxDispatcher dispatcher(int smtpPort) {
+		JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+		mailSender.setHost("localhost");
+		mailSender.setPort(smtpPort);
+		mailSender.getJavaMailProperties().put("mail.smtp.connectiontimeout", "2000");
+
+		PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+		when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+
+		EmailOutboxDispatcher created = new EmailOutboxDispatcher(repository, mailSender, transactionManager,
+				new SimpleMeterRegistry(), 1);
+		ReflectionTestUtils.setField(created, "fromEmail", "no-reply@petsociety.local");
+		ReflectionTestUtils.setField(created, "enabled", true);
+		ReflectionTestUtils.setField(created, "batchSize", 20);
+		ReflectionTestUtils.setField(created, "maxAttempts", 6);
+		ReflectionTestUtils.setField(created, "backoffInitialMs", 30_000L);
+		ReflectionTestUtils.setField(created, "backoffMaxMs", 3_600_000L);
+		ReflectionTestUtils.setField(created, "retentionDays", 7);
+		return created;
+	}
+
+	private static EmailOutboxEntity email(long id, String recipient, String subject, String html, String text) {
+		return EmailOutboxEntity.builder()
+				.id(id)
+				.recipient(recipient)
+				.subject(subject)
+				.htmlBody(html)
+				.textBody(text)
+				.status(EmailStatus.SENDING)
+				.createdAt(LocalDateTime.now(ZoneId.of("America/Argentina/Buenos_Aires")))
+				.build();
+	}
+}
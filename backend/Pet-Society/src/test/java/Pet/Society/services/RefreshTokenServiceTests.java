@@ -0,0 +1,212 @@
+package Pet.Society.services;
+
+import Pet.Society.models.entities.ClientEntity;
+import Pet.Society.models.entities.CredentialEntity;
+import Pet.Society.models.entities.RefreshTokenEntity;
+import Pet.Society.models.exceptions.InvalidRefreshTokenException;
+import Pet.Society.repositories.RefreshTokenRepository;
+import Pet.Society.services.RefreshTokenService.Rotation;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Rotación de refresh tokens contra un repositorio mock que guarda los tokens en un mapa por hash:
+ * emisión, rotación dentro de la familia, y revocación de la familia ante un reuso.
+ */
+class RefreshTokenServiceTests {
+
+	private final RefreshTokenRepository repository = mock(RefreshTokenRepository.class);
+	private final Map<String, RefreshTokenEntity> byHash = new HashMap<>();
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final RefreshTokenService service = new RefreshTokenService(repository, meterRegistry, 30);
+	private long nextId = 1;
+
+	RefreshTokenServiceTests() {
+		when(repository.save(any(RefreshTokenEntity.class))).thenAnswer(invocation -> {
+			RefreshTokenEntity token = invocation.getArgument(0);
+			token.setId(nextId++);
+			byHash.put(token.getTokenHash(), token);
+			return token;
+		});
+		when(repository.findByTokenHash(anyString())).thenAnswer(invocation ->
+				Optional.ofNullable(byHash.get(invocation.<String>getArgument(0))));
+		when(repository.markUsed(anyLong(), any(LocalDateTime.class))).thenAnswer(invocation -> {
+			long id = invocation.getArgument(0);
+			for (RefreshTokenEntity token : byHash.values()) {
+				if (token.getId() == id && token.getUsedAt() == null && token.getRevokedAt() == null) {
+					token.setUsedAt(invocation.getArgument(1));
+					return 1;
+				}
+			}
+			return 0;
+		});
+		when(repository.revokeFamily(anyString(), any(LocalDateTime.class))).thenAnswer(invocation -> {
+			String familyId = invocation.getArgument(0);
+			int revoked = 0;
+			for (RefreshTokenEntity token : byHash.values()) {
+				if (token.getFamilyId().equals(familyId) && token.getRevokedAt() == null) {
+					token.setRevokedAt(invocation.getArgument(1));
+					revoked++;
+				}
+			}
+			return revoked;
+		});
+	}
+
+	@Test
+	void issueStoresOnlyTheHashWithTheConfiguredTtl() {
+		String raw = service.issue(credential(true, true));
+
+		RefreshTokenEntity stored = byHash.get(sha256(raw));
+		assertEquals(1, byHash.size());
+		assertEquals(64, stored.getTokenHash().length());
+		assertNotEquals(raw, stored.getTokenHash());
+		assertEquals(43, raw.length());
+		assertEquals(stored.getCreatedAt().plusDays(30), stored.getExpiresAt());
+	}
+
+	@Test
+	void rotateMarksTheTokenUsedAndIssuesANewOneInTheSameFamily() {
+		CredentialEntity credential = credential(true, true);
+		String first = service.issue(credential);
+
+		Rotation rotation = service.rotate(first);
+
+		RefreshTokenEntity used = byHash.get(sha256(first));
+		RefreshTokenEntity next = byHash.get(sha256(rotation.refreshToken()));
+		assertSame(credential, rotation.credential());
+		assertNotEquals(first, rotation.refreshToken());
+		assertTrue(used.getUsedAt() != null);
+		assertEquals(used.getFamilyId(), next.getFamilyId());
+		assertEquals(null, next.getUsedAt());
+		assertEquals(1, outcome("rotated"));
+
+		// La cadena sigue: el token nuevo también rota
+		service.rotate(rotation.refreshToken());
+		assertEquals(2, outcome("rotated"));
+	}
+
+	@Test
+	void reusingARotatedTokenRevokesTheWholeFamily() {
+		CredentialEntity credential = credential(true, true);
+		String stolen = service.issue(credential);
+		String current = service.rotate(stolen).refreshToken();
+		String otherSession = service.issue(credential);
+
+		assertThrows(InvalidRefreshTokenException.class, () -> service.rotate(stolen));
+
+		String family = byHash.get(sha256(stolen)).getFamilyId();
+		verify(repository).revokeFamily(eq(family), any(LocalDateTime.class));
+		assertTrue(byHash.get(sha256(current)).getRevokedAt() != null);
+		assertEquals(null, byHash.get(sha256(otherSession)).getRevokedAt());
+		assertEquals(1, outcome("reused"));
+
+		// El dueño legítimo tampoco puede seguir con el token que tenía
+		assertThrows(InvalidRefreshTokenException.class, () -> service.rotate(current));
+		assertEquals(1, outcome("revoked"));
+	}
+
+	@Test
+	void losingTheRaceOnMarkUsedIsTreatedAsReuse() {
+		String raw = service.issue(credential(true, true));
+		// Otro refresh concurrente marcó el token entre la lectura y el update
+		when(repository.markUsed(anyLong(), any(LocalDateTime.class))).thenReturn(0);
+
+		assertThrows(InvalidRefreshTokenException.class, () -> service.rotate(raw));
+
+		assertTrue(byHash.get(sha256(raw)).getRevokedAt() != null);
+		assertEquals(1, byHash.size());
+		assertEquals(1, outcome("reused"));
+	}
+
+	@Test
+	void revokedExpiredAndUnknownTokensAreRejectedWithoutRotating() {
+		String loggedOut = service.issue(credential(true, true));
+		service.revoke(loggedOut);
+		String expired = service.issue(credential(true, true));
+		byHash.get(sha256(expired)).setExpiresAt(LocalDateTime.now(ZoneId.of("America/Argentina/Buenos_Aires")).minusMinutes(1));
+
+		assertThrows(InvalidRefreshTokenException.class, () -> service.rotate(loggedOut));
+		assertThrows(InvalidRefreshTokenException.class, () -> service.rotate(expired));
+		assertThrows(InvalidRefreshTokenException.class, () -> service.rotate("desconocido"));
+		assertThrows(InvalidRefreshTokenException.class, () -> service.rotate(" "));
+		assertThrows(InvalidRefreshTokenException.class, () -> service.rotate(null));
+
+		verify(repository, never()).markUsed(anyLong(), any(LocalDateTime.class));
+		assertEquals(1, outcome("revoked"));
+		assertEquals(1, outcome("expired"));
+		assertEquals(3, outcome("invalid"));
+		assertEquals(0, outcome("rotated"));
+	}
+
+	@Test
+	void disabledOrUnverifiedUsersLoseTheSession() {
+		String unsubscribed = service.issue(credential(false, true));
+		String unverified = service.issue(credential(true, false));
+
+		assertThrows(InvalidRefreshTokenException.class, () -> service.rotate(unsubscribed));
+		assertThrows(InvalidRefreshTokenException.class, () -> service.rotate(unverified));
+
+		assertTrue(byHash.get(sha256(unsubscribed)).getRevokedAt() != null);
+		assertTrue(byHash.get(sha256(unverified)).getRevokedAt() != null);
+		assertEquals(2, outcome("disabled"));
+	}
+
+	@Test
+	void revokeAllAndPurgeDelegateToTheRepository() {
+		ArgumentCaptor<LocalDateTime> cutoff = ArgumentCaptor.forClass(LocalDateTime.class);
+
+		service.revokeAll(7);
+		service.purgeExpired();
+
+		verify(repository).revokeAllOfCredential(eq(7L), any(LocalDateTime.class));
+		verify(repository).deleteExpiredBefore(cutoff.capture());
+		LocalDateTime now = LocalDateTime.now(ZoneId.of("America/Argentina/Buenos_Aires"));
+		assertTrue(cutoff.getValue().isAfter(now.minusMinutes(1)) && !cutoff.getValue().isAfter(now));
+	}
+
+	private double outcome(String outcome) {
+		return meterRegistry.get("auth.refresh").tag("outcome", outcome).counter().count();
+	}
+
+	private static CredentialEntity credential(boolean subscribed, boolean emailVerified) {
+		ClientEntity user = ClientEntity.builder()
+				.name("Ana")
+				.subscribed(subscribed)
+				.emailVerified(emailVerified)
+				.build();
+		return CredentialEntity.builder().id(1).username("ana").user(user).build();
+	}
+
+	private static String sha256(String raw) {
+		try {
+			return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(raw.getBytes(StandardCharsets.UTF_8)));
+		} catch (Exception e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -0,0 +1,157 @@
+package Pet.Society.services;
+
+import Pet.Society.models.dto.register.UserUniqueKeysView;
+import Pet.Society.models.entities.CredentialEntity;
+import Pet.Society.repositories.CredentialRepository;
+import Pet.Society.repositories.UserRepository;
+import Pet.Society.services.RegistrationUniquenessIndex.BloomFilter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Índice de datos de registro: el filtro de Bloom (sin falsos negativos y con la tasa de falsos positivos
+ * pedida), la normalización de valores y las altas que llegan durante una reconstrucción.
+ */
+class RegistrationUniquenessIndexTests {
+
+	@Test
+	void bloomFilterHasNoFalseNegatives() {
+		BloomFilter filter = BloomFilter.create(20_000, 0.01);
+		Random random = new Random(42);
+		String[] values = new String[20_000];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = "usuario" + random.nextLong();
+			filter.put(values[i]);
+		}
+
+		for (String value : values) {
+			assertTrue(filter.mightContain(value), value);
+		}
+	}
+
+	@Test
+	void bloomFilterFalsePositiveRateStaysWithinBound() {
+		double expectedRate = 0.01;
+		BloomFilter filter = BloomFilter.create(10_000, expectedRate);
+		for (int i = 0; i < 10_000; i++) {
+			filter.put("registrado-" + i + "@mail.com");
+		}
+
+		int falsePositives = 0;
+		int probes = 200_000;
+		for (int i = 0; i < probes; i++) {
+			if (filter.mightContain("nuevo-" + i + "@mail.com")) {
+				falsePositives++;
+			}
+		}
+
+		// Con la cantidad de inserciones prevista la tasa real ronda la pedida; se deja margen para la varianza
+		double rate = (double) falsePositives / probes;
+		assertTrue(rate < expectedRate * 1.5, "Tasa de falsos positivos: " + rate);
+	}
+
+	@Test
+	void bloomFilterSizeFollowsTheExpectedInsertions() {
+		BloomFilter small = BloomFilter.create(10_000, 0.01);
+		BloomFilter large = BloomFilter.create(100_000, 0.01);
+
+		// ~9.6 bits por elemento para 1%
+		assertEquals(12_000, small.sizeInBytes(), 200);
+		assertEquals(10 * small.sizeInBytes(), large.sizeInBytes(), 200);
+		assertTrue(BloomFilter.create(1, 0.01).sizeInBytes() >= 8);
+	}
+
+	@Test
+	void normalizeFoldsCaseAccentsAndSurroundingSpaces() {
+		assertEquals("jose@mail.com", RegistrationUniquenessIndex.normalize("  José@Mail.COM "));
+		assertEquals("nandu", RegistrationUniquenessIndex.normalize("Ñandú"));
+		assertEquals("muller", RegistrationUniquenessIndex.normalize("MÜLLER"));
+		assertEquals("ana maria", RegistrationUniquenessIndex.normalize("Ana María"));
+		assertEquals("1133334444", RegistrationUniquenessIndex.normalize("1133334444"));
+		assertEquals(RegistrationUniquenessIndex.normalize("Lucía"), RegistrationUniquenessIndex.normalize("LUCIA"));
+	}
+
+	@Test
+	void absentValuesSkipTheDatabaseAndHitsAreConfirmed() {
+		CredentialRepository credentials = mock(CredentialRepository.class);
+		UserRepository users = mock(UserRepository.class);
+		List<UserUniqueKeysView> keys = List.of(userKeys("30111222", "Ana@Mail.com", "1133334444"));
+		when(credentials.findAllUsernames()).thenReturn(List.of("ana"));
+		when(users.findAllUniqueKeys()).thenReturn(keys);
+		when(credentials.existsByUsername("ANA")).thenReturn(true);
+		when(users.existsByEmail("ana@mail.com")).thenReturn(true);
+		RegistrationUniquenessIndex index = index(credentials, users);
+
+		index.rebuild();
+
+		assertFalse(index.usernameTaken("juan"));
+		assertFalse(index.dniTaken("40999888"));
+		verify(credentials, never()).existsByUsername("juan");
+		verify(users, never()).existsByDni(anyString());
+
+		assertTrue(index.usernameTaken("ANA"));
+		assertTrue(index.emailTaken("ana@mail.com"));
+	}
+
+	@Test
+	void registrationDuringARebuildIsNotLost() {
+		CredentialRepository credentials = mock(CredentialRepository.class);
+		UserRepository users = mock(UserRepository.class);
+		RegistrationUniquenessIndex index = index(credentials, users);
+		when(users.findAllUniqueKeys()).thenReturn(List.of());
+		// El registro confirma después de que la carga ya leyó la tabla de credenciales
+		when(credentials.findAllUsernames()).thenAnswer(invocation -> {
+			index.recordCredential(CredentialEntity.builder().username("nuevo").build());
+			return List.of("ana");
+		});
+		when(credentials.existsByUsername("nuevo")).thenReturn(true);
+
+		index.rebuild();
+
+		assertTrue(index.usernameTaken("nuevo"));
+		verify(credentials).existsByUsername("nuevo");
+	}
+
+	@Test
+	void failedRebuildKeepsThePreviousFilters() {
+		CredentialRepository credentials = mock(CredentialRepository.class);
+		UserRepository users = mock(UserRepository.class);
+		when(credentials.findAllUsernames()).thenReturn(List.of("ana"));
+		when(users.findAllUniqueKeys()).thenReturn(List.of());
+		RegistrationUniquenessIndex index = index(credentials, users);
+		index.rebuild();
+
+		when(credentials.findAllUsernames()).thenThrow(new IllegalStateException("sin base"));
+		index.runScheduledRebuild();
+
+		assertFalse(index.usernameTaken("juan"));
+		verify(credentials, never()).existsByUsername("juan");
+	}
+
+	private static RegistrationUniquenessIndex index(CredentialRepository credentials, UserRepository users) {
+		RegistrationUniquenessIndex index = new RegistrationUniquenessIndex(credentials, users, new SimpleMeterRegistry(), 0.01);
+		ReflectionTestUtils.setField(index, "enabled", true);
+		return index;
+	}
+
+	private static UserUniqueKeysView userKeys(String dni, String email, String phone) {
+		UserUniqueKeysView view = mock(UserUniqueKeysView.class);
+		when(view.getDni()).thenReturn(dni);
+		when(view.getEmail()).thenReturn(email);
+		when(view.getPhone()).thenReturn(phone);
+		return view;
+	}
+}
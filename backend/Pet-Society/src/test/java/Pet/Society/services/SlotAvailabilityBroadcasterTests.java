@@ -0,0 +1,203 @@
+package Pet.Society.services;
+
+import Pet.Society.models.dto.appointment.AvailableAppointmentDTO;
+import Pet.Society.models.dto.appointment.SlotAvailabilityMessage;
+import Pet.Society.models.enums.Reason;
+import Pet.Society.models.enums.SlotChange;
+import Pet.Society.models.events.SlotAvailabilityEvent;
+import Pet.Society.repositories.AppointmentRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Difusión del stream de turnos libres sin servidor: los emitters graban lo que se les envía.
+ * Se prueba que cada conexión arma su propio evento, que el snapshot sale antes que los cambios
+ * y que un cliente que no lee se corta sin frenar a los demás.
+ */
+class SlotAvailabilityBroadcasterTests {
+
+	private static final LocalDate DAY = LocalDate.of(2026, 11, 2);
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final List<RecordingEmitter> nextEmitters = new ArrayList<>();
+
+	private SlotAvailabilityBroadcaster broadcaster;
+
+	@BeforeEach
+	void setUp() {
+		broadcaster = new SlotAvailabilityBroadcaster(mock(AppointmentRepository.class), meterRegistry) {
+			@Override
+			SseEmitter createEmitter() {
+				return nextEmitters.isEmpty() ? new RecordingEmitter() : nextEmitters.remove(0);
+			}
+		};
+		ReflectionTestUtils.setField(broadcaster, "maxSubscribers", 100);
+		ReflectionTestUtils.setField(broadcaster, "maxPerClient", 10);
+		ReflectionTestUtils.setField(broadcaster, "maxPending", 4);
+	}
+
+	@AfterEach
+	void shutdown() {
+		broadcaster.shutdown();
+	}
+
+	@Test
+	void oneChangeReachesEverySubscriberWithItsOwnEvent() throws Exception {
+		List<RecordingEmitter> emitters = new ArrayList<>();
+		for (int i = 0; i < 3; i++) {
+			emitters.add((RecordingEmitter) broadcaster.subscribe(Reason.CONTROL, DAY, "10.0.0." + i,
+					() -> List.of(slot(1, DAY), slot(2, DAY))));
+		}
+		RecordingEmitter otherDay = (RecordingEmitter) broadcaster.subscribe(Reason.CONTROL, DAY.plusDays(1), "10.0.0.9",
+				() -> List.of(slot(3, DAY.plusDays(1))));
+
+		broadcaster.onSlotAvailabilityChanged(SlotAvailabilityEvent.booked(slot(1, DAY)));
+		broadcaster.onSlotAvailabilityChanged(SlotAvailabilityEvent.booked(slot(3, DAY.plusDays(1))));
+
+		for (RecordingEmitter emitter : emitters) {
+			Sent snapshot = emitter.next();
+			assertEquals(SlotChange.SNAPSHOT, snapshot.message().getChange());
+			assertEquals("event:snapshot\ndata:\n\n", snapshot.text());
+			Sent booked = emitter.next();
+			assertEquals(SlotChange.BOOKED, booked.message().getChange());
+			assertEquals(1L, booked.message().getSlots().get(0).getAppointmentId());
+			// Con un builder compartido el texto se acumulaba entre conexiones
+			assertEquals("event:booked\ndata:\n\n", booked.text());
+		}
+		assertEquals(SlotChange.SNAPSHOT, otherDay.next().message().getChange());
+		assertEquals(3L, otherDay.next().message().getSlots().get(0).getAppointmentId());
+	}
+
+	@Test
+	void aChangeCommittedWhileReadingTheSnapshotArrivesAfterIt() throws Exception {
+		RecordingEmitter emitter = (RecordingEmitter) broadcaster.subscribe(Reason.CONTROL, DAY, "10.0.0.1", () -> {
+			broadcaster.onSlotAvailabilityChanged(SlotAvailabilityEvent.booked(slot(1, DAY)));
+			return List.of(slot(2, DAY));
+		});
+
+		assertEquals(SlotChange.SNAPSHOT, emitter.next().message().getChange());
+		Sent booked = emitter.next();
+		assertEquals(SlotChange.BOOKED, booked.message().getChange());
+		assertEquals(1L, booked.message().getSlots().get(0).getAppointmentId());
+	}
+
+	@Test
+	void aSlowSubscriberIsClosedWithoutDelayingTheOthers() throws Exception {
+		RecordingEmitter slow = new RecordingEmitter();
+		slow.blockSends();
+		nextEmitters.add(slow);
+		broadcaster.subscribe(Reason.CONTROL, DAY, "10.0.0.1", List::of);
+		RecordingEmitter fast = (RecordingEmitter) broadcaster.subscribe(Reason.CONTROL, DAY, "10.0.0.2", List::of);
+		assertEquals(SlotChange.SNAPSHOT, fast.next().message().getChange());
+
+		// El lento queda trabado en el snapshot: con max-pending 4 el quinto cambio lo desborda
+		for (long id = 1; id <= 5; id++) {
+			broadcaster.onSlotAvailabilityChanged(SlotAvailabilityEvent.booked(slot(id, DAY)));
+			assertEquals(id, fast.next().message().getSlots().get(0).getAppointmentId());
+		}
+
+		assertTrue(slow.completed.await(5, TimeUnit.SECONDS));
+		assertEquals(1.0, meterRegistry.get("appointments.stream.dropped").tag("reason", "slow").counter().count());
+		assertEquals(1.0, meterRegistry.get("appointments.stream.subscribers").gauge().value());
+		slow.unblockSends();
+		assertEquals(SlotChange.SNAPSHOT, slow.next().message().getChange());
+		assertEquals(null, slow.sent.poll(200, TimeUnit.MILLISECONDS));
+	}
+
+	@Test
+	void anUnexpectedSendErrorClosesTheConnection() throws Exception {
+		RecordingEmitter failing = new RecordingEmitter();
+		failing.failure = new IllegalArgumentException("conversión");
+		nextEmitters.add(failing);
+		broadcaster.subscribe(Reason.CONTROL, DAY, "10.0.0.1", List::of);
+
+		assertTrue(failing.completed.await(5, TimeUnit.SECONDS));
+		assertEquals(0.0, meterRegistry.get("appointments.stream.subscribers").gauge().value());
+	}
+
+	private static AvailableAppointmentDTO slot(long id, LocalDate day) {
+		LocalDateTime start = day.atTime(9, 0).plusMinutes(30 * id);
+		return AvailableAppointmentDTO.builder()
+				.appointmentId(id)
+				.startTime(start)
+				.endTime(start.plusMinutes(30))
+				.reason(Reason.CONTROL)
+				.build();
+	}
+
+	private record Sent(String text, SlotAvailabilityMessage message) {
+	}
+
+	// Graba cada evento como lo armó el broadcaster; el texto deja afuera el mensaje, que va como objeto
+	private static final class RecordingEmitter extends SseEmitter {
+		private final BlockingQueue<Sent> sent = new LinkedBlockingQueue<>();
+		private final CountDownLatch completed = new CountDownLatch(1);
+		private volatile CountDownLatch gate;
+		private volatile RuntimeException failure;
+
+		void blockSends() {
+			gate = new CountDownLatch(1);
+		}
+
+		void unblockSends() {
+			gate.countDown();
+		}
+
+		Sent next() throws InterruptedException {
+			Sent next = sent.poll(5, TimeUnit.SECONDS);
+			assertNotNull(next, "No llegó el mensaje esperado");
+			return next;
+		}
+
+		@Override
+		public void send(SseEventBuilder builder) throws IOException {
+			if (failure != null) {
+				throw failure;
+			}
+			StringBuilder text = new StringBuilder();
+			SlotAvailabilityMessage message = null;
+			for (DataWithMediaType part : builder.build()) {
+				if (part.getData() instanceof SlotAvailabilityMessage data) {
+					message = data;
+				} else {
+					text.append(part.getData());
+				}
+			}
+			CountDownLatch current = gate;
+			if (current != null) {
+				try {
+					current.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new IOException(e);
+				}
+			}
+			sent.add(new Sent(text.toString(), message));
+		}
+
+		@Override
+		public synchronized void complete() {
+			super.complete();
+			completed.countDown();
+		}
+	}
+}
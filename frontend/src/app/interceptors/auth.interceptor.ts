@@ -1,20 +1,21 @@
-import { HttpInterceptorFn } from '@angular/common/http';
+import { HttpErrorResponse, HttpInterceptorFn, HttpRequest } from '@angular/common/http';
 import { inject } from '@angular/core';
 import { Router } from '@angular/router';
-import { catchError } from 'rxjs/operators';
+import { catchError, switchMap } from 'rxjs/operators';
 import { throwError } from 'rxjs';
 import { AuthService } from '../services/auth/auth.service';
 
 /**
  * Interceptor que agrega automáticamente el token JWT a todas las peticiones HTTP
- * y maneja errores de autenticación (401, token expirado, etc.)
+ * y maneja errores de autenticación (401, token expirado, etc.).
+ * Ante un 401 renueva el token con el refresh token y reintenta la petición una sola vez.
  */
 export const authInterceptor: HttpInterceptorFn = (req, next) => {
   const authService = inject(AuthService);
   const router = inject(Router);
 
-  // Rutas públicas que NO requieren token
-  const publicRoutes = ['/auth/login', '/register/new/client', '/register/new/admin', '/register/new/doctor'];
+  // Rutas públicas que NO requieren token (refresh y logout se autentican con el refresh token del body)
+  const publicRoutes = ['/auth/login', '/auth/refresh', '/auth/logout', '/register/new/client', '/register/new/admin', '/register/new/doctor'];
   const isPublicRoute = publicRoutes.some(route => req.url.includes(route));
 
   // Si es una ruta pública, no agregar el token
@@ -30,25 +31,39 @@ export const authInterceptor: HttpInterceptorFn = (req, next) => {
     return next(req);
   }
 
-  // Clonar la request y agregar el header Authorization
-  const clonedRequest = req.clone({
+  const withToken = (request: HttpRequest<unknown>, jwt: string) => request.clone({
     setHeaders: {
-      Authorization: `Bearer ${token}`
+      Authorization: `Bearer ${jwt}`
     }
   });
 
+  // Limpia la sesión y manda al login
+  const endSession = (error: unknown) => {
+    authService.logout();
+    router.navigate(['/login']);
+    return throwError(() => error);
+  };
+
   // Enviar la petición y manejar errores
-  return next(clonedRequest).pipe(
+  return next(withToken(req, token)).pipe(
     catchError((error) => {
-      // Si el token expiró o es inválido (401 Unauthorized)
-      if (error.status === 401) {
-        // Limpiar datos de autenticación
-        authService.logout();
-        // Redirigir al login
-        router.navigate(['/login']);
+      // Otros errores: re-lanzar para que el componente los maneje
+      if (!(error instanceof HttpErrorResponse) || error.status !== 401) {
+        return throwError(() => error);
+      }
+      // Sin refresh token no hay forma de renovar la sesión
+      if (!authService.getRefreshToken()) {
+        return endSession(error);
       }
-      // Re-lanzar el error para que el componente lo maneje
-      return throwError(() => error);
+      // Token vencido o inválido: pedir uno nuevo y reintentar; si el reintento vuelve a dar 401 se cierra la sesión
+      return authService.refreshSession().pipe(
+        catchError(() => endSession(error)),
+        switchMap(newToken => next(withToken(req, newToken)).pipe(
+          catchError((retryError) => retryError instanceof HttpErrorResponse && retryError.status === 401
+            ? endSession(retryError)
+            : throwError(() => retryError))
+        ))
+      );
     })
   );
 };
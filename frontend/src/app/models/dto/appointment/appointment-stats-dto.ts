@@ -0,0 +1,10 @@
+import { AppointmentResponseDTO } from './appointment-response-dto';
+
+/** Números del panel del admin, contados en el backend (hora de Argentina). */
+export interface AppointmentStatsDTO {
+  canceledThisMonth: number;
+  successfulThisMonth: number;
+  toBeginToday: number;
+  approvedToBegin: number;
+  nextAppointments: AppointmentResponseDTO[];
+}
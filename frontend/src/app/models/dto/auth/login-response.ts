@@ -1,4 +1,6 @@
 export interface LoginResponse {
     token: string;
     id: number;
+    // Se cambia por un token nuevo en /auth/refresh; cada uno sirve una sola vez
+    refreshToken?: string;
 }
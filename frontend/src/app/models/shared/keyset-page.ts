@@ -0,0 +1,12 @@
+// Página por cursor del backend: nextCursor se manda como 'after' para pedir la siguiente; null cuando no hay más
+export interface KeysetPage<T> {
+  content: T[];
+  nextCursor: number | null;
+  hasNext: boolean;
+}
+
+export interface HistoryPageFilters {
+  status?: string;
+  petId?: number;
+  reason?: string;
+}
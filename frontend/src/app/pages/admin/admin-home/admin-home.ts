@@ -4,7 +4,6 @@ import { CommonModule } from '@angular/common';
 import { Chart, registerables } from 'chart.js';
 import { AppointmentService } from '../../../services/appointment/appointment.service';
 import { AppointmentResponseDTO } from '../../../models/dto/appointment/appointment-response-dto';
-import { Status } from '../../../models/enums/status.enum';
 import { map, Observable } from 'rxjs';
 
 Chart.register(...registerables);
@@ -42,11 +41,7 @@ export class AdminHome implements OnInit {
   
 
     ngOnInit(): void {
-        this.getAllCanceledAppointmentsByMonth();
-        this.getAllAppointmentsForToday();
-        this.getAllSuccessfulAppointmentsByMonth();
-        this.getNextAppointmentToBegin();
-        this.getPaidAppointments();
+        this.loadStats();
     }
 
 toggleCharts(): void {
@@ -117,24 +112,6 @@ toggleChartType() {
   this.createBarChart();
 }
     
-   getAllCanceledAppointmentsByMonth(): void {
-    this.appointmentService.getAllAppointments().subscribe({
-    next: (data) => {
-      const currentMonth = new Date().getMonth();
-      const canceledThisMonth = data.filter(
-        a =>
-          a.status === Status.CANCELED &&
-          new Date(a.startTime).getMonth() === currentMonth
-      ).length;
-
-      this.canceledAppointments = canceledThisMonth;
-    },
-    error: (err) => {
-      console.error('Error al cargar las citas', err);
-    }
-  });
-  }
-
 createLineChart() {
 
   this.lineChart?.destroy();
@@ -195,100 +172,21 @@ createLineChart() {
 }
   
 
- getAllAppointmentsForToday(): void {
-  this.appointmentService.getAllAppointments().subscribe({
-    next: (data) => {
-      const today = new Date();
-
-      // Citas "por comenzar" (TO_BEGIN) del día de la fecha
-      const appointmentsToday = data.filter(a => {
-        const appointmentDate = new Date(a.startTime);
-        return (
-          a.status === Status.TO_BEGIN &&
-          appointmentDate.getDate() === today.getDate() &&
-          appointmentDate.getMonth() === today.getMonth() &&
-          appointmentDate.getFullYear() === today.getFullYear()
-        );
-      }).length;
-
-      this.appointmentsForToday = appointmentsToday;
-    },
-    error: (err) => {
-      console.error('Error al cargar las citas de hoy', err);
-    }
-  });
-}
-
-getAllSuccessfulAppointmentsByMonth(): void {
-  this.appointmentService.getAllAppointments().subscribe({
-    next: (data) => {
-      const currentDate = new Date();
-      const currentMonth = currentDate.getMonth();
-      const currentYear = currentDate.getFullYear();
-
-      const successfulThisMonth = data.filter(a => {
-        const appointmentDate = new Date(a.startTime);
-        return (
-          a.status === Status.SUCCESSFULLY &&
-          appointmentDate.getMonth() === currentMonth &&
-          appointmentDate.getFullYear() === currentYear
-        );
-      }).length;
-
-      this.petsTreated = successfulThisMonth;
-    },
-    error: (err) => {
-      console.error('Error al cargar las citas exitosas del mes', err);
-    }
-  });
-}
-
-getNextAppointmentToBegin(): void {
-  this.appointmentService.getAllAppointments().subscribe({
-    next: (data) => {
-      const now = new Date();
-
-      // Filtrar citas futuras (excluyendo canceladas) y ordenar por fecha
-      const upcomingAppointments = data
-        .filter(a => {
-          const start = new Date(a.startTime);
-          return (
-            a.status !== Status.CANCELED &&
-            start > now
-          );
-        })
-        .sort(
-          (a, b) =>
-            new Date(a.startTime).getTime() - new Date(b.startTime).getTime()
-        );
-
-      if (upcomingAppointments.length === 0) {
-        this.nextAppointments = [];
-        return;
-      }
-
-      // Obtener la primera cita (la más próxima)
-      const firstAppointment = upcomingAppointments[0];
-      const firstAppointmentTime = new Date(firstAppointment.startTime);
-      
-      // Normalizar la hora para comparar solo fecha y hora (sin segundos/milisegundos)
-      const normalizeTime = (date: Date): string => {
-        return `${date.getFullYear()}-${String(date.getMonth() + 1).padStart(2, '0')}-${String(date.getDate()).padStart(2, '0')} ${String(date.getHours()).padStart(2, '0')}:${String(date.getMinutes()).padStart(2, '0')}`;
-      };
-
-      const firstAppointmentNormalized = normalizeTime(firstAppointmentTime);
-
-      // Agrupar todas las citas que tienen la misma hora de inicio
-      this.nextAppointments = upcomingAppointments.filter(appointment => {
-        const appointmentTime = new Date(appointment.startTime);
-        const appointmentNormalized = normalizeTime(appointmentTime);
-        return appointmentNormalized === firstAppointmentNormalized;
-      });
+// Los números se cuentan en el backend: no se baja la tabla de citas entera
+loadStats(): void {
+  this.appointmentService.getAdminStats().subscribe({
+    next: (stats) => {
+      this.canceledAppointments = stats.canceledThisMonth;
+      this.appointmentsForToday = stats.toBeginToday;
+      this.petsTreated = stats.successfulThisMonth;
+      this.paidAppointments = stats.approvedToBegin;
+      this.nextAppointments = stats.nextAppointments;
     },
     error: (err) => {
-      console.error('Error al cargar la próxima cita', err);
+      console.error('Error al cargar los números del panel', err);
       this.nextAppointments = [];
-    },
+      this.paidAppointments = 0;
+    }
   });
 }
 
@@ -301,23 +199,6 @@ goToAppointmentDetail(appointmentId?: number): void {
   }
 }
 
-getPaidAppointments(): void {
-  this.appointmentService.getAllAppointments().subscribe({
-    next: (data) => {
-      const paidAppointments = data.filter(a => 
-        a.status === Status.TO_BEGIN && 
-        a.aproved === true
-      ).length;
-
-      this.paidAppointments = paidAppointments;
-    },
-    error: (err) => {
-      console.error('Error al cargar las citas pagadas', err);
-      this.paidAppointments = 0;
-    }
-  });
-}
-
 renderChart() {
 
   if (!this.showCharts) return;
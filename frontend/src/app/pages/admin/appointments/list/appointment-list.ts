@@ -36,6 +36,9 @@ export class AppointmentListComponent implements OnInit {
   itemsPerPage: number = 10;
 
   paginatedAppointments: AppointmentResponseDTO[] = [];
+  // Cursor del backend: las citas se bajan de a páginas y los filtros se aplican sobre lo cargado
+  nextCursor: number | null = null;
+  hasMoreItems = false;
 
   constructor(private appointmentService: AppointmentService, private router: Router) {}
 
@@ -79,17 +82,31 @@ export class AppointmentListComponent implements OnInit {
   }
 
   loadAppointments(): void {
+    this.appointments = [];
+    this.nextCursor = null;
+    this.loadNextPage();
+  }
+
+  loadMore(): void {
+    if (this.hasMoreItems && !this.loading) {
+      this.loadNextPage();
+    }
+  }
+
+  loadNextPage(): void {
     this.loading = true;
     this.error = null;
 
-    this.appointmentService.getAllAppointments().subscribe({
-      next: (data: AppointmentResponseDTO[]) => {
+    this.appointmentService.getAllAppointmentsPage(this.nextCursor).subscribe({
+      next: (page) => {
         // Ordenar de la más nueva a la más vieja por startTime
-        this.appointments = data.sort((a: AppointmentResponseDTO, b: AppointmentResponseDTO) => {
+        this.appointments = [...this.appointments, ...page.content].sort((a: AppointmentResponseDTO, b: AppointmentResponseDTO) => {
           const dateA = new Date(a.startTime).getTime();
           const dateB = new Date(b.startTime).getTime();
           return dateB - dateA; // Orden descendente (más nueva primero)
         });
+        this.nextCursor = page.nextCursor;
+        this.hasMoreItems = page.hasNext;
         this.populateFilterArrays();
         this.filterAppointments(); // Initial filter and pagination
         this.loading = false;
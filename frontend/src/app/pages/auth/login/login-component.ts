@@ -115,7 +115,7 @@ export class LoginComponent implements OnInit {
         next: (response) => {
           // Guardar token y userId usando el servicio de autenticación
           // El servicio también decodifica el token y guarda el rol automáticamente
-          this.authService.saveAuthData(response.token, response.id);
+          this.authService.saveAuthData(response.token, response.id, response.refreshToken);
 
           // Obtener el rol guardado por el servicio
           const role = this.authService.getUserRole();
@@ -36,13 +36,15 @@ export class ClientAppointmentsComponent implements OnInit {
   startDate: string = '';
   endDate: string = '';
   
-  // Paginación
+  // Paginación por cursor: se piden páginas al backend con los filtros de estado, mascota y motivo
   itemsPerPage = 12;
-  displayedCount = 0;
+  nextCursor: number | null = null;
   hasMoreItems = false;
+  loading = false;
   
-  // Lista de mascotas únicas para el filtro
+  // Lista de mascotas únicas para el filtro (se acumula a medida que llegan páginas)
   uniquePets: { id: number; name: string }[] = [];
+  private knownPets = new Map<number, string>();
   
   // Modal de diagnóstico
   selectedAppointment: AppointmentHistoryDTO | null = null;
@@ -60,7 +62,16 @@ export class ClientAppointmentsComponent implements OnInit {
     this.loadAppointments();
   }
 
+  /**
+   * Vuelve a la primera página (al entrar o al cambiar un filtro que resuelve el backend)
+   */
   loadAppointments(): void {
+    this.allAppointments = [];
+    this.nextCursor = null;
+    this.loadNextPage();
+  }
+
+  loadNextPage(): void {
     const clientId = this.authService.getUserId();
     if (!clientId) {
       Swal.fire({
@@ -71,13 +82,23 @@ export class ClientAppointmentsComponent implements OnInit {
       return;
     }
 
-    this.appointmentService.getAppointmentsHistoryByClient(clientId).subscribe({
-      next: (appointments) => {
-        this.allAppointments = appointments;
+    this.loading = true;
+    const filters = {
+      status: this.selectedStatus === 'ALL' ? undefined : this.selectedStatus,
+      petId: this.selectedPetId === 'ALL' ? undefined : Number(this.selectedPetId),
+      reason: this.selectedReason === 'ALL' ? undefined : this.selectedReason
+    };
+    this.appointmentService.getAppointmentsHistoryPageByClient(clientId, filters, this.nextCursor, this.itemsPerPage).subscribe({
+      next: (page) => {
+        this.allAppointments = [...this.allAppointments, ...page.content];
+        this.nextCursor = page.nextCursor;
+        this.hasMoreItems = page.hasNext;
+        this.loading = false;
         this.extractUniquePets();
         this.applyFilters();
       },
       error: (error) => {
+        this.loading = false;
         console.error('Error al cargar citas:', error);
         Swal.fire({
           icon: 'error',
@@ -89,23 +110,17 @@ export class ClientAppointmentsComponent implements OnInit {
   }
 
   extractUniquePets(): void {
-    const petsMap = new Map<number, string>();
     this.allAppointments.forEach(appointment => {
-      if (!petsMap.has(appointment.petId)) {
-        petsMap.set(appointment.petId, appointment.petName);
+      if (!this.knownPets.has(appointment.petId)) {
+        this.knownPets.set(appointment.petId, appointment.petName);
       }
     });
-    this.uniquePets = Array.from(petsMap.entries()).map(([id, name]) => ({ id, name }));
+    this.uniquePets = Array.from(this.knownPets.entries()).map(([id, name]) => ({ id, name }));
   }
 
+  // Estado, mascota y motivo ya vienen filtrados del backend; el rango de fechas se aplica sobre lo cargado
   applyFilters(): void {
     this.filteredAppointments = this.allAppointments.filter(appointment => {
-      const statusMatch = this.selectedStatus === 'ALL' || appointment.status === this.selectedStatus;
-      // Convertir selectedPetId a número si no es 'ALL' para comparar correctamente
-      const petMatch = this.selectedPetId === 'ALL' || appointment.petId === Number(this.selectedPetId);
-      const reasonMatch = this.selectedReason === 'ALL' || appointment.reason === this.selectedReason;
-      
-      // Filtro de fecha
       let dateMatch = true;
       if (this.startDate || this.endDate) {
         const appointmentDate = new Date(appointment.startTime);
@@ -128,38 +143,32 @@ export class ClientAppointmentsComponent implements OnInit {
         }
       }
       
-      return statusMatch && petMatch && reasonMatch && dateMatch;
+      return dateMatch;
     });
 
-    this.displayedCount = 0;
-    this.loadMoreItems();
-  }
-
-  loadMoreItems(): void {
-    const endIndex = this.displayedCount + this.itemsPerPage;
-    this.displayedAppointments = this.filteredAppointments.slice(0, endIndex);
-    this.displayedCount = endIndex;
-    this.hasMoreItems = endIndex < this.filteredAppointments.length;
+    this.displayedAppointments = this.filteredAppointments;
   }
 
   loadMore(): void {
-    this.loadMoreItems();
+    if (!this.loading && this.hasMoreItems) {
+      this.loadNextPage();
+    }
   }
 
   onStatusFilterChange(status: Status | 'ALL'): void {
     this.selectedStatus = status;
-    this.applyFilters();
+    this.loadAppointments();
   }
 
   onPetFilterChange(petId: number | string | 'ALL'): void {
     // Convertir a número si no es 'ALL', mantener como 'ALL' si es el caso
     this.selectedPetId = petId === 'ALL' ? 'ALL' : Number(petId);
-    this.applyFilters();
+    this.loadAppointments();
   }
 
   onReasonFilterChange(reason: Reason | 'ALL'): void {
     this.selectedReason = reason;
-    this.applyFilters();
+    this.loadAppointments();
   }
 
   onStartDateChange(date: string): void {
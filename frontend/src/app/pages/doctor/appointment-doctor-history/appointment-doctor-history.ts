@@ -40,14 +40,17 @@ export class AppointmentDoctorHistory implements OnInit, OnDestroy {
   selectedDate: string = '';
   selectedReason: Reason | 'ALL' = 'ALL';
   
-  // Listas únicas para filtros
+  // Listas únicas para filtros (se acumulan a medida que llegan páginas)
   uniquePets: { id: number; name: string }[] = [];
   uniqueClients: string[] = [];
+  private knownPets = new Map<number, string>();
+  private knownClients = new Set<string>();
   
-  // Paginación
+  // Paginación por cursor: se piden páginas al backend con los filtros de mascota y motivo
   itemsPerPage = 12;
-  displayedCount = 0;
+  nextCursor: number | null = null;
   hasMoreItems = false;
+  loading = false;
   
   headerHeight: number = 100; // Valor por defecto
   private resizeListener?: () => void;
@@ -100,14 +103,43 @@ export class AppointmentDoctorHistory implements OnInit, OnDestroy {
       return;
     }
     
-    this.appointmentService.getDoctorAllPastAppointments(userId).subscribe({
-      next: (appointments) => {
-          const mapped = appointments.map(a => mapAppointmentDateToDate(a));
-          this.appointementArray = mapped;
+    this.loadAppointments();
+  }
+
+  /**
+   * Vuelve a la primera página (al entrar, al cambiar un filtro que resuelve el backend o después de un diagnóstico)
+   * @param onLoaded - Se ejecuta cuando llega la página
+   */
+  loadAppointments(onLoaded?: () => void): void {
+    this.appointementArray = [];
+    this.nextCursor = null;
+    this.loadNextPage(onLoaded);
+  }
+
+  loadNextPage(onLoaded?: () => void): void {
+    const userId = this.authService.getUserId();
+    if (userId === null) {
+      return;
+    }
+
+    this.loading = true;
+    const filters = {
+      petId: this.selectedPetId === 'ALL' ? undefined : Number(this.selectedPetId),
+      reason: this.selectedReason === 'ALL' ? undefined : this.selectedReason
+    };
+    this.appointmentService.getDoctorPastAppointmentsPage(userId, filters, this.nextCursor, this.itemsPerPage).subscribe({
+      next: (page) => {
+          const mapped = page.content.map(a => mapAppointmentDateToDate(a));
+          this.appointementArray = [...this.appointementArray, ...mapped];
+          this.nextCursor = page.nextCursor;
+          this.hasMoreItems = page.hasNext;
+          this.loading = false;
           this.extractUniqueValues();
           this.applyFilters();
+          onLoaded?.();
       },
       error: (error) => {
+        this.loading = false;
         console.error('Error cargando citas pasadas del doctor:', error);
         const errorMessage = getFriendlyErrorMessage(error);
         Swal.fire({
@@ -256,13 +288,7 @@ export class AppointmentDoctorHistory implements OnInit, OnDestroy {
         // Recargar las citas para actualizar el estado
         const userId = this.authService.getUserId();
         if (userId !== null) {
-          this.appointmentService.getDoctorAllPastAppointments(userId).subscribe({
-            next: (appointments) => {
-              const mapped = appointments.map(a => mapAppointmentDateToDate(a));
-              this.appointementArray = mapped;
-              this.extractUniqueValues();
-              this.applyFilters();
-              
+          this.loadAppointments(() => {
               // Si el modal de detalles está abierto, actualizar el diagnóstico
               if (this.selectedAppointment && this.selectedAppointment.appointmentId === appointmentId) {
                 // Recargar el diagnóstico
@@ -285,10 +311,6 @@ export class AppointmentDoctorHistory implements OnInit, OnDestroy {
                   });
                 }
               }
-            },
-            error: (error) => {
-              console.error('Error recargando citas:', error);
-            }
           });
         }
       }
@@ -340,28 +362,23 @@ export class AppointmentDoctorHistory implements OnInit, OnDestroy {
   }
 
   extractUniqueValues(): void {
-    // Extraer mascotas únicas
-    const petsMap = new Map<number, string>();
-    const clientsSet = new Set<string>();
-    
+    // Extraer mascotas y clientes únicos; no se reinician al filtrar para que las opciones no desaparezcan
     this.appointementArray.forEach(appointment => {
-      if (!petsMap.has(appointment.petId)) {
-        petsMap.set(appointment.petId, appointment.petName);
+      if (!this.knownPets.has(appointment.petId)) {
+        this.knownPets.set(appointment.petId, appointment.petName);
       }
       if (appointment.clientName) {
-        clientsSet.add(appointment.clientName);
+        this.knownClients.add(appointment.clientName);
       }
     });
     
-    this.uniquePets = Array.from(petsMap.entries()).map(([id, name]) => ({ id, name }));
-    this.uniqueClients = Array.from(clientsSet).sort();
+    this.uniquePets = Array.from(this.knownPets.entries()).map(([id, name]) => ({ id, name }));
+    this.uniqueClients = Array.from(this.knownClients).sort();
   }
 
+  // Mascota y motivo ya vienen filtrados del backend; cliente y fecha se aplican sobre lo cargado
   applyFilters(): void {
     this.filteredAppointments = this.appointementArray.filter(appointment => {
-      // Filtro por mascota
-      const petMatch = this.selectedPetId === 'ALL' || appointment.petId === Number(this.selectedPetId);
-      
       // Filtro por cliente
       const clientMatch = this.selectedClientName === 'ALL' || 
                          appointment.clientName === this.selectedClientName;
@@ -385,37 +402,22 @@ export class AppointmentDoctorHistory implements OnInit, OnDestroy {
         dateMatch = appointmentDateOnly.getTime() === filterDateOnly.getTime();
       }
       
-      // Filtro por motivo
-      const reasonMatch = this.selectedReason === 'ALL' || appointment.reason === this.selectedReason;
-      
-      return petMatch && clientMatch && dateMatch && reasonMatch;
+      return clientMatch && dateMatch;
     });
     
-    // Ordenar por fecha (más reciente primero)
-    this.filteredAppointments.sort((a, b) => {
-      const dateA = new Date(a.startTime).getTime();
-      const dateB = new Date(b.startTime).getTime();
-      return dateB - dateA;
-    });
-    
-    this.displayedCount = 0;
-    this.loadMoreItems();
-  }
-
-  loadMoreItems(): void {
-    const endIndex = this.displayedCount + this.itemsPerPage;
-    this.displayedAppointments = this.filteredAppointments.slice(0, endIndex);
-    this.displayedCount = endIndex;
-    this.hasMoreItems = endIndex < this.filteredAppointments.length;
+    // El backend ya las entrega ordenadas por fecha (más reciente primero)
+    this.displayedAppointments = this.filteredAppointments;
   }
 
   loadMore(): void {
-    this.loadMoreItems();
+    if (!this.loading && this.hasMoreItems) {
+      this.loadNextPage();
+    }
   }
 
   onPetFilterChange(petId: number | string | 'ALL'): void {
     this.selectedPetId = petId === 'ALL' ? 'ALL' : Number(petId);
-    this.applyFilters();
+    this.loadAppointments();
   }
 
   onClientFilterChange(clientName: string | 'ALL'): void {
@@ -429,7 +431,7 @@ export class AppointmentDoctorHistory implements OnInit, OnDestroy {
 
   onReasonFilterChange(reason: Reason | 'ALL'): void {
     this.selectedReason = reason;
-    this.applyFilters();
+    this.loadAppointments();
   }
 
   clearFilters(): void {
@@ -437,7 +439,7 @@ export class AppointmentDoctorHistory implements OnInit, OnDestroy {
     this.selectedClientName = 'ALL';
     this.selectedDate = '';
     this.selectedReason = 'ALL';
-    this.applyFilters();
+    this.loadAppointments();
   }
 
   getReasonOptions(): (Reason | 'ALL')[] {
@@ -4,11 +4,13 @@ import { Observable } from 'rxjs';
 import { AppointmentDTORequest } from '../../models/dto/appointment/appointment-dto-request';
 import { AppointmentResponseDTO } from '../../models/dto/appointment/appointment-response-dto';
 import { AppointmentHistoryDTO } from '../../models/dto/appointment/appointment-history-dto';
+import { AppointmentStatsDTO } from '../../models/dto/appointment/appointment-stats-dto';
 import { AppointmentDto } from '../../models/dto/appointment/appointment-dto';
 import { DoctorAvailabilityDTO } from '../../models/dto/appointment/doctor-availability-dto';
 import { AvailableAppointmentDTO } from '../../models/dto/appointment/available-appointment-dto';
 import { Reason } from '../../models/enums/reason.enum';
 import { Page } from '../../models/shared/page';
+import { HistoryPageFilters, KeysetPage } from '../../models/shared/keyset-page';
 import { AuthService } from '../auth/auth.service';
 
 @Injectable({
@@ -56,8 +58,15 @@ export class AppointmentService {
     return this.http.get<AppointmentResponseDTO[]>(`${this.url}/client/${clientId}`, { headers: this.getAuthHeaders() });
   }
 
-  getAppointmentsHistoryByClient(clientId: number): Observable<AppointmentHistoryDTO[]> {
-    return this.http.get<AppointmentHistoryDTO[]>(`${this.url}/client/${clientId}/history`, { headers: this.getAuthHeaders() });
+  // Historial por cursor: after es el nextCursor de la página anterior (null para la primera)
+  getAppointmentsHistoryPageByClient(
+    clientId: number,
+    filters: HistoryPageFilters = {},
+    after: number | null = null,
+    size = 12
+  ): Observable<KeysetPage<AppointmentHistoryDTO>> {
+    const params = this.historyPageParams(filters, after, size);
+    return this.http.get<KeysetPage<AppointmentHistoryDTO>>(`${this.url}/client/${clientId}/history/page`, { headers: this.getAuthHeaders(), params });
   }
 
   // Métodos para citas por doctor
@@ -78,8 +87,32 @@ export class AppointmentService {
     return this.http.get<Page<AppointmentDto>>(`${this.url}/doctor/${doctorId}`, { params });
   }
 
-  getDoctorAllPastAppointments(doctorId: number): Observable<AppointmentHistoryDTO[]> {
-    return this.http.get<AppointmentHistoryDTO[]>(`${this.url}/pastByDoctor/${doctorId}`, { headers: this.getAuthHeaders() });
+  // Citas pasadas del doctor por cursor: after es el nextCursor de la página anterior (null para la primera)
+  getDoctorPastAppointmentsPage(
+    doctorId: number,
+    filters: HistoryPageFilters = {},
+    after: number | null = null,
+    size = 12
+  ): Observable<KeysetPage<AppointmentHistoryDTO>> {
+    const params = this.historyPageParams(filters, after, size);
+    return this.http.get<KeysetPage<AppointmentHistoryDTO>>(`${this.url}/pastByDoctor/${doctorId}/page`, { headers: this.getAuthHeaders(), params });
+  }
+
+  private historyPageParams(filters: HistoryPageFilters, after: number | null, size: number): HttpParams {
+    let params = new HttpParams().set('size', size.toString());
+    if (after !== null) {
+      params = params.set('after', after.toString());
+    }
+    if (filters.status) {
+      params = params.set('status', filters.status);
+    }
+    if (filters.petId !== undefined) {
+      params = params.set('petId', filters.petId.toString());
+    }
+    if (filters.reason) {
+      params = params.set('reason', filters.reason);
+    }
+    return params;
   }
 
   // Métodos para disponibilidad del doctor
@@ -148,8 +181,16 @@ export class AppointmentService {
   }
 
   // Métodos generales
-  getAllAppointments(): Observable<AppointmentResponseDTO[]> {
-    return this.http.get<AppointmentResponseDTO[]>(`${this.url}/getAll`, { headers: this.getAuthHeaders() });
+  getAllAppointmentsPage(after: number | null = null, size = 100): Observable<KeysetPage<AppointmentResponseDTO>> {
+    let params = new HttpParams().set('size', size.toString());
+    if (after !== null) {
+      params = params.set('after', after.toString());
+    }
+    return this.http.get<KeysetPage<AppointmentResponseDTO>>(`${this.url}/getAll/page`, { headers: this.getAuthHeaders(), params });
+  }
+
+  getAdminStats(): Observable<AppointmentStatsDTO> {
+    return this.http.get<AppointmentStatsDTO>(`${this.url}/stats`, { headers: this.getAuthHeaders() });
   }
 }
 
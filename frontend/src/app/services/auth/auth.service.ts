@@ -1,6 +1,7 @@
 import { Injectable } from '@angular/core';
 import { HttpClient } from '@angular/common/http';
-import { Observable, map } from 'rxjs';
+import { Observable, finalize, map, shareReplay, tap, throwError } from 'rxjs';
+import { LoginResponse } from '../../models/dto/auth/login-response';
 
 @Injectable({
   providedIn: 'root'
@@ -12,20 +13,58 @@ export class AuthService {
   constructor(private http: HttpClient) {}
 
   private readonly TOKEN_KEY = 'token';
+  private readonly REFRESH_TOKEN_KEY = 'refreshToken';
   private readonly USER_ROLE_KEY = 'userRole';
   private readonly USER_ID_KEY = 'userId';
 
+  // Refresh en curso: los pedidos que reciben 401 al mismo tiempo esperan este mismo refresh,
+  // porque cada refresh token sirve una sola vez y reusarlo cierra la sesión
+  private refreshInFlight$: Observable<string> | null = null;
+
   /**
    * Guarda los datos de autenticación después de un login exitoso
    * @param token - El token JWT recibido del backend
    * @param userId - El ID del usuario
+   * @param refreshToken - El refresh token, para renovar el token sin volver a pedir la contraseña
    */
-  saveAuthData(token: string, userId: number): void {
+  saveAuthData(token: string, userId: number, refreshToken?: string): void {
     localStorage.setItem(this.TOKEN_KEY, token);
     localStorage.setItem(this.USER_ID_KEY, userId.toString());
+    if (refreshToken) {
+      localStorage.setItem(this.REFRESH_TOKEN_KEY, refreshToken);
+    }
     this.decodeTokenAndSaveRole(token);
   }
 
+  /**
+   * Obtiene el refresh token guardado en localStorage
+   */
+  getRefreshToken(): string | null {
+    return localStorage.getItem(this.REFRESH_TOKEN_KEY);
+  }
+
+  /**
+   * Cambia el refresh token por un token nuevo (y un refresh token nuevo) y los guarda.
+   * Si ya hay un refresh en curso devuelve ese mismo, así no se usa dos veces el mismo refresh token.
+   * @returns El token JWT nuevo
+   */
+  refreshSession(): Observable<string> {
+    if (this.refreshInFlight$) {
+      return this.refreshInFlight$;
+    }
+    const refreshToken = this.getRefreshToken();
+    if (!refreshToken) {
+      return throwError(() => new Error('No hay refresh token'));
+    }
+    this.refreshInFlight$ = this.http.post<LoginResponse>(`${this.API_URL}/refresh`, { refreshToken }).pipe(
+      tap(response => this.saveAuthData(response.token, response.id, response.refreshToken)),
+      map(response => response.token),
+      finalize(() => this.refreshInFlight$ = null),
+      shareReplay(1)
+    );
+    return this.refreshInFlight$;
+  }
+
   /**
    * Obtiene el token guardado en localStorage
    */
@@ -50,14 +89,14 @@ export class AuthService {
 
   /**
    * Verifica si el usuario está autenticado
-   * Retorna true si hay un token y no está expirado
+   * Retorna true si hay un token y no está expirado, o si está expirado pero se puede renovar con el refresh token
    */
   isAuthenticated(): boolean {
     const token = this.getToken();
     if (!token) {
       return false;
     }
-    return !this.isTokenExpired();
+    return !this.isTokenExpired() || this.getRefreshToken() !== null;
   }
 
   /**
@@ -149,12 +188,18 @@ export class AuthService {
   }
 
   /**
-   * Limpia todos los datos de autenticación (logout)
+   * Limpia todos los datos de autenticación (logout) y cierra la sesión del refresh token en el backend
    */
   logout(): void {
+    const refreshToken = this.getRefreshToken();
     localStorage.removeItem(this.TOKEN_KEY);
+    localStorage.removeItem(this.REFRESH_TOKEN_KEY);
     localStorage.removeItem(this.USER_ROLE_KEY);
     localStorage.removeItem(this.USER_ID_KEY);
+    if (refreshToken) {
+      // Si falla no importa: los datos locales ya se borraron y el refresh token vence solo
+      this.http.post(`${this.API_URL}/logout`, { refreshToken }).subscribe({ error: () => {} });
+    }
   }
 
   /**